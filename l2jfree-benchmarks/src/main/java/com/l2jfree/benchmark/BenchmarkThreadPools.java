@@ -0,0 +1,85 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.l2jfree.util.concurrent.AbstractThreadPoolInitializer;
+import com.l2jfree.util.concurrent.L2ThreadPool;
+
+/**
+ * The thread pools of the benchmarks, sized the same way as the ones of the servers.
+ * 
+ * @author agent
+ */
+public final class BenchmarkThreadPools extends AbstractThreadPoolInitializer
+{
+	private static boolean _initialized;
+	
+	/**
+	 * Initializes {@link L2ThreadPool} once per JVM, as several benchmarks may share the same fork.
+	 */
+	public static synchronized void initialize()
+	{
+		if (_initialized)
+			return;
+		
+		try
+		{
+			L2ThreadPool.initThreadPools(new BenchmarkThreadPools());
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+		
+		_initialized = true;
+	}
+	
+	@Override
+	public void initThreadPool() throws Exception
+	{
+		addScheduledPool(new ScheduledThreadPoolExecutor( //
+				// int corePoolSize
+				Runtime.getRuntime().availableProcessors()));
+		
+		addInstantPool(new ThreadPoolExecutor( //
+				// int corePoolSize
+				Runtime.getRuntime().availableProcessors(),
+				// int maximumPoolSize
+				Integer.MAX_VALUE,
+				// long keepAliveTime
+				60L,
+				// TimeUnit unit
+				TimeUnit.SECONDS,
+				// BlockingQueue<Runnable> workQueue
+				new SynchronousQueue<Runnable>()));
+		
+		addLongRunningPool(new ThreadPoolExecutor( //
+				// int corePoolSize
+				0,
+				// int maximumPoolSize
+				Integer.MAX_VALUE,
+				// long keepAliveTime
+				60L,
+				// TimeUnit unit
+				TimeUnit.SECONDS,
+				// BlockingQueue<Runnable> workQueue
+				new SynchronousQueue<Runnable>()));
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.gameserver;
+
+import com.l2jfree.benchmark.BenchmarkThreadPools;
+import com.l2jfree.gameserver.Config;
+
+/**
+ * Sets up the environment of the game server, for the benchmarks of its world and ID factory.<br>
+ * <br>
+ * Loads the configs from <TT>./config</TT>, and initializes the thread pools and the configured
+ * database, exactly as the game server does - so these benchmarks must be started from the directory
+ * of <TT>l2jfree-core</TT>, and mustn't share a fork with the ones using {@link BenchmarkThreadPools}.
+ * 
+ * @author agent
+ */
+public final class BenchmarkGameServer
+{
+	private static boolean _initialized;
+	
+	/**
+	 * Initializes the game server environment once per JVM, as several benchmarks may share the same
+	 * fork.
+	 */
+	public static synchronized void initialize()
+	{
+		if (_initialized)
+			return;
+		
+		try
+		{
+			// the static initializer of Config does all the work
+			Class.forName(Config.class.getName());
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new Error(e);
+		}
+		
+		_initialized = true;
+	}
+	
+	private BenchmarkGameServer()
+	{
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.gameserver.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.benchmark.gameserver.BenchmarkGameServer;
+import com.l2jfree.gameserver.config.SystemConfig;
+import com.l2jfree.gameserver.util.IdFactory;
+import com.l2jfree.gameserver.util.IdFactory.IdRange;
+import com.l2jfree.gameserver.util.ObjectId;
+
+/**
+ * Allocates and releases object IDs from one and from several threads at once, one by one and in
+ * batches - as objects are spawned and deleted one by one, or in whole groups.<br>
+ * <br>
+ * The quarantine is kept short, as every released ID waits in the queue until it expires.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdFactoryBenchmark
+{
+	private static final int BATCH_SIZE = 64;
+	
+	@State(Scope.Benchmark)
+	public static class Factory
+	{
+		/** Object ID quarantine in milliseconds */
+		@Param({ "0", "100" })
+		public long quarantine;
+		
+		private IdFactory _idFactory;
+		
+		@Setup
+		public void setUp()
+		{
+			BenchmarkGameServer.initialize();
+			
+			SystemConfig.OBJECT_ID_QUARANTINE = quarantine;
+			
+			_idFactory = IdFactory.getInstance();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Batch
+	{
+		private final ObjectId[] _objectIds = new ObjectId[BATCH_SIZE];
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public ObjectId singleThread(Factory factory)
+	{
+		return allocateAndRelease(factory._idFactory);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public ObjectId fourThreads(Factory factory)
+	{
+		return allocateAndRelease(factory._idFactory);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public ObjectId[] fourThreadsBatch(Factory factory, Batch batch)
+	{
+		final ObjectId[] objectIds = batch._objectIds;
+		
+		for (int i = 0; i < objectIds.length; i++)
+			objectIds[i] = factory._idFactory.getNextObjectId(IdRange.ITEMS);
+		
+		for (ObjectId objectId : objectIds)
+			factory._idFactory.releaseObjectId(IdRange.ITEMS, objectId);
+		
+		return objectIds;
+	}
+	
+	private static ObjectId allocateAndRelease(IdFactory idFactory)
+	{
+		final ObjectId objectId = idFactory.getNextObjectId(IdRange.ITEMS);
+		
+		idFactory.releaseObjectId(IdRange.ITEMS, objectId);
+		
+		return objectId;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.gameserver.world;
+
+import com.l2jfree.gameserver.gameobjects.L2Object;
+import com.l2jfree.gameserver.gameobjects.L2StaticObject;
+import com.l2jfree.gameserver.gameobjects.ObjectView;
+import com.l2jfree.gameserver.gameobjects.components.ViewComponent;
+import com.l2jfree.gameserver.templates.L2Template;
+
+/**
+ * The simplest possible visible object, with the default position, known list and movement
+ * components.
+ * 
+ * @author agent
+ */
+@ViewComponent(BenchmarkObject.BenchmarkObjectView.class)
+public final class BenchmarkObject extends L2StaticObject
+{
+	private static final L2Template TEMPLATE = new L2Template() {
+		@Override
+		public int getId()
+		{
+			return 0;
+		}
+	};
+	
+	public static final class BenchmarkObjectView extends ObjectView
+	{
+		public BenchmarkObjectView(L2Object activeChar)
+		{
+			super(activeChar);
+		}
+	}
+	
+	public BenchmarkObject()
+	{
+		super(TEMPLATE);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "BenchmarkObject";
+	}
+	
+	/**
+	 * Removes the object from the world, and releases its object ID.
+	 */
+	public void delete()
+	{
+		if (getPosition().isVisible())
+			getPosition().decay();
+		
+		discard();
+	}
+}
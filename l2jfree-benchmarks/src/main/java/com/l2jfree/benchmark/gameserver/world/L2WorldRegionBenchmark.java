@@ -0,0 +1,155 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.gameserver.world;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.benchmark.gameserver.BenchmarkGameServer;
+import com.l2jfree.gameserver.gameobjects.L2Object;
+import com.l2jfree.gameserver.world.L2World;
+import com.l2jfree.gameserver.world.L2WorldRegion;
+import com.l2jfree.util.ArrayBunch;
+import com.l2jfree.util.concurrent.ForEachExecutable;
+
+/**
+ * Runs the range queries of {@link L2WorldRegion} around the objects spread evenly over a single
+ * region, either into a reused result, into a new array, or visiting the objects in place.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class L2WorldRegionBenchmark
+{
+	/** The lower corner of the populated region */
+	static final int REGION_X = 4 << L2World.SHIFT_BY;
+	static final int REGION_Y = 4 << L2World.SHIFT_BY;
+	static final int REGION_SIZE = 1 << L2World.SHIFT_BY;
+	
+	@State(Scope.Benchmark)
+	public static class World
+	{
+		@Param({ "100", "1000", "5000" })
+		public int objects;
+		
+		@Param({ "500", "2000" })
+		public int radius;
+		
+		private BenchmarkObject[] _objects;
+		
+		@Setup
+		public void setUp()
+		{
+			BenchmarkGameServer.initialize();
+			
+			_objects = spawn(objects);
+		}
+		
+		@TearDown
+		public void tearDown()
+		{
+			delete(_objects);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Query
+	{
+		private final ArrayBunch<L2Object> _result = new ArrayBunch<L2Object>();
+		private final Counter _counter = new Counter();
+		private int _index;
+		
+		private L2Object next(World world)
+		{
+			return world._objects[_index++ % world._objects.length];
+		}
+	}
+	
+	private static final class Counter implements ForEachExecutable<L2Object>
+	{
+		private int _count;
+		
+		@Override
+		public void execute(L2Object obj)
+		{
+			_count++;
+		}
+	}
+	
+	static BenchmarkObject[] spawn(int count)
+	{
+		final Random random = new Random(0);
+		
+		final BenchmarkObject[] objects = new BenchmarkObject[count];
+		
+		for (int i = 0; i < objects.length; i++)
+		{
+			objects[i] = new BenchmarkObject();
+			objects[i].getPosition().spawn(REGION_X + random.nextInt(REGION_SIZE),
+					REGION_Y + random.nextInt(REGION_SIZE), 0);
+		}
+		
+		return objects;
+	}
+	
+	static void delete(BenchmarkObject[] objects)
+	{
+		for (BenchmarkObject object : objects)
+			object.delete();
+	}
+	
+	@Benchmark
+	public int reusedResult(World world, Query query)
+	{
+		query._result.clear();
+		
+		L2WorldRegion.getVisibleObjectsAround(query.next(world), world.radius, query._result);
+		
+		return query._result.size();
+	}
+	
+	@Benchmark
+	public L2Object[] newArray(World world, Query query)
+	{
+		return L2WorldRegion.getVisibleObjectsAround2D(query.next(world), world.radius);
+	}
+	
+	@Benchmark
+	public int inPlace(World world, Query query)
+	{
+		query._counter._count = 0;
+		
+		L2WorldRegion.forEachVisibleObjectAround(query.next(world), world.radius, query._counter);
+		
+		return query._counter._count;
+	}
+}
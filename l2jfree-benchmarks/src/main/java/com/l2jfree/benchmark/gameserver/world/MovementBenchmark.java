@@ -0,0 +1,133 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.gameserver.world;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.benchmark.gameserver.BenchmarkGameServer;
+import com.l2jfree.gameserver.gameobjects.ObjectPosition;
+import com.l2jfree.gameserver.util.MovementController;
+import com.l2jfree.gameserver.world.L2World;
+
+/**
+ * Moves 5,000 objects inside a single region, the same way a tick of {@link MovementController}
+ * does: the coordinates are updated first, then the objects crossing a cell border are handed off.
+ * Most of the moves stay inside the cell, and only bump the version of it.<br>
+ * <br>
+ * The second benchmark also updates the known list of every object afterwards, which looks through
+ * every cell changed since the last update.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark
+{
+	private static final int OBJECTS = 5000;
+	
+	/** Distance covered during a tick by a running character */
+	private static final int STEP = 32;
+	
+	@State(Scope.Benchmark)
+	public static class World
+	{
+		private final Random _random = new Random(0);
+		
+		private BenchmarkObject[] _objects;
+		
+		@Setup
+		public void setUp()
+		{
+			BenchmarkGameServer.initialize();
+			
+			_objects = L2WorldRegionBenchmark.spawn(OBJECTS);
+		}
+		
+		@TearDown
+		public void tearDown()
+		{
+			L2WorldRegionBenchmark.delete(_objects);
+		}
+		
+		private int step(int coord, int regionCoord)
+		{
+			final int min = regionCoord;
+			final int max = regionCoord + L2WorldRegionBenchmark.REGION_SIZE - 1;
+			
+			return Math.max(min, Math.min(max, coord + _random.nextInt(2 * STEP + 1) - STEP));
+		}
+	}
+	
+	@Benchmark
+	public int move(World world)
+	{
+		return tick(world);
+	}
+	
+	@Benchmark
+	public int moveAndUpdateKnownLists(World world)
+	{
+		final int handedOff = tick(world);
+		
+		for (BenchmarkObject object : world._objects)
+		{
+			final ObjectPosition pos = object.getPosition();
+			
+			object.getKnownList().updateSurroundingObjects(pos.getCellView().update(pos.getX(), pos.getY(), false));
+		}
+		
+		return handedOff;
+	}
+	
+	private static int tick(World world)
+	{
+		int handedOff = 0;
+		
+		for (BenchmarkObject object : world._objects)
+		{
+			final ObjectPosition pos = object.getPosition();
+			
+			final int oldCellX = L2World.getCellX(pos.getX());
+			final int oldCellY = L2World.getCellY(pos.getY());
+			
+			pos.setXYZ(world.step(pos.getX(), L2WorldRegionBenchmark.REGION_X),
+					world.step(pos.getY(), L2WorldRegionBenchmark.REGION_Y), pos.getZ());
+			
+			if (oldCellX != L2World.getCellX(pos.getX()) || oldCellY != L2World.getCellY(pos.getY()))
+			{
+				pos.updateWorldPosition();
+				handedOff++;
+			}
+		}
+		
+		return handedOff;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.loginserver;
+
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.benchmark.BenchmarkThreadPools;
+import com.l2jfree.loginserver.config.ThreadPoolConfig;
+import com.l2jfree.loginserver.network.client.L2ClientKeyPair;
+import com.l2jfree.loginserver.network.client.L2ClientSecurity;
+
+/**
+ * Submits a storm of logins at once to the authentication pool of {@link L2ClientSecurity}, and
+ * waits until every credential block is deciphered - either with the per-thread ciphers of the key
+ * pairs, or with a new cipher looked up and initialized for each login, as it was done before.<br>
+ * <br>
+ * Every login deciphers two RSA blocks, like a client sending both the user and the password block.
+ * The account check isn't included, as it depends on the database. The storm fits into the queue of
+ * the pool, so every login is accepted.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoginStormBenchmark
+{
+	private static final int LOGINS = 1000;
+	
+	private static final int BLOCK_SIZE = 128;
+	
+	@State(Scope.Benchmark)
+	public static class Storm
+	{
+		private final L2ClientKeyPair[] _keyPairs = new L2ClientKeyPair[LOGINS];
+		private final byte[][] _blocks = new byte[LOGINS][];
+		
+		private L2ClientSecurity _security;
+		
+		@Setup
+		public void setUp() throws GeneralSecurityException
+		{
+			ThreadPoolConfig.AUTHENTICATION_THREADS = -1;
+			ThreadPoolConfig.AUTHENTICATION_QUEUE_SIZE = LOGINS;
+			
+			BenchmarkThreadPools.initialize();
+			
+			_security = L2ClientSecurity.getInstance();
+			
+			final Random random = new Random(0);
+			
+			for (int i = 0; i < LOGINS; i++)
+			{
+				_keyPairs[i] = _security.getKeyPair();
+				
+				final byte[] block = new byte[BLOCK_SIZE];
+				random.nextBytes(block);
+				
+				// keeps the block below the modulus
+				block[0] = 0;
+				
+				final Cipher rsa = Cipher.getInstance("RSA/ECB/nopadding");
+				rsa.init(Cipher.ENCRYPT_MODE, _keyPairs[i].getPair().getPublic());
+				
+				_blocks[i] = rsa.doFinal(block);
+			}
+		}
+	}
+	
+	private static abstract class Login implements Runnable
+	{
+		private final byte[] _block;
+		private final CountDownLatch _done;
+		private final AtomicInteger _failures;
+		
+		protected Login(byte[] block, CountDownLatch done, AtomicInteger failures)
+		{
+			_block = block;
+			_done = done;
+			_failures = failures;
+		}
+		
+		protected abstract Cipher getDecryptingCipher() throws GeneralSecurityException;
+		
+		@Override
+		public final void run()
+		{
+			try
+			{
+				final Cipher rsa = getDecryptingCipher();
+				
+				rsa.doFinal(_block, 0, BLOCK_SIZE);
+				rsa.doFinal(_block, 0, BLOCK_SIZE);
+			}
+			catch (GeneralSecurityException e)
+			{
+				_failures.incrementAndGet();
+			}
+			finally
+			{
+				_done.countDown();
+			}
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LOGINS)
+	public int perThreadCiphers(Storm storm) throws InterruptedException
+	{
+		final CountDownLatch done = new CountDownLatch(LOGINS);
+		final AtomicInteger failures = new AtomicInteger();
+		
+		for (int i = 0; i < LOGINS; i++)
+		{
+			final L2ClientKeyPair keyPair = storm._keyPairs[i];
+			
+			submit(storm, new Login(storm._blocks[i], done, failures) {
+				@Override
+				protected Cipher getDecryptingCipher() throws GeneralSecurityException
+				{
+					return keyPair.getDecryptingCipher();
+				}
+			}, done, failures);
+		}
+		
+		done.await();
+		
+		return failures.get();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LOGINS)
+	public int perLoginCiphers(Storm storm) throws InterruptedException
+	{
+		final CountDownLatch done = new CountDownLatch(LOGINS);
+		final AtomicInteger failures = new AtomicInteger();
+		
+		for (int i = 0; i < LOGINS; i++)
+		{
+			final L2ClientKeyPair keyPair = storm._keyPairs[i];
+			
+			submit(storm, new Login(storm._blocks[i], done, failures) {
+				@Override
+				protected Cipher getDecryptingCipher() throws GeneralSecurityException
+				{
+					final Cipher rsa = Cipher.getInstance("RSA/ECB/nopadding");
+					rsa.init(Cipher.DECRYPT_MODE, keyPair.getPair().getPrivate());
+					
+					return rsa;
+				}
+			}, done, failures);
+		}
+		
+		done.await();
+		
+		return failures.get();
+	}
+	
+	private static void submit(Storm storm, Login login, CountDownLatch done, AtomicInteger failures)
+	{
+		if (!storm._security.executeAuthentication(login))
+		{
+			failures.incrementAndGet();
+			done.countDown();
+		}
+	}
+}
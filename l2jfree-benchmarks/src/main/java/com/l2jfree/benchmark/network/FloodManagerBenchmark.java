@@ -0,0 +1,83 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.network.mmocore.FloodManager;
+import com.l2jfree.network.mmocore.FloodManager.Result;
+
+/**
+ * Checks incoming packets against a {@link FloodManager} configured like the one of
+ * {@link com.l2jfree.network.mmocore.MMOController}, from several threads at once, with either a
+ * single contended key or many keys.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FloodManagerBenchmark
+{
+	/** The number of distinct keys, must be a power of 2 */
+	@Param({ "1", "1024" })
+	public int keys;
+	
+	private FloodManager _floodManager;
+	private String[] _keys;
+	
+	@State(Scope.Thread)
+	public static class KeyIndex
+	{
+		private int _index;
+	}
+	
+	@Setup
+	public void setup()
+	{
+		// the limits are never reached, so every check goes down the same path
+		_floodManager = new FloodManager(1000, new FloodManager.FloodFilter(Integer.MAX_VALUE - 1,
+				Integer.MAX_VALUE, 2));
+		
+		_keys = new String[keys];
+		for (int i = 0; i < _keys.length; i++)
+			_keys[i] = "127.0." + (i >> 8) + "." + (i & 0xFF);
+	}
+	
+	@Benchmark
+	public Result isFlooding(KeyIndex index)
+	{
+		final String key = _keys[index._index++ & (_keys.length - 1)];
+		
+		return _floodManager.isFlooding(key, true);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+
+import com.l2jfree.benchmark.network.packets.LoopbackReceivablePacket;
+import com.l2jfree.benchmark.network.packets.LoopbackSendablePacket;
+import com.l2jfree.network.mmocore.DataSizeHolder;
+import com.l2jfree.network.mmocore.MMOConnection;
+import com.l2jfree.security.NewCipher;
+
+/**
+ * A connection of the loopback protocol, which is enciphered just like the link between the login
+ * and the game server.
+ * 
+ * @author agent
+ */
+public final class LoopbackConnection extends
+		MMOConnection<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket>
+{
+	private static final byte[] BLOWFISH_KEY = { 0x5F, 0x3B, 0x76, 0x2E, 0x5D, 0x30, 0x35, 0x2D, 0x33, 0x31, 0x21,
+			0x7C, 0x2B, 0x2D, 0x25, 0x78 };
+	
+	private final LoopbackController _controller;
+	private final NewCipher _cipher = new NewCipher(BLOWFISH_KEY);
+	
+	protected LoopbackConnection(LoopbackController mmoController, SocketChannel socketChannel)
+			throws ClosedChannelException
+	{
+		super(mmoController, socketChannel);
+		
+		_controller = mmoController;
+	}
+	
+	public LoopbackController getController()
+	{
+		return _controller;
+	}
+	
+	@Override
+	protected void onDisconnection()
+	{
+		getController().removeConnection(this);
+	}
+	
+	@Override
+	protected void onForcedDisconnection()
+	{
+		getController().removeConnection(this);
+	}
+	
+	@Override
+	protected boolean decipher(ByteBuffer buf, DataSizeHolder size)
+	{
+		final int dataSize = size.getSize();
+		
+		size.decreaseSize(4); // checksum
+		size.setPadding(0, 7);
+		
+		if (!_cipher.decipherAndVerifyChecksum(buf, dataSize))
+		{
+			_log.warn("Could not decipher received data: checksum mismatch. " + this);
+			closeNow();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	@Override
+	protected boolean encipher(ByteBuffer buf, int size)
+	{
+		final int offset = buf.position();
+		
+		size += 4; // checksum
+		size += 8 - (size & 7); // padding
+		
+		_cipher.encipherWithChecksum(buf, size);
+		
+		buf.position(offset + size);
+		return true;
+	}
+	
+	@Override
+	protected LoopbackSendablePacket getDefaultClosePacket()
+	{
+		return null;
+	}
+	
+	@Override
+	protected String getUID()
+	{
+		return null;
+	}
+	
+	@Override
+	protected boolean isAuthed()
+	{
+		return true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public LoopbackState getState()
+	{
+		return LoopbackState.CONNECTED;
+	}
+}
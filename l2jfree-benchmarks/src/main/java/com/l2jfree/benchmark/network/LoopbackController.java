@@ -0,0 +1,145 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.l2jfree.benchmark.network.packets.LoopbackReceivablePacket;
+import com.l2jfree.benchmark.network.packets.LoopbackSendablePacket;
+import com.l2jfree.benchmark.network.packets.sendable.SendPing;
+import com.l2jfree.network.mmocore.FloodManager;
+import com.l2jfree.network.mmocore.MMOConfig;
+import com.l2jfree.network.mmocore.MMOController;
+
+/**
+ * Either side of the loopback protocol: the accepted connections answer each ping with a pong,
+ * while the initiated ones send the next ping for each received pong, as long as the controller is
+ * running.
+ * 
+ * @author agent
+ */
+public final class LoopbackController extends
+		MMOController<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket>
+{
+	private final List<LoopbackConnection> _connections = new CopyOnWriteArrayList<LoopbackConnection>();
+	
+	private final AtomicLong _pongs = new AtomicLong();
+	private final AtomicLong _pongBytes = new AtomicLong();
+	private final AtomicLong _roundTripNanos = new AtomicLong();
+	
+	private volatile boolean _running;
+	
+	public LoopbackController(MMOConfig config) throws IOException
+	{
+		super(config, LoopbackPacketHandler.getInstance());
+	}
+	
+	@Override
+	protected LoopbackConnection createClient(SocketChannel socketChannel) throws ClosedChannelException
+	{
+		final LoopbackConnection con = new LoopbackConnection(this, socketChannel);
+		
+		_connections.add(con);
+		
+		return con;
+	}
+	
+	void removeConnection(LoopbackConnection con)
+	{
+		_connections.remove(con);
+	}
+	
+	public List<LoopbackConnection> getConnections()
+	{
+		return _connections;
+	}
+	
+	// all the traffic comes from the same host, and it's meant to be a flood
+	@Override
+	protected FloodManager initAcceptsFloodManager()
+	{
+		return FloodManager.EMPTY_FLOOD_MANAGER;
+	}
+	
+	@Override
+	protected FloodManager initPacketsFloodManager()
+	{
+		return FloodManager.EMPTY_FLOOD_MANAGER;
+	}
+	
+	/**
+	 * Starts sending pings through every initiated connection.
+	 * 
+	 * @param window the number of pings kept in flight per connection
+	 * @param payload the bytes carried by each ping
+	 */
+	public void startPinging(int window, byte[] payload)
+	{
+		_running = true;
+		
+		for (LoopbackConnection con : _connections)
+			for (int i = 0; i < window; i++)
+				con.sendPacket(new SendPing(System.nanoTime(), payload));
+	}
+	
+	public void stopPinging()
+	{
+		_running = false;
+	}
+	
+	/**
+	 * Called when a pong arrives to an initiated connection.
+	 * 
+	 * @param con the connection
+	 * @param timestamp the {@link System#nanoTime()} of the answered ping
+	 * @param payload the bytes carried by the pong
+	 */
+	public void onPong(LoopbackConnection con, long timestamp, byte[] payload)
+	{
+		_pongs.incrementAndGet();
+		_pongBytes.addAndGet(payload.length);
+		_roundTripNanos.addAndGet(System.nanoTime() - timestamp);
+		
+		if (_running)
+			con.sendPacket(new SendPing(System.nanoTime(), payload));
+	}
+	
+	public void resetStats()
+	{
+		_pongs.set(0);
+		_pongBytes.set(0);
+		_roundTripNanos.set(0);
+	}
+	
+	public long getPongs()
+	{
+		return _pongs.get();
+	}
+	
+	public long getPongBytes()
+	{
+		return _pongBytes.get();
+	}
+	
+	public long getRoundTripNanos()
+	{
+		return _roundTripNanos.get();
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import com.l2jfree.benchmark.network.packets.LoopbackReceivablePacket;
+import com.l2jfree.benchmark.network.packets.LoopbackSendablePacket;
+import com.l2jfree.benchmark.network.packets.receivable.ExExPing;
+import com.l2jfree.benchmark.network.packets.receivable.ExPing;
+import com.l2jfree.benchmark.network.packets.receivable.Ping;
+import com.l2jfree.benchmark.network.packets.receivable.Pong;
+import com.l2jfree.network.mmocore.packethandlers.PacketHandlerBuilder;
+import com.l2jfree.network.mmocore.packethandlers.ThreeLevelPacketHandler;
+
+/**
+ * @author agent
+ */
+public final class LoopbackPacketHandler extends
+		ThreeLevelPacketHandler<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket, LoopbackState>
+{
+	private static final class SingletonHolder
+	{
+		static
+		{
+			try
+			{
+				INSTANCE = new LoopbackPacketHandler();
+			}
+			catch (Exception e)
+			{
+				throw new Error(e);
+			}
+		}
+		
+		public static final LoopbackPacketHandler INSTANCE;
+	}
+	
+	public static LoopbackPacketHandler getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private LoopbackPacketHandler() throws Exception
+	{
+		// singleton
+	}
+	
+	/**
+	 * @param generateFactory false to instantiate the packets via reflection
+	 * @throws Exception if the packet tables can't be built
+	 */
+	LoopbackPacketHandler(boolean generateFactory) throws Exception
+	{
+		super(generateFactory);
+	}
+	
+	@Override
+	public PacketHandlerBuilder<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket, LoopbackState> initPacketHandlerBuilder()
+			throws Exception
+	{
+		final PacketHandlerBuilder<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket, LoopbackState> dph =
+				new PacketHandlerBuilder<LoopbackConnection, LoopbackReceivablePacket, LoopbackSendablePacket, LoopbackState>(
+						LoopbackState.class, LoopbackState.CONNECTED);
+		
+		dph.addPacket(Ping.class);
+		dph.addPacket(Pong.class);
+		dph.addPacket(ExPing.class);
+		dph.addPacket(ExExPing.class);
+		
+		return dph;
+	}
+}
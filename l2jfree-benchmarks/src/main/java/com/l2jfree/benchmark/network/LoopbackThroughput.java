@@ -0,0 +1,154 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.l2jfree.Startup;
+import com.l2jfree.benchmark.BenchmarkThreadPools;
+import com.l2jfree.network.mmocore.MMOConfig;
+
+/**
+ * Drives two {@link LoopbackController}s against each other through loopback sockets: the
+ * synthetic clients keep a fixed number of pings in flight, and the server answers each of them
+ * with a pong. Measures the round trips per second, so regressions of the whole networking stack -
+ * selection, reading, deciphering, dispatching, executing, writing and enciphering - show up.<br>
+ * <br>
+ * Configured by system properties, for example:
+ * 
+ * <pre>
+ * java -Dloopback.clients=64 -Dloopback.blockingSelection=true -cp benchmarks.jar com.l2jfree.benchmark.network.LoopbackThroughput
+ * </pre>
+ * 
+ * It doesn't depend on JMH, so it runs on Java 6 as well, given the classpath of l2jfree-commons.
+ * 
+ * @author agent
+ */
+public final class LoopbackThroughput
+{
+	private static final String HOST = "127.0.0.1";
+	
+	private static final int PORT = Integer.getInteger("loopback.port", 17777);
+	private static final int CLIENTS = Integer.getInteger("loopback.clients", 32);
+	private static final int WINDOW = Integer.getInteger("loopback.window", 4);
+	private static final int PAYLOAD = Integer.getInteger("loopback.payload", 64);
+	private static final int WARMUP_SECONDS = Integer.getInteger("loopback.warmup", 5);
+	private static final int SECONDS = Integer.getInteger("loopback.seconds", 10);
+	private static final int THREADS = Integer.getInteger("loopback.threads", Runtime.getRuntime()
+			.availableProcessors());
+	
+	private static final boolean BLOCKING_SELECTION = Boolean.getBoolean("loopback.blockingSelection");
+	private static final boolean PIPELINED_READING = Boolean.getBoolean("loopback.pipelinedReading");
+	private static final boolean GATHERING_WRITES = Boolean.getBoolean("loopback.gatheringWrites");
+	
+	private LoopbackThroughput()
+	{
+		// utility class
+	}
+	
+	private static MMOConfig newConfig(String name)
+	{
+		final MMOConfig cfg = new MMOConfig(name);
+		cfg.setSelectorSleepTime(1);
+		cfg.setBlockingSelection(BLOCKING_SELECTION);
+		cfg.setPipelinedReading(PIPELINED_READING);
+		cfg.setGatheringWrites(GATHERING_WRITES);
+		cfg.setThreadCount(THREADS);
+		
+		return cfg;
+	}
+	
+	public static void main(String[] args) throws Exception
+	{
+		BenchmarkThreadPools.initialize();
+		
+		final LoopbackController server = new LoopbackController(newConfig("LoopbackServer"));
+		server.openServerSocket(HOST, PORT);
+		server.start();
+		
+		final LoopbackController client = new LoopbackController(newConfig("LoopbackClient"));
+		for (int i = 0; i < CLIENTS; i++)
+			client.connect(HOST, PORT, false);
+		client.start();
+		
+		Startup.onStartup();
+		
+		awaitConnections(client);
+		awaitConnections(server);
+		
+		System.out.println("LoopbackThroughput: " + CLIENTS + " clients, " + WINDOW + " pings in flight per client, "
+				+ PAYLOAD + " bytes of payload, " + THREADS + " read-write threads per side, blocking selection: "
+				+ BLOCKING_SELECTION + ", pipelined reading: " + PIPELINED_READING + ", gathering writes: "
+				+ GATHERING_WRITES);
+		
+		// the read path prints every received packet, which would dominate the results on a console
+		final PrintStream out = System.out;
+		System.setOut(new PrintStream(new NullOutputStream()));
+		
+		final long pongs;
+		final long pongBytes;
+		final long roundTripNanos;
+		final long elapsedNanos;
+		try
+		{
+			client.startPinging(WINDOW, new byte[PAYLOAD]);
+			
+			Thread.sleep(WARMUP_SECONDS * 1000L);
+			
+			client.resetStats();
+			final long begin = System.nanoTime();
+			
+			Thread.sleep(SECONDS * 1000L);
+			
+			pongs = client.getPongs();
+			pongBytes = client.getPongBytes();
+			roundTripNanos = client.getRoundTripNanos();
+			elapsedNanos = System.nanoTime() - begin;
+			
+			client.stopPinging();
+		}
+		finally
+		{
+			System.setOut(out);
+		}
+		
+		final double seconds = elapsedNanos / 1000000000.0;
+		
+		System.out.println(String.format("LoopbackThroughput: %.0f round trips/sec, %.2f MB/sec payload each way",
+				pongs / seconds, pongBytes / seconds / (1024 * 1024)));
+		System.out.println(String.format("LoopbackThroughput: %.1f usec average round trip time",
+				pongs == 0 ? 0.0 : roundTripNanos / 1000.0 / pongs));
+		
+		client.shutdown();
+		server.shutdown();
+		
+		System.exit(0);
+	}
+	
+	private static void awaitConnections(LoopbackController controller) throws IOException, InterruptedException
+	{
+		for (int i = 0; controller.getConnections().size() < CLIENTS; i++)
+		{
+			if (i == 100)
+				throw new IOException(controller.getName() + ": only " + controller.getConnections().size() + " of "
+						+ CLIENTS + " connections were made!");
+			
+			Thread.sleep(100);
+		}
+	}
+}
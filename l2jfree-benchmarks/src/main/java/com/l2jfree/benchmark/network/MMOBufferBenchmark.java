@@ -0,0 +1,100 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.l2jfree.network.mmocore.MMOBuffer;
+
+/**
+ * Writes and reads a packet body of a typical layout through {@link MMOBuffer}.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MMOBufferBenchmark
+{
+	private static final String NAME = "BenchmarkPlayer";
+	
+	/** Packets are read from and written to heap buffers, the gathered segments are direct buffers */
+	@Param({ "true", "false" })
+	public boolean direct;
+	
+	private ByteBuffer _buffer;
+	private final MMOBuffer _mmoBuffer = new MMOBuffer();
+	
+	@Setup
+	public void setup()
+	{
+		_buffer = direct ? ByteBuffer.allocateDirect(1024) : ByteBuffer.allocate(1024);
+		_buffer.order(ByteOrder.LITTLE_ENDIAN);
+		
+		_mmoBuffer.setByteBuffer(_buffer);
+		
+		write();
+	}
+	
+	@Benchmark
+	public int write()
+	{
+		_buffer.clear();
+		
+		_mmoBuffer.writeC(0x31);
+		for (int i = 0; i < 10; i++)
+			_mmoBuffer.writeD(i);
+		_mmoBuffer.writeQ(Long.MAX_VALUE);
+		_mmoBuffer.writeQ(Long.MIN_VALUE);
+		_mmoBuffer.writeF(Math.PI);
+		_mmoBuffer.writeH(0x1234);
+		_mmoBuffer.writeS(NAME);
+		
+		return _buffer.position();
+	}
+	
+	@Benchmark
+	public void read(Blackhole bh)
+	{
+		_buffer.rewind();
+		
+		bh.consume(_mmoBuffer.readC());
+		for (int i = 0; i < 10; i++)
+			bh.consume(_mmoBuffer.readD());
+		bh.consume(_mmoBuffer.readQ());
+		bh.consume(_mmoBuffer.readQ());
+		bh.consume(_mmoBuffer.readF());
+		bh.consume(_mmoBuffer.readH());
+		bh.consume(_mmoBuffer.readS());
+	}
+}
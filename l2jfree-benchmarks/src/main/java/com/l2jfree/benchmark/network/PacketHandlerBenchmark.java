@@ -0,0 +1,137 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.benchmark.BenchmarkThreadPools;
+import com.l2jfree.benchmark.network.packets.LoopbackReceivablePacket;
+import com.l2jfree.benchmark.network.packets.receivable.ExExPing;
+import com.l2jfree.benchmark.network.packets.receivable.ExPing;
+import com.l2jfree.benchmark.network.packets.receivable.Ping;
+import com.l2jfree.network.mmocore.MMOConfig;
+import com.l2jfree.network.mmocore.packethandlers.ThreeLevelPacketHandler;
+
+/**
+ * Dispatches packets of each opcode level through a {@link ThreeLevelPacketHandler}, including the
+ * instantiation of the packet - either by the generated factory, or by the reflective one it falls
+ * back to.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PacketHandlerBenchmark
+{
+	@Param({ "true", "false" })
+	public boolean generatedFactory;
+	
+	private ServerSocketChannel _serverChannel;
+	private SocketChannel _channel;
+	private SocketChannel _acceptedChannel;
+	
+	private LoopbackConnection _client;
+	private LoopbackPacketHandler _handler;
+	
+	private ByteBuffer _ping;
+	private ByteBuffer _exPing;
+	private ByteBuffer _exExPing;
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		BenchmarkThreadPools.initialize();
+		
+		// the connection needs a real channel, but the controller is never started
+		_serverChannel = ServerSocketChannel.open();
+		_serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+		_channel = SocketChannel.open(_serverChannel.socket().getLocalSocketAddress());
+		_acceptedChannel = _serverChannel.accept();
+		_channel.configureBlocking(false);
+		
+		_client = new LoopbackController(new MMOConfig(getClass().getSimpleName())).createClient(_channel);
+		_handler = generatedFactory ? LoopbackPacketHandler.getInstance() : new LoopbackPacketHandler(false);
+		
+		_ping = newBuffer();
+		_ping.put((byte)Ping.OPCODE).putLong(System.nanoTime()).putShort((short)64).put(new byte[64]).flip();
+		
+		_exPing = newBuffer();
+		_exPing.put((byte)ExPing.OPCODE).putShort((short)ExPing.OPCODE_2).flip();
+		
+		_exExPing = newBuffer();
+		_exExPing.put((byte)ExExPing.OPCODE).putShort((short)ExExPing.OPCODE_2).putInt(ExExPing.OPCODE_3).flip();
+	}
+	
+	private static ByteBuffer newBuffer()
+	{
+		return ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		_channel.close();
+		_acceptedChannel.close();
+		_serverChannel.close();
+	}
+	
+	private LoopbackReceivablePacket handlePacket(ByteBuffer buf)
+	{
+		buf.rewind();
+		
+		return _handler.handlePacket(buf, _client, buf.get() & 0xFF);
+	}
+	
+	@Benchmark
+	public LoopbackReceivablePacket oneLevel()
+	{
+		return handlePacket(_ping);
+	}
+	
+	@Benchmark
+	public LoopbackReceivablePacket twoLevels()
+	{
+		return handlePacket(_exPing);
+	}
+	
+	@Benchmark
+	public LoopbackReceivablePacket threeLevels()
+	{
+		return handlePacket(_exExPing);
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network.packets.receivable;
+
+import java.nio.BufferUnderflowException;
+
+import com.l2jfree.benchmark.network.packets.LoopbackReceivablePacket;
+import com.l2jfree.network.mmocore.InvalidPacketException;
+import com.l2jfree.network.mmocore.MMOBuffer;
+
+/**
+ * @author agent
+ */
+public final class Pong extends LoopbackReceivablePacket
+{
+	/** Packet's identifier */
+	public static final int OPCODE = 0x02;
+	
+	private long _timestamp;
+	private byte[] _payload;
+	
+	@Override
+	protected int getMinimumLength()
+	{
+		return READ_Q + READ_H;
+	}
+	
+	@Override
+	protected void read(MMOBuffer buf) throws BufferUnderflowException, RuntimeException
+	{
+		_timestamp = buf.readQ();
+		_payload = buf.readB(buf.readH());
+	}
+	
+	@Override
+	protected void runImpl() throws InvalidPacketException, RuntimeException
+	{
+		getClient().getController().onPong(getClient(), _timestamp, _payload);
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.network.packets.sendable;
+
+import com.l2jfree.benchmark.network.LoopbackConnection;
+import com.l2jfree.benchmark.network.packets.LoopbackSendablePacket;
+import com.l2jfree.benchmark.network.packets.receivable.Pong;
+import com.l2jfree.network.mmocore.MMOBuffer;
+
+/**
+ * @author agent
+ */
+public final class SendPong extends LoopbackSendablePacket
+{
+	private final long _timestamp;
+	private final byte[] _payload;
+	
+	/**
+	 * @param timestamp of the answered ping
+	 * @param payload of the answered ping
+	 */
+	public SendPong(long timestamp, byte[] payload)
+	{
+		_timestamp = timestamp;
+		_payload = payload;
+	}
+	
+	@Override
+	protected void write(LoopbackConnection client, MMOBuffer buf)
+	{
+		buf.writeC(Pong.OPCODE);
+		buf.writeQ(_timestamp);
+		buf.writeH(_payload.length);
+		buf.writeB(_payload);
+	}
+}
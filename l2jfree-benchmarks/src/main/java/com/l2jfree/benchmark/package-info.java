@@ -0,0 +1,33 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Contains the JMH benchmarks of the networking, cipher and concurrency utilities of l2jfree-commons,
+ * the ones of the world and ID factory of l2jfree-core, the login storm of l2jfree-login, and a loopback
+ * throughput harness of the whole networking stack.
+ * <BR><BR>
+ * This module requires Java 7, so it's built only with the <TT>benchmarks</TT> profile:
+ * <PRE>
+ * mvn -P benchmarks package
+ * java -jar ../l2jfree-benchmarks/target/benchmarks.jar [JMH options]
+ * java -cp ../l2jfree-benchmarks/target/benchmarks.jar com.l2jfree.benchmark.network.LoopbackThroughput
+ * </PRE>
+ * The game server benchmarks (under <TT>gameserver</TT>) set up the configured database, just like
+ * the game server, so they have to be started from the directory of <TT>l2jfree-core</TT>:
+ * <PRE>
+ * cd ../l2jfree-core
+ * java -jar ../l2jfree-benchmarks/target/benchmarks.jar com.l2jfree.benchmark.gameserver
+ * </PRE>
+ */
+package com.l2jfree.benchmark;
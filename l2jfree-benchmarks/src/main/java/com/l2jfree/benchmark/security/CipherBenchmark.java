@@ -0,0 +1,147 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.security;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.security.BlowfishEngine;
+import com.l2jfree.security.CoreCipher;
+import com.l2jfree.security.NewCipher;
+import com.l2jfree.security.WideCoreCipher;
+
+/**
+ * Enciphers and deciphers packet bodies with the game server ciphers, and with the Blowfish ciphers
+ * of the login server and of the server links.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CipherBenchmark
+{
+	/** Packet body sizes, including ones that aren't multiples of 8 */
+	@Param({ "13", "61", "256", "1021", "4096" })
+	public int size;
+	
+	private ByteBuffer _buf;
+	
+	/** The body size with the checksum and the padding of the Blowfish links */
+	private int _paddedSize;
+	
+	private CoreCipher _coreCipher;
+	private WideCoreCipher _wideCoreCipher;
+	private NewCipher _newCipher;
+	private BlowfishEngine _blowfishEngine;
+	
+	@Setup
+	public void setup()
+	{
+		final Random random = new Random(size);
+		
+		_paddedSize = size + 4;
+		_paddedSize += 8 - (_paddedSize & 7);
+		
+		final byte[] body = new byte[_paddedSize];
+		random.nextBytes(body);
+		
+		_buf = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		
+		final byte[] coreKey = new byte[16];
+		random.nextBytes(coreKey);
+		
+		_coreCipher = new CoreCipher(coreKey);
+		_wideCoreCipher = new WideCoreCipher(coreKey);
+		
+		final byte[] blowfishKey = new byte[16];
+		random.nextBytes(blowfishKey);
+		
+		_newCipher = new NewCipher(blowfishKey);
+		
+		_blowfishEngine = new BlowfishEngine();
+		_blowfishEngine.init(true, blowfishKey);
+	}
+	
+	@Benchmark
+	public ByteBuffer coreCipherEncipher()
+	{
+		_coreCipher.encipher(_buf, 0, size);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ByteBuffer wideCoreCipherEncipher()
+	{
+		_wideCoreCipher.encipher(_buf, 0, size);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ByteBuffer coreCipherDecipher()
+	{
+		_coreCipher.decipher(_buf, 0, size);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ByteBuffer wideCoreCipherDecipher()
+	{
+		_wideCoreCipher.decipher(_buf, 0, size);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ByteBuffer blowfishProcessBlocks()
+	{
+		_blowfishEngine.processBlocks(_buf, 0, _paddedSize);
+		
+		return _buf;
+	}
+	
+	/**
+	 * Both directions, as a received body can be deciphered and verified only once.
+	 */
+	@Benchmark
+	public boolean newCipherRoundTripWithChecksum()
+	{
+		_buf.clear();
+		
+		_newCipher.encipherWithChecksum(_buf, _paddedSize);
+		
+		return _newCipher.decipherAndVerifyChecksum(_buf, _paddedSize);
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.security;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.network.ClientProtocolVersion;
+import com.l2jfree.security.ObfuscationService;
+import com.l2jfree.security.ObfuscationTable;
+import com.l2jfree.security.WideCoreCipher;
+
+/**
+ * Deobfuscates the opcodes of received packets, either on their own, or after deciphering the
+ * packet, and builds the shuffling tables of new connections.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObfuscationBenchmark
+{
+	private static final ClientProtocolVersion VERSION = ClientProtocolVersion.GLORY_DAYS_488;
+	private static final int SIZE = 64;
+	
+	private final Random _random = new Random(SIZE);
+	
+	private ObfuscationService _service;
+	private ObfuscationTable _table;
+	private WideCoreCipher _cipher;
+	
+	private ByteBuffer _buf;
+	private byte _obOp1;
+	private byte _obOp2;
+	
+	@Setup
+	public void setup()
+	{
+		_service = new ObfuscationService(VERSION);
+		_service.init(_random.nextInt());
+		_table = _service.getTable();
+		
+		final byte[] key = new byte[16];
+		_random.nextBytes(key);
+		_cipher = new WideCoreCipher(key);
+		
+		final byte[] body = new byte[SIZE];
+		_random.nextBytes(body);
+		_buf = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		
+		// an extended packet, so both opcodes are deobfuscated
+		_obOp1 = (byte)_table.encodeOp1(ObfuscationTable.HAS_SECOND);
+		_obOp2 = (byte)_table.encodeOp2(0x01);
+	}
+	
+	/**
+	 * The opcodes are deobfuscated in place, so they have to be restored for each invocation.
+	 */
+	private void resetOpcodes()
+	{
+		_buf.put(0, _obOp1);
+		_buf.put(1, _obOp2);
+	}
+	
+	@Benchmark
+	public ByteBuffer decodeOpcodes()
+	{
+		resetOpcodes();
+		
+		_service.decodeOpcodes(_buf, SIZE);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ByteBuffer decipherThenDecodeOpcodes()
+	{
+		resetOpcodes();
+		
+		_cipher.encipher(_buf, 0, SIZE);
+		_cipher.decipher(_buf, 0, SIZE);
+		_service.decodeOpcodes(_buf, SIZE);
+		
+		return _buf;
+	}
+	
+	@Benchmark
+	public ObfuscationTable newTable()
+	{
+		return new ObfuscationTable(VERSION, _random.nextInt());
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.util.Rnd;
+
+/**
+ * Draws random numbers from a single thread and from every available processor at once, either from
+ * the per-thread generators of {@link Rnd}, or from the single shared generator it used before.<br>
+ * <br>
+ * The former generator updated its seed without any synchronization, so the threads sharing it keep
+ * invalidating the cache line of each other - besides losing updates.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RndBenchmark
+{
+	/**
+	 * The generator formerly shared by every caller of {@link Rnd}, copied as it was.
+	 */
+	private static final class FormerL2Random extends Random
+	{
+		private static final long serialVersionUID = 2089256427272977088L;
+		
+		/**
+		 * Copied from java.util.Random.
+		 */
+		private static final long multiplier = 0x5DEECE66DL;
+		private static final long addend = 0xBL;
+		private static final long mask = (1L << 48) - 1;
+		
+		private long seed;
+		
+		@Override
+		public synchronized void setSeed(long newSeed)
+		{
+			seed = (newSeed ^ multiplier) & mask;
+			
+			super.setSeed(newSeed);
+		}
+		
+		@Override
+		protected int next(int bits)
+		{
+			long nextseed = (seed = ((seed * multiplier + addend) & mask));
+			
+			return (int)(nextseed >>> (48 - bits));
+		}
+		
+		@Override
+		public int nextInt(int n)
+		{
+			return (int)(nextDouble() * n);
+		}
+	}
+	
+	private static final FormerL2Random FORMER_RND = new FormerL2Random();
+	
+	@Benchmark
+	@Threads(1)
+	public int formerSingleThread()
+	{
+		return FORMER_RND.nextInt(1000);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int formerAllThreads()
+	{
+		return FORMER_RND.nextInt(1000);
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public int perThreadSingleThread()
+	{
+		return Rnd.get(1000);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int perThreadAllThreads()
+	{
+		return Rnd.get(1000);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.util.concurrent.RunnableStatsManager;
+
+/**
+ * Records the runtime of tasks from several threads at once, as the thread pools do after each
+ * executed task, either for the same or for distinct task classes.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RunnableStatsManagerBenchmark
+{
+	private static final class Task1 implements Runnable
+	{
+		@Override
+		public void run()
+		{
+		}
+	}
+	
+	private static final class Task2 implements Runnable
+	{
+		@Override
+		public void run()
+		{
+		}
+	}
+	
+	private static final class Task3 implements Runnable
+	{
+		@Override
+		public void run()
+		{
+		}
+	}
+	
+	private static final class Task4 implements Runnable
+	{
+		@Override
+		public void run()
+		{
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Runnable>[] TASKS = new Class[] { Task1.class, Task2.class, Task3.class,
+			Task4.class };
+	
+	@State(Scope.Thread)
+	public static class Sample
+	{
+		private long _nanos = 1000;
+		private int _index;
+		
+		private long next()
+		{
+			// spreads the samples over the latency histogram
+			return _nanos = _nanos * 3 % 10000019;
+		}
+	}
+	
+	@Benchmark
+	public void sameClass(Sample sample)
+	{
+		RunnableStatsManager.handleStats(Task1.class, sample.next());
+	}
+	
+	@Benchmark
+	public void distinctClasses(Sample sample)
+	{
+		RunnableStatsManager.handleStats(TASKS[sample._index++ & (TASKS.length - 1)], sample.next());
+	}
+}
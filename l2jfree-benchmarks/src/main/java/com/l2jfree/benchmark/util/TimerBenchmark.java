@@ -0,0 +1,144 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.benchmark.util;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.l2jfree.util.concurrent.L2TimingWheel;
+
+/**
+ * Schedules 1,000,000 timers with delays spread over 10 minutes, then cancels all of them, either on
+ * a {@link L2TimingWheel} or on a {@link ScheduledThreadPoolExecutor} - as the scheduled pools were
+ * used before.<br>
+ * <br>
+ * Only the cost paid by the calling thread is measured. The ticker of the wheel processes the
+ * cancellations asynchronously, so the next iteration waits until it's done with them.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimerBenchmark
+{
+	private static final int TIMERS = 1000000;
+	
+	private static final int MAX_DELAY = 10 * 60 * 1000;
+	
+	private static final Runnable TASK = new Runnable() {
+		@Override
+		public void run()
+		{
+		}
+	};
+	
+	@State(Scope.Benchmark)
+	public static class Timers
+	{
+		private final long[] _delays = new long[TIMERS];
+		private final ScheduledFuture<?>[] _futures = new ScheduledFuture<?>[TIMERS];
+		
+		private L2TimingWheel _timingWheel;
+		private ScheduledThreadPoolExecutor _scheduledPool;
+		
+		@Setup
+		public void setUp()
+		{
+			final Random random = new Random(0);
+			
+			for (int i = 0; i < _delays.length; i++)
+				_delays[i] = 1 + random.nextInt(MAX_DELAY);
+			
+			_timingWheel = new L2TimingWheel(new Executor() {
+				@Override
+				public void execute(Runnable r)
+				{
+					r.run();
+				}
+			}, 10);
+			
+			_scheduledPool = new ScheduledThreadPoolExecutor(1);
+			_scheduledPool.setRemoveOnCancelPolicy(true);
+		}
+		
+		@TearDown(Level.Iteration)
+		public void awaitCancellations() throws InterruptedException
+		{
+			// the ticker takes the added and the cancelled timers on the next tick
+			do
+			{
+				Thread.sleep(20);
+			}
+			while (_timingWheel.getPendingCount() != 0);
+		}
+		
+		@TearDown
+		public void tearDown()
+		{
+			_timingWheel.shutdown();
+			_scheduledPool.shutdownNow();
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(TIMERS)
+	public ScheduledFuture<?>[] timingWheel(Timers timers)
+	{
+		final ScheduledFuture<?>[] futures = timers._futures;
+		
+		for (int i = 0; i < futures.length; i++)
+			futures[i] = timers._timingWheel.schedule(TASK, timers._delays[i]);
+		
+		for (ScheduledFuture<?> future : futures)
+			future.cancel(false);
+		
+		return futures;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(TIMERS)
+	public ScheduledFuture<?>[] scheduledPool(Timers timers)
+	{
+		final ScheduledFuture<?>[] futures = timers._futures;
+		
+		for (int i = 0; i < futures.length; i++)
+			futures[i] = timers._scheduledPool.schedule(TASK, timers._delays[i], TimeUnit.MILLISECONDS);
+		
+		for (ScheduledFuture<?> future : futures)
+			future.cancel(false);
+		
+		return futures;
+	}
+}
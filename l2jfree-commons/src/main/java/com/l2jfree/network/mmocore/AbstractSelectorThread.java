@@ -15,18 +15,26 @@
 package com.l2jfree.network.mmocore;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.IOUtils;
 
 import com.l2jfree.util.concurrent.RunnableStatsManager;
 
 /**
- * Baseclass of {@link MMOController} associated threads executing periodic NIO selections.
+ * Baseclass of {@link MMOController} associated threads executing periodic NIO selections.<BR>
+ * <BR>
+ * Depending on {@link MMOConfig#isBlockingSelection()}, the thread either polls the selector and
+ * sleeps between iterations, or blocks in the selection until there is something to do, and relies
+ * on {@link #wakeup()} to get notified about changes made by other threads.
  * 
  * @see Selector#selectNow()
+ * @see Selector#select(long)
  * @author NB4L1
  * @param <T>
  * @param <RP>
@@ -38,12 +46,19 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 	private final Selector _selector;
 	
 	private final long _sleepTime;
+	private final boolean _blockingSelection;
+	
+	/** Guards channel registrations against a concurrently blocking selection. */
+	private final Object _selectorGate = new Object();
+	/** Coalesces wakeup requests, so at most one {@link Selector#wakeup()} is issued per selection. */
+	private final AtomicBoolean _wakenUp = new AtomicBoolean();
 	
 	protected AbstractSelectorThread(MMOController<T, RP, SP> mmoController, MMOConfig config) throws IOException
 	{
 		super(mmoController);
 		
 		_sleepTime = config.getSelectorSleepTime();
+		_blockingSelection = config.isBlockingSelection();
 		
 		_selector = Selector.open();
 	}
@@ -53,6 +68,45 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 		return _selector;
 	}
 	
+	/**
+	 * Registers the given channel with this thread's selector.<BR>
+	 * <BR>
+	 * Can be safely called from any thread, even if the selector is currently blocked in a
+	 * selection.
+	 * 
+	 * @param channel a channel in non-blocking mode
+	 * @param ops the initial interest set
+	 * @param attachment the object to be attached to the key
+	 * @return the registered key
+	 * @throws ClosedChannelException if the channel is already closed
+	 */
+	final SelectionKey register(SelectableChannel channel, int ops, Object attachment) throws ClosedChannelException
+	{
+		if (!isBlockingSelection())
+			return channel.register(getSelector(), ops, attachment);
+		
+		synchronized (_selectorGate)
+		{
+			// the selector must leave the selection, otherwise the registration would block until it does
+			getSelector().wakeup();
+			
+			return channel.register(getSelector(), ops, attachment);
+		}
+	}
+	
+	/**
+	 * Wakes up the selector, if it's blocked in a selection, so any interest set changes or queued
+	 * tasks will be processed without any delay.<BR>
+	 * <BR>
+	 * Subsequent calls are coalesced until the selector starts a new selection.
+	 */
+	@Override
+	final void wakeup()
+	{
+		if (isBlockingSelection() && _wakenUp.compareAndSet(false, true))
+			getSelector().wakeup();
+	}
+	
 	@Override
 	public final void run()
 	{
@@ -60,6 +114,7 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 		for (;;)
 		{
 			final long begin = System.nanoTime();
+			long blocked = 0;
 			
 			try
 			{
@@ -74,7 +129,14 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 				
 				try
 				{
-					if (getSelector().selectNow() > 0)
+					final long selectBegin = System.nanoTime();
+					final int selected = select();
+					
+					// don't let the idle time distort the statistics
+					if (isBlockingSelection())
+						blocked = System.nanoTime() - selectBegin;
+					
+					if (selected > 0)
 					{
 						Set<SelectionKey> keys = getSelector().selectedKeys();
 						
@@ -99,9 +161,13 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 			}
 			finally
 			{
-				RunnableStatsManager.handleStats(getClass(), "selectNow()", System.nanoTime() - begin);
+				RunnableStatsManager.handleStats(getClass(), isBlockingSelection() ? "select()" : "selectNow()",
+						System.nanoTime() - begin - blocked);
 			}
 			
+			if (isBlockingSelection())
+				continue;
+			
 			try
 			{
 				Thread.sleep(getSleepTime());
@@ -113,6 +179,37 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 		}
 	}
 	
+	private int select() throws IOException
+	{
+		if (!isBlockingSelection())
+			return getSelector().selectNow();
+		
+		// wait for any pending registration to finish
+		synchronized (_selectorGate)
+		{
+			// nothing to do here
+		}
+		
+		_wakenUp.set(false);
+		
+		// pending tasks have to be checked periodically, even if there are no ready channels
+		if (hasPendingTasks())
+			return getSelector().select(getSleepTime());
+		
+		return getSelector().select();
+	}
+	
+	/**
+	 * Returns whether there are some tasks, which require the selector to wake up periodically,
+	 * even if there are no ready channels.
+	 * 
+	 * @return whether the selection should be time limited
+	 */
+	protected boolean hasPendingTasks()
+	{
+		return false;
+	}
+	
 	protected abstract void handle(SelectionKey key) throws IOException;
 	
 	protected void cleanup()
@@ -141,4 +238,9 @@ abstract class AbstractSelectorThread<T extends MMOConnection<T, RP, SP>, RP ext
 	{
 		return _sleepTime;
 	}
+	
+	final boolean isBlockingSelection()
+	{
+		return _blockingSelection;
+	}
 }
@@ -62,7 +62,7 @@ final class AcceptorThread<T extends MMOConnection<T, RP, SP>, RP extends Receiv
 		{
 			ss.bind(new InetSocketAddress(address, port));
 		}
-		selectable.register(getSelector(), SelectionKey.OP_ACCEPT);
+		register(selectable, SelectionKey.OP_ACCEPT, null);
 	}
 	
 	@Override
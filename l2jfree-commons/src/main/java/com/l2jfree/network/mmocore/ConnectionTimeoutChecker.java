@@ -0,0 +1,107 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.network.mmocore;
+
+import java.util.concurrent.Executor;
+
+import com.l2jfree.util.concurrent.L2ThreadPool;
+import com.l2jfree.util.concurrent.L2TimingWheel;
+
+/**
+ * Responsible for closing timeouted connections: the ones not authed in time, and the authed ones,
+ * which didn't receive any data for too long.<br>
+ * <br>
+ * Every connection has a single pending check in a {@link L2TimingWheel}, so registering,
+ * cancelling and expiring a check costs O(1), without scanning through the connections. The idle
+ * check isn't moved on every received packet: when it expires too early, it's simply rescheduled to
+ * the end of the idle period, counted from the last activity.
+ * 
+ * @author agent
+ */
+public final class ConnectionTimeoutChecker
+{
+	/** The timeouts are measured in seconds, so there is no need for a finer granularity */
+	private static final long TICK_DURATION = 100;
+	
+	private static final class SingletonHolder
+	{
+		public static final ConnectionTimeoutChecker INSTANCE = new ConnectionTimeoutChecker();
+	}
+	
+	public static ConnectionTimeoutChecker getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private final L2TimingWheel _timingWheel = new L2TimingWheel(new Executor() {
+		@Override
+		public void execute(Runnable r)
+		{
+			L2ThreadPool.execute(r);
+		}
+	}, TICK_DURATION);
+	
+	private ConnectionTimeoutChecker()
+	{
+	}
+	
+	/**
+	 * Registers a connection for timeout check.
+	 * 
+	 * @param con
+	 */
+	void register(MMOConnection<?, ?, ?> con)
+	{
+		con.setTimeoutCheck(_timingWheel.schedule(new TimeoutCheck(con), con.getAuthTimeout()));
+	}
+	
+	private final class TimeoutCheck implements Runnable
+	{
+		private final MMOConnection<?, ?, ?> _con;
+		
+		private TimeoutCheck(MMOConnection<?, ?, ?> con)
+		{
+			_con = con;
+		}
+		
+		@Override
+		public void run()
+		{
+			if (_con.isDisconnected())
+				return;
+			
+			if (!_con.isAuthed())
+			{
+				_con.closeNow();
+				return;
+			}
+			
+			final long idleTimeout = _con.getIdleTimeout();
+			
+			if (idleTimeout <= 0)
+				return;
+			
+			final long idleTime = System.currentTimeMillis() - _con.getLastActivity();
+			
+			if (idleTime >= idleTimeout)
+			{
+				_con.closeNow();
+				return;
+			}
+			
+			_con.setTimeoutCheck(_timingWheel.schedule(this, idleTimeout - idleTime));
+		}
+	}
+}
@@ -15,15 +15,17 @@
 package com.l2jfree.network.mmocore;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
-
-import com.l2jfree.util.concurrent.L2ThreadPool;
 
 /**
+ * Counts the events of each key in a ring of ticks, and compares the sums of the last ticks to the
+ * limits of the {@link FloodFilter}s.<br>
+ * <br>
+ * Every key has its own lock, and keeps a running sum for each filter, so a check doesn't depend on
+ * the length of the periods. The entries are kept in two generations: an entry untouched for a
+ * whole generation is dropped along with the old generation, without walking through the entries.
+ * 
  * @author NB4L1
  */
 public final class FloodManager
@@ -58,12 +60,24 @@ public final class FloodManager
 	
 	private static final long ZERO = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
 	
-	private final Map<String, LogEntry> _entries = new HashMap<String, LogEntry>();
+	private static final class Generation
+	{
+		private final ConcurrentHashMap<String, LogEntry> _current = new ConcurrentHashMap<String, LogEntry>();
+		private final ConcurrentHashMap<String, LogEntry> _previous;
+		private final int _endTick;
+		
+		private Generation(ConcurrentHashMap<String, LogEntry> previous, int endTick)
+		{
+			_previous = previous;
+			_endTick = endTick;
+		}
+	}
 	
-	private final ReentrantLock _lock = new ReentrantLock();
+	private volatile Generation _generation;
 	
 	private final int _tickLength;
 	private final int _tickAmount;
+	private final int _generationLength;
 	
 	private final FloodFilter[] _filters;
 	
@@ -78,14 +92,8 @@ public final class FloodManager
 			max = Math.max(filter.getTickLimit() + 1, max);
 		
 		_tickAmount = max;
-		
-		L2ThreadPool.scheduleAtFixedRate(new Runnable() {
-			@Override
-			public void run()
-			{
-				flush();
-			}
-		}, 60000, 60000);
+		_generationLength = _tickAmount * 10;
+		_generation = new Generation(new ConcurrentHashMap<String, LogEntry>(), getCurrentTick() + _generationLength);
 	}
 	
 	public static final class FloodFilter
@@ -117,22 +125,28 @@ public final class FloodManager
 		}
 	}
 	
-	private void flush()
+	private int getCurrentTick()
 	{
-		_lock.lock();
-		try
-		{
-			for (Iterator<LogEntry> it = _entries.values().iterator(); it.hasNext();)
-			{
-				if (it.next().isActive())
-					continue;
-				
-				it.remove();
-			}
-		}
-		finally
+		return (int)((System.currentTimeMillis() - ZERO) / _tickLength);
+	}
+	
+	/**
+	 * Starts a new generation, if the current one is over. The entries of the previous generation
+	 * weren't used for a whole generation, so they contain no ticks to be checked anymore.
+	 */
+	private Generation getGeneration(int currentTick)
+	{
+		final Generation generation = _generation;
+		
+		if (currentTick < generation._endTick)
+			return generation;
+		
+		synchronized (this)
 		{
-			_lock.unlock();
+			if (generation != _generation)
+				return _generation;
+			
+			return _generation = new Generation(generation._current, currentTick + _generationLength);
 		}
 	}
 	
@@ -141,87 +155,119 @@ public final class FloodManager
 		if (key == null || key.isEmpty())
 			return Result.REJECTED;
 		
-		_lock.lock();
-		try
+		final int currentTick = getCurrentTick();
+		final Generation generation = getGeneration(currentTick);
+		
+		LogEntry entry = generation._current.get(key);
+		
+		if (entry == null)
 		{
-			LogEntry entry = _entries.get(key);
+			// an entry used in the previous generation is moved, but left in place for the concurrent lookups
+			entry = generation._previous.get(key);
 			
 			if (entry == null)
-			{
-				entry = new LogEntry();
-				
-				_entries.put(key, entry);
-			}
+				entry = new LogEntry(currentTick);
 			
-			return entry.isFlooding(increment);
-		}
-		finally
-		{
-			_lock.unlock();
+			final LogEntry existing = generation._current.putIfAbsent(key, entry);
+			
+			if (existing != null)
+				entry = existing;
 		}
+		
+		return entry.isFlooding(increment);
+	}
+	
+	/**
+	 * @return the amount of keys kept in the current and in the previous generation
+	 */
+	public int size()
+	{
+		final Generation generation = _generation;
+		
+		return generation._current.size() + generation._previous.size();
 	}
 	
 	private final class LogEntry
 	{
 		private final short[] _ticks = new short[_tickAmount];
+		private final int[] _sums = new int[_filters.length];
+		
+		private int _lastTick;
 		
-		private int _lastTick = getCurrentTick();
+		private LogEntry(int currentTick)
+		{
+			_lastTick = currentTick;
+		}
 		
-		public int getCurrentTick()
+		private void reset(int currentTick)
 		{
-			return (int)((System.currentTimeMillis() - ZERO) / _tickLength);
+			_lastTick = currentTick;
+			
+			Arrays.fill(_ticks, (short)0);
+			Arrays.fill(_sums, 0);
 		}
 		
-		public boolean isActive()
+		/**
+		 * The sum of a filter covers the last <TT>tickLimit</TT> ticks, including the current one.
+		 */
+		private void advance(int currentTick)
 		{
-			return getCurrentTick() - _lastTick < _tickAmount * 10;
+			while (currentTick != _lastTick)
+			{
+				_lastTick++;
+				
+				for (int i = 0; i < _filters.length; i++)
+				{
+					final int tickLimit = _filters[i].getTickLimit();
+					
+					if (tickLimit > 0)
+						_sums[i] -= _ticks[(_lastTick - tickLimit) % _ticks.length];
+				}
+				
+				_ticks[_lastTick % _ticks.length] = 0;
+			}
 		}
 		
-		public Result isFlooding(boolean increment)
+		public synchronized Result isFlooding(boolean increment)
 		{
+			// read under the lock, so the ticks of an entry never go backwards because of a concurrent call
 			final int currentTick = getCurrentTick();
 			
 			if (currentTick - _lastTick >= _ticks.length)
 			{
-				_lastTick = currentTick;
-				
-				Arrays.fill(_ticks, (short)0);
+				reset(currentTick);
 			}
 			else if (_lastTick > currentTick)
 			{
 				MMOController._log.warn("The current tick (" + currentTick + ") is smaller than the last (" + _lastTick
 						+ ")!", new IllegalStateException());
 				
-				_lastTick = currentTick;
+				reset(currentTick);
 			}
 			else
 			{
-				while (currentTick != _lastTick)
-				{
-					_lastTick++;
-					
-					_ticks[_lastTick % _ticks.length] = 0;
-				}
+				advance(currentTick);
 			}
 			
+			final int current = _lastTick % _ticks.length;
+			
 			if (increment)
-				_ticks[_lastTick % _ticks.length]++;
+			{
+				_ticks[current]++;
+				
+				for (int i = 0; i < _filters.length; i++)
+					if (_filters[i].getTickLimit() > 0)
+						_sums[i]++;
+			}
 			
-			for (FloodFilter filter : _filters)
+			for (int i = 0; i < _filters.length; i++)
 			{
-				int previousSum = 0;
-				int currentSum = 0;
+				final FloodFilter filter = _filters[i];
 				
-				for (int i = 0; i <= filter.getTickLimit(); i++)
-				{
-					int value = _ticks[(_lastTick - i) % _ticks.length];
-					
-					if (i != 0)
-						previousSum += value;
-					
-					if (i != filter.getTickLimit())
-						currentSum += value;
-				}
+				// the same period, shifted back by one tick
+				final int currentSum = _sums[i];
+				final int previousSum = currentSum - _ticks[current]
+						+ _ticks[(_lastTick - filter.getTickLimit()) % _ticks.length];
 				
 				if (previousSum > filter.getRejectLimit() || currentSum > filter.getRejectLimit())
 					return Result.REJECTED;
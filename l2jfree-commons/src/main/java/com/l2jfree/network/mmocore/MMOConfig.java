@@ -48,9 +48,19 @@ public final class MMOConfig
 	private int _maxIncomingBytesPerPass;
 	
 	private long _selectorSleepTime;
+	private boolean _blockingSelection;
+	
+	private boolean _pipelinedReading;
+	private int _readPauseWatermark;
 	
 	private int _helperBufferCount;
 	
+	private long _authTimeout;
+	private long _idleTimeout;
+	
+	private boolean _gatheringWrites;
+	private int _writeSegmentSize;
+	
 	private ByteOrder _byteOrder;
 	
 	private int _threadCount;
@@ -88,7 +98,14 @@ public final class MMOConfig
 		_maxOutgoingBytesPerPass = Integer.MAX_VALUE;
 		_maxIncomingBytesPerPass = Integer.MAX_VALUE;
 		_selectorSleepTime = 10;
+		_blockingSelection = false;
+		_pipelinedReading = false;
+		_readPauseWatermark = 64;
 		_helperBufferCount = 20;
+		_authTimeout = 10000;
+		_idleTimeout = 0;
+		_gatheringWrites = false;
+		_writeSegmentSize = 4 * 1024;
 		_byteOrder = ByteOrder.LITTLE_ENDIAN;
 		_threadCount = Runtime.getRuntime().availableProcessors();
 	}
@@ -220,6 +237,71 @@ public final class MMOConfig
 		return _helperBufferCount;
 	}
 	
+	/**
+	 * Instructs read-write threads to copy outgoing packets into a chain of direct byte buffer
+	 * segments owned by each connection, and to flush them with a single gathering write. <BR>
+	 * <BR>
+	 * If a write is incomplete, the remaining data stays in the segments until the next write,
+	 * instead of being copied out into helper buffers and back. Free segments are shared by all
+	 * connections of the same thread, up to the memory amount taken by the helper buffers. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @param gatheringWrites whether to use gathering writes
+	 * @throws IllegalStateException if this configuration is already in use
+	 * @see #setWriteSegmentSize(int)
+	 */
+	public void setGatheringWrites(boolean gatheringWrites) throws IllegalStateException
+	{
+		tryModify();
+		_gatheringWrites = gatheringWrites;
+	}
+	
+	/**
+	 * Returns whether outgoing packets should be written with gathering writes. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @return whether to use gathering writes
+	 */
+	public boolean isGatheringWrites()
+	{
+		return _gatheringWrites;
+	}
+	
+	/**
+	 * Sets the size of a single outgoing data segment. A packet may span multiple segments. <BR>
+	 * <BR>
+	 * Only used if {@link #isGatheringWrites()} is enabled. <BR>
+	 * <BR>
+	 * Defaults to 4096 bytes.
+	 * 
+	 * @param writeSegmentSize segment size in bytes
+	 * @throws IllegalArgumentException if <TT>writeSegmentSize</TT> < 1
+	 * @throws IllegalStateException if this configuration is already in use
+	 */
+	public void setWriteSegmentSize(int writeSegmentSize) throws IllegalArgumentException, IllegalStateException
+	{
+		tryModify();
+		
+		if (writeSegmentSize < 1)
+			throw new IllegalArgumentException("Invalid segment size.");
+		
+		_writeSegmentSize = writeSegmentSize;
+	}
+	
+	/**
+	 * Returns the size of a single outgoing data segment. <BR>
+	 * <BR>
+	 * Defaults to 4096 bytes.
+	 * 
+	 * @return segment size in bytes
+	 */
+	public int getWriteSegmentSize()
+	{
+		return _writeSegmentSize;
+	}
+	
 	/**
 	 * Sets the byte order of byte buffers used in network I/O. <BR>
 	 * <BR>
@@ -414,6 +496,8 @@ public final class MMOConfig
 	 * <LI>5-15 for any interactive service (Game Server <-> Client)</LI>
 	 * <LI>25-50 (or possibly higher) for an authorization service (Login Server <-> Client)</LI>
 	 * </UL>
+	 * If {@link #isBlockingSelection()} is enabled, this value is only used as the selection
+	 * timeout, while there are connections waiting to be closed.
 	 * 
 	 * @param selectorSleepTime selector wakeup interval in milliseconds
 	 * @throws IllegalArgumentException if <TT>selectorSleepTime</TT> < 1
@@ -441,6 +525,173 @@ public final class MMOConfig
 		return _selectorSleepTime;
 	}
 	
+	/**
+	 * Instructs selector threads to block in the selection until a channel becomes ready or another
+	 * thread requests attention (by sending a packet, closing a connection, etc), instead of polling
+	 * the selector and sleeping {@link #getSelectorSleepTime()} milliseconds between iterations. <BR>
+	 * <BR>
+	 * Blocking selection removes the additional latency caused by the sleep and does not waste CPU
+	 * time while the connections are idle, at the cost of a selector wakeup per enabled write
+	 * interest. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @param blockingSelection whether to block in the selection
+	 * @throws IllegalStateException if this configuration is already in use
+	 */
+	public void setBlockingSelection(boolean blockingSelection) throws IllegalStateException
+	{
+		tryModify();
+		_blockingSelection = blockingSelection;
+	}
+	
+	/**
+	 * Returns whether selector threads should block in the selection instead of polling. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @return whether to block in the selection
+	 */
+	public boolean isBlockingSelection()
+	{
+		return _blockingSelection;
+	}
+	
+	/**
+	 * Instructs read-write threads to only split the incoming data into packets, and hand them over
+	 * to a per-connection ordered queue. Deciphering, reading and executing the packets is then done
+	 * by worker threads, so a slow packet handler can no longer stall the other connections
+	 * associated with the same selector. <BR>
+	 * <BR>
+	 * As all received packets of a connection are processed sequentially in a single queue, each
+	 * packet behaves as if {@link ReceivablePacket#blockReadingUntilExecutionIsFinished()} was
+	 * enabled, without blocking the selector thread. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @param pipelinedReading whether to process received packets in worker threads
+	 * @throws IllegalStateException if this configuration is already in use
+	 * @see #setReadPauseWatermark(int)
+	 */
+	public void setPipelinedReading(boolean pipelinedReading) throws IllegalStateException
+	{
+		tryModify();
+		_pipelinedReading = pipelinedReading;
+	}
+	
+	/**
+	 * Returns whether received packets should be processed in worker threads. <BR>
+	 * <BR>
+	 * Defaults to <TT>false</TT>.
+	 * 
+	 * @return whether to process received packets in worker threads
+	 */
+	public boolean isPipelinedReading()
+	{
+		return _pipelinedReading;
+	}
+	
+	/**
+	 * Sets the amount of received, but not yet processed packets, after which no more data will be
+	 * read from a connection. Reading is resumed once the backlog is reduced to a half of this
+	 * value. <BR>
+	 * <BR>
+	 * Only used if {@link #isPipelinedReading()} is enabled. <BR>
+	 * <BR>
+	 * Defaults to 64.
+	 * 
+	 * @param readPauseWatermark maximum amount of pending packets per connection
+	 * @throws IllegalArgumentException if <TT>readPauseWatermark</TT> < 1
+	 * @throws IllegalStateException if this configuration is already in use
+	 */
+	public void setReadPauseWatermark(int readPauseWatermark) throws IllegalArgumentException,
+			IllegalStateException
+	{
+		tryModify();
+		
+		if (readPauseWatermark < 1)
+			throw new IllegalArgumentException("Invalid watermark.");
+		
+		_readPauseWatermark = readPauseWatermark;
+	}
+	
+	/**
+	 * Returns the amount of pending packets per connection, after which reading is paused. <BR>
+	 * <BR>
+	 * Defaults to 64.
+	 * 
+	 * @return maximum amount of pending packets per connection
+	 */
+	public int getReadPauseWatermark()
+	{
+		return _readPauseWatermark;
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) a connection has to get authed in, otherwise it will be
+	 * closed. <BR>
+	 * <BR>
+	 * Defaults to 10000.
+	 * 
+	 * @param authTimeout timeout of non-authed connections in milliseconds
+	 * @throws IllegalArgumentException if <TT>authTimeout</TT> < 1
+	 * @throws IllegalStateException if this configuration is already in use
+	 */
+	public void setAuthTimeout(long authTimeout) throws IllegalArgumentException, IllegalStateException
+	{
+		tryModify();
+		
+		if (authTimeout < 1)
+			throw new IllegalArgumentException("Invalid timeout.");
+		
+		_authTimeout = authTimeout;
+	}
+	
+	/**
+	 * Returns the time (in milliseconds) a connection has to get authed in. <BR>
+	 * <BR>
+	 * Defaults to 10000.
+	 * 
+	 * @return timeout of non-authed connections in milliseconds
+	 */
+	public long getAuthTimeout()
+	{
+		return _authTimeout;
+	}
+	
+	/**
+	 * Sets the time (in milliseconds) an authed connection can stay without receiving any data,
+	 * before it's considered to be dead, and gets closed. <BR>
+	 * <BR>
+	 * Defaults to 0, which disables the timeout.
+	 * 
+	 * @param idleTimeout timeout of idle connections in milliseconds, or 0
+	 * @throws IllegalArgumentException if <TT>idleTimeout</TT> < 0
+	 * @throws IllegalStateException if this configuration is already in use
+	 */
+	public void setIdleTimeout(long idleTimeout) throws IllegalArgumentException, IllegalStateException
+	{
+		tryModify();
+		
+		if (idleTimeout < 0)
+			throw new IllegalArgumentException("Invalid timeout.");
+		
+		_idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * Returns the time (in milliseconds) an authed connection can stay without receiving any data.
+	 * <BR>
+	 * <BR>
+	 * Defaults to 0, which disables the timeout.
+	 * 
+	 * @return timeout of idle connections in milliseconds, or 0
+	 */
+	public long getIdleTimeout()
+	{
+		return _idleTimeout;
+	}
+	
 	/**
 	 * Sets the amount of network I/O threads. <BR>
 	 * <BR>
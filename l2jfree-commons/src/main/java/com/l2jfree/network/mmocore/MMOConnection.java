@@ -20,13 +20,18 @@ import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.l2jfree.util.concurrent.ExecuteWrapper;
 import com.l2jfree.util.concurrent.FIFORunnableQueue;
+import com.l2jfree.util.concurrent.FIFOSimpleExecutableQueue;
 import com.l2jfree.util.logging.L2Logger;
 
 /**
@@ -56,8 +61,13 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 	private ByteBuffer _primaryWriteBuffer;
 	private ByteBuffer _secondaryWriteBuffer;
 	
+	private ArrayDeque<ByteBuffer> _outgoingSegments;
+	
 	private long _closeTimeout = -1;
 	
+	private volatile long _lastActivity = System.currentTimeMillis();
+	private volatile ScheduledFuture<?> _timeoutCheck;
+	
 	protected MMOConnection(MMOController<T, RP, SP> mmoController, SocketChannel socketChannel)
 			throws ClosedChannelException
 	{
@@ -66,14 +76,16 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		_socket = socketChannel.socket();
 		_inetAddress = _socket.getInetAddress();
 		_hostAddress = _inetAddress.getHostAddress();
-		_selectionKey = socketChannel.register(getReadWriteThread().getSelector(), 0);
-		_selectionKey.attach(this);
+		_selectionKey = getReadWriteThread().register(socketChannel, 0, this);
 		
-		UnauthedClientTimeoutChecker.getInstance().clientCreated(this);
+		ConnectionTimeoutChecker.getInstance().register(this);
 	}
 	
 	/**
-	 * Sends a packet to the client, by adding it to the queue, and enabling write interest.
+	 * Sends a packet to the client, by adding it to the queue, and enabling write interest.<BR>
+	 * <BR>
+	 * If the associated selector is blocked in a selection, it's woken up, as soon as the write
+	 * interest gets enabled.
 	 * 
 	 * @param sp the packet to be sent
 	 * @return if the packet was successfully added to the packet queue
@@ -88,8 +100,15 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		
 		try
 		{
-			getSelectionKey().interestOps(getSelectionKey().interestOps() | SelectionKey.OP_WRITE);
+			final int interestOps = getSelectionKey().interestOps();
+			
+			getSelectionKey().interestOps(interestOps | SelectionKey.OP_WRITE);
 			getSendQueue2().addLast(sp);
+			
+			// the selector is already aware of the pending write otherwise
+			if ((interestOps & SelectionKey.OP_WRITE) == 0)
+				getReadWriteThread().wakeup();
+			
 			return true;
 		}
 		catch (CancelledKeyException e)
@@ -104,6 +123,8 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		try
 		{
 			getSelectionKey().interestOps(getSelectionKey().interestOps() | SelectionKey.OP_READ);
+			
+			getReadWriteThread().wakeup();
 		}
 		catch (CancelledKeyException e)
 		{
@@ -189,6 +210,11 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		return _socket.getChannel();
 	}
 	
+	final GatheringByteChannel getGatheringChannel()
+	{
+		return _socket.getChannel();
+	}
+	
 	final ReadableByteChannel getReadableByteChannel()
 	{
 		return _socket.getChannel();
@@ -242,7 +268,15 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 	
 	final boolean hasPendingWriteBuffer()
 	{
-		return _primaryWriteBuffer != null;
+		return _primaryWriteBuffer != null || _outgoingSegments != null && !_outgoingSegments.isEmpty();
+	}
+	
+	final ArrayDeque<ByteBuffer> getOutgoingSegments()
+	{
+		if (_outgoingSegments == null)
+			_outgoingSegments = new ArrayDeque<ByteBuffer>();
+		
+		return _outgoingSegments;
 	}
 	
 	final void movePendingWriteBufferTo(ByteBuffer dest)
@@ -269,6 +303,50 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		return _closeTimeout != -1;
 	}
 	
+	/**
+	 * @return whether the connection is closed, or already disconnected without being closed
+	 */
+	final boolean isDisconnected()
+	{
+		return isClosed() || !getSelectionKey().isValid();
+	}
+	
+	final long getAuthTimeout()
+	{
+		return getReadWriteThread().getAuthTimeout();
+	}
+	
+	final long getIdleTimeout()
+	{
+		return getReadWriteThread().getIdleTimeout();
+	}
+	
+	/**
+	 * Called by the associated read-write thread, when any data was received.
+	 */
+	final void markActive()
+	{
+		_lastActivity = System.currentTimeMillis();
+	}
+	
+	final long getLastActivity()
+	{
+		return _lastActivity;
+	}
+	
+	final void setTimeoutCheck(ScheduledFuture<?> timeoutCheck)
+	{
+		_timeoutCheck = timeoutCheck;
+	}
+	
+	final void cancelTimeoutCheck()
+	{
+		final ScheduledFuture<?> timeoutCheck = _timeoutCheck;
+		
+		if (timeoutCheck != null)
+			timeoutCheck.cancel(false);
+	}
+	
 	final boolean closeTimeouted()
 	{
 		return System.currentTimeMillis() > _closeTimeout;
@@ -339,6 +417,12 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 			getReadWriteThread().recycleBuffer(_readBuffer);
 			_readBuffer = null;
 		}
+		
+		if (_outgoingSegments != null)
+		{
+			for (ByteBuffer segment; (segment = _outgoingSegments.pollFirst()) != null;)
+				getReadWriteThread().recycleSegment(segment);
+		}
 	}
 	
 	/**
@@ -401,15 +485,110 @@ public abstract class MMOConnection<T extends MMOConnection<T, RP, SP>, RP exten
 		return _packetQueue;
 	}
 	
-	// FIXME move buffer operations (parseClientPacket) out of the read/write threads into a client associated queue
 	public void executePacket(RP rp)
 	{
-		if (rp.blockReadingUntilExecutionIsFinished())
+		// already running in the queue of received packets, in the received order
+		if (getReadWriteThread().isPipelinedReading())
+			ExecuteWrapper.execute(rp);
+		else if (rp.blockReadingUntilExecutionIsFinished())
 			getPacketQueue().executeNow(rp);
 		else
 			getPacketQueue().execute(rp);
 	}
 	
+	private ReceivedPacketQueue _receivedPacketQueue;
+	private final AtomicInteger _receivedPacketBacklog = new AtomicInteger();
+	private volatile boolean _readingPaused;
+	
+	private ReceivedPacketQueue getReceivedPacketQueue()
+	{
+		if (_receivedPacketQueue == null)
+			_receivedPacketQueue = new ReceivedPacketQueue();
+		
+		return _receivedPacketQueue;
+	}
+	
+	/**
+	 * Hands over a received, but still enciphered packet to be processed in a worker thread. If too
+	 * many packets are pending, reading from this connection is paused.<BR>
+	 * Only called by the associated read-write thread.
+	 * 
+	 * @param buf packet's body
+	 */
+	final void enqueueReceivedPacket(ByteBuffer buf)
+	{
+		final int backlog = _receivedPacketBacklog.incrementAndGet();
+		
+		getReceivedPacketQueue().execute(buf);
+		
+		if (backlog >= getReadWriteThread().getReadPauseWatermark())
+			pauseReading();
+	}
+	
+	final boolean isReadingPaused()
+	{
+		return _readingPaused;
+	}
+	
+	private synchronized void pauseReading()
+	{
+		if (_readingPaused)
+			return;
+		
+		// the backlog might have been processed in the meantime
+		if (_receivedPacketBacklog.get() < getReadWriteThread().getReadPauseWatermark())
+			return;
+		
+		_readingPaused = true;
+		disableReadInterest();
+	}
+	
+	private synchronized void resumeReading()
+	{
+		if (!_readingPaused)
+			return;
+		
+		if (_receivedPacketBacklog.get() > getReadWriteThread().getReadPauseWatermark() / 2)
+			return;
+		
+		_readingPaused = false;
+		
+		if (!isClosed())
+			enableReadInterest();
+	}
+	
+	/**
+	 * Deciphers, reads and executes received packets of this connection sequentially, in the
+	 * received order.
+	 */
+	private final class ReceivedPacketQueue extends FIFOSimpleExecutableQueue<ByteBuffer>
+	{
+		private final MMOBuffer _mmoBuffer = new MMOBuffer();
+		private final DataSizeHolder _dataSizeHolder = new DataSizeHolder();
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		protected void removeAndExecuteAll()
+		{
+			for (ByteBuffer buf; (buf = removeFirst()) != null;)
+			{
+				try
+				{
+					if (!isClosed())
+						getReadWriteThread().parseClientPacket(buf, buf.remaining(), (T)MMOConnection.this,
+								_mmoBuffer, _dataSizeHolder);
+				}
+				finally
+				{
+					_receivedPacketBacklog.decrementAndGet();
+					
+					if (isReadingPaused())
+						resumeReading();
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Returns whether anything meaningful happened since this connection was made.<BR>
 	 * A timeout is applied to idle connections.
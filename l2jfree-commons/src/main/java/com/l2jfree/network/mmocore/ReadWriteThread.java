@@ -21,6 +21,8 @@ import java.nio.ByteOrder;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.TreeSet;
 
 import javolution.util.FastList;
@@ -44,6 +46,7 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		extends AbstractSelectorThread<T, RP, SP>
 {
 	private static final int PACKET_HEADER_SIZE = 2;
+	private static final int MAX_GATHERED_SEGMENTS = 64;
 	
 	// Implementations
 	private final PacketHandler<T, RP, SP> _packetHandler;
@@ -59,6 +62,12 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 	private final int _maxOutgoingBytesPerPass;
 	private final int _maxIncomingBytesPerPass;
 	private final ByteOrder _byteOrder;
+	private final boolean _pipelinedReading;
+	private final int _readPauseWatermark;
+	private final boolean _gatheringWrites;
+	private final int _writeSegmentSize;
+	private final long _authTimeout;
+	private final long _idleTimeout;
 	
 	// MAIN BUFFERS
 	private final ByteBuffer _directWriteBuffer;
@@ -68,6 +77,11 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 	// ByteBuffers General Purpose Pool
 	private final ArrayDeque<ByteBuffer> _bufferPool;
 	
+	// Outgoing Data Segments Pool
+	private final ArrayDeque<ByteBuffer> _segmentPool;
+	private final int _maxFreeSegments;
+	private final ByteBuffer[] _gatheredSegments;
+	
 	// wrapper for read and write operations
 	private final MMOBuffer _mmoBuffer;
 	private final DataSizeHolder _dataSizeHolder;
@@ -84,6 +98,12 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		_maxOutgoingBytesPerPass = config.getMaxOutgoingBytesPerPass();
 		_maxIncomingBytesPerPass = config.getMaxIncomingBytesPerPass();
 		_byteOrder = config.getByteOrder();
+		_pipelinedReading = config.isPipelinedReading();
+		_readPauseWatermark = config.getReadPauseWatermark();
+		_gatheringWrites = config.isGatheringWrites();
+		_writeSegmentSize = config.getWriteSegmentSize();
+		_authTimeout = config.getAuthTimeout();
+		_idleTimeout = config.getIdleTimeout();
 		
 		_directWriteBuffer = ByteBuffer.allocateDirect(getBufferSize()).order(getByteOrder());
 		_writeBuffer = ByteBuffer.allocate(getBufferSize()).order(getByteOrder());
@@ -92,6 +112,13 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		_bufferPool = new ArrayDeque<ByteBuffer>(getHelperBufferCount());
 		for (int i = 0; i < getHelperBufferCount(); i++)
 			getFreeBuffers().addLast(ByteBuffer.allocate(getBufferSize()).order(getByteOrder()));
+		
+		// segments may take as much memory as the helper buffers
+		_maxFreeSegments = (int)Math.min((long)getHelperBufferCount() * getBufferSize() / getWriteSegmentSize(),
+				Integer.MAX_VALUE);
+		_segmentPool = new ArrayDeque<ByteBuffer>();
+		_gatheredSegments = new ByteBuffer[MAX_GATHERED_SEGMENTS];
+		
 		_mmoBuffer = new MMOBuffer();
 		_dataSizeHolder = new DataSizeHolder();
 		
@@ -118,6 +145,25 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		}
 	}
 	
+	private ByteBuffer getPooledSegment()
+	{
+		final ByteBuffer segment = _segmentPool.pollFirst();
+		
+		if (segment == null)
+			return ByteBuffer.allocateDirect(getWriteSegmentSize()).order(getByteOrder());
+		else
+			return segment;
+	}
+	
+	final void recycleSegment(ByteBuffer segment)
+	{
+		if (_segmentPool.size() < _maxFreeSegments)
+		{
+			segment.clear();
+			_segmentPool.addLast(segment);
+		}
+	}
+	
 	private ArrayDeque<ByteBuffer> getFreeBuffers()
 	{
 		return _bufferPool;
@@ -139,6 +185,8 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		{
 			getPendingClose().addLast(con);
 		}
+		
+		wakeup();
 	}
 	
 	private static String describeInterestOps(int interestOps)
@@ -189,6 +237,16 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		closePendingConnections();
 	}
 	
+	@Override
+	protected boolean hasPendingTasks()
+	{
+		// pending connections have to be closed even after a timeout
+		synchronized (getPendingClose())
+		{
+			return !getPendingClose().isEmpty();
+		}
+	}
+	
 	private void finishConnection(SelectionKey key)
 	{
 		try
@@ -255,6 +313,9 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 				}
 				default:
 				{
+					if (result > 0)
+						con.markActive();
+					
 					buf.flip();
 					// try to read as many packets as possible
 					for (;;)
@@ -274,6 +335,10 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 				}
 			}
 			
+			// stop reading, if the connection has too many packets waiting to be processed
+			if (con.isReadingPaused())
+				break;
+			
 			// stop reading, if we have reached a config limit
 			if (readPackets >= getMaxIncomingPacketsPerPass() || readBytes >= getMaxIncomingBytesPerPass())
 				break;
@@ -330,7 +395,10 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 				if (size > 0)
 				{
 					int pos = buf.position();
-					parseClientPacket(buf, size, con);
+					if (isPipelinedReading())
+						con.enqueueReceivedPacket(copyPacket(buf, size));
+					else
+						parseClientPacket(buf, size, con, getMmoBuffer(), getDataSizeHolder());
 					buf.position(pos + size);
 				}
 				else
@@ -355,10 +423,34 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		}
 	}
 	
-	private void parseClientPacket(ByteBuffer buf, int dataSize, T client)
+	private ByteBuffer copyPacket(ByteBuffer buf, int size)
+	{
+		final int limit = buf.limit();
+		buf.limit(buf.position() + size);
+		
+		final ByteBuffer packet = ByteBuffer.allocate(size).order(getByteOrder());
+		packet.put(buf).flip();
+		
+		buf.limit(limit);
+		return packet;
+	}
+	
+	/**
+	 * Deciphers, reads and executes a packet.<BR>
+	 * In pipelined mode, this is called by the worker thread processing the connection's received
+	 * packets, with helper objects owned by the connection.
+	 * 
+	 * @param buf a buffer positioned at the packet's body
+	 * @param dataSize size of the packet's body
+	 * @param client the connection that received the packet
+	 * @param mmoBuffer a packet reading wrapper
+	 * @param dataSizeHolder a packet size holder
+	 */
+	final void parseClientPacket(ByteBuffer buf, int dataSize, T client, MMOBuffer mmoBuffer,
+			DataSizeHolder dataSizeHolder)
 	{
 		final int pos = buf.position();
-		final DataSizeHolder dsh = getDataSizeHolder().init(dataSize);
+		final DataSizeHolder dsh = dataSizeHolder.init(dataSize);
 		
 		if (client.decipher(buf, dsh) && buf.hasRemaining())
 		{
@@ -393,22 +485,22 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 						maxLeftoverPadding -= removable;
 					}
 					
-					getMmoBuffer().setByteBuffer(buf);
+					mmoBuffer.setByteBuffer(buf);
 					cp.setClient(client);
 					
 					try
 					{
-						if (getMmoBuffer().getAvailableBytes() < cp.getMinimumLength())
+						if (mmoBuffer.getAvailableBytes() < cp.getMinimumLength())
 						{
 							getMMOController().report(ErrorMode.BUFFER_UNDER_FLOW, client, cp, null);
 						}
-						else if (getMmoBuffer().getAvailableBytes() > cp.getMaximumLength())
+						else if (mmoBuffer.getAvailableBytes() > cp.getMaximumLength())
 						{
 							getMMOController().report(ErrorMode.BUFFER_OVER_FLOW, client, cp, null);
 						}
 						else
 						{
-							cp.read(getMmoBuffer());
+							cp.read(mmoBuffer);
 							
 							client.executePacket(cp);
 							
@@ -434,7 +526,7 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 						getMMOController().report(ErrorMode.FAILED_READING, client, cp, e);
 					}
 					
-					getMmoBuffer().setByteBuffer(null);
+					mmoBuffer.setByteBuffer(null);
 				}
 			}
 			
@@ -447,6 +539,12 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		@SuppressWarnings("unchecked")
 		T con = (T)key.attachment();
 		
+		if (isGatheringWrites())
+		{
+			writeSegments(con);
+			return;
+		}
+		
 		int wrotePackets = 0;
 		int wroteBytes = 0;
 		
@@ -503,6 +601,114 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		}
 	}
 	
+	private void writeSegments(T con)
+	{
+		final ArrayDeque<ByteBuffer> segments = con.getOutgoingSegments();
+		
+		int wrotePackets = 0;
+		int wroteBytes = 0;
+		
+		for (;;)
+		{
+			// append as many packets as allowed after the pending content
+			while (segments.size() < MAX_GATHERED_SEGMENTS)
+			{
+				if (wrotePackets >= getMaxOutgoingPacketsPerPass() || wroteBytes >= getMaxOutgoingBytesPerPass())
+					break;
+				
+				final SP sp;
+				
+				synchronized (con)
+				{
+					sp = con.getSendQueue2().pollFirst();
+					
+					if (sp == null)
+						break;
+				}
+				
+				// put into WriteBuffer
+				putPacketIntoWriteBuffer(con, sp);
+				getWriteBuffer().flip();
+				
+				wrotePackets++;
+				wroteBytes += getWriteBuffer().remaining();
+				
+				appendToSegments(segments, getWriteBuffer());
+			}
+			
+			if (!segments.isEmpty())
+			{
+				int count = 0;
+				for (Iterator<ByteBuffer> it = segments.iterator(); it.hasNext() && count < MAX_GATHERED_SEGMENTS;)
+					_gatheredSegments[count++] = it.next();
+				
+				try
+				{
+					con.getGatheringChannel().write(_gatheredSegments, 0, count);
+				}
+				catch (IOException e)
+				{
+					closeConnectionImpl(con, true);
+					return;
+				}
+				finally
+				{
+					Arrays.fill(_gatheredSegments, 0, count, null);
+				}
+				
+				// written segments are released, a partially written one stays in place
+				for (ByteBuffer segment; (segment = segments.peekFirst()) != null && !segment.hasRemaining();)
+					recycleSegment(segments.pollFirst());
+				
+				// incomplete write
+				if (!segments.isEmpty())
+					return;
+			}
+			
+			// complete write
+			synchronized (con)
+			{
+				if (con.getSendQueue2().isEmpty())
+				{
+					con.disableWriteInterest();
+					return;
+				}
+				else if (wrotePackets >= getMaxOutgoingPacketsPerPass() || wroteBytes >= getMaxOutgoingBytesPerPass())
+					return;
+			}
+		}
+	}
+	
+	/**
+	 * Copies the given data after the last unwritten byte of the segment chain.<BR>
+	 * Segments are kept in a readable state, so the unwritten data is always between their
+	 * position and limit.
+	 */
+	private void appendToSegments(ArrayDeque<ByteBuffer> segments, ByteBuffer src)
+	{
+		final int srcLimit = src.limit();
+		
+		ByteBuffer segment = segments.peekLast();
+		while (src.hasRemaining())
+		{
+			if (segment == null || segment.limit() == segment.capacity())
+			{
+				segment = getPooledSegment();
+				segment.limit(0);
+				segments.addLast(segment);
+			}
+			
+			final int pos = segment.position();
+			segment.position(segment.limit()).limit(segment.capacity());
+			
+			src.limit(src.position() + Math.min(src.remaining(), segment.remaining()));
+			segment.put(src);
+			src.limit(srcLimit);
+			
+			segment.limit(segment.position()).position(pos);
+		}
+	}
+	
 	private int prepareWriteBuffer2(T con, int wrotePackets, int wroteBytes)
 	{
 		getDirectWriteBuffer().clear();
@@ -576,7 +782,31 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		// write content to buffer
 		try
 		{
-			sp.write(client, getMmoBuffer());
+			final Object broadcastKey = sp.getBroadcastKey(client);
+			
+			if (broadcastKey == null)
+			{
+				sp.write(client, getMmoBuffer());
+			}
+			else
+			{
+				final byte[] encodedBody = sp.getEncodedBody(broadcastKey);
+				
+				if (encodedBody != null)
+				{
+					// already written for an other client
+					getWriteBuffer().put(encodedBody);
+				}
+				else
+				{
+					sp.write(client, getMmoBuffer());
+					
+					// store the plain body before it gets enciphered
+					final byte[] body = new byte[getWriteBuffer().position() - PACKET_HEADER_SIZE];
+					System.arraycopy(getWriteBuffer().array(), PACKET_HEADER_SIZE, body, 0, body.length);
+					sp.setEncodedBody(broadcastKey, body);
+				}
+			}
 		}
 		catch (RuntimeException e)
 		{
@@ -665,6 +895,7 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 			}
 			finally
 			{
+				con.cancelTimeoutCheck();
 				con.releaseBuffers();
 				// clear attachment
 				con.getSelectionKey().attach(null);
@@ -709,6 +940,36 @@ final class ReadWriteThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		return _byteOrder;
 	}
 	
+	final boolean isPipelinedReading()
+	{
+		return _pipelinedReading;
+	}
+	
+	final int getReadPauseWatermark()
+	{
+		return _readPauseWatermark;
+	}
+	
+	final long getAuthTimeout()
+	{
+		return _authTimeout;
+	}
+	
+	final long getIdleTimeout()
+	{
+		return _idleTimeout;
+	}
+	
+	private boolean isGatheringWrites()
+	{
+		return _gatheringWrites;
+	}
+	
+	private int getWriteSegmentSize()
+	{
+		return _writeSegmentSize;
+	}
+	
 	private ByteBuffer getDirectWriteBuffer()
 	{
 		return _directWriteBuffer;
@@ -48,4 +48,68 @@ public abstract class SendablePacket<T extends MMOConnection<T, RP, SP>, RP exte
 	{
 		// do nothing at default
 	}
+	
+	/**
+	 * Returns a key identifying the layout of this packet's body, as written for the given client.
+	 * <BR>
+	 * <BR>
+	 * If a key is returned, {@link #write(MMOConnection, MMOBuffer)} must write exactly the same
+	 * bytes for every client with an equal key. The body is then written only once per key, and the
+	 * encoded bytes are simply copied (and enciphered) for every further client. This is especially
+	 * useful for packets broadcasted to many clients.<BR>
+	 * <BR>
+	 * At default, the body is written separately for every client.
+	 * 
+	 * @param client packet receiver
+	 * @return a key (such as the client's protocol version) or null
+	 */
+	protected Object getBroadcastKey(T client)
+	{
+		return null;
+	}
+	
+	/** Immutable list of the already encoded bodies, one for each broadcast key. */
+	private volatile EncodedBody _encodedBodies;
+	
+	private static final class EncodedBody
+	{
+		private final Object _key;
+		private final byte[] _body;
+		private final EncodedBody _next;
+		
+		private EncodedBody(Object key, byte[] body, EncodedBody next)
+		{
+			_key = key;
+			_body = body;
+			_next = next;
+		}
+	}
+	
+	/**
+	 * Returns the body encoded for the given broadcast key, if there is any.
+	 * 
+	 * @param key broadcast key
+	 * @return the encoded body (must not be modified) or null
+	 */
+	final byte[] getEncodedBody(Object key)
+	{
+		for (EncodedBody encodedBody = _encodedBodies; encodedBody != null; encodedBody = encodedBody._next)
+			if (encodedBody._key.equals(key))
+				return encodedBody._body;
+		
+		return null;
+	}
+	
+	/**
+	 * Stores the body encoded for the given broadcast key, so it can be reused for further clients.
+	 * 
+	 * @param key broadcast key
+	 * @param body the encoded body
+	 */
+	final synchronized void setEncodedBody(Object key, byte[] body)
+	{
+		// another selector thread may have encoded it meanwhile
+		if (getEncodedBody(key) == null)
+			_encodedBodies = new EncodedBody(key, body, _encodedBodies);
+	}
 }
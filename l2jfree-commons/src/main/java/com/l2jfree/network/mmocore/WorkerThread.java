@@ -50,6 +50,8 @@ abstract class WorkerThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		{
 			_shutdown = true;
 			
+			wakeup();
+			
 			join();
 		}
 		catch (Throwable t)
@@ -58,6 +60,15 @@ abstract class WorkerThread<T extends MMOConnection<T, RP, SP>, RP extends Recei
 		}
 	}
 	
+	/**
+	 * Interrupts any blocking operation of this thread, so it can notice pending work or a shutdown
+	 * request without delay.
+	 */
+	void wakeup()
+	{
+		// to be overridden
+	}
+	
 	final boolean isShuttingDown()
 	{
 		return _shutdown;
@@ -0,0 +1,137 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.network.mmocore.packethandlers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.l2jfree.network.mmocore.MMOConnection;
+import com.l2jfree.network.mmocore.PacketHandler;
+import com.l2jfree.network.mmocore.ReceivablePacket;
+import com.l2jfree.network.mmocore.SendablePacket;
+
+/**
+ * Dispatches packets through the dense {@link PacketTable}s built from a
+ * {@link PacketHandlerBuilder}, and instantiates them with a generated {@link PacketFactory}.
+ * 
+ * @author NB4L1
+ * @author agent
+ * @param <T>
+ * @param <RP>
+ * @param <SP>
+ * @param <S>
+ */
+public abstract class GeneratedPacketHandler<T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>>
+		extends PacketHandler<T, RP, SP>
+{
+	private final PacketTable _table;
+	private final PacketFactory<RP> _factory;
+	
+	protected GeneratedPacketHandler(int levels) throws Exception
+	{
+		this(levels, true);
+	}
+	
+	/**
+	 * @param levels the maximal number of opcode levels
+	 * @param generateFactory false to instantiate the packets via reflection, as a reference for
+	 *            the generated factory
+	 * @throws Exception if the packet tables can't be built
+	 */
+	protected GeneratedPacketHandler(int levels, boolean generateFactory) throws Exception
+	{
+		final PacketHandlerBuilder<T, RP, SP, S> phb = initPacketHandlerBuilder();
+		
+		phb.getRootHandler().printStructure(0);
+		
+		final List<PacketDefinition<T, RP, SP, S>> definitions = new ArrayList<PacketDefinition<T, RP, SP, S>>();
+		
+		_table = phb.getRootHandler().buildPacketTable(definitions, levels);
+		_factory = PacketFactory.newFactory(definitions, generateFactory);
+	}
+	
+	public abstract PacketHandlerBuilder<T, RP, SP, S> initPacketHandlerBuilder() throws Exception;
+	
+	@Override
+	public final RP handlePacket(ByteBuffer buf, T client, final int opcode1)
+	{
+		final int state = client.getState().ordinal();
+		
+		final int index1 = _table.indexOf(opcode1);
+		
+		if (index1 < 0)
+			return unknown(buf, client, opcode1);
+		
+		final PacketTable table2 = _table.getBranch(index1);
+		
+		if (table2 == null)
+		{
+			final int packet = _table.getPacket(index1, state);
+			
+			if (packet >= 0)
+				return _factory.newInstance(packet);
+			
+			if (packet == PacketTable.INVALID_STATE)
+				return invalidState(client, opcode1);
+			
+			return unknown(buf, client, opcode1);
+		}
+		
+		if (buf.remaining() < 2)
+			return underflow(buf, client, opcode1);
+		
+		final int opcode2 = buf.getShort() & 0xffff;
+		final int index2 = table2.indexOf(opcode2);
+		
+		if (index2 < 0)
+			return unknown(buf, client, opcode1, opcode2);
+		
+		final PacketTable table3 = table2.getBranch(index2);
+		
+		if (table3 == null)
+		{
+			final int packet = table2.getPacket(index2, state);
+			
+			if (packet >= 0)
+				return _factory.newInstance(packet);
+			
+			if (packet == PacketTable.INVALID_STATE)
+				return invalidState(client, opcode1, opcode2);
+			
+			return unknown(buf, client, opcode1, opcode2);
+		}
+		
+		if (buf.remaining() < 4)
+			return underflow(buf, client, opcode1, opcode2);
+		
+		final int opcode3 = buf.getInt();
+		final int index3 = table3.indexOf(opcode3);
+		
+		if (index3 < 0)
+			return unknown(buf, client, opcode1, opcode2, opcode3);
+		
+		// deeper levels are rejected while building the tables
+		final int packet = table3.getPacket(index3, state);
+		
+		if (packet >= 0)
+			return _factory.newInstance(packet);
+		
+		if (packet == PacketTable.INVALID_STATE)
+			return invalidState(client, opcode1, opcode2, opcode3);
+		
+		return unknown(buf, client, opcode1, opcode2, opcode3);
+	}
+}
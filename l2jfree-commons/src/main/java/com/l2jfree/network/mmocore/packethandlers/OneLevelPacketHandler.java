@@ -14,10 +14,7 @@
  */
 package com.l2jfree.network.mmocore.packethandlers;
 
-import java.nio.ByteBuffer;
-
 import com.l2jfree.network.mmocore.MMOConnection;
-import com.l2jfree.network.mmocore.PacketHandler;
 import com.l2jfree.network.mmocore.ReceivablePacket;
 import com.l2jfree.network.mmocore.SendablePacket;
 
@@ -29,42 +26,15 @@ import com.l2jfree.network.mmocore.SendablePacket;
  * @param <S>
  */
 public abstract class OneLevelPacketHandler<T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>>
-		extends PacketHandler<T, RP, SP>
+		extends GeneratedPacketHandler<T, RP, SP, S>
 {
-	private final PacketDefinition<T, RP, SP, S>[][] _table;
-	
 	protected OneLevelPacketHandler() throws Exception
 	{
-		final PacketHandlerBuilder<T, RP, SP, S> phb = initPacketHandlerBuilder();
-		
-		phb.getRootHandler().printStructure(0);
-		
-		_table = phb.getRootHandler().buildOneLevelTable();
+		super(1);
 	}
 	
-	public abstract PacketHandlerBuilder<T, RP, SP, S> initPacketHandlerBuilder() throws Exception;
-	
-	@Override
-	public final RP handlePacket(ByteBuffer buf, T client, final int opcode1)
+	protected OneLevelPacketHandler(boolean generateFactory) throws Exception
 	{
-		final PacketDefinition<T, RP, SP, S>[] table1 = _table[opcode1];
-		
-		if (table1 == null)
-		{
-			return unknown(buf, client, opcode1);
-		}
-		else if (table1.length == 1)
-		{
-			final PacketDefinition<T, RP, SP, S> packetDefinition = table1[client.getState().ordinal()];
-			
-			if (packetDefinition != null)
-				return packetDefinition.newInstance();
-			
-			return invalidState(client, opcode1);
-		}
-		else
-		{
-			throw new Error();
-		}
+		super(1, generateFactory);
 	}
 }
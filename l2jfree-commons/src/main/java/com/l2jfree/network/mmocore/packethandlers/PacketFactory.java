@@ -0,0 +1,163 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.network.mmocore.packethandlers;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.l2jfree.network.mmocore.MMOConnection;
+import com.l2jfree.network.mmocore.ReceivablePacket;
+import com.l2jfree.network.mmocore.SendablePacket;
+import com.l2jfree.util.logging.L2Logger;
+import com.sun.script.java.JavaCompiler;
+import com.sun.script.java.MemoryClassLoader;
+
+/**
+ * Instantiates packets by their index in the {@link PacketTable}s.<BR>
+ * <BR>
+ * The factory is generated and compiled at startup as a single switch-case over direct constructor
+ * calls, and falls back to reflection if that's not possible in the current environment.
+ * 
+ * @author NB4L1
+ * @author agent
+ * @param <RP> receivable packet
+ */
+public abstract class PacketFactory<RP>
+{
+	private static final L2Logger _log = L2Logger.getLogger(PacketFactory.class);
+	
+	private static final AtomicInteger GENERATED_CLASS_ID = new AtomicInteger();
+	
+	public static <T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>> PacketFactory<RP> newFactory(
+			List<PacketDefinition<T, RP, SP, S>> definitions)
+	{
+		return newFactory(definitions, true);
+	}
+	
+	/**
+	 * @param definitions the packet definitions, in the order of their indexes
+	 * @param generate false to skip the generation, and use reflection right away
+	 * @return a new factory
+	 */
+	static <T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>> PacketFactory<RP> newFactory(
+			List<PacketDefinition<T, RP, SP, S>> definitions, boolean generate)
+	{
+		if (!generate)
+			return new ReflectivePacketFactory<T, RP, SP, S>(definitions);
+		
+		try
+		{
+			return generateFactory(definitions);
+		}
+		catch (Throwable t)
+		{
+			// the compiler might be missing from the runtime classpath as well
+			_log.warn("PacketFactory: Failed to generate packet factory, falling back to reflection!", t);
+			
+			return new ReflectivePacketFactory<T, RP, SP, S>(definitions);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>> PacketFactory<RP> generateFactory(
+			List<PacketDefinition<T, RP, SP, S>> definitions) throws Exception
+	{
+		final String packageName = PacketFactory.class.getPackage().getName();
+		final String simpleName = "GeneratedPacketFactory" + GENERATED_CLASS_ID.incrementAndGet();
+		
+		final StringBuilder sb = new StringBuilder();
+		
+		sb.append("package ").append(packageName).append(";\r\n");
+		sb.append("\r\n");
+		sb.append("public final class ").append(simpleName);
+		sb.append(" extends ").append(PacketFactory.class.getCanonicalName()).append("<Object>\r\n");
+		sb.append("{\r\n");
+		sb.append("\t@Override\r\n");
+		sb.append("\tpublic Object newInstance(int index)\r\n");
+		sb.append("\t{\r\n");
+		sb.append("\t\tswitch (index)\r\n");
+		sb.append("\t\t{\r\n");
+		for (int i = 0; i < definitions.size(); i++)
+		{
+			final Class<?> clazz = definitions.get(i).getConstructor().getDeclaringClass();
+			
+			if (clazz.getCanonicalName() == null)
+				throw new Exception("Packet without canonical name: " + clazz);
+			
+			sb.append("\t\t\tcase ").append(i).append(":\r\n");
+			sb.append("\t\t\t\treturn new ").append(clazz.getCanonicalName()).append("();\r\n");
+		}
+		sb.append("\t\t\tdefault:\r\n");
+		sb.append("\t\t\t\tthrow new IndexOutOfBoundsException(String.valueOf(index));\r\n");
+		sb.append("\t\t}\r\n");
+		sb.append("\t}\r\n");
+		sb.append("}\r\n");
+		
+		final String classPath = System.getProperty("java.class.path");
+		final StringWriter err = new StringWriter();
+		
+		final Map<String, byte[]> classBytes =
+				new JavaCompiler().compile(simpleName + ".java", sb.toString(), err, null, classPath);
+		
+		if (classBytes == null)
+			throw new Exception("Compilation failed:\r\n" + err);
+		
+		final ClassLoader parent = definitions.isEmpty() ? PacketFactory.class.getClassLoader() : //
+				definitions.get(0).getConstructor().getDeclaringClass().getClassLoader();
+		
+		final MemoryClassLoader loader = new MemoryClassLoader(classBytes, null, parent);
+		
+		final PacketFactory<RP> factory =
+				(PacketFactory<RP>)loader.load(packageName + "." + simpleName).newInstance();
+		
+		// make sure that each index creates the very same packet as the definition would
+		for (int i = 0; i < definitions.size(); i++)
+		{
+			final Class<?> expected = definitions.get(i).getConstructor().getDeclaringClass();
+			final Class<?> actual = factory.newInstance(i).getClass();
+			
+			if (expected != actual)
+				throw new Exception("Mismatching packet at " + i + ": " + actual + " instead of " + expected);
+		}
+		
+		return factory;
+	}
+	
+	/**
+	 * @param index the index of the packet definition this factory was built from
+	 * @return a new instance of the packet
+	 */
+	public abstract RP newInstance(int index);
+	
+	private static final class ReflectivePacketFactory<T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>>
+			extends PacketFactory<RP>
+	{
+		private final PacketDefinition<T, RP, SP, S>[] _definitions;
+		
+		@SuppressWarnings("unchecked")
+		private ReflectivePacketFactory(List<PacketDefinition<T, RP, SP, S>> definitions)
+		{
+			_definitions = definitions.toArray(new PacketDefinition[definitions.size()]);
+		}
+		
+		@Override
+		public RP newInstance(int index)
+		{
+			return _definitions[index].newInstance();
+		}
+	}
+}
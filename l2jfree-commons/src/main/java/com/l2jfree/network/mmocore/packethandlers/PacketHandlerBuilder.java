@@ -14,6 +14,7 @@
  */
 package com.l2jfree.network.mmocore.packethandlers;
 
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -30,7 +31,6 @@ import com.l2jfree.util.logging.L2Logger;
  * @param <SP> sendable packet
  * @param <S> client state
  */
-// FIXME runtime class generation with switch-case (so as the old structure, yet without the extensive maintenance cost)
 @SuppressWarnings("unchecked")
 public final class PacketHandlerBuilder<T extends MMOConnection<T, RP, SP>, RP extends ReceivablePacket<T, RP, SP>, SP extends SendablePacket<T, RP, SP>, S extends Enum<S>>
 {
@@ -127,16 +127,6 @@ public final class PacketHandlerBuilder<T extends MMOConnection<T, RP, SP>, RP e
 			}
 		}
 		
-		private PacketDefinition<T, RP, SP, S>[] getDefinitionsByState()
-		{
-			final PacketDefinition<T, RP, SP, S>[] result = new PacketDefinition[_enumValuesLength];
-			
-			for (Map.Entry<S, PacketDefinition<T, RP, SP, S>> entry : _definitionsByState.entrySet())
-				result[entry.getKey().ordinal()] = entry.getValue();
-			
-			return result;
-		}
-		
 		public void printStructure(int indent)
 		{
 			if (_handlersByOpcode.isEmpty())
@@ -171,66 +161,55 @@ public final class PacketHandlerBuilder<T extends MMOConnection<T, RP, SP>, RP e
 			}
 		}
 		
-		public PacketDefinition<T, RP, SP, S>[][] buildOneLevelTable() throws Exception
+		/**
+		 * Builds the dense opcode/state table of this level, and the tables of the further levels.
+		 * 
+		 * @param definitions collects the distinct packets, in the order of their indexes in the tables
+		 * @param levels the maximal number of opcode levels allowed from this level
+		 * @return the table of this level
+		 * @throws Exception if there are too many levels, or the opcodes are too sparse for a table
+		 */
+		public PacketTable buildPacketTable(List<PacketDefinition<T, RP, SP, S>> definitions, int levels)
+				throws Exception
 		{
-			final PacketDefinition<T, RP, SP, S>[][] table = new PacketDefinition[256][];
+			if (levels <= 0)
+				throw new Exception("Too many opcode levels!");
 			
-			for (Map.Entry<Integer, Handler> entry : _handlersByOpcode.entrySet())
-			{
-				final int opcode = entry.getKey();
-				final Handler handler = entry.getValue();
-				
-				if (handler._handlersByOpcode.isEmpty())
-				{
-					table[opcode] = handler.getDefinitionsByState();
-				}
-				else
-				{
-					throw new Exception();
-				}
-			}
+			if (_handlersByOpcode.isEmpty())
+				return new PacketTable(0, 0, _enumValuesLength);
 			
-			return table;
-		}
-		
-		public PacketDefinition<T, RP, SP, S>[][][] buildTwoLevelTable() throws Exception
-		{
-			final PacketDefinition<T, RP, SP, S>[][][] table = new PacketDefinition[256][][];
+			final int firstOpcode = _handlersByOpcode.firstKey();
+			final long span = (long)_handlersByOpcode.lastKey() - firstOpcode + 1;
 			
-			for (Map.Entry<Integer, Handler> entry : _handlersByOpcode.entrySet())
-			{
-				final int opcode = entry.getKey();
-				final Handler handler = entry.getValue();
-				
-				if (handler._handlersByOpcode.isEmpty())
-				{
-					table[opcode] = new PacketDefinition[][] { handler.getDefinitionsByState() };
-				}
-				else
-				{
-					table[opcode] = handler.buildOneLevelTable();
-				}
-			}
+			if (span > PacketTable.MAX_SPAN)
+				throw new Exception("Too sparse opcodes: 0x" + HexUtil.fillHex(firstOpcode, 2) + " - 0x"
+						+ HexUtil.fillHex(_handlersByOpcode.lastKey(), 2));
 			
-			return table;
-		}
-		
-		public PacketDefinition<T, RP, SP, S>[][][][] buildThreeLevelTable() throws Exception
-		{
-			final PacketDefinition<T, RP, SP, S>[][][][] table = new PacketDefinition[256][][][];
+			final PacketTable table = new PacketTable(firstOpcode, (int)span, _enumValuesLength);
 			
 			for (Map.Entry<Integer, Handler> entry : _handlersByOpcode.entrySet())
 			{
-				final int opcode = entry.getKey();
+				final int index = entry.getKey() - firstOpcode;
 				final Handler handler = entry.getValue();
 				
 				if (handler._handlersByOpcode.isEmpty())
 				{
-					table[opcode] = new PacketDefinition[][][] { { handler.getDefinitionsByState() } };
+					for (Map.Entry<S, PacketDefinition<T, RP, SP, S>> entry2 : handler._definitionsByState.entrySet())
+					{
+						int packet = definitions.indexOf(entry2.getValue());
+						
+						if (packet == -1)
+						{
+							packet = definitions.size();
+							definitions.add(entry2.getValue());
+						}
+						
+						table.setPacket(index, entry2.getKey().ordinal(), packet);
+					}
 				}
 				else
 				{
-					table[opcode] = handler.buildTwoLevelTable();
+					table.setBranch(index, handler.buildPacketTable(definitions, levels - 1));
 				}
 			}
 			
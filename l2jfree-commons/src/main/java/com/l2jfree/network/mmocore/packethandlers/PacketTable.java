@@ -0,0 +1,97 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.network.mmocore.packethandlers;
+
+import java.util.Arrays;
+
+/**
+ * A dense opcode &times; state table of a single opcode level.<BR>
+ * <BR>
+ * Only the opcodes between the lowest and the highest known opcode are covered, so even the
+ * 4-byte opcodes of the third level cost a bounded amount of memory, and any received opcode is
+ * simply range checked.
+ * 
+ * @author NB4L1
+ * @author agent
+ */
+public final class PacketTable
+{
+	/** The opcode is known, but not in the client's current state. */
+	public static final int INVALID_STATE = -1;
+	/** The opcode is unknown. */
+	public static final int UNKNOWN = -2;
+	
+	/** The maximal number of opcodes a single table may cover. */
+	public static final int MAX_SPAN = 0x10000;
+	
+	private final int _firstOpcode;
+	private final int _stateCount;
+	private final PacketTable[] _branches;
+	private final int[] _packets;
+	
+	PacketTable(int firstOpcode, int span, int stateCount)
+	{
+		_firstOpcode = firstOpcode;
+		_stateCount = stateCount;
+		_branches = new PacketTable[span];
+		_packets = new int[span * stateCount];
+		
+		Arrays.fill(_packets, UNKNOWN);
+	}
+	
+	/**
+	 * @param opcode a received opcode
+	 * @return the row of the given opcode, or -1 if it's out of the covered range
+	 */
+	public int indexOf(int opcode)
+	{
+		// can't overflow into the range, as the last covered opcode is a valid int
+		final int index = opcode - _firstOpcode;
+		
+		return index >= 0 && index < _branches.length ? index : -1;
+	}
+	
+	/**
+	 * @param index a row returned by {@link #indexOf(int)}
+	 * @return the table of the next opcode level, or null if the opcode identifies a packet
+	 */
+	public PacketTable getBranch(int index)
+	{
+		return _branches[index];
+	}
+	
+	/**
+	 * @param index a row returned by {@link #indexOf(int)}
+	 * @param state the ordinal of the client's current state
+	 * @return the index of the packet to instantiate, {@link #INVALID_STATE} or {@link #UNKNOWN}
+	 */
+	public int getPacket(int index, int state)
+	{
+		return _packets[index * _stateCount + state];
+	}
+	
+	void setBranch(int index, PacketTable branch)
+	{
+		_branches[index] = branch;
+	}
+	
+	void setPacket(int index, int state, int packet)
+	{
+		if (_packets[index * _stateCount] == UNKNOWN)
+			Arrays.fill(_packets, index * _stateCount, (index + 1) * _stateCount, INVALID_STATE);
+		
+		_packets[index * _stateCount + state] = packet;
+	}
+}
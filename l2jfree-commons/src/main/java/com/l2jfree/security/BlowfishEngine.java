@@ -567,4 +567,178 @@ public final class BlowfishEngine {
 		Bits32ToBytes(xr, buf, offset);
 		Bits32ToBytes(xl, buf, offset + 4);
 	}
+
+	// ==================================
+	// Bulk Implementation
+	// ==================================
+
+	/**
+	 * Processes (enciphers/deciphers) all the complete blocks of the given
+	 * range in a single pass.
+	 * @param buf a byte buffer
+	 * @param offset offset to the first block
+	 * @param size size of the range, trailing bytes of an incomplete block are
+	 *            left untouched
+	 * @throws IllegalArgumentException not enough bytes in buffer
+	 * @throws IllegalStateException uninitialized, missing Blowfish key
+	 */
+	public final void processBlocks(ByteBuffer buf, int offset, int size) throws IllegalArgumentException, IllegalStateException {
+		final int end = offset + (size & ~(BLOCK_SIZE - 1));
+		checkRange(buf, end);
+
+		final ByteOrder bo = buf.order();
+		try
+		{
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+
+			for (int pos = offset; pos < end; pos += BLOCK_SIZE) {
+				final long block = encrypting ? encryptWords(buf.getInt(pos), buf.getInt(pos + 4))
+						: decryptWords(buf.getInt(pos), buf.getInt(pos + 4));
+
+				buf.putInt(pos, (int) block);
+				buf.putInt(pos + 4, (int) (block >>> 32));
+			}
+		}
+		finally
+		{
+			buf.order(bo);
+		}
+	}
+
+	/**
+	 * Embeds the XOR checksum of the plain data into the last 4 bytes of the
+	 * range, while enciphering the blocks, in a single pass.
+	 * @param buf a byte buffer
+	 * @param offset offset to the first block
+	 * @param size size of the range, must be a positive multiple of the block
+	 *            size
+	 * @throws IllegalArgumentException not enough bytes in buffer, or invalid
+	 *             size
+	 * @throws IllegalStateException uninitialized, missing Blowfish key, or
+	 *             initialized for deciphering
+	 */
+	public final void encryptWithChecksum(ByteBuffer buf, int offset, int size) throws IllegalArgumentException, IllegalStateException {
+		if (!encrypting)
+			throw new IllegalStateException("Blowfish initialised for decryption");
+		else if (size <= 0 || (size & (BLOCK_SIZE - 1)) != 0)
+			throw new IllegalArgumentException("invalid size: " + size);
+
+		final int end = offset + size;
+		checkRange(buf, end);
+
+		// XOR works on separate bytes, so the checksum does not depend on the byte order
+		final ByteOrder bo = buf.order();
+		try
+		{
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+
+			int checksum = 0;
+			for (int pos = offset; pos < end; pos += BLOCK_SIZE) {
+				final int xl = buf.getInt(pos);
+				int xr = buf.getInt(pos + 4);
+
+				checksum ^= xl;
+				if (pos + BLOCK_SIZE < end)
+					checksum ^= xr;
+				else
+					xr = checksum;
+
+				final long block = encryptWords(xl, xr);
+
+				buf.putInt(pos, (int) block);
+				buf.putInt(pos + 4, (int) (block >>> 32));
+			}
+		}
+		finally
+		{
+			buf.order(bo);
+		}
+	}
+
+	/**
+	 * Deciphers the blocks, while verifying the XOR checksum embedded into
+	 * the last 4 bytes of the range, in a single pass.
+	 * @param buf a byte buffer
+	 * @param offset offset to the first block
+	 * @param size size of the range, must be a positive multiple of the block
+	 *            size
+	 * @return whether the checksum is valid
+	 * @throws IllegalArgumentException not enough bytes in buffer, or invalid
+	 *             size
+	 * @throws IllegalStateException uninitialized, missing Blowfish key, or
+	 *             initialized for enciphering
+	 */
+	public final boolean decryptWithChecksum(ByteBuffer buf, int offset, int size) throws IllegalArgumentException, IllegalStateException {
+		if (encrypting)
+			throw new IllegalStateException("Blowfish initialised for encryption");
+		else if (size <= 0 || (size & (BLOCK_SIZE - 1)) != 0)
+			throw new IllegalArgumentException("invalid size: " + size);
+
+		final int end = offset + size;
+		checkRange(buf, end);
+
+		final ByteOrder bo = buf.order();
+		try
+		{
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+
+			int checksum = 0;
+			int embedded = 0;
+			for (int pos = offset; pos < end; pos += BLOCK_SIZE) {
+				final long block = decryptWords(buf.getInt(pos), buf.getInt(pos + 4));
+				final int xl = (int) block;
+				final int xr = (int) (block >>> 32);
+
+				buf.putInt(pos, xl);
+				buf.putInt(pos + 4, xr);
+
+				checksum ^= xl;
+				if (pos + BLOCK_SIZE < end)
+					checksum ^= xr;
+				else
+					embedded = xr;
+			}
+
+			return checksum == embedded;
+		}
+		finally
+		{
+			buf.order(bo);
+		}
+	}
+
+	private void checkRange(ByteBuffer buf, int end) {
+		if (workingKey == null)
+			throw new IllegalStateException("Blowfish not initialised");
+		else if (end > buf.limit())
+			throw new IllegalArgumentException("buffer too short");
+	}
+
+	/**
+	 * @return the enciphered words, the first one in the lower 32 bits
+	 */
+	private long encryptWords(int xl, int xr) {
+		xl ^= P[0];
+		for (int i = 1; i < ROUNDS; i += 2) {
+			xr ^= F(xl) ^ P[i];
+			xl ^= F(xr) ^ P[i + 1];
+		}
+		xr ^= P[ROUNDS + 1];
+
+		return (xr & 0xFFFFFFFFL) | ((long) xl << 32);
+	}
+
+	/**
+	 * @return the deciphered words, the first one in the lower 32 bits
+	 */
+	private long decryptWords(int xl, int xr) {
+		xl ^= P[ROUNDS + 1];
+		for (int i = ROUNDS; i > 0; i -= 2) {
+			xr ^= F(xl) ^ P[i];
+			xl ^= F(xr) ^ P[i - 1];
+		}
+		xr ^= P[0];
+
+		return (xr & 0xFFFFFFFFL) | ((long) xl << 32);
+	}
 }
@@ -484,9 +484,32 @@ public class NewCipher implements ICipher
 	 */
 	public void encipher(ByteBuffer buf, final int offset, final int size)
 	{
-		int count = size / 8;
-		for (int i = 0; i < count; i++)
-			_crypt.processBlock(buf, offset + i * 8);
+		_crypt.processBlocks(buf, offset, size);
+	}
+	
+	/**
+	 * Calculates and embeds a packet's checksum, and enciphers the packet in a single pass.<BR>
+	 * Buffer's position will not be changed. <BR>
+	 * <BR>
+	 * The result is the same as calling {@link #appendChecksum(ByteBuffer, int)} and
+	 * {@link #encipher(ByteBuffer, int)}. <BR>
+	 * <BR>
+	 * It is assumed that the packet's body starts at current position.
+	 * 
+	 * @param buf a byte buffer
+	 * @param size packet's body size with padding
+	 */
+	public void encipherWithChecksum(ByteBuffer buf, final int size)
+	{
+		final int offset = buf.position();
+		
+		if (size > 0 && (size & 7) == 0)
+			_crypt.encryptWithChecksum(buf, offset, size);
+		else
+		{
+			appendChecksum(buf, offset, size, false);
+			encipher(buf, offset, size);
+		}
 	}
 	
 	/**
@@ -518,8 +541,37 @@ public class NewCipher implements ICipher
 	 */
 	public void decipher(ByteBuffer buf, final int offset, final int size)
 	{
-		int count = size / 8;
-		for (int i = 0; i < count; i++)
-			_decrypt.processBlock(buf, offset + i * 8);
+		_decrypt.processBlocks(buf, offset, size);
+	}
+	
+	/**
+	 * Deciphers a packet, and verifies its checksum in a single pass.<BR>
+	 * Buffer's position will not be changed. <BR>
+	 * <BR>
+	 * The result is the same as calling {@link #decipher(ByteBuffer, int)} and
+	 * {@link #verifyChecksum(ByteBuffer, int)}, except that only the failures are reported. <BR>
+	 * <BR>
+	 * It is assumed that the packet's body starts at current position.
+	 * 
+	 * @param buf a byte buffer
+	 * @param size packet's body size
+	 * @return whether packet integrity is OK or not
+	 */
+	public boolean decipherAndVerifyChecksum(ByteBuffer buf, final int size)
+	{
+		final int offset = buf.position();
+		
+		if (size > 0 && (size & 7) == 0)
+		{
+			if (_decrypt.decryptWithChecksum(buf, offset, size))
+				return true;
+			
+			reportSoCalledChecksum(buf, offset, size, getVerifiedChecksum(buf, offset, size),
+					getPreCalculatedChecksum(buf, offset, size));
+			return false;
+		}
+		
+		decipher(buf, offset, size);
+		return verifyChecksum(buf, offset, size, false);
 	}
 }
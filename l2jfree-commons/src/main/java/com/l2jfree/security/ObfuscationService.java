@@ -19,7 +19,6 @@ import java.util.Arrays;
 
 import com.l2jfree.network.ClientProtocolVersion;
 import com.l2jfree.network.IGameProtocolVersion;
-import com.l2jfree.network.mmocore.MMOBuffer;
 import com.l2jfree.util.HexUtil;
 import com.l2jfree.util.Rnd;
 import com.l2jfree.util.logging.L2Logger;
@@ -44,24 +43,9 @@ public final class ObfuscationService
 {
 	private final L2Logger _log = L2Logger.getLogger(ObfuscationService.class);
 	
-	private static final int HAS_SECOND = 0xD0;
-	// TODO: private static final int HAS_THIRD = 0x51;
-	
 	private final IGameProtocolVersion _version;
 	
-	private long _seed;
-	private boolean _seeded;
-	private boolean _initialized;
-	
-	private int _s1;
-	private int _s2;
-	private int _s3;
-	private byte[] _decodeTable1;
-	private byte[] _decodeTable2;
-	private byte[] _decodeTable3;
-	private byte[] _encodeTable1;
-	private byte[] _encodeTable2;
-	private byte[] _encodeTable3;
+	private volatile ObfuscationTable _table;
 	
 	/**
 	 * Constructs an uninitialized service.
@@ -71,155 +55,29 @@ public final class ObfuscationService
 	public ObfuscationService(IGameProtocolVersion version)
 	{
 		_version = version;
-		_seeded = false;
-		_initialized = false;
-	}
-	
-	private void reset()
-	{
-		_seeded = false;
-		_initialized = false;
-		_decodeTable1 = _decodeTable2 = _decodeTable3 = null;
-		_encodeTable1 = _encodeTable2 = _encodeTable3 = null;
-	}
-	
-	/**
-	 * Generates a pseudo-random integer.
-	 * 
-	 * @return integer from [0;32767]
-	 * @throws IllegalStateException if not seeded
-	 */
-	private int getGenerated() throws IllegalStateException
-	{
-		if (!_seeded)
-			throw new IllegalStateException();
-		
-		final long step1 = toUnsignedInt(_seed * 0x343fd);
-		_seed = toUnsignedInt(step1 + 0x269EC3);
-		
-		final long result = (_seed >>> 16) & 0x7FFF;
-		return (int)result; // safe to cast
 	}
 	
 	/**
-	 * Seeds the pseudo-random integer generator.
+	 * Initializes service with the given seed (key).
 	 * 
 	 * @param seed obfuscation key
-	 * @throws IllegalStateException if already seeded
 	 */
-	private void setGeneratorSeed(long seed) throws IllegalStateException
+	public void init(final long seed)
 	{
-		if (_seeded)
-			throw new IllegalStateException();
-		
 		if (_log.isDebugEnabled())
 			_log.debug("Received key: " + seed);
-		_seed = toUnsignedInt(seed);
-		_seeded = true;
+		
+		_table = new ObfuscationTable(_version, seed);
 	}
 	
 	/**
-	 * Initializes service with the given seed (key).
+	 * Returns the opcode shuffling tables in use.
 	 * 
-	 * @param seed obfuscation key
+	 * @return shuffling tables, or null if not initialized
 	 */
-	public synchronized void init(final long seed)
+	public ObfuscationTable getTable()
 	{
-		if (_initialized)
-			reset();
-		
-		int i = 0;
-		byte tmp = 0;
-		int pos;
-		int cpos;
-		
-		_s1 = 0xD0;
-		_s2 = _version.getOp2TableSize();
-		_s3 = 0x64; // O_o TODO: GF+ triple opcodes
-		
-		_decodeTable1 = new byte[_s1 + 1];
-		_decodeTable2 = new byte[_s2 + 1];
-		_decodeTable3 = new byte[_s3 + 1];
-		
-		for (i = 0; i <= _s1; i++)
-			_decodeTable1[i] = (byte)i;
-		for (i = 0; i <= _s2; i++)
-			_decodeTable2[i] = (byte)i;
-		for (i = 0; i <= _s3; i++)
-			_decodeTable3[i] = (byte)i;
-		
-		setGeneratorSeed(seed);
-		
-		if (seed != 0) // check whether to shuffle
-		{
-			// mix 1-byte opcode table
-			for (i = 1; i <= _s1; i++)
-			{
-				pos = getGenerated() % (i + 1);
-				// swap bytes at indexes [pos] and [i] in DecodeTable1
-				tmp = _decodeTable1[pos];
-				_decodeTable1[pos] = _decodeTable1[i];
-				_decodeTable1[i] = tmp;
-			}
-			
-			// mix 2-byte opcode table
-			for (i = 1; i <= _s2; i++)
-			{
-				pos = getGenerated() % (i + 1);
-				// swap bytes at indexes [pos] and [i] in DecodeTable2
-				tmp = _decodeTable2[pos];
-				_decodeTable2[pos] = _decodeTable2[i];
-				_decodeTable2[i] = tmp;
-			}
-			
-			// non-obfuscated main opcodes
-			for (int op : _version.getIgnoredOp1s())
-			{
-				cpos = 0;
-				while (_decodeTable1[cpos] != (byte)op)
-					cpos++;
-				tmp = _decodeTable1[op];
-				_decodeTable1[op] = (byte)op;
-				_decodeTable1[cpos] = tmp;
-			}
-			
-			// non-obfuscated 2nd opcodes
-			for (int op : _version.getIgnoredOp2s())
-			{
-				cpos = 0;
-				while (_decodeTable2[cpos] != (byte)op)
-					cpos++;
-				tmp = _decodeTable2[op];
-				_decodeTable2[op] = (byte)op;
-				_decodeTable2[cpos] = tmp;
-			}
-		}
-		
-		// mirrored obfuscation tables
-		_encodeTable1 = new byte[_s1 + 1];
-		_encodeTable2 = new byte[_s2 + 1];
-		_encodeTable3 = new byte[_s3 + 1];
-		
-		for (i = 0; i <= _s1; i++)
-		{
-			int idx = (_decodeTable1[i] & 0xFF);
-			_encodeTable1[idx] = (byte)i;
-		}
-		for (i = 0; i <= _s2; i++)
-		{
-			int idx = (_decodeTable2[i] & 0xFF);
-			_encodeTable2[idx] = (byte)i;
-		}
-		for (i = 0; i <= _s3; i++)
-		{
-			int idx = (_decodeTable3[i] & 0xFF);
-			_encodeTable3[idx] = (byte)i;
-		}
-		
-		_initialized = true;
-		
-		if (_log.isDebugEnabled())
-			_log.debug("Final seed is: " + _seed);
+		return _table;
 	}
 	
 	/**
@@ -230,55 +88,12 @@ public final class ObfuscationService
 	 */
 	public void decodeOpcodes(ByteBuffer body, int size)
 	{
-		if (!_initialized || body == null || body.remaining() == 0)
+		final ObfuscationTable table = _table;
+		
+		if (table == null || body == null || body.remaining() == 0)
 			return; // no action
 			
-		final int mainPos = body.position();
-		try
-		{
-			MMOBuffer buf = new MMOBuffer();
-			buf.setByteBuffer(body);
-			
-			final int obOp1 = buf.readUC();
-			if (obOp1 > _s1)
-			{
-				_log.error("Adjust 1st op table size to at least " + obOp1);
-				return;
-			}
-			
-			final int op1 = _decodeTable1[obOp1] & 0xFF;
-			
-			body.position(mainPos);
-			buf.writeC(op1);
-			
-			if (_log.isDebugEnabled())
-				_log.debug("Decoded " + HexUtil.fillHex(obOp1, 2) + " to " + HexUtil.fillHex(op1, 2) + " using seed "
-						+ _seed);
-			
-			if (op1 == HAS_SECOND && size > 1)
-			{
-				final int secondPos = body.position();
-				
-				final int obOp2 = buf.readUC(); // buf.readUH()
-				if (obOp2 > _s2)
-				{
-					_log.error("Adjust 2nd op table size to at least " + obOp2);
-					return;
-				}
-				
-				body.position(secondPos);
-				final int op2 = _decodeTable2[obOp2] & 0xFF;
-				buf.writeC(op2);
-				
-				if (_log.isDebugEnabled())
-					_log.debug("Decoded(2) " + HexUtil.fillHex(obOp2, 2) + " to " + HexUtil.fillHex(op2, 2)
-							+ " using seed " + _seed + " and size " + HexUtil.fillHex(_s2, 2));
-			}
-		}
-		finally
-		{
-			body.position(mainPos);
-		}
+		table.decodeOpcodes(body, body.position(), size);
 	}
 	
 	/**
@@ -289,62 +104,15 @@ public final class ObfuscationService
 	 */
 	public void encodeOpcodes(ByteBuffer body, int size)
 	{
-		if (!_initialized || body == null || size == 0)
+		final ObfuscationTable table = _table;
+		
+		if (table == null || body == null || size == 0)
 			return; // no action
 			
 		if (_log.isDebugEnabled())
-		{
-			byte[] b = new byte[size];
-			System.arraycopy(body.array(), body.position(), b, 0, b.length);
-			_log.debug("Encoding this packet: " + HexUtil.printData(b));
-		}
+			_log.debug("Encoding this packet: " + HexUtil.printData(body, body.position(), size));
 		
-		final int mainPos = body.position();
-		try
-		{
-			MMOBuffer buf = new MMOBuffer();
-			buf.setByteBuffer(body);
-			
-			final int op1 = buf.readUC();
-			if (op1 > _s1)
-			{
-				_log.error("Adjust 1st op table size to at least " + op1);
-				return;
-			}
-			
-			final int obOp1 = _encodeTable1[op1] & 0xFF;
-			
-			body.position(mainPos);
-			buf.writeC(obOp1);
-			
-			if (_log.isDebugEnabled())
-				_log.debug("Encoded " + HexUtil.fillHex(op1, 2) + " to " + HexUtil.fillHex(obOp1, 2) + " using seed "
-						+ _seed);
-			
-			if (op1 == HAS_SECOND && size > 1)
-			{
-				final int secondPos = body.position();
-				
-				final int op2 = buf.readUC(); // buf.readUH()
-				if (op2 > _s2)
-				{
-					_log.error("Adjust 2nd op table size to at least " + op2);
-					return;
-				}
-				
-				body.position(secondPos);
-				final int obOp2 = _encodeTable2[op2];
-				buf.writeC(obOp2);
-				
-				if (_log.isDebugEnabled())
-					_log.debug("Encoded(2) " + HexUtil.fillHex(op2, 2) + " to " + HexUtil.fillHex(obOp2, 2)
-							+ " using seed " + _seed);
-			}
-		}
-		finally
-		{
-			body.position(mainPos);
-		}
+		table.encodeOpcodes(body, body.position(), size);
 	}
 	
 	/**
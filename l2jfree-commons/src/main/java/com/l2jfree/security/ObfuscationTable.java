@@ -0,0 +1,249 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.security;
+
+import java.nio.ByteBuffer;
+
+import com.l2jfree.network.IGameProtocolVersion;
+import com.l2jfree.util.logging.L2Logger;
+
+/**
+ * The immutable opcode shuffling tables of a seed (key) and protocol version.<BR>
+ * <BR>
+ * Both the primary and the secondary opcode tables are packed into a single array per direction.<BR>
+ * Tables are built per connection: seeds are random, so two connections practically never share
+ * the same tables.
+ * 
+ * @author agent
+ * @see ObfuscationService
+ */
+public final class ObfuscationTable
+{
+	private static final L2Logger _log = L2Logger.getLogger(ObfuscationTable.class);
+	
+	/** Primary opcode, that is followed by a secondary opcode */
+	public static final int HAS_SECOND = 0xD0;
+	
+	private final long _seed;
+	private final int _s1;
+	private final int _s2;
+	
+	/** Decoded primary opcodes in [0;s1], followed by decoded secondary opcodes in [0;s2] */
+	private final byte[] _decode;
+	/** Encoded primary opcodes in [0;s1], followed by encoded secondary opcodes in [0;s2] */
+	private final byte[] _encode;
+	
+	/**
+	 * Builds the tables for the given protocol version and seed.
+	 * 
+	 * @param version protocol version
+	 * @param seed obfuscation key
+	 */
+	public ObfuscationTable(IGameProtocolVersion version, long seed)
+	{
+		_seed = ObfuscationService.toUnsignedInt(seed);
+		_s1 = HAS_SECOND;
+		_s2 = version.getOp2TableSize();
+		
+		final byte[] decodeTable1 = new byte[_s1 + 1];
+		final byte[] decodeTable2 = new byte[_s2 + 1];
+		
+		for (int i = 0; i <= _s1; i++)
+			decodeTable1[i] = (byte)i;
+		for (int i = 0; i <= _s2; i++)
+			decodeTable2[i] = (byte)i;
+		
+		if (_seed != 0) // check whether to shuffle
+		{
+			long generator = _seed;
+			
+			// mix 1-byte opcode table
+			for (int i = 1; i <= _s1; i++)
+			{
+				generator = ObfuscationService.toUnsignedInt(generator * 0x343fd + 0x269EC3);
+				swap(decodeTable1, (int)((generator >>> 16) & 0x7FFF) % (i + 1), i);
+			}
+			
+			// mix 2-byte opcode table
+			for (int i = 1; i <= _s2; i++)
+			{
+				generator = ObfuscationService.toUnsignedInt(generator * 0x343fd + 0x269EC3);
+				swap(decodeTable2, (int)((generator >>> 16) & 0x7FFF) % (i + 1), i);
+			}
+			
+			// non-obfuscated main opcodes
+			for (int op : version.getIgnoredOp1s())
+			{
+				int cpos = 0;
+				while (decodeTable1[cpos] != (byte)op)
+					cpos++;
+				swap(decodeTable1, cpos, op);
+			}
+			
+			// non-obfuscated 2nd opcodes
+			for (int op : version.getIgnoredOp2s())
+			{
+				int cpos = 0;
+				while (decodeTable2[cpos] != (byte)op)
+					cpos++;
+				swap(decodeTable2, cpos, op);
+			}
+		}
+		
+		_decode = new byte[_s1 + 1 + _s2 + 1];
+		System.arraycopy(decodeTable1, 0, _decode, 0, _s1 + 1);
+		System.arraycopy(decodeTable2, 0, _decode, _s1 + 1, _s2 + 1);
+		
+		// mirrored obfuscation tables
+		_encode = new byte[_decode.length];
+		for (int i = 0; i <= _s1; i++)
+			_encode[decodeTable1[i] & 0xFF] = (byte)i;
+		for (int i = 0; i <= _s2; i++)
+			_encode[_s1 + 1 + (decodeTable2[i] & 0xFF)] = (byte)i;
+	}
+	
+	private static void swap(byte[] table, int i, int j)
+	{
+		final byte tmp = table[i];
+		table[i] = table[j];
+		table[j] = tmp;
+	}
+	
+	public long getSeed()
+	{
+		return _seed;
+	}
+	
+	/**
+	 * @param obOp1 obfuscated primary opcode
+	 * @return the primary opcode, or -1 if it's out of the table
+	 */
+	public int decodeOp1(int obOp1)
+	{
+		if (obOp1 > _s1)
+		{
+			_log.error("Adjust 1st op table size to at least " + obOp1);
+			return -1;
+		}
+		
+		return _decode[obOp1] & 0xFF;
+	}
+	
+	/**
+	 * @param obOp2 obfuscated secondary opcode
+	 * @return the secondary opcode, or -1 if it's out of the table
+	 */
+	public int decodeOp2(int obOp2)
+	{
+		if (obOp2 > _s2)
+		{
+			_log.error("Adjust 2nd op table size to at least " + obOp2);
+			return -1;
+		}
+		
+		return _decode[_s1 + 1 + obOp2] & 0xFF;
+	}
+	
+	/**
+	 * @param op1 primary opcode
+	 * @return the obfuscated primary opcode, or -1 if it's out of the table
+	 */
+	public int encodeOp1(int op1)
+	{
+		if (op1 > _s1)
+		{
+			_log.error("Adjust 1st op table size to at least " + op1);
+			return -1;
+		}
+		
+		return _encode[op1] & 0xFF;
+	}
+	
+	/**
+	 * @param op2 secondary opcode
+	 * @return the obfuscated secondary opcode, or -1 if it's out of the table
+	 */
+	public int encodeOp2(int op2)
+	{
+		if (op2 > _s2)
+		{
+			_log.error("Adjust 2nd op table size to at least " + op2);
+			return -1;
+		}
+		
+		return _encode[_s1 + 1 + op2] & 0xFF;
+	}
+	
+	/**
+	 * Deobfuscates client packet opcode(s). Does not modify buffer's position/mark/limit.
+	 * 
+	 * @param body packet's body
+	 * @param offset offset to the packet's body
+	 * @param size packet's size
+	 */
+	public void decodeOpcodes(ByteBuffer body, int offset, int size)
+	{
+		if (size <= 0)
+			return;
+		
+		final int op1 = decodeOp1(body.get(offset) & 0xFF);
+		
+		if (op1 == -1)
+			return;
+		
+		body.put(offset, (byte)op1);
+		
+		if (op1 != HAS_SECOND || size <= 1)
+			return;
+		
+		final int op2 = decodeOp2(body.get(offset + 1) & 0xFF);
+		
+		if (op2 == -1)
+			return;
+		
+		body.put(offset + 1, (byte)op2);
+	}
+	
+	/**
+	 * Obfuscates client packet opcode(s). Does not modify buffer's position/mark/limit.
+	 * 
+	 * @param body packet's body
+	 * @param offset offset to the packet's body
+	 * @param size packet's size
+	 */
+	public void encodeOpcodes(ByteBuffer body, int offset, int size)
+	{
+		if (size <= 0)
+			return;
+		
+		final int op1 = body.get(offset) & 0xFF;
+		final int obOp1 = encodeOp1(op1);
+		
+		if (obOp1 == -1)
+			return;
+		
+		body.put(offset, (byte)obOp1);
+		
+		if (op1 != HAS_SECOND || size <= 1)
+			return;
+		
+		final int obOp2 = encodeOp2(body.get(offset + 1) & 0xFF);
+		
+		if (obOp2 == -1)
+			return;
+		
+		body.put(offset + 1, (byte)obOp2);
+	}
+}
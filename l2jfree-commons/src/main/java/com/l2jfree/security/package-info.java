@@ -1,7 +1,8 @@
 /**
  * Contains cipher classes. Class usage:
  * <UL>
- * <LI>{@link com.l2jfree.security.CoreCipher} - Game server</LI>
+ * <LI>{@link com.l2jfree.security.WideCoreCipher} - Game server</LI>
+ * <LI>{@link com.l2jfree.security.CoreCipher} - Game server (reference implementation)</LI>
  * <LI>{@link com.l2jfree.security.BlowfishEngine} - Login server</LI>
  * <LI>{@link com.l2jfree.security.NewCipher} - Login server</LI>
  * <LI>{@link com.l2jfree.security.ScrambledKeyPair} - Login server</LI>
@@ -17,6 +17,7 @@ package com.l2jfree.sql;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.persistence.config.BatchWriting;
 import org.eclipse.persistence.config.LoggerType;
 import org.eclipse.persistence.config.PersistenceUnitProperties;
 import org.eclipse.persistence.logging.SessionLog;
@@ -50,6 +51,10 @@ public abstract class DataSourceInitializer
 		
 		props.put(PersistenceUnitProperties.NON_JTA_DATASOURCE, source);
 		
+		// statements of a transaction are sent in batches (if the driver supports it)
+		props.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.JDBC);
+		props.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, "100");
+		
 		props.put(PersistenceUnitProperties.LOGGING_LOGGER, LoggerType.JavaLogger);
 		// let the configured log system handle levels
 		props.put(PersistenceUnitProperties.LOGGING_LEVEL, SessionLog.ALL_LABEL);
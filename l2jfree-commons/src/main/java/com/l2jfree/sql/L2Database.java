@@ -17,6 +17,8 @@ package com.l2jfree.sql;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -329,6 +331,52 @@ public final class L2Database
 		em.close();
 	}
 	
+	/**
+	 * Merges the given entities in a single transaction, so they can be written in JDBC batches.
+	 * 
+	 * @param entities
+	 */
+	public static void mergeAll(Collection<?> entities)
+	{
+		mergeAndRemoveAll(entities, Collections.<L2DBEntity> emptyList());
+	}
+	
+	/**
+	 * Merges and removes the given entities in a single transaction, so they can be written in JDBC
+	 * batches.
+	 * 
+	 * @param merged entities to merge
+	 * @param removed entities to remove by their primary key, whether they are stored or not
+	 */
+	public static void mergeAndRemoveAll(Collection<?> merged, Collection<? extends L2DBEntity> removed)
+	{
+		final EntityManager em = L2Database.getEntityManager();
+		try
+		{
+			em.getTransaction().begin();
+			{
+				for (Object entity : merged)
+					em.merge(entity);
+				
+				for (L2DBEntity entity : removed)
+				{
+					final Object stored = em.find(entity.getClass(), entity.getPrimaryKey());
+					
+					if (stored != null)
+						em.remove(stored);
+				}
+			}
+			em.getTransaction().commit();
+		}
+		finally
+		{
+			if (em.getTransaction().isActive())
+				em.getTransaction().rollback();
+			
+			em.close();
+		}
+	}
+	
 	public static <T> T mergeAndDetach(T entity)
 	{
 		final T result;
@@ -16,38 +16,128 @@ package com.l2jfree.util;
 
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.l2jfree.lang.L2TextBuilder;
 
+/**
+ * Random number utilities, backed by a separate generator for each thread, so concurrent callers
+ * neither contend for, nor corrupt a shared seed.<br>
+ * <br>
+ * The generators are xoroshiro128** instances, seeded by a SplitMix64 sequence, so every thread
+ * gets an independent stream. {@link #setSeed(long)} restarts this sequence, which makes the
+ * results reproducible for the threads using them in the same order.
+ */
 public final class Rnd
 {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	
+	/** The SplitMix64 sequence, which seeds the generators of the threads */
+	private static final AtomicLong SEEDER = new AtomicLong(mix64(System.currentTimeMillis())
+			^ mix64(System.nanoTime()));
+	
+	/** Increased on every reseeding, so the existing generators know they have to be seeded again */
+	private static volatile int _seedGeneration;
+	
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Restarts the seed sequence of the generators, and reseeds them once they are used next time.<br>
+	 * Generators are seeded in the order the threads use them first after this call, so results
+	 * are only reproducible, if the threads do so in a deterministic order (such as in a single
+	 * threaded simulation).
+	 * 
+	 * @param seed the initial seed
+	 */
+	public static void setSeed(long seed)
+	{
+		synchronized (SEEDER)
+		{
+			SEEDER.set(seed);
+			_seedGeneration++;
+		}
+	}
+	
 	private static final class L2Random extends Random
 	{
 		private static final long serialVersionUID = 2089256427272977088L;
 		
-		/**
-		 * Copied from java.util.Random.
-		 */
-		private static final long multiplier = 0x5DEECE66DL;
-		private static final long addend = 0xBL;
-		private static final long mask = (1L << 48) - 1;
+		private long _s0;
+		private long _s1;
+		private int _generation;
+		
+		private L2Random()
+		{
+			reseed();
+		}
+		
+		private void reseed()
+		{
+			_generation = _seedGeneration;
+			
+			setSeed(mix64(SEEDER.getAndAdd(GOLDEN_GAMMA)));
+		}
 		
-		private long seed;
+		private L2Random validate()
+		{
+			if (_generation != _seedGeneration)
+				reseed();
+			
+			return this;
+		}
 		
 		@Override
-		public synchronized void setSeed(long newSeed)
+		public void setSeed(long newSeed)
 		{
-			seed = (newSeed ^ multiplier) & mask;
+			_s0 = mix64(newSeed);
+			_s1 = mix64(newSeed + GOLDEN_GAMMA);
+			
+			// the state must never be all zero
+			if ((_s0 | _s1) == 0)
+				_s1 = GOLDEN_GAMMA;
 			
+			// clears the cached gaussian
 			super.setSeed(newSeed);
 		}
 		
+		/**
+		 * xoroshiro128**
+		 */
+		private long next64()
+		{
+			final long s0 = _s0;
+			long s1 = _s1;
+			
+			final long result = Long.rotateLeft(s0 * 5, 7) * 9;
+			
+			s1 ^= s0;
+			_s0 = Long.rotateLeft(s0, 24) ^ s1 ^ (s1 << 16);
+			_s1 = Long.rotateLeft(s1, 37);
+			
+			return result;
+		}
+		
 		@Override
 		protected int next(int bits)
 		{
-			long nextseed = (seed = ((seed * multiplier + addend) & mask));
-			
-			return (int)(nextseed >>> (48 - bits));
+			return (int)(next64() >>> (64 - bits));
+		}
+		
+		@Override
+		public long nextLong()
+		{
+			return next64();
+		}
+		
+		@Override
+		public double nextDouble()
+		{
+			return (next64() >>> 11) * 0x1.0p-53;
 		}
 		
 		public double nextDouble(double n)
@@ -67,7 +157,26 @@ public final class Rnd
 		}
 	}
 	
-	private static final L2Random RND = new L2Random();
+	private static final ThreadLocal<L2Random> RND = new ThreadLocal<L2Random>() {
+		@Override
+		protected L2Random initialValue()
+		{
+			return new L2Random();
+		}
+	};
+	
+	private static L2Random rnd()
+	{
+		return RND.get().validate();
+	}
+	
+	/**
+	 * @return the generator of the current thread, which must not be shared with other threads
+	 */
+	public static Random current()
+	{
+		return rnd();
+	}
 	
 	/**
 	 * Get random number from 0.0 to 1.0
@@ -76,7 +185,7 @@ public final class Rnd
 	 */
 	public static double nextDouble()
 	{
-		return RND.nextDouble();
+		return rnd().nextDouble();
 	}
 	
 	/**
@@ -87,7 +196,7 @@ public final class Rnd
 	 */
 	public static int nextInt(int n)
 	{
-		return RND.nextInt(n);
+		return rnd().nextInt(n);
 	}
 	
 	/**
@@ -97,7 +206,7 @@ public final class Rnd
 	 */
 	public static int nextInt()
 	{
-		return RND.nextInt();
+		return rnd().nextInt();
 	}
 	
 	/**
@@ -108,7 +217,7 @@ public final class Rnd
 	 */
 	public static int get(int n)
 	{
-		return RND.nextInt(n);
+		return rnd().nextInt(n);
 	}
 	
 	/**
@@ -121,9 +230,9 @@ public final class Rnd
 	public static int get(int min, int max)
 	{
 		if (min < max)
-			return min + RND.nextInt(max - min + 1);
+			return min + rnd().nextInt(max - min + 1);
 		else
-			return max + RND.nextInt(min - max + 1);
+			return max + rnd().nextInt(min - max + 1);
 	}
 	
 	/**
@@ -134,7 +243,7 @@ public final class Rnd
 	 */
 	public static long nextLong(long n)
 	{
-		return RND.nextLong(n);
+		return rnd().nextLong(n);
 	}
 	
 	/**
@@ -144,7 +253,7 @@ public final class Rnd
 	 */
 	public static long nextLong()
 	{
-		return RND.nextLong();
+		return rnd().nextLong();
 	}
 	
 	/**
@@ -155,7 +264,7 @@ public final class Rnd
 	 */
 	public static long get(long n)
 	{
-		return RND.nextLong(n);
+		return rnd().nextLong(n);
 	}
 	
 	/**
@@ -168,39 +277,39 @@ public final class Rnd
 	public static long get(long min, long max)
 	{
 		if (min < max)
-			return min + RND.nextLong(max - min + 1);
+			return min + rnd().nextLong(max - min + 1);
 		else
-			return max + RND.nextLong(min - max + 1);
+			return max + rnd().nextLong(min - max + 1);
 	}
 	
 	public static boolean calcChance(int chance, int maxChance)
 	{
-		return chance > RND.nextInt(maxChance);
+		return chance > rnd().nextInt(maxChance);
 	}
 	
 	public static boolean calcChance(double chance, int maxChance)
 	{
-		return chance > RND.nextDouble(maxChance);
+		return chance > rnd().nextDouble(maxChance);
 	}
 	
 	public static boolean calcChance(double chance)
 	{
-		return chance > RND.nextDouble();
+		return chance > rnd().nextDouble();
 	}
 	
 	public static double nextGaussian()
 	{
-		return RND.nextGaussian();
+		return rnd().nextGaussian();
 	}
 	
 	public static boolean nextBoolean()
 	{
-		return RND.nextBoolean();
+		return rnd().nextBoolean();
 	}
 	
 	public static byte[] nextBytes(byte[] array)
 	{
-		RND.nextBytes(array);
+		rnd().nextBytes(array);
 		
 		return array;
 	}
@@ -27,6 +27,7 @@ public abstract class AbstractThreadPoolInitializer implements ThreadPoolInitial
 	private final List<ScheduledThreadPoolExecutor> _scheduledPools = new ArrayList<ScheduledThreadPoolExecutor>();
 	private final List<ThreadPoolExecutor> _instantPools = new ArrayList<ThreadPoolExecutor>();
 	private final List<ThreadPoolExecutor> _longRunningPools = new ArrayList<ThreadPoolExecutor>();
+	private long _timingWheelTickDuration = 0;
 	
 	protected final void addScheduledPool(ScheduledThreadPoolExecutor pool)
 	{
@@ -43,6 +44,16 @@ public abstract class AbstractThreadPoolInitializer implements ThreadPoolInitial
 		_longRunningPools.add(pool);
 	}
 	
+	/**
+	 * Schedules the tasks on a {@link L2TimingWheel}, instead of the scheduled pools.
+	 * 
+	 * @param tickDuration granularity of the timing wheel in milliseconds
+	 */
+	protected final void useTimingWheel(long tickDuration)
+	{
+		_timingWheelTickDuration = tickDuration;
+	}
+	
 	@Override
 	public abstract void initThreadPool() throws Exception;
 	
@@ -63,4 +74,10 @@ public abstract class AbstractThreadPoolInitializer implements ThreadPoolInitial
 	{
 		return _longRunningPools.toArray(new ThreadPoolExecutor[_longRunningPools.size()]);
 	}
+	
+	@Override
+	public final long getTimingWheelTickDuration()
+	{
+		return _timingWheelTickDuration;
+	}
 }
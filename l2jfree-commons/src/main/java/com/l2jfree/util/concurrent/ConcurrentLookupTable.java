@@ -0,0 +1,435 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.util.concurrent;
+
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An <TT>int</TT> keyed, open addressing hash table, that doesn't box its keys.<BR>
+ * <BR>
+ * Lookups and iterations are lock-free, they only read the current slot arrays, while
+ * modifications are serialized by the table itself. The slot arrays are never rehashed in place,
+ * and a removed mapping leaves its key behind until the next rehash, so a probe sequence can't be
+ * broken under a concurrent reader.<BR>
+ * Iterators are weakly consistent: they never throw {@link java.util.ConcurrentModificationException},
+ * but they may or may not reflect the modifications made during the iteration.<BR>
+ * <BR>
+ * Key 0 is reserved to mark the free slots.
+ * 
+ * @author agent
+ * @param <E>
+ */
+@SuppressWarnings("unchecked")
+public final class ConcurrentLookupTable<E> implements Iterable<E>, ForEachExecutor<E>
+{
+	private static final int FREE_KEY = 0;
+	private static final int MINIMUM_CAPACITY = 8;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+	
+	private static final Slots EMPTY_SLOTS = new Slots(0);
+	
+	private static final class Slots
+	{
+		private final AtomicIntegerArray _keys;
+		private final AtomicReferenceArray<Object> _values;
+		private final int _mask;
+		private final int _shift;
+		private final int _threshold;
+		
+		private Slots(int capacity)
+		{
+			_keys = new AtomicIntegerArray(capacity);
+			_values = new AtomicReferenceArray<Object>(capacity);
+			_mask = capacity - 1;
+			_shift = Integer.numberOfLeadingZeros(capacity) + 1;
+			_threshold = capacity - (capacity >> 2);
+		}
+		
+		private int capacity()
+		{
+			return _keys.length();
+		}
+		
+		/**
+		 * @return the slot of the given key, or the free slot at the end of its probe sequence
+		 */
+		private int indexOf(int key)
+		{
+			// fibonacci hashing, so the consecutive ranges of keys don't build clusters
+			for (int i = (key * 0x9E3779B9) >>> _shift;; i = (i + 1) & _mask)
+			{
+				final int k = _keys.get(i);
+				
+				if (k == key || k == FREE_KEY)
+					return i;
+			}
+		}
+	}
+	
+	private volatile Slots _slots;
+	private volatile int _size;
+	private int _usedSlots;
+	
+	private final Collection<E> _values = new AbstractCollection<E>() {
+		@Override
+		public Iterator<E> iterator()
+		{
+			return ConcurrentLookupTable.this.iterator();
+		}
+		
+		@Override
+		public int size()
+		{
+			return ConcurrentLookupTable.this.size();
+		}
+		
+		@Override
+		public boolean isEmpty()
+		{
+			return ConcurrentLookupTable.this.isEmpty();
+		}
+	};
+	
+	/**
+	 * Creates an empty table, which allocates it's slots only on the first insertion.
+	 */
+	public ConcurrentLookupTable()
+	{
+		_slots = EMPTY_SLOTS;
+	}
+	
+	/**
+	 * @param expectedSize the amount of mappings the table is expected to hold without a rehash
+	 */
+	public ConcurrentLookupTable(int expectedSize)
+	{
+		_slots = expectedSize <= 0 ? EMPTY_SLOTS : new Slots(capacityFor(expectedSize));
+	}
+	
+	private static int capacityFor(int size)
+	{
+		final int required = Math.max(MINIMUM_CAPACITY, size * 2);
+		
+		if (required >= MAXIMUM_CAPACITY)
+			return MAXIMUM_CAPACITY;
+		
+		return Integer.highestOneBit(required - 1) << 1;
+	}
+	
+	public int size()
+	{
+		return _size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return _size == 0;
+	}
+	
+	/**
+	 * @param key
+	 * @return the mapped value if exists, or null if not
+	 */
+	public E get(final int key)
+	{
+		final Slots slots = _slots;
+		
+		if (slots.capacity() == 0)
+			return null;
+		
+		return (E)slots._values.get(slots.indexOf(key));
+	}
+	
+	/**
+	 * @param key
+	 * @return true if contains given mapping
+	 */
+	public boolean containsKey(final int key)
+	{
+		return get(key) != null;
+	}
+	
+	/**
+	 * @param key
+	 * @param value
+	 * @return the previously mapped value, or null if there was none
+	 */
+	public E put(final int key, final E value)
+	{
+		return put(key, value, false);
+	}
+	
+	/**
+	 * @param key
+	 * @param value
+	 * @return the already mapped value, or null if the given value was mapped
+	 */
+	public E putIfAbsent(final int key, final E value)
+	{
+		return put(key, value, true);
+	}
+	
+	private synchronized E put(final int key, final E value, final boolean onlyIfAbsent)
+	{
+		if (key == FREE_KEY)
+			throw new IllegalArgumentException("Key " + FREE_KEY + " is reserved!");
+		
+		if (value == null)
+			throw new NullPointerException();
+		
+		Slots slots = _slots;
+		
+		if (slots.capacity() != 0)
+		{
+			final int index = slots.indexOf(key);
+			
+			if (slots._keys.get(index) == key)
+			{
+				final E oldValue = (E)slots._values.get(index);
+				
+				if (oldValue == null || !onlyIfAbsent)
+				{
+					slots._values.set(index, value);
+					
+					if (oldValue == null)
+						_size++;
+				}
+				
+				return oldValue;
+			}
+		}
+		
+		if (_usedSlots >= slots._threshold)
+			slots = rehash(_size + 1);
+		
+		final int index = slots.indexOf(key);
+		
+		// the key gets published first, so readers find a null value at worst
+		slots._keys.set(index, key);
+		slots._values.set(index, value);
+		
+		_usedSlots++;
+		_size++;
+		return null;
+	}
+	
+	/**
+	 * @param key
+	 * @return the removed value, or null if there was none
+	 */
+	public synchronized E remove(final int key)
+	{
+		final Slots slots = _slots;
+		
+		if (slots.capacity() == 0)
+			return null;
+		
+		final int index = slots.indexOf(key);
+		final E oldValue = (E)slots._values.get(index);
+		
+		if (oldValue != null)
+		{
+			slots._values.set(index, null);
+			_size--;
+		}
+		
+		return oldValue;
+	}
+	
+	/**
+	 * @param key
+	 * @param value
+	 * @return true if the given key was mapped to the given value, and it got removed
+	 */
+	public synchronized boolean remove(final int key, final E value)
+	{
+		final Slots slots = _slots;
+		
+		if (slots.capacity() == 0 || value == null)
+			return false;
+		
+		final int index = slots.indexOf(key);
+		
+		if (slots._values.get(index) != value)
+			return false;
+		
+		slots._values.set(index, null);
+		_size--;
+		return true;
+	}
+	
+	public synchronized void clear()
+	{
+		_slots = EMPTY_SLOTS;
+		_usedSlots = 0;
+		_size = 0;
+	}
+	
+	/**
+	 * Moves the live mappings into new slots, dropping the keys of the removed ones.
+	 */
+	private Slots rehash(int size)
+	{
+		final Slots oldSlots = _slots;
+		final Slots newSlots = new Slots(capacityFor(size));
+		
+		int usedSlots = 0;
+		for (int i = 0; i < oldSlots.capacity(); i++)
+		{
+			final Object value = oldSlots._values.get(i);
+			
+			if (value == null)
+				continue;
+			
+			final int key = oldSlots._keys.get(i);
+			final int index = newSlots.indexOf(key);
+			
+			newSlots._keys.set(index, key);
+			newSlots._values.set(index, value);
+			usedSlots++;
+		}
+		
+		_usedSlots = usedSlots;
+		_slots = newSlots;
+		return newSlots;
+	}
+	
+	/**
+	 * @return a weakly consistent, live view of the values
+	 */
+	public Collection<E> values()
+	{
+		return _values;
+	}
+	
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new ValueIterator();
+	}
+	
+	private final class ValueIterator implements Iterator<E>
+	{
+		private final Slots _iteratedSlots = _slots;
+		
+		private int _nextIndex = -1;
+		private E _next;
+		
+		private int _lastKey = FREE_KEY;
+		private E _last;
+		
+		private ValueIterator()
+		{
+			advance();
+		}
+		
+		private void advance()
+		{
+			_next = null;
+			
+			while (++_nextIndex < _iteratedSlots.capacity())
+			{
+				_next = (E)_iteratedSlots._values.get(_nextIndex);
+				
+				if (_next != null)
+					return;
+			}
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return _next != null;
+		}
+		
+		@Override
+		public E next()
+		{
+			if (_next == null)
+				throw new NoSuchElementException();
+			
+			_last = _next;
+			_lastKey = _iteratedSlots._keys.get(_nextIndex);
+			
+			advance();
+			
+			return _last;
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (_last == null)
+				throw new IllegalStateException();
+			
+			ConcurrentLookupTable.this.remove(_lastKey, _last);
+			
+			_last = null;
+		}
+	}
+	
+	/**
+	 * Executes the given task for each value, without copying them and without locking the table.
+	 * 
+	 * @param executable the task to be executed for each value
+	 */
+	@Override
+	public void executeForEach(ForEachExecutable<E> executable)
+	{
+		final Slots slots = _slots;
+		
+		for (int i = 0; i < slots.capacity(); i++)
+		{
+			final E value = (E)slots._values.get(i);
+			
+			if (value != null)
+				executable.execute(value);
+		}
+	}
+	
+	/**
+	 * @param clazz
+	 * @return a thread-safe copy of the values
+	 */
+	public <T> T[] toArray(Class<T> clazz)
+	{
+		final ArrayList<Object> list = new ArrayList<Object>(size());
+		
+		final Slots slots = _slots;
+		
+		for (int i = 0; i < slots.capacity(); i++)
+		{
+			final Object value = slots._values.get(i);
+			
+			if (value != null)
+				list.add(value);
+		}
+		
+		return list.toArray((T[])Array.newInstance(clazz, list.size()));
+	}
+	
+	@Override
+	public String toString()
+	{
+		return super.toString() + "-" + _values.toString();
+	}
+}
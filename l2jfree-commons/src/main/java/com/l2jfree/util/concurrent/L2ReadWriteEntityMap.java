@@ -21,7 +21,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * @param <K>
  * @param <V>
  */
-public final class L2ReadWriteEntityMap<K, V> extends L2EntityMap<K, V>
+public final class L2ReadWriteEntityMap<K, V> extends L2EntityMap<K, V> implements ForEachExecutor<V>
 {
 	private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
 	private final ReentrantReadWriteLock.ReadLock _read = _lock.readLock();
@@ -172,4 +172,25 @@ public final class L2ReadWriteEntityMap<K, V> extends L2EntityMap<K, V>
 			_read.unlock();
 		}
 	}
+	
+	/**
+	 * Executes the given task for each element, without copying them.<br>
+	 * <br>
+	 * NOTE: The read lock is held during the whole iteration, so the task must not modify this map.
+	 * 
+	 * @param executable the task to be executed for each element
+	 */
+	@Override
+	public void executeForEach(ForEachExecutable<V> executable)
+	{
+		_read.lock();
+		try
+		{
+			super.executeForEach(executable);
+		}
+		finally
+		{
+			_read.unlock();
+		}
+	}
 }
@@ -17,12 +17,14 @@ package com.l2jfree.util.concurrent;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -40,6 +42,18 @@ public final class L2ThreadPool
 	private static ScheduledThreadPoolExecutor[] _scheduledPools = new ScheduledThreadPoolExecutor[0];
 	private static ThreadPoolExecutor[] _instantPools = new ThreadPoolExecutor[0];
 	private static ThreadPoolExecutor[] _longRunningPools = new ThreadPoolExecutor[0];
+	private static L2TimingWheel _timingWheel;
+	
+	/**
+	 * Hands the expired timers of the timing wheel to the instant pools - they are already wrapped.
+	 */
+	private static final Executor INSTANT_POOL_EXECUTOR = new Executor() {
+		@Override
+		public void execute(Runnable r)
+		{
+			getRandomPool(_instantPools).execute(r);
+		}
+	};
 	
 	private static long getPoolSize(ThreadPoolExecutor[] threadPools)
 	{
@@ -122,6 +136,9 @@ public final class L2ThreadPool
 			threadPool.prestartAllCoreThreads();
 		}
 		
+		if (initializer.getTimingWheelTickDuration() > 0)
+			_timingWheel = new L2TimingWheel(INSTANT_POOL_EXECUTOR, initializer.getTimingWheelTickDuration());
+		
 		scheduleAtFixedRate(new Runnable() {
 			@Override
 			public void run()
@@ -135,6 +152,10 @@ public final class L2ThreadPool
 		_log.info("\t... " + getPoolSize(_instantPools) + "/" + getMaximumPoolSize(_instantPools) + " instant,");
 		_log.info("\t... " + getPoolSize(_longRunningPools) + "/" + getMaximumPoolSize(_longRunningPools)
 				+ " long running thread(s).");
+		
+		if (_timingWheel != null)
+			_log.info("L2ThreadPool: Scheduling on a timing wheel with "
+					+ initializer.getTimingWheelTickDuration() + " msec ticks.");
 	}
 	
 	private static long validate(long delay)
@@ -142,11 +163,14 @@ public final class L2ThreadPool
 		return Math.max(0, Math.min(MAX_DELAY, delay));
 	}
 	
-	private static int _threadPoolRandomizer;
+	private static final AtomicInteger _threadPoolRandomizer = new AtomicInteger();
 	
 	private static <T> T getRandomPool(T[] threadPools)
 	{
-		return threadPools[_threadPoolRandomizer++ % threadPools.length];
+		if (threadPools.length == 1)
+			return threadPools[0];
+		
+		return threadPools[(_threadPoolRandomizer.getAndIncrement() & Integer.MAX_VALUE) % threadPools.length];
 	}
 	
 	// ===========================================================================================
@@ -156,6 +180,9 @@ public final class L2ThreadPool
 		r = ExecuteWrapper.wrap(r);
 		delay = validate(delay);
 		
+		if (_timingWheel != null)
+			return new ScheduledFutureWrapper(_timingWheel.schedule(r, delay));
+		
 		final ScheduledThreadPoolExecutor stpe = getRandomPool(_scheduledPools);
 		final ScheduledFuture<?> sf = stpe.schedule(r, delay, TimeUnit.MILLISECONDS);
 		
@@ -170,6 +197,9 @@ public final class L2ThreadPool
 		delay = validate(delay);
 		period = validate(period);
 		
+		if (_timingWheel != null)
+			return new ScheduledFutureWrapper(_timingWheel.scheduleAtFixedRate(r, delay, period));
+		
 		final ScheduledThreadPoolExecutor stpe = getRandomPool(_scheduledPools);
 		final ScheduledFuture<?> sf = stpe.scheduleAtFixedRate(r, delay, period, TimeUnit.MILLISECONDS);
 		
@@ -270,6 +300,17 @@ public final class L2ThreadPool
 		
 		list.add("");
 		
+		if (_timingWheel != null)
+		{
+			list.add("Timing wheel:");
+			list.add("=================================================");
+			list.add("\tgetPendingCount: ..... " + _timingWheel.getPendingCount());
+			list.add("\tgetScheduledCount: ... " + _timingWheel.getScheduledCount());
+			list.add("\tgetCancelledCount: ... " + _timingWheel.getCancelledCount());
+			list.add("\tgetExpiredCount: ..... " + _timingWheel.getExpiredCount());
+			list.add("");
+		}
+		
 		for (int i = 0; i < _scheduledPools.length; i++)
 		{
 			list.add("Scheduled pool #" + i + ":");
@@ -373,6 +414,17 @@ public final class L2ThreadPool
 			t.printStackTrace();
 		}
 		
+		try
+		{
+			// the delayed tasks aren't executed after shutdown, same as with the scheduled pools
+			if (_timingWheel != null)
+				System.out.println("\t... dropping " + _timingWheel.shutdown() + " timing wheel tasks.");
+		}
+		catch (Throwable t)
+		{
+			t.printStackTrace();
+		}
+		
 		try
 		{
 			for (ThreadPoolExecutor threadPool : getThreadPools())
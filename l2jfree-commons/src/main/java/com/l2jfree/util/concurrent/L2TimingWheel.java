@@ -0,0 +1,505 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.util.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.l2jfree.util.logging.L2Logger;
+
+/**
+ * A hierarchical timing wheel, used as an alternative to the heap based
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}s.<br>
+ * <br>
+ * Timers are kept in doubly linked slot lists: the first level has a slot for each of the next
+ * {@value #LEVEL0_SIZE} ticks, while every further level has {@value #LEVEL_SIZE} slots, each
+ * covering a whole round of the previous level. When a lower level wraps around, the timers of the
+ * matching upper slot are cascaded down, so both scheduling and cancelling costs O(1).<br>
+ * <br>
+ * The wheel is owned by a single ticker thread: new and cancelled timers are passed to it through
+ * lock-free queues, and the expired timers are handed to the given executor to be run, so the
+ * ticker never executes the tasks itself.
+ * 
+ * @author agent
+ */
+public final class L2TimingWheel
+{
+	private static final L2Logger _log = L2Logger.getLogger(L2TimingWheel.class);
+	
+	private static final int LEVEL0_BITS = 8;
+	private static final int LEVEL0_SIZE = 1 << LEVEL0_BITS;
+	private static final int LEVEL0_MASK = LEVEL0_SIZE - 1;
+	
+	private static final int LEVEL_BITS = 6;
+	private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+	private static final int LEVEL_MASK = LEVEL_SIZE - 1;
+	
+	private static final int UPPER_LEVELS = 3;
+	
+	/** Timers further away are parked in the last level, and they are re-inserted on cascading */
+	private static final long MAX_RANGE = 1L << (LEVEL0_BITS + UPPER_LEVELS * LEVEL_BITS);
+	
+	private static final int STATE_WAITING = 0;
+	private static final int STATE_RUNNING = 1;
+	private static final int STATE_DONE = 2;
+	private static final int STATE_CANCELLED = 3;
+	
+	private final Executor _executor;
+	private final long _tickNanos;
+	private final long _startNanos = System.nanoTime();
+	
+	private final Timer[] _level0 = new Timer[LEVEL0_SIZE];
+	private final Timer[][] _upperLevels = new Timer[UPPER_LEVELS][LEVEL_SIZE];
+	
+	private final ConcurrentLinkedQueue<Timer> _addedTimers = new ConcurrentLinkedQueue<Timer>();
+	private final ConcurrentLinkedQueue<Timer> _cancelledTimers = new ConcurrentLinkedQueue<Timer>();
+	
+	private final AtomicLong _scheduledCount = new AtomicLong();
+	private final AtomicLong _cancelledCount = new AtomicLong();
+	private final AtomicLong _expiredCount = new AtomicLong();
+	private volatile int _pendingCount;
+	
+	/** The next tick to be processed, only accessed by the ticker thread */
+	private long _currentTick;
+	
+	private final Thread _ticker;
+	private volatile boolean _shutdown;
+	
+	/**
+	 * @param executor runs the tasks of the expired timers
+	 * @param tickDuration granularity of the wheel in milliseconds
+	 */
+	public L2TimingWheel(Executor executor, long tickDuration)
+	{
+		_executor = executor;
+		_tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickDuration));
+		
+		for (int i = 0; i < LEVEL0_SIZE; i++)
+			_level0[i] = new Timer();
+		
+		for (int level = 0; level < UPPER_LEVELS; level++)
+			for (int i = 0; i < LEVEL_SIZE; i++)
+				_upperLevels[level][i] = new Timer();
+		
+		_ticker = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				runTicker();
+			}
+		}, getClass().getSimpleName());
+		_ticker.setDaemon(true);
+		_ticker.start();
+	}
+	
+	/**
+	 * Schedules the given task to be executed once.
+	 * 
+	 * @param r the task
+	 * @param delay in milliseconds
+	 * @return a future, which can be used to cancel the task
+	 */
+	public ScheduledFuture<?> schedule(Runnable r, long delay)
+	{
+		return add(new Timer(r, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay), 0));
+	}
+	
+	/**
+	 * Schedules the given task to be executed periodically, at a fixed rate.
+	 * 
+	 * @param r the task
+	 * @param delay in milliseconds
+	 * @param period in milliseconds
+	 * @return a future, which can be used to cancel the task
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable r, long delay, long period)
+	{
+		if (period <= 0)
+			throw new IllegalArgumentException();
+		
+		return add(new Timer(r, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay), TimeUnit.MILLISECONDS
+				.toNanos(period)));
+	}
+	
+	private Timer add(Timer timer)
+	{
+		_scheduledCount.incrementAndGet();
+		_addedTimers.add(timer);
+		
+		if (_shutdown)
+			timer.cancel(false);
+		
+		return timer;
+	}
+	
+	/**
+	 * Stops the ticker, and drops every waiting timer.
+	 * 
+	 * @return the amount of dropped timers
+	 */
+	public int shutdown()
+	{
+		_shutdown = true;
+		
+		LockSupport.unpark(_ticker);
+		
+		try
+		{
+			_ticker.join(1000);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		return _pendingCount + _addedTimers.size();
+	}
+	
+	public int getPendingCount()
+	{
+		return _pendingCount;
+	}
+	
+	public long getScheduledCount()
+	{
+		return _scheduledCount.get();
+	}
+	
+	public long getCancelledCount()
+	{
+		return _cancelledCount.get();
+	}
+	
+	public long getExpiredCount()
+	{
+		return _expiredCount.get();
+	}
+	
+	// ===========================================================================================
+	
+	private void runTicker()
+	{
+		while (!_shutdown)
+		{
+			try
+			{
+				final long elapsedTicks = (System.nanoTime() - _startNanos) / _tickNanos;
+				
+				processAddedTimers();
+				processCancelledTimers();
+				
+				while (_currentTick <= elapsedTicks)
+					processTick();
+				
+				final long nextTickNanos = _startNanos + _currentTick * _tickNanos;
+				
+				LockSupport.parkNanos(this, nextTickNanos - System.nanoTime());
+			}
+			catch (RuntimeException e)
+			{
+				_log.warn("", e);
+			}
+		}
+	}
+	
+	private void processAddedTimers()
+	{
+		for (Timer timer; (timer = _addedTimers.poll()) != null;)
+		{
+			if (timer.isCancelled())
+				continue;
+			
+			// round up, so a timer never expires early
+			timer._deadlineTick = (timer._deadlineNanos - _startNanos + _tickNanos - 1) / _tickNanos;
+			
+			link(timer);
+		}
+	}
+	
+	private void processCancelledTimers()
+	{
+		for (Timer timer; (timer = _cancelledTimers.poll()) != null;)
+			if (timer.isLinked())
+				unlink(timer);
+	}
+	
+	private void processTick()
+	{
+		final int index = (int)(_currentTick & LEVEL0_MASK);
+		
+		// the lower levels wrapped around, so the next round of the upper levels has to be cascaded
+		if (index == 0)
+		{
+			for (int level = 0; level < UPPER_LEVELS; level++)
+			{
+				final int upperIndex = (int)((_currentTick >>> (LEVEL0_BITS + level * LEVEL_BITS)) & LEVEL_MASK);
+				
+				cascade(_upperLevels[level][upperIndex]);
+				
+				if (upperIndex != 0)
+					break;
+			}
+		}
+		
+		_currentTick++;
+		
+		final Timer head = _level0[index];
+		
+		for (Timer timer; (timer = head._next) != head;)
+		{
+			unlink(timer);
+			
+			_expiredCount.incrementAndGet();
+			_executor.execute(timer);
+		}
+	}
+	
+	private void cascade(Timer head)
+	{
+		for (Timer timer; (timer = head._next) != head;)
+		{
+			unlink(timer);
+			link(timer);
+		}
+	}
+	
+	private void link(Timer timer)
+	{
+		final long deadlineTick = timer._deadlineTick;
+		final long ticks = deadlineTick - _currentTick;
+		
+		final Timer head;
+		
+		if (ticks < 0)
+			head = _level0[(int)(_currentTick & LEVEL0_MASK)];
+		else if (ticks < LEVEL0_SIZE)
+			head = _level0[(int)(deadlineTick & LEVEL0_MASK)];
+		else if (ticks < MAX_RANGE)
+		{
+			int level = 0;
+			while (ticks >= 1L << (LEVEL0_BITS + (level + 1) * LEVEL_BITS))
+				level++;
+			
+			head = _upperLevels[level][(int)((deadlineTick >>> (LEVEL0_BITS + level * LEVEL_BITS)) & LEVEL_MASK)];
+		}
+		else
+		{
+			// parked in the last slot of the last level, and re-inserted, when it gets cascaded
+			final long parkedTick = _currentTick + MAX_RANGE - 1;
+			
+			head = _upperLevels[UPPER_LEVELS - 1][(int)((parkedTick >>> (LEVEL0_BITS + (UPPER_LEVELS - 1)
+					* LEVEL_BITS)) & LEVEL_MASK)];
+		}
+		
+		timer._prev = head._prev;
+		timer._next = head;
+		head._prev._next = timer;
+		head._prev = timer;
+		
+		_pendingCount++;
+	}
+	
+	private void unlink(Timer timer)
+	{
+		timer._prev._next = timer._next;
+		timer._next._prev = timer._prev;
+		timer._prev = null;
+		timer._next = null;
+		
+		_pendingCount--;
+	}
+	
+	// ===========================================================================================
+	
+	private static final AtomicIntegerFieldUpdater<Timer> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(
+			Timer.class, "_state");
+	
+	private final class Timer implements ScheduledFuture<Object>, Runnable
+	{
+		private final Runnable _runnable;
+		private final long _periodNanos;
+		// not private, as the field updater has to access it
+		volatile int _state = STATE_WAITING;
+		
+		private volatile long _deadlineNanos;
+		
+		// only accessed by the ticker thread
+		private long _deadlineTick;
+		private Timer _prev;
+		private Timer _next;
+		
+		/**
+		 * Creates the head of a slot list.
+		 */
+		private Timer()
+		{
+			_runnable = null;
+			_periodNanos = 0;
+			_prev = this;
+			_next = this;
+		}
+		
+		private Timer(Runnable runnable, long deadlineNanos, long periodNanos)
+		{
+			_runnable = runnable;
+			_deadlineNanos = deadlineNanos;
+			_periodNanos = periodNanos;
+		}
+		
+		private boolean isLinked()
+		{
+			return _next != null;
+		}
+		
+		@Override
+		public void run()
+		{
+			if (!STATE_UPDATER.compareAndSet(this, STATE_WAITING, STATE_RUNNING))
+				return;
+			
+			try
+			{
+				_runnable.run();
+			}
+			finally
+			{
+				if (_periodNanos > 0)
+				{
+					_deadlineNanos += _periodNanos;
+					
+					if (STATE_UPDATER.compareAndSet(this, STATE_RUNNING, STATE_WAITING))
+						_addedTimers.add(this);
+				}
+				else if (STATE_UPDATER.compareAndSet(this, STATE_RUNNING, STATE_DONE))
+				{
+					synchronized (this)
+					{
+						notifyAll();
+					}
+				}
+			}
+		}
+		
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert(_deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		
+		@Override
+		public int compareTo(Delayed o)
+		{
+			if (o == this)
+				return 0;
+			
+			final long diff = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+			
+			return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+		}
+		
+		/**
+		 * A running task is never interrupted, but a periodic one won't be executed again.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			for (;;)
+			{
+				final int state = _state;
+				
+				if (state == STATE_DONE || state == STATE_CANCELLED)
+					return false;
+				
+				if (STATE_UPDATER.compareAndSet(this, state, STATE_CANCELLED))
+					break;
+			}
+			
+			_cancelledCount.incrementAndGet();
+			_cancelledTimers.add(this);
+			
+			synchronized (this)
+			{
+				notifyAll();
+			}
+			
+			return true;
+		}
+		
+		@Override
+		public boolean isCancelled()
+		{
+			return _state == STATE_CANCELLED;
+		}
+		
+		@Override
+		public boolean isDone()
+		{
+			final int state = _state;
+			
+			return state == STATE_DONE || state == STATE_CANCELLED;
+		}
+		
+		@Override
+		public Object get() throws InterruptedException, ExecutionException
+		{
+			synchronized (this)
+			{
+				while (!isDone())
+					wait();
+			}
+			
+			return getResult();
+		}
+		
+		@Override
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+				TimeoutException
+		{
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			
+			synchronized (this)
+			{
+				while (!isDone())
+				{
+					final long remaining = deadline - System.nanoTime();
+					
+					if (remaining <= 0)
+						throw new TimeoutException();
+					
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+			
+			return getResult();
+		}
+		
+		private Object getResult()
+		{
+			if (isCancelled())
+				throw new CancellationException();
+			
+			return null;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values (typically execution times in nanoseconds).<BR>
+ * <BR>
+ * Values are counted in logarithmic buckets: every power of two is split into
+ * {@value #SUB_BUCKET_COUNT} linear sub-buckets, so any recorded value is reported with a relative
+ * error of at most 12.5%, while the whole <TT>long</TT> range fits into {@value #BUCKET_COUNT}
+ * buckets. Histograms with the same layout can be merged by simply adding their bucket counts.
+ * 
+ * @author agent
+ */
+public final class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	/** The amount of buckets required to cover all non-negative <TT>long</TT> values */
+	public static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	
+	private final AtomicLongArray _buckets = new AtomicLongArray(BUCKET_COUNT);
+	
+	/**
+	 * Records a value. Negative values are counted as 0.
+	 * 
+	 * @param value a value
+	 */
+	public void record(long value)
+	{
+		_buckets.incrementAndGet(indexOf(value));
+	}
+	
+	/**
+	 * Adds the bucket counts of this histogram to the given array.
+	 * 
+	 * @param counts an array of {@link #BUCKET_COUNT} elements
+	 */
+	public void addTo(long[] counts)
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			counts[i] += _buckets.get(i);
+	}
+	
+	/**
+	 * Returns the index of the bucket, that counts the given value.
+	 * 
+	 * @param value a value
+	 * @return bucket index
+	 */
+	public static int indexOf(long value)
+	{
+		if (value < SUB_BUCKET_COUNT)
+			return value < 0 ? 0 : (int)value;
+		
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		
+		return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+	
+	/**
+	 * Returns the highest value, that is counted by the given bucket.
+	 * 
+	 * @param index bucket index
+	 * @return highest value of the bucket
+	 */
+	public static long highestValueOf(int index)
+	{
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+		
+		final int shift = (index >> SUB_BUCKET_BITS) - 1;
+		final long lowest = (long)(SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+		
+		return lowest + ((1L << shift) - 1);
+	}
+	
+	/**
+	 * Returns the value, below or at which the given fraction of all counted values are.
+	 * 
+	 * @param counts bucket counts, as filled by {@link #addTo(long[])}
+	 * @param quantile a fraction between 0 and 1, such as 0.99
+	 * @return the highest value of the bucket containing the quantile, or 0 if nothing was counted
+	 */
+	public static long valueAtQuantile(long[] counts, double quantile)
+	{
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		
+		if (total == 0)
+			return 0;
+		
+		final long rank = Math.max(1, (long)Math.ceil(quantile * total));
+		
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			
+			if (seen >= rank)
+				return highestValueOf(i);
+		}
+		
+		return highestValueOf(counts.length - 1);
+	}
+}
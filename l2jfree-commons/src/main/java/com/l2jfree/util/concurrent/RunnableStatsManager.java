@@ -22,12 +22,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -49,25 +50,24 @@ public final class RunnableStatsManager
 	public static final long MAXIMUM_RUNTIME_IN_MILLISEC_WITHOUT_WARNING_FOR_TASKS = 5000;
 	public static final long MAXIMUM_RUNTIME_IN_MILLISEC_WITHOUT_WARNING_FOR_LONG_RUNNING_TASKS = Long.MAX_VALUE;
 	
-	private static final Map<Class<?>, ClassStat> _classStats = new HashMap<Class<?>, ClassStat>();
+	private static final ConcurrentMap<Class<?>, ClassStat> _classStats = new ConcurrentHashMap<Class<?>, ClassStat>();
 	
 	private static final class ClassStat
 	{
 		private final String _className;
 		private final MethodStat _runnableStat;
 		
-		private String[] _methodNames = new String[0];
-		private MethodStat[] _methodStats = new MethodStat[0];
+		// stats are always published before names, so it's safe to read them in the opposite order
+		private volatile String[] _methodNames = new String[0];
+		private volatile MethodStat[] _methodStats = new MethodStat[0];
 		
 		private ClassStat(Class<?> clazz)
 		{
 			_className = clazz.getName().replace("com.l2jfree.", "");
 			_runnableStat = new MethodStat(_className, "run()");
 			
-			_methodNames = new String[] { "run()" };
 			_methodStats = new MethodStat[] { _runnableStat };
-			
-			_classStats.put(clazz, this);
+			_methodNames = new String[] { "run()" };
 		}
 		
 		public MethodStat getRunnableStat()
@@ -81,9 +81,12 @@ public final class RunnableStatsManager
 			if (methodName == "run()")
 				return _runnableStat;
 			
-			for (int i = 0; i < _methodNames.length; i++)
-				if (_methodNames[i].equals(methodName))
-					return _methodStats[i];
+			final String[] methodNames = _methodNames;
+			final MethodStat[] methodStats = _methodStats;
+			
+			for (int i = 0; i < methodNames.length; i++)
+				if (methodNames[i].equals(methodName))
+					return methodStats[i];
 			
 			if (!synchronizedAlready)
 			{
@@ -97,24 +100,23 @@ public final class RunnableStatsManager
 			
 			final MethodStat methodStat = new MethodStat(_className, methodName);
 			
-			_methodNames = ArrayUtils.add(_methodNames, methodName);
 			_methodStats = ArrayUtils.add(_methodStats, methodStat);
+			_methodNames = ArrayUtils.add(_methodNames, methodName);
 			
 			return methodStat;
 		}
 	}
 	
+	/** Amount of independently updated cells per method, to avoid contention between threads */
+	private static final int STRIPES = Math.min(
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1, 64);
+	
 	private static final class MethodStat
 	{
-		private final ReentrantLock _lock = new ReentrantLock();
-		
 		private final String _className;
 		private final String _methodName;
 		
-		private long _count;
-		private long _total;
-		private long _min = Long.MAX_VALUE;
-		private long _max = Long.MIN_VALUE;
+		private final AtomicReferenceArray<StatCell> _cells = new AtomicReferenceArray<StatCell>(STRIPES);
 		
 		private MethodStat(String className, String methodName)
 		{
@@ -122,20 +124,23 @@ public final class RunnableStatsManager
 			_methodName = methodName;
 		}
 		
+		private StatCell getCell()
+		{
+			final int index = (int)Thread.currentThread().getId() & (STRIPES - 1);
+			
+			final StatCell cell = _cells.get(index);
+			
+			if (cell != null)
+				return cell;
+			
+			_cells.compareAndSet(index, null, new StatCell());
+			
+			return _cells.get(index);
+		}
+		
 		public void handleStats(long runtimeInNanosec, long maximumRuntimeInMillisecWithoutWarning)
 		{
-			_lock.lock();
-			try
-			{
-				_count++;
-				_total += runtimeInNanosec;
-				_min = Math.min(_min, runtimeInNanosec);
-				_max = Math.max(_max, runtimeInNanosec);
-			}
-			finally
-			{
-				_lock.unlock();
-			}
+			getCell().handleStats(runtimeInNanosec);
 			
 			final long runtimeInMillisec = TimeUnit.NANOSECONDS.toMillis(runtimeInNanosec);
 			
@@ -151,29 +156,109 @@ public final class RunnableStatsManager
 				_log.warn(tb.moveToString());
 			}
 		}
+		
+		public MethodStatSnapshot getSnapshot()
+		{
+			final MethodStatSnapshot snapshot = new MethodStatSnapshot(_className, _methodName);
+			
+			for (int i = 0; i < STRIPES; i++)
+			{
+				final StatCell cell = _cells.get(i);
+				
+				if (cell != null)
+					cell.addTo(snapshot);
+			}
+			
+			snapshot.computeQuantiles();
+			return snapshot;
+		}
 	}
 	
-	private static ClassStat getClassStat(Class<?> clazz, boolean synchronizedAlready)
+	/**
+	 * Accumulates the stats of a method, as reported by a subset of threads.
+	 */
+	private static final class StatCell
 	{
-		ClassStat classStat = _classStats.get(clazz);
+		private final AtomicLong _count = new AtomicLong();
+		private final AtomicLong _total = new AtomicLong();
+		private final AtomicLong _min = new AtomicLong(Long.MAX_VALUE);
+		private final AtomicLong _max = new AtomicLong(Long.MIN_VALUE);
+		private final LatencyHistogram _histogram = new LatencyHistogram();
 		
-		if (classStat != null)
-			return classStat;
+		public void handleStats(long runtimeInNanosec)
+		{
+			_count.incrementAndGet();
+			_total.addAndGet(runtimeInNanosec);
+			_histogram.record(runtimeInNanosec);
+			
+			for (long min; runtimeInNanosec < (min = _min.get());)
+				if (_min.compareAndSet(min, runtimeInNanosec))
+					break;
+			
+			for (long max; runtimeInNanosec > (max = _max.get());)
+				if (_max.compareAndSet(max, runtimeInNanosec))
+					break;
+		}
 		
-		if (!synchronizedAlready)
+		public void addTo(MethodStatSnapshot snapshot)
 		{
-			synchronized (RunnableStatsManager.class)
-			{
-				return getClassStat(clazz, true);
-			}
+			snapshot._count += _count.get();
+			snapshot._total += _total.get();
+			snapshot._min = Math.min(snapshot._min, _min.get());
+			snapshot._max = Math.max(snapshot._max, _max.get());
+			_histogram.addTo(snapshot._histogram);
+		}
+	}
+	
+	/**
+	 * Merged stats of a method at a given time.
+	 */
+	private static final class MethodStatSnapshot
+	{
+		private final String _className;
+		private final String _methodName;
+		
+		private long _count;
+		private long _total;
+		private long _min = Long.MAX_VALUE;
+		private long _max = Long.MIN_VALUE;
+		private final long[] _histogram = new long[LatencyHistogram.BUCKET_COUNT];
+		
+		private long _p50;
+		private long _p99;
+		private long _p999;
+		
+		private MethodStatSnapshot(String className, String methodName)
+		{
+			_className = className;
+			_methodName = methodName;
 		}
 		
-		return new ClassStat(clazz);
+		private void computeQuantiles()
+		{
+			// a bucket may reach beyond the highest recorded value
+			_p50 = Math.min(LatencyHistogram.valueAtQuantile(_histogram, 0.5), _max);
+			_p99 = Math.min(LatencyHistogram.valueAtQuantile(_histogram, 0.99), _max);
+			_p999 = Math.min(LatencyHistogram.valueAtQuantile(_histogram, 0.999), _max);
+		}
+	}
+	
+	private static ClassStat getClassStat(Class<?> clazz)
+	{
+		final ClassStat classStat = _classStats.get(clazz);
+		
+		if (classStat != null)
+			return classStat;
+		
+		final ClassStat newClassStat = new ClassStat(clazz);
+		final ClassStat oldClassStat = _classStats.putIfAbsent(clazz, newClassStat);
+		
+		return oldClassStat != null ? oldClassStat : newClassStat;
 	}
 	
 	public static void handleStats(Class<? extends Runnable> clazz, long runtimeInNanosec)
 	{
-		final ClassStat classStat = getClassStat(clazz, false);
+		final ClassStat classStat = getClassStat(clazz);
 		final MethodStat methodStat = classStat.getRunnableStat();
 		
 		methodStat.handleStats(runtimeInNanosec, MAXIMUM_RUNTIME_IN_MILLISEC_WITHOUT_WARNING_FOR_TASKS);
@@ -182,7 +267,7 @@ public final class RunnableStatsManager
 	public static void handleStats(Class<? extends Runnable> clazz, long runtimeInNanosec,
 			long maximumRuntimeInMillisecWithoutWarning)
 	{
-		final ClassStat classStat = getClassStat(clazz, false);
+		final ClassStat classStat = getClassStat(clazz);
 		final MethodStat methodStat = classStat.getRunnableStat();
 		
 		methodStat.handleStats(runtimeInNanosec, maximumRuntimeInMillisecWithoutWarning);
@@ -190,7 +275,7 @@ public final class RunnableStatsManager
 	
 	public static void handleStats(Class<?> clazz, String methodName, long runtimeInNanosec)
 	{
-		final ClassStat classStat = getClassStat(clazz, false);
+		final ClassStat classStat = getClassStat(clazz);
 		final MethodStat methodStat = classStat.getMethodStat(methodName, false);
 		
 		methodStat.handleStats(runtimeInNanosec, MAXIMUM_RUNTIME_IN_MILLISEC_WITHOUT_WARNING_FOR_TASKS);
@@ -199,7 +284,7 @@ public final class RunnableStatsManager
 	public static void handleStats(Class<?> clazz, String methodName, long runtimeInNanosec,
 			long maximumRuntimeInMillisecWithoutWarning)
 	{
-		final ClassStat classStat = getClassStat(clazz, false);
+		final ClassStat classStat = getClassStat(clazz);
 		final MethodStat methodStat = classStat.getMethodStat(methodName, false);
 		
 		methodStat.handleStats(runtimeInNanosec, maximumRuntimeInMillisecWithoutWarning);
@@ -213,7 +298,10 @@ public final class RunnableStatsManager
 		NAME("class"),
 		METHOD("method"),
 		MIN("min"),
-		MAX("max");
+		MAX("max"),
+		P50("p50"),
+		P99("p99"),
+		P999("p999");
 		
 		private final String _xmlAttributeName;
 		
@@ -222,9 +310,9 @@ public final class RunnableStatsManager
 			_xmlAttributeName = xmlAttributeName;
 		}
 		
-		private final Comparator<MethodStat> _comparator = new Comparator<MethodStat>() {
+		private final Comparator<MethodStatSnapshot> _comparator = new Comparator<MethodStatSnapshot>() {
 			@Override
-			public int compare(MethodStat o1, MethodStat o2)
+			public int compare(MethodStatSnapshot o1, MethodStatSnapshot o2)
 			{
 				final Comparable c1 = getComparableValueOf(o1);
 				final Comparable c2 = getComparableValueOf(o2);
@@ -268,7 +356,7 @@ public final class RunnableStatsManager
 			}
 		};
 		
-		private Comparable getComparableValueOf(MethodStat stat)
+		private Comparable getComparableValueOf(MethodStatSnapshot stat)
 		{
 			switch (this)
 			{
@@ -286,6 +374,12 @@ public final class RunnableStatsManager
 					return stat._min;
 				case MAX:
 					return stat._max;
+				case P50:
+					return stat._p50;
+				case P99:
+					return stat._p99;
+				case P999:
+					return stat._p999;
 				default:
 					throw new InternalError();
 			}
@@ -301,14 +395,17 @@ public final class RunnableStatsManager
 	
 	public static void dumpClassStats(final SortBy sortBy)
 	{
-		final List<MethodStat> methodStats = new ArrayList<MethodStat>();
+		final List<MethodStatSnapshot> methodStats = new ArrayList<MethodStatSnapshot>();
 		
-		synchronized (RunnableStatsManager.class)
+		for (ClassStat classStat : _classStats.values())
 		{
-			for (ClassStat classStat : _classStats.values())
-				for (MethodStat methodStat : classStat._methodStats)
-					if (methodStat._count > 0)
-						methodStats.add(methodStat);
+			for (MethodStat methodStat : classStat._methodStats)
+			{
+				final MethodStatSnapshot snapshot = methodStat.getSnapshot();
+				
+				if (snapshot._count > 0)
+					methodStats.add(snapshot);
+			}
 		}
 		
 		if (sortBy != null)
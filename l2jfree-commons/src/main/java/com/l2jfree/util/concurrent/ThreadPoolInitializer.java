@@ -26,4 +26,10 @@ public interface ThreadPoolInitializer
 	public ThreadPoolExecutor[] getInstantPools();
 	
 	public ThreadPoolExecutor[] getLongRunningPools();
+	
+	/**
+	 * @return the tick duration of the timing wheel in milliseconds, or 0 if the scheduled pools
+	 *         should be used for scheduling instead
+	 */
+	public long getTimingWheelTickDuration();
 }
@@ -0,0 +1,295 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.util.logging;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Publishes the log records on a dedicated writer thread, so the logging threads never wait for
+ * disk or network I/O.<br>
+ * <br>
+ * The records are passed through a bounded ring buffer to the handlers listed in the
+ * <TT>handlers</TT> property of {@link Handler}. If the buffer is full, records below the
+ * <TT>blockingLevel</TT> are dropped and counted, while the more important ones wait for free space.<br>
+ * The writer thread itself never waits, as it's the only one, which could free space: its own
+ * errors are printed to the original error stream, and its records are dropped if the buffer is full.
+ * 
+ * @author agent
+ */
+public final class AsyncLog
+{
+	private AsyncLog()
+	{
+	}
+	
+	/**
+	 * The handler is created while the logging is being configured, before {@link System#err} is
+	 * redirected to the loggers, so this is the real console stream.
+	 */
+	private static final PrintStream STDERR = System.err;
+	
+	private static final AtomicLong _published = new AtomicLong();
+	private static final AtomicLong _dropped = new AtomicLong();
+	private static final AtomicLong _blocked = new AtomicLong();
+	
+	private static volatile Handler _handler;
+	
+	public static long getPublishedCount()
+	{
+		return _published.get();
+	}
+	
+	public static long getDroppedCount()
+	{
+		return _dropped.get();
+	}
+	
+	/**
+	 * @return the amount of records, that had to wait for free space in the buffer
+	 */
+	public static long getBlockedCount()
+	{
+		return _blocked.get();
+	}
+	
+	public static int getQueuedCount()
+	{
+		final Handler handler = _handler;
+		
+		return handler == null ? 0 : handler._queue.size();
+	}
+	
+	public static final class Handler extends java.util.logging.Handler
+	{
+		private final ArrayBlockingQueue<LogRecord> _queue;
+		private final java.util.logging.Handler[] _handlers;
+		private final Level _blockingLevel;
+		private final Thread _writer;
+		
+		private volatile boolean _closed;
+		
+		public Handler()
+		{
+			final LogManager manager = LogManager.getLogManager();
+			final String prefix = getClass().getName();
+			
+			_queue = new ArrayBlockingQueue<LogRecord>(parseInt(manager.getProperty(prefix + ".capacity"), 8192));
+			_handlers = createHandlers(manager.getProperty(prefix + ".handlers"));
+			_blockingLevel = parseLevel(manager.getProperty(prefix + ".blockingLevel"), Level.WARNING);
+			
+			setLevel(Level.ALL);
+			
+			_writer = new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					runWriter();
+				}
+			}, AsyncLog.class.getSimpleName());
+			_writer.setDaemon(true);
+			_writer.start();
+			
+			// the log manager doesn't close the handlers on exit, so the remaining records are written here
+			Runtime.getRuntime().addShutdownHook(new Thread(AsyncLog.class.getSimpleName() + "-Flusher") {
+				@Override
+				public void run()
+				{
+					flush();
+				}
+			});
+			
+			_handler = this;
+		}
+		
+		private static int parseInt(String value, int defaultValue)
+		{
+			try
+			{
+				return value == null ? defaultValue : Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException e)
+			{
+				return defaultValue;
+			}
+		}
+		
+		private static Level parseLevel(String value, Level defaultValue)
+		{
+			try
+			{
+				return value == null ? defaultValue : Level.parse(value.trim());
+			}
+			catch (IllegalArgumentException e)
+			{
+				return defaultValue;
+			}
+		}
+		
+		private static java.util.logging.Handler[] createHandlers(String classNames)
+		{
+			final List<java.util.logging.Handler> handlers = new ArrayList<java.util.logging.Handler>();
+			
+			if (classNames == null)
+				return new java.util.logging.Handler[0];
+			
+			for (String className : StringUtils.split(classNames, ", \t"))
+			{
+				try
+				{
+					final Class<?> clazz = ClassLoader.getSystemClassLoader().loadClass(className);
+					
+					handlers.add((java.util.logging.Handler)clazz.newInstance());
+				}
+				catch (Exception e) // ReflectiveOperationException | RuntimeException
+				{
+					System.err.println("AsyncLog: Can't create handler: " + className);
+					e.printStackTrace();
+				}
+			}
+			
+			return handlers.toArray(new java.util.logging.Handler[handlers.size()]);
+		}
+		
+		@Override
+		public void publish(LogRecord record)
+		{
+			if (_closed || !isLoggable(record))
+				return;
+			
+			if (_queue.offer(record))
+				return;
+			
+			// waiting on the writer thread, or while holding the lock of the writer, would never end
+			if (record.getLevel().intValue() < _blockingLevel.intValue() || Thread.currentThread() == _writer
+					|| Thread.holdsLock(this))
+			{
+				_dropped.incrementAndGet();
+				return;
+			}
+			
+			_blocked.incrementAndGet();
+			
+			try
+			{
+				_queue.put(record);
+			}
+			catch (InterruptedException e)
+			{
+				_dropped.incrementAndGet();
+				
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		private void runWriter()
+		{
+			final List<LogRecord> batch = new ArrayList<LogRecord>();
+			long reportedDrops = 0;
+			
+			for (;;)
+			{
+				try
+				{
+					final LogRecord first = _queue.poll(1, TimeUnit.SECONDS);
+					
+					if (first != null)
+						batch.add(first);
+					
+					final long dropped = _dropped.get();
+					if (dropped != reportedDrops)
+					{
+						batch.add(new LogRecord(Level.WARNING, "AsyncLog: " + (dropped - reportedDrops)
+								+ " log record(s) dropped, because the buffer was full."));
+						
+						reportedDrops = dropped;
+					}
+					
+					if (!batch.isEmpty())
+						drainAndPublish(batch);
+				}
+				catch (InterruptedException e)
+				{
+					// the writer thread is never interrupted intentionally
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace(STDERR);
+				}
+				finally
+				{
+					batch.clear();
+				}
+			}
+		}
+		
+		/**
+		 * Draining and publishing are done under the same lock, so records are written in order.
+		 */
+		private synchronized void drainAndPublish(List<LogRecord> batch)
+		{
+			_queue.drainTo(batch);
+			
+			for (LogRecord record : batch)
+			{
+				for (java.util.logging.Handler handler : _handlers)
+				{
+					try
+					{
+						handler.publish(record);
+					}
+					catch (RuntimeException e)
+					{
+						e.printStackTrace(STDERR);
+					}
+				}
+			}
+			
+			_published.addAndGet(batch.size());
+			
+			for (java.util.logging.Handler handler : _handlers)
+				handler.flush();
+		}
+		
+		/**
+		 * Writes the records in the buffer on the calling thread.
+		 */
+		@Override
+		public void flush()
+		{
+			drainAndPublish(new ArrayList<LogRecord>());
+		}
+		
+		@Override
+		public void close() throws SecurityException
+		{
+			_closed = true;
+			
+			flush();
+			
+			for (java.util.logging.Handler handler : _handlers)
+				handler.close();
+		}
+	}
+}
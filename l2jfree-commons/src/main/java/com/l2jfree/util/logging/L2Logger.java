@@ -35,6 +35,12 @@ public final class L2Logger
 		return new L2Logger(name);
 	}
 	
+	/**
+	 * Whether the caller of every logging request should be looked up, not only the ones printed
+	 * along with their location.
+	 */
+	public static volatile boolean ALWAYS_CAPTURE_CALLER = false;
+	
 	private final Logger _logger;
 	
 	private L2Logger(String name)
@@ -57,10 +63,22 @@ public final class L2Logger
 		if (!_logger.isLoggable(level))
 			return;
 		
-		if (caller == null)
+		// walking the stack is expensive, so the caller is only looked up, if it's going to be printed
+		if (caller == null && isCallerRequired(level, exception))
 			caller = new Throwable().getStackTrace()[2];
 		
-		_logger.logp(level, caller.getClassName(), caller.getMethodName(), String.valueOf(message), exception);
+		if (caller == null)
+			_logger.logp(level, null, null, String.valueOf(message), exception);
+		else
+			_logger.logp(level, caller.getClassName(), caller.getMethodName(), String.valueOf(message), exception);
+	}
+	
+	/**
+	 * @see L2RuntimeLogFormatter
+	 */
+	private static boolean isCallerRequired(Level level, Throwable exception)
+	{
+		return ALWAYS_CAPTURE_CALLER || level.intValue() > Level.INFO.intValue() || exception != null;
 	}
 	
 	/**
@@ -30,6 +30,7 @@ import com.l2jfree.gameserver.network.client.Disconnection;
 import com.l2jfree.gameserver.network.client.L2ClientController;
 import com.l2jfree.gameserver.network.loginserver.legacy.L2LegacyLoginServerController;
 import com.l2jfree.gameserver.sql.PersistentProperties;
+import com.l2jfree.gameserver.sql.WriteBehindQueue;
 import com.l2jfree.gameserver.util.IdFactory;
 import com.l2jfree.gameserver.util.MovementController;
 import com.l2jfree.gameserver.world.L2World;
@@ -62,6 +63,7 @@ public final class GameServer extends Config
 		
 		IdFactory.getInstance();
 		SQLQueryQueue.getInstance();
+		WriteBehindQueue.getInstance();
 		
 		L2Config.load(L2World.class);
 		L2Config.load(ComponentFactory.class);
@@ -125,6 +127,21 @@ public final class GameServer extends Config
 					}
 				}
 				
+				try
+				{
+					WriteBehindQueue.getInstance().flushAll();
+					
+					for (String line : WriteBehindQueue.getInstance().getStats())
+						_log.info(line);
+					
+					for (String line : MovementController.getInstance().getStats())
+						_log.info(line);
+				}
+				catch (Throwable t)
+				{
+					_log.warn("Orderly shutdown sequence interrupted", t);
+				}
+				
 				PersistentProperties.store();
 				
 				SQLQueryQueue.getInstance().executeNow();
@@ -74,5 +74,8 @@ public final class L2CoreThreadPools extends AbstractThreadPoolInitializer
 				TimeUnit.SECONDS,
 				// BlockingQueue<Runnable> workQueue
 				new SynchronousQueue<Runnable>()));
+		
+		if (ThreadPoolConfig.USE_TIMING_WHEEL)
+			useTimingWheel(ThreadPoolConfig.TIMING_WHEEL_TICK_DURATION);
 	}
 }
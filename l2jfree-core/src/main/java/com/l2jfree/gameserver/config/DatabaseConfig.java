@@ -68,4 +68,28 @@ public final class DatabaseConfig extends ConfigPropertiesLoader
 			"Whether to backup tables during server shutdown or not.", //
 			"Currently only works with MySQL and SQLite." })
 	public static boolean BACKUP_ON_SHUTDOWN;
+	
+	/** Whether to store players and items asynchronously */
+	@ConfigField(name = "WriteBehind", value = "false", eternal = true, comment = {
+			"Whether to store players and items asynchronously, in batches.", //
+			"Only the last state of an entity gets stored, if it changes several times meanwhile.", //
+			"Entities which couldn't be stored are kept in memory, and retried on shutdown." })
+	public static boolean WRITE_BEHIND;
+	
+	/** Interval of storing the queued entities */
+	@ConfigField(name = "WriteBehindInterval", value = "10000", eternal = true, comment = {
+			"Specifies how often (in milliseconds) the queued entities are stored." })
+	public static int WRITE_BEHIND_INTERVAL;
+	
+	/** Maximum amount of entities stored in one batch */
+	@ConfigField(name = "WriteBehindBatchSize", value = "100", eternal = true, comment = {
+			"Specifies the maximum amount of entities stored in a single transaction.", //
+			"Storing starts immediately, once this many entities are queued." })
+	public static int WRITE_BEHIND_BATCH_SIZE;
+	
+	/** Maximum amount of queued entities */
+	@ConfigField(name = "WriteBehindMaxPending", value = "5000", eternal = true, comment = {
+			"Specifies the maximum amount of queued entities.", //
+			"Above this limit the storing threads store the queued entities themselves, synchronously." })
+	public static int WRITE_BEHIND_MAX_PENDING;
 }
@@ -48,4 +48,38 @@ public final class NetworkConfig extends ConfigPropertiesLoader
 	
 	@ConfigField(name = "LoginPort", value = "9014", eternal = true, comment = { })
 	public static int LOGIN_PORT;
+	
+	/** Whether network threads block in the selection instead of polling */
+	@ConfigField(name = "BlockingSelection", value = "false", eternal = true, comment = {
+			"Whether network threads should block until there is any network I/O to be done,", //
+			"instead of polling connections and sleeping between iterations.", //
+			"Enabling this will reduce both packet latency and idle CPU usage." })
+	public static boolean BLOCKING_SELECTION;
+	
+	/** Whether received client packets are processed in worker threads */
+	@ConfigField(name = "PipelinedReading", value = "false", eternal = true, comment = {
+			"Whether network threads should only split the received data into packets,", //
+			"leaving the rest of the processing to a per-client queue running in worker threads.", //
+			"Enabling this prevents a slow client packet from delaying the other clients." })
+	public static boolean PIPELINED_READING;
+	
+	/** Whether outgoing packets are flushed with gathering writes */
+	@ConfigField(name = "GatheringWrites", value = "false", eternal = true, comment = {
+			"Whether outgoing packets should be collected in per-client direct memory segments,", //
+			"and written with a single gathering write.", //
+			"Enabling this avoids copying data again when the client cannot receive everything at once." })
+	public static boolean GATHERING_WRITES;
+	
+	/** Whether client traffic is ciphered a word at a time */
+	@ConfigField(name = "WideCipher", value = "false", eternal = true, comment = {
+			"Whether CLIENT traffic should be ciphered 8 bytes at a time instead of byte by byte.", //
+			"The output is identical, which is verified against the byte by byte cipher on startup." })
+	public static boolean WIDE_CIPHER;
+	
+	/** Timeout of authed, but idle client connections */
+	@ConfigField(name = "IdleTimeout", value = "0", eternal = true, comment = {
+			"Time in milliseconds, after which an authed CLIENT connection without any received data is closed.", //
+			"This reclaims the half-open connections of crashed clients, or lost networks.", //
+			"Use 0 to disable." })
+	public static long IDLE_TIMEOUT;
 }
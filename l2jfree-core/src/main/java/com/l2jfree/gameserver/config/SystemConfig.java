@@ -33,4 +33,10 @@ public final class SystemConfig extends ConfigPropertiesLoader
 	@ConfigField(name = "DumpHeapBeforeShutdown", value = "true", eternal = true,
 			comment = { "Whether to dump heap before server shutdown or not." })
 	public static boolean DUMP_HEAP_BEFORE_SHUTDOWN;
+	
+	/** Minimum time before a released object ID is reused */
+	@ConfigField(name = "ObjectIdQuarantine", value = "60000", eternal = true, comment = {
+			"Specifies how long (in milliseconds) a released object ID is kept before reusing it.", //
+			"Set to 0 to reuse released object IDs immediately." })
+	public static long OBJECT_ID_QUARANTINE;
 }
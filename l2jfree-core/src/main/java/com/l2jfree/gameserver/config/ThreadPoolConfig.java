@@ -45,4 +45,14 @@ public final class ThreadPoolConfig extends ConfigPropertiesLoader
 			"Specifies how many threads will be in a single instant pool", //
 			"NOTE: fixing your code is always better than increasing the pool size ;)" })
 	public static int THREADS_PER_INSTANT_THREAD_POOL;
+	
+	@ConfigField(name = "UseTimingWheel", value = "false", eternal = true, comment = {
+			"Whether to schedule the tasks on a timing wheel instead of the scheduled thread pools", //
+			"It scales better with lots of short timers, but the tasks are executed by the instant thread pools" })
+	public static boolean USE_TIMING_WHEEL;
+	
+	@ConfigField(name = "TimingWheelTickDuration", value = "10", eternal = true, comment = {
+			"Specifies the granularity of the timing wheel in milliseconds", //
+			"Tasks may be delayed by at most this much more than requested" })
+	public static int TIMING_WHEEL_TICK_DURATION;
 }
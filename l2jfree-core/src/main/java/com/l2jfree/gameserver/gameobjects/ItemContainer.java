@@ -14,80 +14,329 @@
  */
 package com.l2jfree.gameserver.gameobjects;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
-import javolution.util.FastList;
-import javolution.util.FastMap;
-
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IItemContainer;
 import com.l2jfree.gameserver.gameobjects.item.L2SingularItem;
 import com.l2jfree.gameserver.gameobjects.item.L2StackableItem;
+import com.l2jfree.gameserver.sql.ItemDB;
 import com.l2jfree.gameserver.util.ObjectId;
+import com.l2jfree.gameserver.util.PersistentId;
 import com.l2jfree.util.L2Collections;
+import com.l2jfree.util.concurrent.L2ThreadPool;
 
 /**
+ * Reads never lock: the items are indexed by immutable, sorted primitive arrays, which are rebuilt
+ * and republished on each modification (copy-on-write), so a reader always sees a consistent
+ * state. Modifications are accumulated as per-item changes, and flushed once per tick as a single
+ * batch, so bulk operations (looting, warehouse, trade) also pay for the rebuild only once.
+ * 
  * @author NB4L1
  */
-// TODO map by objectId and/or persistentId
+// TODO map by persistentId
 public abstract class ItemContainer implements IItemContainer
 {
-	private final Map<ObjectId, L2Item> _itemsByObjectId = new FastMap<ObjectId, L2Item>();
-	private final Map<Integer, L2StackableItem> _stackableItemsByItemId = new FastMap<Integer, L2StackableItem>();
-	private final Map<Integer, List<L2SingularItem>> _singularItemsByItemId =
-			new FastMap<Integer, List<L2SingularItem>>();
+	/** The delay between the first accumulated change and the flush, in milliseconds. */
+	public static final long FLUSH_DELAY = 100;
 	
-	private final ReentrantLock _lock = new ReentrantLock();
-	
-	protected ItemContainer()
+	/**
+	 * The type of an accumulated change, in the order of the client's update actions.
+	 */
+	public static enum ItemChangeType
 	{
+		ADDED,
+		MODIFIED,
+		REMOVED;
+		
+		/**
+		 * @return the action sent to the client
+		 */
+		public int getAction()
+		{
+			return ordinal() + 1;
+		}
 	}
 	
-	public final L2Item getItemByObjectId(ObjectId objectId)
+	public static final class ItemChange
 	{
-		_lock.lock();
-		try
+		private final L2Item _item;
+		private final ItemChangeType _type;
+		
+		private ItemChange(L2Item item, ItemChangeType type)
 		{
-			return _itemsByObjectId.get(objectId);
+			_item = item;
+			_type = type;
 		}
-		finally
+		
+		public L2Item getItem()
 		{
-			_lock.unlock();
+			return _item;
+		}
+		
+		public ItemChangeType getType()
+		{
+			return _type;
 		}
 	}
 	
-	public final L2Item getItemByItemId(int itemId)
+	private static final Comparator<L2Item> BY_OBJECT_ID = new Comparator<L2Item>() {
+		@Override
+		public int compare(L2Item o1, L2Item o2)
+		{
+			return o1.getObjectId().compareTo(o2.getObjectId());
+		}
+	};
+	
+	private static final Comparator<L2Item> BY_ITEM_ID = new Comparator<L2Item>() {
+		@Override
+		public int compare(L2Item o1, L2Item o2)
+		{
+			final int itemId1 = o1.getTemplate().getId();
+			final int itemId2 = o2.getTemplate().getId();
+			
+			if (itemId1 != itemId2)
+				return itemId1 < itemId2 ? -1 : 1;
+			
+			return BY_OBJECT_ID.compare(o1, o2);
+		}
+	};
+	
+	/**
+	 * An immutable snapshot of the contained items.
+	 */
+	private static final class Index
 	{
-		_lock.lock();
-		try
+		private static final Index EMPTY = new Index(new L2Item[0]);
+		
+		private final L2Item[] _items; // sorted by objectId
+		private final int[] _objectIds;
+		
+		private final int[] _itemIds; // sorted, distinct
+		private final L2StackableItem[] _stackableItems;
+		private final L2SingularItem[][] _singularItems;
+		
+		private Index(L2Item[] items)
 		{
-			final L2StackableItem stackableItem = _stackableItemsByItemId.get(itemId);
+			Arrays.sort(items, BY_OBJECT_ID);
 			
-			if (stackableItem != null)
-				return stackableItem;
+			_items = items;
+			_objectIds = new int[items.length];
 			
-			final List<L2SingularItem> singularItemsByItemId = _singularItemsByItemId.get(itemId);
+			for (int i = 0; i < items.length; i++)
+				_objectIds[i] = items[i].getObjectId().intValue();
 			
-			if (singularItemsByItemId == null || singularItemsByItemId.isEmpty())
-				return null;
+			final L2Item[] byItemId = items.clone();
 			
-			return singularItemsByItemId.get(0);
+			Arrays.sort(byItemId, BY_ITEM_ID);
+			
+			int groups = 0;
+			for (int i = 0; i < byItemId.length; i++)
+				if (i == 0 || byItemId[i - 1].getTemplate().getId() != byItemId[i].getTemplate().getId())
+					groups++;
+			
+			_itemIds = new int[groups];
+			_stackableItems = new L2StackableItem[groups];
+			_singularItems = new L2SingularItem[groups][];
+			
+			for (int i = 0, group = 0; i < byItemId.length; group++)
+			{
+				final int itemId = byItemId[i].getTemplate().getId();
+				
+				int end = i;
+				while (end < byItemId.length && byItemId[end].getTemplate().getId() == itemId)
+					end++;
+				
+				final List<L2SingularItem> singularItems = new ArrayList<L2SingularItem>(end - i);
+				
+				for (; i < end; i++)
+				{
+					if (byItemId[i] instanceof L2StackableItem)
+					{
+						if (_stackableItems[group] == null)
+							_stackableItems[group] = (L2StackableItem)byItemId[i];
+					}
+					else if (byItemId[i] instanceof L2SingularItem)
+						singularItems.add((L2SingularItem)byItemId[i]);
+				}
+				
+				_itemIds[group] = itemId;
+				_singularItems[group] = singularItems.toArray(new L2SingularItem[singularItems.size()]);
+			}
 		}
-		finally
+		
+		private L2Item get(int objectId)
 		{
-			_lock.unlock();
+			final int index = Arrays.binarySearch(_objectIds, objectId);
+			
+			return index < 0 ? null : _items[index];
+		}
+		
+		private int indexOfItemId(int itemId)
+		{
+			return Arrays.binarySearch(_itemIds, itemId);
 		}
 	}
 	
+	private final ReentrantLock _lock = new ReentrantLock();
+	private final ReentrantLock _flushLock = new ReentrantLock();
+	
+	private volatile Index _index = Index.EMPTY;
+	
+	// guarded by _lock
+	private final Map<L2Item, ItemChangeType> _changes = new LinkedHashMap<L2Item, ItemChangeType>();
+	private boolean _flushScheduled;
+	
+	private final Runnable _flushTask = new Runnable() {
+		@Override
+		public void run()
+		{
+			flushChanges();
+		}
+	};
+	
+	protected ItemContainer()
+	{
+	}
+	
+	public final L2Item getItemByObjectId(ObjectId objectId)
+	{
+		return getItemByObjectId(objectId.intValue());
+	}
+	
+	public final L2Item getItemByObjectId(int objectId)
+	{
+		return _index.get(objectId);
+	}
+	
+	public final L2Item getItemByItemId(int itemId)
+	{
+		final Index index = _index;
+		final int i = index.indexOfItemId(itemId);
+		
+		if (i < 0)
+			return null;
+		
+		if (index._stackableItems[i] != null)
+			return index._stackableItems[i];
+		
+		final L2SingularItem[] singularItems = index._singularItems[i];
+		
+		return singularItems.length == 0 ? null : singularItems[0];
+	}
+	
 	public final L2StackableItem getStackableItemByItemId(int itemId)
+	{
+		final Index index = _index;
+		final int i = index.indexOfItemId(itemId);
+		
+		return i < 0 ? null : index._stackableItems[i];
+	}
+	
+	public final L2SingularItem getSingularItemByItemId(int itemId)
+	{
+		final Index index = _index;
+		final int i = index.indexOfItemId(itemId);
+		
+		if (i < 0)
+			return null;
+		
+		final L2SingularItem[] singularItems = index._singularItems[i];
+		
+		return singularItems.length == 0 ? null : singularItems[0];
+	}
+	
+	public List<L2Item> getItemsByItemId(int itemId)
+	{
+		final Index index = _index;
+		final int i = index.indexOfItemId(itemId);
+		
+		if (i < 0)
+			return L2Collections.emptyList();
+		
+		if (index._stackableItems[i] != null)
+			return Collections.singletonList((L2Item)index._stackableItems[i]);
+		
+		return Collections.<L2Item> unmodifiableList(Arrays.asList(index._singularItems[i]));
+	}
+	
+	public final List<L2SingularItem> getSingularItemsByItemId(int itemId)
+	{
+		final Index index = _index;
+		final int i = index.indexOfItemId(itemId);
+		
+		if (i < 0 || index._singularItems[i].length == 0)
+			return L2Collections.emptyList();
+		
+		return Collections.unmodifiableList(Arrays.asList(index._singularItems[i]));
+	}
+	
+	/**
+	 * @return an immutable snapshot of the contained items, ordered by objectId
+	 */
+	public final List<L2Item> getItems()
+	{
+		return Collections.unmodifiableList(Arrays.asList(_index._items));
+	}
+	
+	public final int getSize()
+	{
+		return _index._items.length;
+	}
+	
+	/**
+	 * @return the persistent owner of the contained items, or null if they aren't persisted
+	 */
+	public abstract PersistentId getOwnerId();
+	
+	public final boolean addItem(L2Item item)
+	{
+		return addItems(Collections.singletonList(item)) != 0;
+	}
+	
+	/**
+	 * Adds all the given items, while rebuilding the indexes only once.
+	 * 
+	 * @param items the items to add
+	 * @return the number of items actually added
+	 */
+	public final int addItems(Collection<? extends L2Item> items)
 	{
 		_lock.lock();
 		try
 		{
-			return _stackableItemsByItemId.get(itemId);
+			final Index index = _index;
+			final Set<L2Item> added = new LinkedHashSet<L2Item>();
+			
+			// an item can be held by a single container only
+			for (L2Item item : items)
+				if (index.get(item.getObjectId().intValue()) == null && item.compareAndSetContainer(null, this))
+					added.add(item);
+			
+			if (added.isEmpty())
+				return 0;
+			
+			final L2Item[] newItems = Arrays.copyOf(index._items, index._items.length + added.size());
+			
+			int i = index._items.length;
+			for (L2Item item : added)
+				newItems[i++] = item;
+			
+			_index = new Index(newItems);
+			
+			for (L2Item item : added)
+				addChange(item, ItemChangeType.ADDED);
+			
+			return added.size();
 		}
 		finally
 		{
@@ -95,17 +344,50 @@ public abstract class ItemContainer implements IItemContainer
 		}
 	}
 	
-	public final L2SingularItem getSingularItemByItemId(int itemId)
+	public final boolean removeItem(L2Item item)
+	{
+		return removeItems(Collections.singletonList(item)) != 0;
+	}
+	
+	/**
+	 * Removes all the given items, while rebuilding the indexes only once.
+	 * 
+	 * @param items the items to remove
+	 * @return the number of items actually removed
+	 */
+	public final int removeItems(Collection<? extends L2Item> items)
+	{
+		return removeItems0(items).size();
+	}
+	
+	private Set<L2Item> removeItems0(Collection<? extends L2Item> items)
 	{
 		_lock.lock();
 		try
 		{
-			final List<L2SingularItem> singularItemsByItemId = _singularItemsByItemId.get(itemId);
+			final Index index = _index;
+			final Set<L2Item> removed = new LinkedHashSet<L2Item>();
+			
+			for (L2Item item : items)
+				if (index.get(item.getObjectId().intValue()) == item && item.compareAndSetContainer(this, null))
+					removed.add(item);
+			
+			if (removed.isEmpty())
+				return removed;
+			
+			final L2Item[] newItems = new L2Item[index._items.length - removed.size()];
+			
+			int i = 0;
+			for (L2Item item : index._items)
+				if (!removed.contains(item))
+					newItems[i++] = item;
+			
+			_index = new Index(newItems);
 			
-			if (singularItemsByItemId == null || singularItemsByItemId.isEmpty())
-				return null;
+			for (L2Item item : removed)
+				addChange(item, ItemChangeType.REMOVED);
 			
-			return singularItemsByItemId.get(0);
+			return removed;
 		}
 		finally
 		{
@@ -113,25 +395,82 @@ public abstract class ItemContainer implements IItemContainer
 		}
 	}
 	
-	public List<L2Item> getItemsByItemId(int itemId)
+	public final boolean destroyItem(L2Item item)
+	{
+		return destroyItems(Collections.singletonList(item)) != 0;
+	}
+	
+	/**
+	 * Removes all the given items for good, flushes the removal right away, and releases their object
+	 * IDs.
+	 * 
+	 * @param items the items to destroy
+	 * @return the number of items actually destroyed
+	 */
+	public final int destroyItems(Collection<? extends L2Item> items)
+	{
+		final Set<L2Item> destroyed = removeItems0(items);
+		
+		if (destroyed.isEmpty())
+			return 0;
+		
+		flushChanges();
+		
+		for (L2Item item : destroyed)
+			item.discard();
+		
+		return destroyed.size();
+	}
+	
+	/**
+	 * Flushes the pending changes, then drops every contained item without recording any change, and
+	 * releases their object IDs. Called when the owner of the container is deleted.
+	 */
+	public final void unload()
+	{
+		L2Item[] unloaded;
+		
+		for (;;)
+		{
+			flushChanges();
+			
+			_lock.lock();
+			try
+			{
+				// a change made meanwhile must be flushed while the items are still contained
+				if (!_changes.isEmpty())
+					continue;
+				
+				unloaded = _index._items;
+				
+				for (L2Item item : unloaded)
+					item.compareAndSetContainer(this, null);
+				
+				_index = Index.EMPTY;
+				break;
+			}
+			finally
+			{
+				_lock.unlock();
+			}
+		}
+		
+		for (L2Item item : unloaded)
+			item.discard();
+	}
+	
+	/**
+	 * Marks the given item as modified, so it's included in the next flush.
+	 * 
+	 * @param item a contained item
+	 */
+	public final void updateItem(L2Item item)
 	{
 		_lock.lock();
 		try
 		{
-			final L2StackableItem stackableItem = _stackableItemsByItemId.get(itemId);
-			
-			if (stackableItem != null)
-				return Arrays.asList((L2Item)stackableItem);
-			
-			final List<L2SingularItem> singularItemsByItemId = _singularItemsByItemId.get(itemId);
-			
-			if (singularItemsByItemId == null || singularItemsByItemId.isEmpty())
-				return L2Collections.emptyList();
-			
-			if (singularItemsByItemId.size() <= 8)
-				return new CopyOnWriteArrayList<L2Item>(singularItemsByItemId);
-			else
-				return new FastList<L2Item>(singularItemsByItemId);
+			if (_index.get(item.getObjectId().intValue()) == item)
+				addChange(item, ItemChangeType.MODIFIED);
 		}
 		finally
 		{
@@ -139,24 +478,87 @@ public abstract class ItemContainer implements IItemContainer
 		}
 	}
 	
-	public final List<L2SingularItem> getSingularItemsByItemId(int itemId)
+	private void addChange(L2Item item, ItemChangeType type)
 	{
-		_lock.lock();
+		final ItemChangeType previous = _changes.get(item);
+		
+		if (previous == null)
+			_changes.put(item, type);
+		else if (previous == ItemChangeType.ADDED)
+		{
+			// the item is still unknown to the observers
+			if (type == ItemChangeType.REMOVED)
+				_changes.remove(item);
+		}
+		else if (previous == ItemChangeType.REMOVED)
+		{
+			// the observers still know the item
+			_changes.put(item, ItemChangeType.MODIFIED);
+		}
+		else
+			_changes.put(item, type);
+		
+		if (!_flushScheduled)
+		{
+			_flushScheduled = true;
+			
+			L2ThreadPool.schedule(_flushTask, FLUSH_DELAY);
+		}
+	}
+	
+	/**
+	 * Immediately flushes the changes accumulated since the last flush.
+	 */
+	public final void flushChanges()
+	{
+		// keeps the batches in order
+		_flushLock.lock();
 		try
 		{
-			final List<L2SingularItem> singularItemsByItemId = _singularItemsByItemId.get(itemId);
+			final List<ItemChange> changes;
 			
-			if (singularItemsByItemId == null || singularItemsByItemId.isEmpty())
-				return L2Collections.emptyList();
+			_lock.lock();
+			try
+			{
+				_flushScheduled = false;
+				
+				if (_changes.isEmpty())
+					return;
+				
+				changes = new ArrayList<ItemChange>(_changes.size());
+				
+				for (Map.Entry<L2Item, ItemChangeType> entry : _changes.entrySet())
+					changes.add(new ItemChange(entry.getKey(), entry.getValue()));
+				
+				_changes.clear();
+			}
+			finally
+			{
+				_lock.unlock();
+			}
 			
-			if (singularItemsByItemId.size() <= 8)
-				return new CopyOnWriteArrayList<L2SingularItem>(singularItemsByItemId);
-			else
-				return new FastList<L2SingularItem>(singularItemsByItemId);
+			onChanges(Collections.unmodifiableList(changes));
 		}
 		finally
 		{
-			_lock.unlock();
+			_flushLock.unlock();
 		}
 	}
+	
+	/**
+	 * Called with each non-empty batch of accumulated changes. Stores every changed item with its
+	 * current owner, or removes it, if it's not owned by anyone anymore, through a single
+	 * write-behind batch.
+	 * 
+	 * @param changes the accumulated changes, at most one per item
+	 */
+	protected void onChanges(List<ItemChange> changes)
+	{
+		final List<L2Item> items = new ArrayList<L2Item>(changes.size());
+		
+		for (ItemChange change : changes)
+			items.add(change.getItem());
+		
+		ItemDB.storeAll(items);
+	}
 }
@@ -74,6 +74,26 @@ public abstract class L2Character extends L2Object implements IL2Character
 		return _inventory;
 	}
 	
+	@Override
+	public boolean removeFromWorld()
+	{
+		if (!super.removeFromWorld())
+			return false;
+		
+		_inventory.unload();
+		return true;
+	}
+	
+	@Override
+	public boolean discard()
+	{
+		if (!super.discard())
+			return false;
+		
+		_inventory.unload();
+		return true;
+	}
+	
 	@Override
 	public void setName(String name)
 	{
@@ -14,6 +14,8 @@
  */
 package com.l2jfree.gameserver.gameobjects;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 import com.l2jfree.gameserver.gameobjects.CharacterStat.Element;
 import com.l2jfree.gameserver.gameobjects.components.KnownListComponent;
 import com.l2jfree.gameserver.gameobjects.components.MovementComponent;
@@ -34,9 +36,14 @@ import com.l2jfree.gameserver.util.PersistentId;
 @MovementComponent(EmptyObjectMovement.class)
 public abstract class L2Item extends L2Object implements IElemental
 {
+	private static final AtomicReferenceFieldUpdater<L2Item, ItemContainer> CONTAINER_UPDATER =
+			AtomicReferenceFieldUpdater.newUpdater(L2Item.class, ItemContainer.class, "_container");
+	
 	private PersistentId _persistentId;
 	private final long _creationTime;
-	private final PersistentId _ownerId;
+	private final PersistentId _loadedOwnerId;
+	private volatile ItemContainer _container;
+	private volatile boolean _contained;
 	
 	protected L2Item(L2ItemTemplate template)
 	{
@@ -44,7 +51,7 @@ public abstract class L2Item extends L2Object implements IElemental
 		
 		// TODO
 		_creationTime = System.currentTimeMillis();
-		_ownerId = null;
+		_loadedOwnerId = null;
 	}
 	
 	protected L2Item(L2ItemTemplate template, ItemDB itemDB)
@@ -52,8 +59,9 @@ public abstract class L2Item extends L2Object implements IElemental
 		super(template);
 		
 		// TODO
+		_persistentId = itemDB.getPersistentId();
 		_creationTime = itemDB.creationTime;
-		_ownerId = itemDB.getOwnerId();
+		_loadedOwnerId = itemDB.getOwnerId();
 	}
 	
 	@Override
@@ -82,9 +90,47 @@ public abstract class L2Item extends L2Object implements IElemental
 		return _creationTime;
 	}
 	
+	/**
+	 * @return the container holding this item, or null if it's not in any
+	 */
+	public ItemContainer getContainer()
+	{
+		return _container;
+	}
+	
+	boolean compareAndSetContainer(ItemContainer expect, ItemContainer update)
+	{
+		if (!CONTAINER_UPDATER.compareAndSet(this, expect, update))
+			return false;
+		
+		if (update != null)
+			_contained = true;
+		
+		return true;
+	}
+	
+	/**
+	 * @return true if this item was put into a container at least once
+	 */
+	public boolean hasBeenContained()
+	{
+		return _contained;
+	}
+	
+	/**
+	 * Returns the owner of the current container. Items restored from the database, but not put into
+	 * any container yet, keep reporting the owner they were loaded with.
+	 * 
+	 * @return the persistent owner of this item, or null if it's not owned by anyone persistent
+	 */
 	public PersistentId getOwnerId()
 	{
-		return _ownerId;
+		final ItemContainer container = _container;
+		
+		if (container != null)
+			return container.getOwnerId();
+		
+		return _contained ? null : _loadedOwnerId;
 	}
 	
 	@Override
@@ -65,12 +65,6 @@ public abstract class L2Object implements IL2Object
 		return IdRange.MISC;
 	}
 	
-	@Override
-	protected void finalize()
-	{
-		IdFactory.getInstance().releaseObjectId(getIdRange(), getObjectId());
-	}
-	
 	@Override
 	public final ObjectId getObjectId()
 	{
@@ -179,6 +173,22 @@ public abstract class L2Object implements IL2Object
 			return false;
 		
 		L2World.removeObject(this);
+		
+		IdFactory.getInstance().releaseObjectId(getIdRange(), getObjectId());
+		return true;
+	}
+	
+	/**
+	 * Deletes an object, that has never been added to the world.
+	 * 
+	 * @return true if the object was deleted, false otherwise
+	 */
+	public boolean discard()
+	{
+		if (!setState(OBJECT_STATE_INITIALIZED, OBJECT_STATE_DELETED))
+			return false;
+		
+		IdFactory.getInstance().releaseObjectId(getIdRange(), getObjectId());
 		return true;
 	}
 	
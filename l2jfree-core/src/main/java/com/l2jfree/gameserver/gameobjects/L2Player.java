@@ -34,6 +34,7 @@ import com.l2jfree.gameserver.gameobjects.player.PlayerKnownList;
 import com.l2jfree.gameserver.gameobjects.player.PlayerPosition;
 import com.l2jfree.gameserver.gameobjects.player.PlayerStat;
 import com.l2jfree.gameserver.gameobjects.player.PlayerView;
+import com.l2jfree.gameserver.gameobjects.player.PlayerView.FieldGroup;
 import com.l2jfree.gameserver.network.client.Disconnection;
 import com.l2jfree.gameserver.network.client.EmptyClient;
 import com.l2jfree.gameserver.network.client.IL2Client;
@@ -225,6 +226,8 @@ public class L2Player extends L2Character implements IL2Playable, PlayerNameTabl
 	public void setActiveClassId(ClassId activeClassId)
 	{
 		_activeClassId = activeClassId;
+		
+		getView().invalidate(FieldGroup.IDENTITY);
 	}
 	
 	@Override
@@ -243,6 +246,8 @@ public class L2Player extends L2Character implements IL2Playable, PlayerNameTabl
 		L2World.updateOnlinePlayer(this, oldName, name);
 		
 		PlayerNameTable.getInstance().update(this);
+		
+		getView().invalidate(FieldGroup.IDENTITY);
 	}
 	
 	public String getTitle()
@@ -253,6 +258,8 @@ public class L2Player extends L2Character implements IL2Playable, PlayerNameTabl
 	public void setTitle(String title)
 	{
 		_title = title;
+		
+		getView().invalidate(FieldGroup.IDENTITY);
 	}
 	
 	@Override
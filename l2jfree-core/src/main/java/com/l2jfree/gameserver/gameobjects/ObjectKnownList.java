@@ -15,12 +15,10 @@
 package com.l2jfree.gameserver.gameobjects;
 
 import java.util.Collection;
-import java.util.Map;
 
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IObjectKnownList;
-import com.l2jfree.gameserver.util.ObjectId;
 import com.l2jfree.util.L2Collections;
-import com.l2jfree.util.LazyMap;
+import com.l2jfree.util.concurrent.ConcurrentLookupTable;
 
 /**
  * @author NB4L1
@@ -29,8 +27,8 @@ public class ObjectKnownList implements IObjectKnownList
 {
 	private final L2Object _activeChar;
 	
-	private final Map<ObjectId, L2Object> _knownObjects = new LazyMap<ObjectId, L2Object>().setShared();
-	private final Map<ObjectId, L2Object> _knowingObjects = new LazyMap<ObjectId, L2Object>().setShared();
+	private final ConcurrentLookupTable<L2Object> _knownObjects = new ConcurrentLookupTable<L2Object>();
+	private final ConcurrentLookupTable<L2Object> _knowingObjects = new ConcurrentLookupTable<L2Object>();
 	
 	public ObjectKnownList(L2Object activeChar)
 	{
@@ -68,7 +66,10 @@ public class ObjectKnownList implements IObjectKnownList
 	
 	public final boolean knowsObject(L2Object object)
 	{
-		return object != null && (_activeChar == object || _knownObjects.containsKey(object.getObjectId()));
+		if (object == null)
+			return false;
+		
+		return _activeChar == object || _knownObjects.containsKey(object.getObjectId().intValue());
 	}
 	
 	protected boolean addKnownObject(L2Object obj)
@@ -76,7 +77,7 @@ public class ObjectKnownList implements IObjectKnownList
 		if (obj == null || obj == _activeChar)
 			return false;
 		
-		if (_knownObjects.put(obj.getObjectId(), obj) != null)
+		if (_knownObjects.putIfAbsent(obj.getObjectId().intValue(), obj) != null)
 			return false;
 		
 		obj.getKnownList().addKnowingObject(_activeChar);
@@ -90,7 +91,7 @@ public class ObjectKnownList implements IObjectKnownList
 		if (obj == null || obj == _activeChar)
 			return false;
 		
-		if (_knownObjects.remove(obj.getObjectId()) == null)
+		if (!_knownObjects.remove(obj.getObjectId().intValue(), obj))
 			return false;
 		
 		obj.getKnownList().removeKnowingObject(_activeChar);
@@ -101,13 +102,13 @@ public class ObjectKnownList implements IObjectKnownList
 	@Override
 	public final void addKnowingObject(L2Object obj)
 	{
-		_knowingObjects.put(obj.getObjectId(), obj);
+		_knowingObjects.put(obj.getObjectId().intValue(), obj);
 	}
 	
 	@Override
 	public final void removeKnowingObject(L2Object obj)
 	{
-		_knowingObjects.remove(obj.getObjectId());
+		_knowingObjects.remove(obj.getObjectId().intValue(), obj);
 	}
 	
 	@SuppressWarnings("static-method")
@@ -15,7 +15,10 @@
 package com.l2jfree.gameserver.gameobjects;
 
 import com.l2jfree.gameserver.gameobjects.components.IComponent;
+import com.l2jfree.gameserver.util.MovementController;
 import com.l2jfree.gameserver.world.L2World;
+import com.l2jfree.gameserver.world.L2WorldCell;
+import com.l2jfree.gameserver.world.L2WorldCellView;
 import com.l2jfree.gameserver.world.L2WorldRegion;
 import com.l2jfree.lang.L2Math;
 import com.l2jfree.lang.L2Math.ILocation3D;
@@ -34,6 +37,9 @@ public class ObjectPosition implements IComponent, ILocation3D
 	private volatile int _heading;
 	
 	private volatile L2WorldRegion _worldRegion;
+	private L2WorldCell _worldCell;
+	
+	private volatile L2WorldCellView _cellView;
 	
 	public ObjectPosition(L2Object activeChar)
 	{
@@ -73,11 +79,38 @@ public class ObjectPosition implements IComponent, ILocation3D
 		return _worldRegion;
 	}
 	
+	/**
+	 * Created on demand, as only the objects updating their known list observe their surroundings.
+	 * 
+	 * @return the surrounding cells, as seen by the last known list update
+	 */
+	public final L2WorldCellView getCellView()
+	{
+		if (_cellView == null)
+		{
+			synchronized (this)
+			{
+				if (_cellView == null)
+					_cellView = new L2WorldCellView();
+			}
+		}
+		
+		return _cellView;
+	}
+	
 	public synchronized void setXYZ(int x, int y, int z)
 	{
+		final int oldX = _x;
+		final int oldY = _y;
+		final int oldZ = _z;
+		
 		_x = L2Math.limit(L2World.MAP_MIN_X + 500, x, L2World.MAP_MAX_X - 500);
 		_y = L2Math.limit(L2World.MAP_MIN_Y + 500, y, L2World.MAP_MAX_Y - 500);
 		_z = L2Math.limit(L2World.MAP_MIN_Z + 500, z, L2World.MAP_MAX_Z - 500);
+		
+		// most of the moves stay inside the cell, so the observers nearby have to check it again
+		if (_worldCell != null && (_x != oldX || _y != oldY || _z != oldZ))
+			_worldCell.moveObject(_activeChar);
 	}
 	
 	public synchronized void setHeading(int heading)
@@ -92,6 +125,20 @@ public class ObjectPosition implements IComponent, ILocation3D
 	
 	protected synchronized boolean setVisible(boolean visible)
 	{
+		final L2WorldCell oldCell = _worldCell;
+		final L2WorldCell newCell = visible ? L2World.getCell(_x, _y) : null;
+		
+		if (oldCell != newCell)
+		{
+			if (oldCell != null)
+				oldCell.removeObject(_activeChar);
+			
+			_worldCell = newCell;
+			
+			if (newCell != null)
+				newCell.addObject(_activeChar);
+		}
+		
 		final L2WorldRegion oldRegion = _worldRegion;
 		final L2WorldRegion newRegion = visible ? L2World.getRegion(_x, _y) : null;
 		
@@ -109,6 +156,16 @@ public class ObjectPosition implements IComponent, ILocation3D
 		return true;
 	}
 	
+	/**
+	 * Moves the object into the cell and region of its current coordinates, if it is visible.
+	 * 
+	 * @see MovementController
+	 */
+	public final synchronized void updateWorldPosition()
+	{
+		setVisible(isVisible());
+	}
+	
 	public final synchronized void update(int x, int y, int z)
 	{
 		setXYZ(x, y, z);
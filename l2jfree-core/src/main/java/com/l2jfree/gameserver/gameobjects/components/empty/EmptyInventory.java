@@ -14,7 +14,10 @@
  */
 package com.l2jfree.gameserver.gameobjects.components.empty;
 
+import java.util.Collection;
+
 import com.l2jfree.gameserver.gameobjects.L2Character;
+import com.l2jfree.gameserver.gameobjects.L2Item;
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IInventory;
 
 /**
@@ -26,4 +29,28 @@ public class EmptyInventory implements IInventory
 	{
 		// do nothing
 	}
+	
+	@Override
+	public L2Item getItemByObjectId(int objectId)
+	{
+		return null;
+	}
+	
+	@Override
+	public boolean destroyItem(L2Item item)
+	{
+		return false;
+	}
+	
+	@Override
+	public int destroyItems(Collection<? extends L2Item> items)
+	{
+		return 0;
+	}
+	
+	@Override
+	public void unload()
+	{
+		// do nothing
+	}
 }
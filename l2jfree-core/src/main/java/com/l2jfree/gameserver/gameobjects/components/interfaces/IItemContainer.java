@@ -14,6 +14,9 @@
  */
 package com.l2jfree.gameserver.gameobjects.components.interfaces;
 
+import java.util.Collection;
+
+import com.l2jfree.gameserver.gameobjects.L2Item;
 import com.l2jfree.gameserver.gameobjects.components.IComponent;
 
 /**
@@ -21,5 +24,11 @@ import com.l2jfree.gameserver.gameobjects.components.IComponent;
  */
 public interface IItemContainer extends IComponent
 {
-	//
+	public L2Item getItemByObjectId(int objectId);
+	
+	public boolean destroyItem(L2Item item);
+	
+	public int destroyItems(Collection<? extends L2Item> items);
+	
+	public void unload();
 }
@@ -14,236 +14,34 @@
  */
 package com.l2jfree.gameserver.gameobjects.components.interfaces;
 
-import com.l2jfree.gameserver.templates.player.Gender;
-import com.l2jfree.gameserver.templates.player.Race;
-import com.l2jfree.gameserver.util.ObjectId;
-import com.l2jfree.gameserver.util.PersistentId;
-import com.l2jfree.network.mmocore.MMOBuffer;
+import com.l2jfree.gameserver.gameobjects.player.PlayerView.FieldGroup;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot;
 
 /**
  * @author NB4L1
  */
-public interface IPlayerView extends ICharacterView, IElemental
+public interface IPlayerView extends ICharacterView
 {
-	public PersistentId getPersistentId();
-	
-	public int getCharacterId();
-	
-	// ============================================================
+	/**
+	 * Recomputes the invalidated field groups, and publishes a new {@link PlayerViewSnapshot}.
+	 */
 	@Override
 	public void refresh();
 	
-	public int canEquipCloak();
-	
-	public boolean canUseDwarvenRecipes();
-	
-	public int canUseMinimap();
-	
-	public int getAbnormalEffect();
-	
-	public int getActiveClassId();
-	
-	public int getAgathionId();
-	
-	public int getAllianceCrestId();
-	
-	public int getAllianceId();
-	
-	public double getAttackSpeedMultiplier();
-	
-	public int getCarriedWeight();
-	
-	public double getCollisionHeight();
-	
-	public double getCollisionRadius();
-	
-	public int getCON();
-	
-	public int[] getCubicData();
-	
-	public int getCurrentCP();
-	
-	public int getCurrentHP();
-	
-	public int getCurrentMP();
-	
-	public int getCursedWeaponLevel();
-	
-	public int getDEX();
-	
-	public int getDuelTeam();
-	
-	public long getExp();
-	
-	public double getExpPercent();
-	
-	public int getSP();
-	
-	public int getFace();
-	
-	public int getFamePoints();
-	
-	public int getFishLureX();
-	
-	public int getFishLureY();
-	
-	public int getFishLureZ();
-	
-	public int getFlyRunSpeed();
-	
-	public int getFlyWalkSpeed();
-	
-	public Gender getGender();
-	
-	public int getHairColor();
-	
-	public int getHairStyle();
-	
-	public int getINT();
-	
-	public int getKarma();
-	
-	public int getLevel();
-	
-	public int getMainClassId();
-	
-	public int getMAccuracy();
-	
-	public int getMAtk();
-	
-	public int getMAtkSpd();
-	
-	public int getMaxCarriedWeight();
-	
-	public int getMaxCP();
-	
-	public int getMaxHP();
-	
-	public int getMaxInventorySlots();
-	
-	public int getMaxMP();
-	
-	public int getMaxSP();
-	
-	public int getMaxTalismanSlots();
-	
-	public int getMCriticalHit();
-	
-	public int getMDef();
-	
-	public int getMEN();
-	
-	public int getMEvasionRate();
-	
-	public int getMountNpcId();
-	
-	public int getMountType();
-	
-	public double getMovementSpeedMultiplier();
-	
-	public String getName();
-	
-	public int getNameColor();
-	
-	public int getPAccuracy();
-	
-	public int getPAtk();
-	
-	public int getPAtkSpd();
-	
-	public int getPCriticalHit();
-	
-	public int getPDef();
-	
-	public int getPEvasionRate();
-	
-	public int getPkCount();
-	
-	public int getPledgeCrestId();
-	
-	public int getPledgeId();
-	
-	public int getPledgeInsigniaId();
-	
-	public int getPledgePrivileges();
-	
-	public int getPledgeRank();
-	
-	public int getPledgeReputation();
-	
-	public int getPledgeUnit();
-	
-	public int getPrivateStoreType();
-	
-	public int getPvPCount();
-	
-	public Race getRace();
-	
-	public int getReceivedRecommendations();
-	
-	public int getRemainingRecommendations();
-	
-	public int getRunSpeed();
-	
-	public int getSiegeRelation();
-	
-	public int getSpecialEffect();
-	
-	public int getSTR();
-	
-	public int getSwimRunSpeed();
-	
-	public int getSwimWalkSpeed();
-	
-	public String getTitle();
-	
-	public int getTitleColor();
-	
-	public int getTransformationGraphicalId();
-	
-	public ObjectId getVehicleObjectId();
-	
-	public int getVitalityPoints();
-	
-	public int getWalkSpeed();
-	
-	public int getWeaponEnchantGlow();
-	
-	public int getWeaponStatus();
-	
-	public int getWIT();
-	
-	public boolean isFishing();
-	
-	public boolean isFlyingMounted();
-	
-	public boolean isGM();
-	
-	public boolean isHero();
-	
-	public boolean isInCombatAction();
-	
-	public int isInPvPAction();
-	
-	public boolean isInvisible();
-	
-	public boolean isLookingForParty();
-	
-	public boolean isLyingDead();
-	
-	public boolean isMoving();
-	
-	public boolean isNoble();
-	
-	// ============================================================
-	public void refreshPaperDoll();
-	
-	public void writePaperDollObjectIds(MMOBuffer buf, boolean withAccessory);
-	
-	public void writePaperDollItemDisplayIds(MMOBuffer buf, boolean withAccessory);
-	
-	public void writePaperDollAugmentationIds(MMOBuffer buf, boolean withAccessory);
-	
-	// ============================================================
-	public void writeCubics(MMOBuffer buf);
+	/**
+	 * Marks the given field groups to be recomputed by the next {@link #refresh()}.
+	 * 
+	 * @param groups the changed field groups
+	 */
+	public void invalidate(FieldGroup... groups);
+	
+	/**
+	 * Marks every field group to be recomputed by the next {@link #refresh()}.
+	 */
+	public void invalidate();
+	
+	/**
+	 * @return the snapshot published by the last {@link #refresh()}
+	 */
+	public PlayerViewSnapshot getSnapshot();
 }
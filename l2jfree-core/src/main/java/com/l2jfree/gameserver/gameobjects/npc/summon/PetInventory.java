@@ -15,6 +15,7 @@
 package com.l2jfree.gameserver.gameobjects.npc.summon;
 
 import com.l2jfree.gameserver.gameobjects.Inventory;
+import com.l2jfree.gameserver.util.PersistentId;
 
 /**
  * @author NB4L1
@@ -31,4 +32,11 @@ public class PetInventory extends Inventory
 	{
 		return (L2Pet)super.getActiveChar();
 	}
+	
+	@Override
+	public PersistentId getOwnerId()
+	{
+		// TODO pets aren't persisted yet
+		return null;
+	}
 }
@@ -16,6 +16,7 @@ package com.l2jfree.gameserver.gameobjects.player;
 
 import com.l2jfree.gameserver.gameobjects.L2Player;
 import com.l2jfree.gameserver.gameobjects.components.IComponent;
+import com.l2jfree.gameserver.gameobjects.player.PlayerView.FieldGroup;
 import com.l2jfree.gameserver.sql.PlayerDB;
 import com.l2jfree.gameserver.templates.player.Gender;
 import com.l2jfree.util.HexUtil;
@@ -90,6 +91,9 @@ public class PlayerAppearance implements IComponent
 	public void setGender(Gender gender)
 	{
 		_gender = gender;
+		
+		// base stats depend on the gender as well
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE, FieldGroup.STATS);
 	}
 	
 	public byte getFace()
@@ -100,6 +104,8 @@ public class PlayerAppearance implements IComponent
 	public void setFace(byte face)
 	{
 		_face = face;
+		
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE);
 	}
 	
 	public byte getHairColor()
@@ -110,6 +116,8 @@ public class PlayerAppearance implements IComponent
 	public void setHairColor(byte hairColor)
 	{
 		_hairColor = hairColor;
+		
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE);
 	}
 	
 	public byte getHairStyle()
@@ -120,6 +128,8 @@ public class PlayerAppearance implements IComponent
 	public void setHairStyle(byte hairStyle)
 	{
 		_hairStyle = hairStyle;
+		
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE);
 	}
 	
 	public int getNameColor()
@@ -130,6 +140,8 @@ public class PlayerAppearance implements IComponent
 	public void setNameColor(int nameColor)
 	{
 		_nameColor = nameColor;
+		
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE);
 	}
 	
 	public void setNameColor(int red, int green, int blue)
@@ -145,6 +157,8 @@ public class PlayerAppearance implements IComponent
 	public void setTitleColor(int titleColor)
 	{
 		_titleColor = titleColor;
+		
+		getActiveChar().getView().invalidate(FieldGroup.APPEARANCE);
 	}
 	
 	public void setTitleColor(int red, int green, int blue)
@@ -14,10 +14,15 @@
  */
 package com.l2jfree.gameserver.gameobjects.player;
 
+import java.util.List;
+
 import com.l2jfree.gameserver.gameobjects.Inventory;
 import com.l2jfree.gameserver.gameobjects.L2Player;
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerInventory;
 import com.l2jfree.gameserver.gameobjects.item.L2EquipableItem;
+import com.l2jfree.gameserver.gameobjects.player.PlayerView.FieldGroup;
+import com.l2jfree.gameserver.network.client.packets.sendable.InventoryUpdatePacket.MyInventoryUpdate;
+import com.l2jfree.gameserver.util.PersistentId;
 
 /**
  * @author NB4L1
@@ -74,9 +79,25 @@ public class PlayerInventory extends Inventory implements IPlayerInventory
 		return (L2Player)super.getActiveChar();
 	}
 	
+	@Override
+	public PersistentId getOwnerId()
+	{
+		return getActiveChar().getPersistentId();
+	}
+	
 	@Override
 	public L2EquipableItem getPaperDollItem(int slot)
 	{
 		return _paperDollItems[slot];
 	}
+	
+	@Override
+	protected void onChanges(List<ItemChange> changes)
+	{
+		super.onChanges(changes);
+		
+		getActiveChar().getView().invalidate(FieldGroup.PAPER_DOLL);
+		
+		getActiveChar().sendPacket(new MyInventoryUpdate(changes));
+	}
 }
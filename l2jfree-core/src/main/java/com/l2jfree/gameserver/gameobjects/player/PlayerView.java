@@ -14,24 +14,16 @@
  */
 package com.l2jfree.gameserver.gameobjects.player;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.l2jfree.gameserver.gameobjects.CharacterStat.Element;
 import com.l2jfree.gameserver.gameobjects.CharacterView;
 import com.l2jfree.gameserver.gameobjects.L2Player;
-import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerInventory;
-import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerStat;
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerView;
-import com.l2jfree.gameserver.gameobjects.item.L2EquipableItem;
-import com.l2jfree.gameserver.gameobjects.player.PlayerInventory.PaperDollSlot;
-import com.l2jfree.gameserver.templates.L2PlayerTemplate;
-import com.l2jfree.gameserver.templates.L2PlayerTemplate.L2PlayerGenderTemplate;
-import com.l2jfree.gameserver.templates.player.Gender;
-import com.l2jfree.gameserver.templates.player.Race;
-import com.l2jfree.gameserver.util.ObjectId;
-import com.l2jfree.gameserver.util.PersistentId;
-import com.l2jfree.network.mmocore.MMOBuffer;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot.Appearance;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot.Identity;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot.PaperDoll;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot.Stats;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot.Status;
 
 /**
  * @author hex1r0
@@ -39,1064 +31,107 @@ import com.l2jfree.network.mmocore.MMOBuffer;
  */
 public class PlayerView extends CharacterView implements IPlayerView
 {
-	public PlayerView(L2Player activeChar)
-	{
-		super(activeChar);
-	}
-	
-	@Override
-	public final L2Player getActiveChar()
-	{
-		return (L2Player)super.getActiveChar();
-	}
-	
-	/**
-	 * @return persistent ID
-	 * @see L2Player#getPersistentId()
-	 */
-	@Override
-	public PersistentId getPersistentId()
-	{
-		return getActiveChar().getPersistentId();
-	}
-	
 	/**
-	 * Alternative way to access {@link #getPersistentId()}.
+	 * Independently recomputed parts of a {@link PlayerViewSnapshot}.
 	 * 
-	 * @return character's ID
-	 * @see L2Player#getCharacterId()
-	 * @see L2Player#getPersistentId()
+	 * @author NB4L1
+	 * @author agent
 	 */
-	@Override
-	public int getCharacterId()
-	{
-		return getPersistentId().intValue();
-	}
-	
-	private int _abnormalEffect;
-	private int _activeClassId;
-	private int _agathionId;
-	private int _allianceCrestId;
-	private int _allianceId;
-	private int _attackElementPower;
-	private Element _attackElementType;
-	private double _attackSpeedMultiplier;
-	private int _carriedWeight;
-	private double _collisionHeight;
-	private double _collisionRadius;
-	private boolean _combatAction;
-	private int _con;
-	private int[] _cubics;
-	private int _currentCp;
-	private int _currentHp;
-	private int _currentMp;
-	private int _cursedWeaponLevel;
-	private int _dex;
-	private int _duelTeam;
-	private int _equipCloak;
-	private long _exp;
-	private int _expPercent;
-	private int _sp;
-	private byte _face;
-	private int _famePoints;
-	private boolean _fishing;
-	private int _fishLureX;
-	private int _fishLureY;
-	private int _fishLureZ;
-	private boolean _flyingMounted;
-	private int _flyRunSpeed;
-	private int _flyWalkSpeed;
-	private Gender _gender;
-	private boolean _gm;
-	private byte _hairColor;
-	private byte _hairStyle;
-	private boolean _hero;
-	private int _inPvPAction;
-	private int _int;
-	private boolean _invisible;
-	private int _karmaPoints;
-	private int _level;
-	private boolean _lookingForParty;
-	private boolean _lyingDead;
-	private int _mainClassId;
-	private int _mAccuracy;
-	private int _mAtk;
-	private int _mAtkSpd;
-	private int _maxCarriedWeight;
-	private int _maxCp;
-	private int _maxHp;
-	private int _maxInventorySlots;
-	private int _maxMp;
-	private int _maxSp;
-	private int _maxTalismanSlots;
-	private int _mCriticalHit;
-	private int _mDef;
-	private int _men;
-	private int _mEvasionRate;
-	private int _mountNpcId;
-	private int _mountType;
-	private double _movementSpeedMultiplier;
-	private boolean _moving;
-	private String _name;
-	private int _nameColor;
-	private boolean _noble;
-	private int _pAccuracy;
-	private int _pAtk;
-	private int _pAtkSpd;
-	private int _pCriticalHit;
-	private int _pDef;
-	private int _pEvasionRate;
-	private int _pkCount;
-	private int _pledgeCrestId;
-	private int _pledgeId;
-	private int _pledgeInsigniaId;
-	private int _pledgePrivileges;
-	private int _pledgeRank;
-	private int _pledgeReputation;
-	private int _pledgeUnit;
-	private int _privateStoreType;
-	private int _pvpCount;
-	private Race _race;
-	private int _receivedRecommendations;
-	private int _remainingRecommendaions;
-	private int _runSpeed;
-	private int _siegeRelation;
-	private int _specialEffect;
-	private int _str;
-	private String _title;
-	private int _titleColor;
-	private int _transformationGraphicalId;
-	private boolean _useDwarvenRecipes;
-	private int _useMinimap;
-	private ObjectId _vehicleObjectId;
-	private int _vitalityPoints;
-	private int _walkSpeed;
-	private int _weaponEnchantGlow;
-	private int _weaponStatus;
-	private int _wit;
-	private final int[] _defenceElementPower = new int[Element.values().length];
-	
-	@Override
-	public void refresh()
+	public static enum FieldGroup
 	{
-		super.refresh();
-		
-		final L2Player p = getActiveChar();
-		final PlayerAppearance appearance = p.getAppearance();
-		final IPlayerStat stat = p.getStat();
-		final L2PlayerTemplate template = p.getTemplate();
-		final L2PlayerGenderTemplate genderTemplate = template.getGenderTemplate(appearance.getGender());
-		//final IPlayerInventory inv = p.getInventory();
-		//final L2Transformation transformation = p.getTransformation();
-		
-		refreshPaperDoll();
-		
-		_vehicleObjectId = null; // TODO
-		
-		_name = p.getName();
-		_title = p.getTitle();
-		
-		_race = template.getClassId().getRace();
-		_gender = appearance.getGender();
-		_mainClassId = p.getMainClassId().ordinal();
-		_activeClassId = p.getActiveClassId().ordinal();
-		
-		// --
-		
-		_level = stat.getLevel();
-		
-		_exp = stat.getExp();
-		_expPercent = 0; // TODO
-		_sp = stat.getCurrentSP();
-		_str = stat.getSTR();
-		_dex = stat.getDEX();
-		_con = stat.getCON();
-		_int = stat.getINT();
-		_wit = stat.getWIT();
-		_men = stat.getMEN();
-		
-		_maxHp = stat.getMaxHP();
-		_currentHp = stat.getCurrentHP();
-		
-		_maxMp = stat.getMaxMP();
-		_currentMp = stat.getCurrentMP();
-		
-		_maxSp = stat.getMaxSP();
-		
-		_maxCp = stat.getMaxCP();
-		_currentCp = stat.getCurrentCP();
-		
-		_carriedWeight = stat.getCarriedWeight();
-		_maxCarriedWeight = stat.getMaxCarriedWeight();
-		
-		_karmaPoints = stat.getKarmaPoints();
-		_vitalityPoints = stat.getVitalityPoints();
-		_famePoints = stat.getFamePoints();
-		
-		_pkCount = stat.getPkCount();
-		_pvpCount = stat.getPvPCount();
-		
-		_pAtk = stat.getPAtk(0);
-		_pDef = stat.getPDef(0);
-		_pAtkSpd = stat.getPAtkSpd();
-		
-		_pAccuracy = stat.getPAccuracy();
-		_pEvasionRate = stat.getPEvasion(0);
-		_pCriticalHit = stat.getPCriticalHit(0);
-		
-		_mAtk = stat.getMAtk(0, 0);
-		_mDef = stat.getMDef(0, 0);
-		_mAtkSpd = stat.getMAtkSpd();
-		
-		_mAccuracy = stat.getMAccuracy();
-		_mEvasionRate = stat.getMEvasion(0);
-		_mCriticalHit = stat.getMCriticalHit(0);
-		
-		_movementSpeedMultiplier = stat.getMovementSpeedMultiplier();
-		_attackSpeedMultiplier = stat.getAttackSpeedMultiplier();
-		
-		_runSpeed = (int)(stat.getRunSpeed() / _movementSpeedMultiplier);
-		_walkSpeed = (int)(stat.getWalkSpeed() / _movementSpeedMultiplier);
-		
-		_flyRunSpeed = 0; // getActiveChar().isFlying() ? _runSpeed : 0; // TODO
-		_flyWalkSpeed = 0; // getActiveChar().isFlying() ? _walkSpeed : 0; // TODO
-		
-		_attackElementType = stat.getAttackElement();
-		_attackElementPower = stat.getAttackElementPower(_attackElementType);
-		_defenceElementPower[Element.FIRE.getValue()] = stat.getDefenseElementPower(Element.FIRE);
-		_defenceElementPower[Element.WATER.getValue()] = stat.getDefenseElementPower(Element.WATER);
-		_defenceElementPower[Element.WIND.getValue()] = stat.getDefenseElementPower(Element.WIND);
-		_defenceElementPower[Element.EARTH.getValue()] = stat.getDefenseElementPower(Element.EARTH);
-		_defenceElementPower[Element.HOLY.getValue()] = stat.getDefenseElementPower(Element.HOLY);
-		_defenceElementPower[Element.DARK.getValue()] = stat.getDefenseElementPower(Element.DARK);
-		
-		// --
-		
-		_remainingRecommendaions = 0;//getRemainingRecommendations(); // Recommendations
-		_receivedRecommendations = 0;//getReceivedRecommendations(); // Evaluation score
-		
-		_weaponStatus = 20; // TODO
-		
-		_maxInventorySlots = 0;//inv.getMaxInventorySlots(); // Inventory slots
-		_maxTalismanSlots = 0;//inv.getMaxTalismanSlots(); // Talisman slots
-		_equipCloak = 0;//inv.canEquipCloak(); // Can equip cloak
-		_agathionId = 0;//inv.getAgathionId(); // Agathion
-		
-		_weaponEnchantGlow = 0;//inv.getWeaponEnchantGlow(); // Weapon enchant glow
-		
-		_inPvPAction = 0;//isInPvPAction(); // In PvP
-		
-		_hairStyle = appearance.getHairStyle(); // Hair style
-		_hairColor = appearance.getHairColor(); // Hair color
-		_face = appearance.getFace(); // Face
-		_nameColor = appearance.getNameColor();
-		_titleColor = appearance.getTitleColor();
-		_specialEffect = 0;//getSpecialEffect(); // Special effect
-		_cubics = new int[0]; //getCubicData()
-		
-		_race = template.getClassId().getRace();
-		_gender = appearance.getGender();
-		
-		_gm = p.isGM();
-		
-		_pledgeId = 0;//getPledgeId(); // Pledge ID
-		_pledgeCrestId = 0;//getPledgeCrestId(); // Pledge crest ID
-		_allianceId = 0;//getAllianceId(); // Alliance ID
-		_allianceCrestId = 0;//getAllianceCrestId(); // Alliance crest ID
-		_siegeRelation = 0;//getSiegeRelation(); // Siege participation
-		_pledgePrivileges = 0;//getPledgePrivileges(); // Pledge privileges
-		_pledgeInsigniaId = 0;//getPledgeInsigniaId(); // Pledge insignia ID
-		_pledgeRank = 0;//getPledgeRank(); // Pledge rank
-		_pledgeUnit = 0;//getPledgeUnit(); // Pledge unit
-		
-		_mountType = 0;//getMountType(); // Mount type
-		_mountNpcId = 0;//getMountNpcId(); // Mount
-		_flyingMounted = false;//isFlyingMounted(); // Flying with mount
-		
-		_privateStoreType = 0;//getPrivateStore(); // Private store
-		_useDwarvenRecipes = false;//canUseDwarvenRecipes(); // Can use dwarven recipes
-		
-		_lookingForParty = false;//isLookingForParty(); // Looking for party
-		_abnormalEffect = 0;//getAbnormalEffect(); // Abnormal effect
-		
-		_duelTeam = 0;//getDuelTeam(); // Duel team
-		
-		_noble = false;//isNoble(); // Noble
-		_hero = false;//isHero(); // Hero
-		
-		_fishing = false;//isFishing(); // Fishing
-		_fishLureX = 0;//getFishLureX(); // Fishing lure X
-		_fishLureY = 0;//getFishLureY(); // Fishing lure Y
-		_fishLureZ = 0;//getFishLureZ(); // Fishing lure Z
+		IDENTITY,
+		APPEARANCE,
+		STATS,
+		STATUS,
+		PAPER_DOLL;
 		
-		_moving = isMoving(); // Moving
+		private final int _mask = 1 << ordinal();
 		
-		_useMinimap = 0;//canUseMinimap(); // Can use minimap
-		
-		// TODO
-		/*if (p.getMountType() != 0)
-		{	final L2NpcTemplate template = NpcTable.getInstance().getTemplate(p.getMountNpcId());
-			
-			_collisionRadius = template.getCollisionRadius();
-			_collisionHeight = template.getCollisionHeight();
-		}
-		else if (transformation != 0 && !transformation.isStance())
-		{	_collisionRadius = transformation.getCollisionRadius(cha);
-			_collisionHeight = transformation.getCollisionHeight(cha);
-		}
-		else*/
+		private boolean isIn(int groups)
 		{
-			_collisionRadius = genderTemplate.getCollisionRadius();
-			_collisionHeight = genderTemplate.getCollisionHeight();
+			return (groups & _mask) != 0;
 		}
-		
-		// TODO
-		/*if (p.isCursedWeaponEquipped())
-			_cursedWeaponLevel = CursedWeaponsManager.getInstance().getLevel(p.getCursedWeaponEquippedId());
-		else*/
-		_cursedWeaponLevel = 0;
-		
-		// TODO
-		/*if (transformation != 0)
-			_transformationGraphicalId = transformation.getGraphicalId();
-		else*/
-		_transformationGraphicalId = 0;
-	}
-	
-	@Override
-	public int canEquipCloak()
-	{
-		return _equipCloak;
-	}
-	
-	@Override
-	public boolean canUseDwarvenRecipes()
-	{
-		return _useDwarvenRecipes;
-	}
-	
-	@Override
-	public int canUseMinimap()
-	{
-		return _useMinimap;
-	}
-	
-	@Override
-	public int getAbnormalEffect()
-	{
-		return _abnormalEffect;
-	}
-	
-	@Override
-	public int getActiveClassId()
-	{
-		return _activeClassId;
-	}
-	
-	@Override
-	public int getAgathionId()
-	{
-		return _agathionId;
-	}
-	
-	@Override
-	public int getAllianceCrestId()
-	{
-		return _allianceCrestId;
-	}
-	
-	@Override
-	public int getAllianceId()
-	{
-		return _allianceId;
-	}
-	
-	@Override
-	public int getAttackElementPower()
-	{
-		return _attackElementPower;
-	}
-	
-	@Override
-	public Element getAttackElementType()
-	{
-		return _attackElementType;
-	}
-	
-	@Override
-	public double getAttackSpeedMultiplier()
-	{
-		return _attackSpeedMultiplier;
-	}
-	
-	@Override
-	public int getCarriedWeight()
-	{
-		return _carriedWeight;
-	}
-	
-	@Override
-	public double getCollisionHeight()
-	{
-		return _collisionHeight;
-	}
-	
-	@Override
-	public double getCollisionRadius()
-	{
-		return _collisionRadius;
-	}
-	
-	@Override
-	public int getCON()
-	{
-		return _con;
-	}
-	
-	@Override
-	public int[] getCubicData()
-	{
-		return _cubics;
-	}
-	
-	@Override
-	public int getCurrentCP()
-	{
-		return _currentCp;
-	}
-	
-	@Override
-	public int getCurrentHP()
-	{
-		return _currentHp;
-	}
-	
-	@Override
-	public int getCurrentMP()
-	{
-		return _currentMp;
-	}
-	
-	@Override
-	public int getCursedWeaponLevel()
-	{
-		return _cursedWeaponLevel;
-	}
-	
-	@Override
-	public int getDefenseElementPower(Element element)
-	{
-		return _defenceElementPower[element.ordinal()];
-	}
-	
-	@Override
-	public int getDEX()
-	{
-		return _dex;
-	}
-	
-	@Override
-	public int getDuelTeam()
-	{
-		return _duelTeam;
-	}
-	
-	@Override
-	public long getExp()
-	{
-		return _exp;
-	}
-	
-	@Override
-	public double getExpPercent()
-	{
-		return _expPercent;
-	}
-	
-	@Override
-	public int getSP()
-	{
-		return _sp;
-	}
-	
-	@Override
-	public int getFace()
-	{
-		return _face;
-	}
-	
-	@Override
-	public int getFamePoints()
-	{
-		return _famePoints;
-	}
-	
-	@Override
-	public int getFishLureX()
-	{
-		return _fishLureX;
-	}
-	
-	@Override
-	public int getFishLureY()
-	{
-		return _fishLureY;
-	}
-	
-	@Override
-	public int getFishLureZ()
-	{
-		return _fishLureZ;
-	}
-	
-	@Override
-	public int getFlyRunSpeed()
-	{
-		return _flyRunSpeed;
-	}
-	
-	@Override
-	public int getFlyWalkSpeed()
-	{
-		return _flyWalkSpeed;
-	}
-	
-	@Override
-	public Gender getGender()
-	{
-		return _gender;
-	}
-	
-	@Override
-	public int getHairColor()
-	{
-		return _hairColor;
-	}
-	
-	@Override
-	public int getHairStyle()
-	{
-		return _hairStyle;
-	}
-	
-	@Override
-	public int getINT()
-	{
-		return _int;
-	}
-	
-	@Override
-	public int getKarma()
-	{
-		return _karmaPoints;
-	}
-	
-	@Override
-	public int getLevel()
-	{
-		return _level;
-	}
-	
-	@Override
-	public int getMainClassId()
-	{
-		return _mainClassId;
-	}
-	
-	@Override
-	public int getMAccuracy()
-	{
-		return _mAccuracy;
-	}
-	
-	@Override
-	public int getMAtk()
-	{
-		return _mAtk;
-	}
-	
-	@Override
-	public int getMAtkSpd()
-	{
-		return _mAtkSpd;
-	}
-	
-	@Override
-	public int getMaxCarriedWeight()
-	{
-		return _maxCarriedWeight;
-	}
-	
-	@Override
-	public int getMaxCP()
-	{
-		return _maxCp;
-	}
-	
-	@Override
-	public int getMaxHP()
-	{
-		return _maxHp;
-	}
-	
-	@Override
-	public int getMaxInventorySlots()
-	{
-		return _maxInventorySlots;
-	}
-	
-	@Override
-	public int getMaxMP()
-	{
-		return _maxMp;
-	}
-	
-	@Override
-	public int getMaxSP()
-	{
-		return _maxSp;
-	}
-	
-	@Override
-	public int getMaxTalismanSlots()
-	{
-		return _maxTalismanSlots;
-	}
-	
-	@Override
-	public int getMCriticalHit()
-	{
-		return _mCriticalHit;
-	}
-	
-	@Override
-	public int getMDef()
-	{
-		return _mDef;
-	}
-	
-	@Override
-	public int getMEN()
-	{
-		return _men;
-	}
-	
-	@Override
-	public int getMEvasionRate()
-	{
-		return _mEvasionRate;
-	}
-	
-	@Override
-	public int getMountNpcId()
-	{
-		return _mountNpcId;
-	}
-	
-	@Override
-	public int getMountType()
-	{
-		return _mountType;
-	}
-	
-	@Override
-	public double getMovementSpeedMultiplier()
-	{
-		return _movementSpeedMultiplier;
-	}
-	
-	@Override
-	public String getName()
-	{
-		return _name;
-	}
-	
-	@Override
-	public int getNameColor()
-	{
-		return _nameColor;
-	}
-	
-	@Override
-	public int getPAccuracy()
-	{
-		return _pAccuracy;
-	}
-	
-	@Override
-	public int getPAtk()
-	{
-		return _pAtk;
 	}
 	
-	@Override
-	public int getPAtkSpd()
-	{
-		return _pAtkSpd;
-	}
+	private static final int ALL_GROUPS = (1 << FieldGroup.values().length) - 1;
 	
-	@Override
-	public int getPCriticalHit()
-	{
-		return _pCriticalHit;
-	}
-	
-	@Override
-	public int getPDef()
-	{
-		return _pDef;
-	}
-	
-	@Override
-	public int getPEvasionRate()
-	{
-		return _pEvasionRate;
-	}
-	
-	@Override
-	public int getPkCount()
-	{
-		return _pkCount;
-	}
-	
-	@Override
-	public int getPledgeCrestId()
-	{
-		return _pledgeCrestId;
-	}
-	
-	@Override
-	public int getPledgeId()
-	{
-		return _pledgeId;
-	}
-	
-	@Override
-	public int getPledgeInsigniaId()
-	{
-		return _pledgeInsigniaId;
-	}
-	
-	@Override
-	public int getPledgePrivileges()
-	{
-		return _pledgePrivileges;
-	}
-	
-	@Override
-	public int getPledgeRank()
-	{
-		return _pledgeRank;
-	}
-	
-	@Override
-	public int getPledgeReputation()
-	{
-		return _pledgeReputation;
-	}
-	
-	@Override
-	public int getPledgeUnit()
-	{
-		return _pledgeUnit;
-	}
-	
-	@Override
-	public int getPrivateStoreType()
-	{
-		return _privateStoreType;
-	}
-	
-	@Override
-	public int getPvPCount()
-	{
-		return _pvpCount;
-	}
-	
-	@Override
-	public Race getRace()
-	{
-		return _race;
-	}
-	
-	@Override
-	public int getReceivedRecommendations()
-	{
-		return _receivedRecommendations;
-	}
-	
-	@Override
-	public int getRemainingRecommendations()
-	{
-		return _remainingRecommendaions;
-	}
-	
-	@Override
-	public int getRunSpeed()
-	{
-		return _runSpeed;
-	}
-	
-	@Override
-	public int getSiegeRelation()
-	{
-		return _siegeRelation;
-	}
-	
-	@Override
-	public int getSpecialEffect()
-	{
-		return _specialEffect;
-	}
-	
-	@Override
-	public int getSTR()
-	{
-		return _str;
-	}
-	
-	@Override
-	public int getSwimRunSpeed()
-	{
-		return getRunSpeed();
-	}
-	
-	@Override
-	public int getSwimWalkSpeed()
-	{
-		return getWalkSpeed();
-	}
-	
-	@Override
-	public String getTitle()
-	{
-		return _title;
-	}
-	
-	@Override
-	public int getTitleColor()
-	{
-		return _titleColor;
-	}
-	
-	@Override
-	public int getTransformationGraphicalId()
-	{
-		return _transformationGraphicalId;
-	}
-	
-	@Override
-	public ObjectId getVehicleObjectId()
-	{
-		return _vehicleObjectId;
-	}
-	
-	@Override
-	public int getVitalityPoints()
-	{
-		return _vitalityPoints;
-	}
-	
-	@Override
-	public int getWalkSpeed()
-	{
-		return _walkSpeed;
-	}
-	
-	@Override
-	public int getWeaponEnchantGlow()
-	{
-		return _weaponEnchantGlow;
-	}
-	
-	@Override
-	public int getWeaponStatus()
-	{
-		return _weaponStatus;
-	}
-	
-	@Override
-	public int getWIT()
-	{
-		return _wit;
-	}
-	
-	@Override
-	public boolean isFishing()
-	{
-		return _fishing;
-	}
-	
-	@Override
-	public boolean isFlyingMounted()
-	{
-		return _flyingMounted;
-	}
-	
-	@Override
-	public boolean isGM()
-	{
-		return _gm;
-	}
-	
-	@Override
-	public boolean isHero()
-	{
-		return _hero;
-	}
-	
-	@Override
-	public boolean isInCombatAction()
-	{
-		return _combatAction;
-	}
-	
-	@Override
-	public int isInPvPAction()
-	{
-		return _inPvPAction;
-	}
+	/**
+	 * Groups recomputed by every refresh, because their sources have no invalidation hooks yet (the
+	 * current HP/MP/CP and the stat formulas are not tracked).
+	 */
+	private static final int VOLATILE_GROUPS = FieldGroup.STATS._mask | FieldGroup.STATUS._mask;
 	
-	@Override
-	public boolean isInvisible()
-	{
-		return _invisible;
-	}
+	private final AtomicInteger _dirtyGroups = new AtomicInteger(ALL_GROUPS);
 	
-	@Override
-	public boolean isLookingForParty()
-	{
-		return _lookingForParty;
-	}
+	private volatile PlayerViewSnapshot _snapshot;
 	
-	@Override
-	public boolean isLyingDead()
-	{
-		return _lyingDead;
-	}
-	
-	@Override
-	public boolean isMoving()
+	public PlayerView(L2Player activeChar)
 	{
-		return _moving;
+		super(activeChar);
 	}
 	
 	@Override
-	public boolean isNoble()
+	public final L2Player getActiveChar()
 	{
-		return _noble;
+		return (L2Player)super.getActiveChar();
 	}
 	
-	// ============================================================
-	private final ObjectId[] _paperDollObjectIds = new ObjectId[PaperDollSlot.TOTAL_SLOTS];
-	private final int[] _paperDollItemDisplayIds = new int[PaperDollSlot.TOTAL_SLOTS];
-	private final int[] _paperDollAugmentationIds = new int[PaperDollSlot.TOTAL_SLOTS];
-	
 	@Override
-	public void refreshPaperDoll()
+	public void invalidate(FieldGroup... groups)
 	{
-		final IPlayerInventory inv = getActiveChar().getInventory();
+		int mask = 0;
+		for (FieldGroup group : groups)
+			mask |= group._mask;
 		
-		for (int i = 0; i < PaperDollSlot.TOTAL_SLOTS; i++)
+		for (;;)
 		{
-			final L2EquipableItem equipableItem = inv.getPaperDollItem(i);
+			final int dirtyGroups = _dirtyGroups.get();
 			
-			if (equipableItem == null)
-			{
-				_paperDollObjectIds[i] = null;
-				_paperDollItemDisplayIds[i] = 0;
-				_paperDollAugmentationIds[i] = 0;
-			}
-			else
-			{
-				_paperDollObjectIds[i] = equipableItem.getObjectId();
-				_paperDollItemDisplayIds[i] = equipableItem.getTemplate().getId(); // TODO
-				_paperDollAugmentationIds[i] = 0; // TODO
-			}
+			if ((dirtyGroups & mask) == mask || _dirtyGroups.compareAndSet(dirtyGroups, dirtyGroups | mask))
+				return;
 		}
 	}
 	
-	// -- methods for convenience
-	@Override
-	public void writePaperDollObjectIds(MMOBuffer buf, boolean withAccessory)
-	{
-		for (int slot : PlayerView.getSlots(withAccessory))
-			buf.writeD(_paperDollObjectIds[slot]);
-	}
-	
 	@Override
-	public void writePaperDollItemDisplayIds(MMOBuffer buf, boolean withAccessory)
+	public void invalidate()
 	{
-		for (int slot : PlayerView.getSlots(withAccessory))
-			buf.writeD(_paperDollItemDisplayIds[slot]);
+		_dirtyGroups.set(ALL_GROUPS);
 	}
 	
+	/**
+	 * Recomputes the invalidated and the volatile field groups, and publishes a new snapshot, which
+	 * shares the untouched groups with the last one.
+	 */
 	@Override
-	public void writePaperDollAugmentationIds(MMOBuffer buf, boolean withAccessory)
+	public synchronized void refresh()
 	{
-		for (int slot : PlayerView.getSlots(withAccessory))
-			buf.writeD(_paperDollAugmentationIds[slot]);
+		super.refresh();
+		
+		final PlayerViewSnapshot old = _snapshot;
+		final int dirtyGroups = (old == null ? ALL_GROUPS : VOLATILE_GROUPS) | _dirtyGroups.getAndSet(0);
+		
+		final L2Player p = getActiveChar();
+		
+		final Identity identity = FieldGroup.IDENTITY.isIn(dirtyGroups) ? new Identity(p) : old.getIdentity();
+		final Appearance appearance =
+				FieldGroup.APPEARANCE.isIn(dirtyGroups) ? new Appearance(p) : old.getAppearance();
+		final Stats stats = FieldGroup.STATS.isIn(dirtyGroups) ? new Stats(p) : old.getStats();
+		final Status status = FieldGroup.STATUS.isIn(dirtyGroups) ? new Status(p) : old.getStatus();
+		final PaperDoll paperDoll = FieldGroup.PAPER_DOLL.isIn(dirtyGroups) ? new PaperDoll(p) : old.getPaperDoll();
+		
+		_snapshot = new PlayerViewSnapshot(this, identity, appearance, stats, status, paperDoll);
 	}
 	
-	// ============================================================
 	@Override
-	public void writeCubics(MMOBuffer buf)
-	{
-		buf.writeH(getCubicData().length); // Cubic count
-		for (int cubic : getCubicData())
-			buf.writeH(cubic); // Cubic
-	}
-	
-	private static final int[] SLOTS_WITH_ACCESSORY = initSlots(true);
-	private static final int[] SLOTS_WITHOUT_ACCESSORY = initSlots(false);
-	
-	private static int[] getSlots(boolean withAccessory)
+	public PlayerViewSnapshot getSnapshot()
 	{
-		return withAccessory ? SLOTS_WITH_ACCESSORY : SLOTS_WITHOUT_ACCESSORY;
-	}
-	
-	private static int[] initSlots(boolean withAccessory)
-	{
-		final List<PaperDollSlot> slots = new ArrayList<PaperDollSlot>(withAccessory ? 26 : 21);
-		
-		slots.add(PaperDollSlot.UNDER);
-		
-		if (withAccessory)
-		{
-			slots.add(PaperDollSlot.R_EAR);
-			slots.add(PaperDollSlot.L_EAR);
-			slots.add(PaperDollSlot.NECK);
-			slots.add(PaperDollSlot.R_FINGER);
-			slots.add(PaperDollSlot.L_FINGER);
-		}
-		
-		slots.add(PaperDollSlot.HEAD);
-		slots.add(PaperDollSlot.R_HAND);
-		slots.add(PaperDollSlot.L_HAND);
-		slots.add(PaperDollSlot.GLOVES);
-		slots.add(PaperDollSlot.CHEST);
-		slots.add(PaperDollSlot.LEGS);
-		slots.add(PaperDollSlot.FEET);
-		slots.add(PaperDollSlot.CLOAK);
-		slots.add(PaperDollSlot.L_R_HAND);
-		slots.add(PaperDollSlot.HAIR_1);
-		slots.add(PaperDollSlot.HAIR_2);
-		slots.add(PaperDollSlot.R_BRACELET);
-		slots.add(PaperDollSlot.L_BRACELET);
-		slots.add(PaperDollSlot.TALISMAN_1);
-		slots.add(PaperDollSlot.TALISMAN_2);
-		slots.add(PaperDollSlot.TALISMAN_3);
-		slots.add(PaperDollSlot.TALISMAN_4);
-		slots.add(PaperDollSlot.TALISMAN_5);
-		slots.add(PaperDollSlot.TALISMAN_6);
-		slots.add(PaperDollSlot.BELT);
+		final PlayerViewSnapshot snapshot = _snapshot;
 		
-		final int[] indexes = new int[slots.size()];
+		if (snapshot != null)
+			return snapshot;
 		
-		int i = 0;
-		for (PaperDollSlot slot : slots)
-			indexes[i++] = slot.ordinal();
+		refresh();
 		
-		return indexes;
+		return _snapshot;
 	}
 }
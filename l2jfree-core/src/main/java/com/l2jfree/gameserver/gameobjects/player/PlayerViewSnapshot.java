@@ -0,0 +1,1098 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.gameserver.gameobjects.player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.l2jfree.gameserver.gameobjects.CharacterStat.Element;
+import com.l2jfree.gameserver.gameobjects.L2Player;
+import com.l2jfree.gameserver.gameobjects.components.interfaces.IElemental;
+import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerInventory;
+import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerStat;
+import com.l2jfree.gameserver.gameobjects.item.L2EquipableItem;
+import com.l2jfree.gameserver.gameobjects.player.PlayerInventory.PaperDollSlot;
+import com.l2jfree.gameserver.templates.L2PlayerTemplate;
+import com.l2jfree.gameserver.templates.L2PlayerTemplate.L2PlayerGenderTemplate;
+import com.l2jfree.gameserver.templates.player.Gender;
+import com.l2jfree.gameserver.templates.player.Race;
+import com.l2jfree.gameserver.util.ObjectId;
+import com.l2jfree.gameserver.util.PersistentId;
+import com.l2jfree.network.mmocore.MMOBuffer;
+
+/**
+ * An immutable state of a player, as published by {@link PlayerView#refresh()}.<BR>
+ * <BR>
+ * The fields are split into groups, and a group is only recomputed if it was invalidated, so
+ * consecutive snapshots share the unchanged groups. Any number of packets, written on any thread,
+ * can use the same snapshot.
+ * 
+ * @author hex1r0
+ * @author NB4L1
+ * @author agent
+ */
+public final class PlayerViewSnapshot implements IElemental
+{
+	/** Who the player is: name, title, race, classes and affiliations. */
+	static final class Identity
+	{
+		private final String _name;
+		private final String _title;
+		private final Race _race;
+		private final int _mainClassId;
+		private final int _activeClassId;
+		private final boolean _gm;
+		private final ObjectId _vehicleObjectId;
+		private final int _pledgeId;
+		private final int _pledgeCrestId;
+		private final int _allianceId;
+		private final int _allianceCrestId;
+		private final int _siegeRelation;
+		private final int _pledgePrivileges;
+		private final int _pledgeInsigniaId;
+		private final int _pledgeRank;
+		private final int _pledgeUnit;
+		private final int _pledgeReputation;
+		private final boolean _noble;
+		private final boolean _hero;
+		
+		Identity(L2Player p)
+		{
+			final L2PlayerTemplate template = p.getTemplate();
+			
+			_vehicleObjectId = null; // TODO
+			
+			_name = p.getName();
+			_title = p.getTitle();
+			
+			_race = template.getClassId().getRace();
+			_mainClassId = p.getMainClassId().ordinal();
+			_activeClassId = p.getActiveClassId().ordinal();
+			
+			_gm = p.isGM();
+			
+			_pledgeId = 0;//getPledgeId(); // Pledge ID
+			_pledgeCrestId = 0;//getPledgeCrestId(); // Pledge crest ID
+			_allianceId = 0;//getAllianceId(); // Alliance ID
+			_allianceCrestId = 0;//getAllianceCrestId(); // Alliance crest ID
+			_siegeRelation = 0;//getSiegeRelation(); // Siege participation
+			_pledgePrivileges = 0;//getPledgePrivileges(); // Pledge privileges
+			_pledgeInsigniaId = 0;//getPledgeInsigniaId(); // Pledge insignia ID
+			_pledgeRank = 0;//getPledgeRank(); // Pledge rank
+			_pledgeUnit = 0;//getPledgeUnit(); // Pledge unit
+			_pledgeReputation = 0;
+			
+			_noble = false;//isNoble(); // Noble
+			_hero = false;//isHero(); // Hero
+		}
+	}
+	
+	/** How the player looks: gender, hair, face, colors and collision. */
+	static final class Appearance
+	{
+		private final Gender _gender;
+		private final byte _hairStyle;
+		private final byte _hairColor;
+		private final byte _face;
+		private final int _nameColor;
+		private final int _titleColor;
+		private final double _collisionRadius;
+		private final double _collisionHeight;
+		
+		Appearance(L2Player p)
+		{
+			final PlayerAppearance appearance = p.getAppearance();
+			final L2PlayerGenderTemplate genderTemplate = p.getTemplate().getGenderTemplate(appearance.getGender());
+			
+			_gender = appearance.getGender();
+			
+			_hairStyle = appearance.getHairStyle(); // Hair style
+			_hairColor = appearance.getHairColor(); // Hair color
+			_face = appearance.getFace(); // Face
+			_nameColor = appearance.getNameColor();
+			_titleColor = appearance.getTitleColor();
+			
+			// TODO
+			/*if (p.getMountType() != 0)
+			{	final L2NpcTemplate template = NpcTable.getInstance().getTemplate(p.getMountNpcId());
+				
+				_collisionRadius = template.getCollisionRadius();
+				_collisionHeight = template.getCollisionHeight();
+			}
+			else if (transformation != 0 && !transformation.isStance())
+			{	_collisionRadius = transformation.getCollisionRadius(cha);
+				_collisionHeight = transformation.getCollisionHeight(cha);
+			}
+			else*/
+			{
+				_collisionRadius = genderTemplate.getCollisionRadius();
+				_collisionHeight = genderTemplate.getCollisionHeight();
+			}
+		}
+	}
+	
+	/** Everything computed by {@link IPlayerStat}. */
+	static final class Stats
+	{
+		private final int _level;
+		private final long _exp;
+		private final int _expPercent;
+		private final int _sp;
+		private final int _str;
+		private final int _dex;
+		private final int _con;
+		private final int _int;
+		private final int _wit;
+		private final int _men;
+		private final int _maxHp;
+		private final int _currentHp;
+		private final int _maxMp;
+		private final int _currentMp;
+		private final int _maxSp;
+		private final int _maxCp;
+		private final int _currentCp;
+		private final int _carriedWeight;
+		private final int _maxCarriedWeight;
+		private final int _karmaPoints;
+		private final int _vitalityPoints;
+		private final int _famePoints;
+		private final int _pkCount;
+		private final int _pvpCount;
+		private final int _pAtk;
+		private final int _pDef;
+		private final int _pAtkSpd;
+		private final int _pAccuracy;
+		private final int _pEvasionRate;
+		private final int _pCriticalHit;
+		private final int _mAtk;
+		private final int _mDef;
+		private final int _mAtkSpd;
+		private final int _mAccuracy;
+		private final int _mEvasionRate;
+		private final int _mCriticalHit;
+		private final double _movementSpeedMultiplier;
+		private final double _attackSpeedMultiplier;
+		private final int _runSpeed;
+		private final int _walkSpeed;
+		private final int _flyRunSpeed;
+		private final int _flyWalkSpeed;
+		private final Element _attackElementType;
+		private final int _attackElementPower;
+		private final int[] _defenceElementPower;
+		
+		Stats(L2Player p)
+		{
+			final IPlayerStat stat = p.getStat();
+			
+			_level = stat.getLevel();
+			
+			_exp = stat.getExp();
+			_expPercent = 0; // TODO
+			_sp = stat.getCurrentSP();
+			_str = stat.getSTR();
+			_dex = stat.getDEX();
+			_con = stat.getCON();
+			_int = stat.getINT();
+			_wit = stat.getWIT();
+			_men = stat.getMEN();
+			
+			_maxHp = stat.getMaxHP();
+			_currentHp = stat.getCurrentHP();
+			
+			_maxMp = stat.getMaxMP();
+			_currentMp = stat.getCurrentMP();
+			
+			_maxSp = stat.getMaxSP();
+			
+			_maxCp = stat.getMaxCP();
+			_currentCp = stat.getCurrentCP();
+			
+			_carriedWeight = stat.getCarriedWeight();
+			_maxCarriedWeight = stat.getMaxCarriedWeight();
+			
+			_karmaPoints = stat.getKarmaPoints();
+			_vitalityPoints = stat.getVitalityPoints();
+			_famePoints = stat.getFamePoints();
+			
+			_pkCount = stat.getPkCount();
+			_pvpCount = stat.getPvPCount();
+			
+			_pAtk = stat.getPAtk(0);
+			_pDef = stat.getPDef(0);
+			_pAtkSpd = stat.getPAtkSpd();
+			
+			_pAccuracy = stat.getPAccuracy();
+			_pEvasionRate = stat.getPEvasion(0);
+			_pCriticalHit = stat.getPCriticalHit(0);
+			
+			_mAtk = stat.getMAtk(0, 0);
+			_mDef = stat.getMDef(0, 0);
+			_mAtkSpd = stat.getMAtkSpd();
+			
+			_mAccuracy = stat.getMAccuracy();
+			_mEvasionRate = stat.getMEvasion(0);
+			_mCriticalHit = stat.getMCriticalHit(0);
+			
+			_movementSpeedMultiplier = stat.getMovementSpeedMultiplier();
+			_attackSpeedMultiplier = stat.getAttackSpeedMultiplier();
+			
+			_runSpeed = (int)(stat.getRunSpeed() / _movementSpeedMultiplier);
+			_walkSpeed = (int)(stat.getWalkSpeed() / _movementSpeedMultiplier);
+			
+			_flyRunSpeed = 0; // getActiveChar().isFlying() ? _runSpeed : 0; // TODO
+			_flyWalkSpeed = 0; // getActiveChar().isFlying() ? _walkSpeed : 0; // TODO
+			
+			_attackElementType = stat.getAttackElement();
+			_attackElementPower = stat.getAttackElementPower(_attackElementType);
+			_defenceElementPower = new int[Element.values().length];
+			_defenceElementPower[Element.FIRE.ordinal()] = stat.getDefenseElementPower(Element.FIRE);
+			_defenceElementPower[Element.WATER.ordinal()] = stat.getDefenseElementPower(Element.WATER);
+			_defenceElementPower[Element.WIND.ordinal()] = stat.getDefenseElementPower(Element.WIND);
+			_defenceElementPower[Element.EARTH.ordinal()] = stat.getDefenseElementPower(Element.EARTH);
+			_defenceElementPower[Element.HOLY.ordinal()] = stat.getDefenseElementPower(Element.HOLY);
+			_defenceElementPower[Element.DARK.ordinal()] = stat.getDefenseElementPower(Element.DARK);
+		}
+	}
+	
+	/** Ongoing activities and effects. */
+	static final class Status
+	{
+		private final int _remainingRecommendaions;
+		private final int _receivedRecommendations;
+		private final int _weaponStatus;
+		private final int _maxInventorySlots;
+		private final int _maxTalismanSlots;
+		private final int _equipCloak;
+		private final int _agathionId;
+		private final int _weaponEnchantGlow;
+		private final int _inPvPAction;
+		private final int _specialEffect;
+		private final int[] _cubics;
+		private final int _mountType;
+		private final int _mountNpcId;
+		private final boolean _flyingMounted;
+		private final int _privateStoreType;
+		private final boolean _useDwarvenRecipes;
+		private final boolean _lookingForParty;
+		private final int _abnormalEffect;
+		private final int _duelTeam;
+		private final boolean _fishing;
+		private final int _fishLureX;
+		private final int _fishLureY;
+		private final int _fishLureZ;
+		private final boolean _moving;
+		private final int _useMinimap;
+		private final int _cursedWeaponLevel;
+		private final int _transformationGraphicalId;
+		private final boolean _combatAction;
+		private final boolean _invisible;
+		private final boolean _lyingDead;
+		
+		Status(L2Player p)
+		{
+			//final IPlayerInventory inv = p.getInventory();
+			//final L2Transformation transformation = p.getTransformation();
+			
+			_remainingRecommendaions = 0;//getRemainingRecommendations(); // Recommendations
+			_receivedRecommendations = 0;//getReceivedRecommendations(); // Evaluation score
+			
+			_weaponStatus = 20; // TODO
+			
+			_maxInventorySlots = 0;//inv.getMaxInventorySlots(); // Inventory slots
+			_maxTalismanSlots = 0;//inv.getMaxTalismanSlots(); // Talisman slots
+			_equipCloak = 0;//inv.canEquipCloak(); // Can equip cloak
+			_agathionId = 0;//inv.getAgathionId(); // Agathion
+			
+			_weaponEnchantGlow = 0;//inv.getWeaponEnchantGlow(); // Weapon enchant glow
+			
+			_inPvPAction = 0;//isInPvPAction(); // In PvP
+			
+			_specialEffect = 0;//getSpecialEffect(); // Special effect
+			_cubics = new int[0]; //getCubicData()
+			
+			_mountType = 0;//getMountType(); // Mount type
+			_mountNpcId = 0;//getMountNpcId(); // Mount
+			_flyingMounted = false;//isFlyingMounted(); // Flying with mount
+			
+			_privateStoreType = 0;//getPrivateStore(); // Private store
+			_useDwarvenRecipes = false;//canUseDwarvenRecipes(); // Can use dwarven recipes
+			
+			_lookingForParty = false;//isLookingForParty(); // Looking for party
+			_abnormalEffect = 0;//getAbnormalEffect(); // Abnormal effect
+			
+			_duelTeam = 0;//getDuelTeam(); // Duel team
+			
+			_fishing = false;//isFishing(); // Fishing
+			_fishLureX = 0;//getFishLureX(); // Fishing lure X
+			_fishLureY = 0;//getFishLureY(); // Fishing lure Y
+			_fishLureZ = 0;//getFishLureZ(); // Fishing lure Z
+			
+			_moving = false;//isMoving(); // Moving
+			
+			_useMinimap = 0;//canUseMinimap(); // Can use minimap
+			
+			// TODO
+			/*if (p.isCursedWeaponEquipped())
+				_cursedWeaponLevel = CursedWeaponsManager.getInstance().getLevel(p.getCursedWeaponEquippedId());
+			else*/
+			_cursedWeaponLevel = 0;
+			
+			// TODO
+			/*if (transformation != 0)
+				_transformationGraphicalId = transformation.getGraphicalId();
+			else*/
+			_transformationGraphicalId = 0;
+			
+			_combatAction = false;
+			_invisible = false;
+			_lyingDead = false;
+		}
+	}
+	
+	/** The equipped items. */
+	static final class PaperDoll
+	{
+		private final ObjectId[] _paperDollObjectIds;
+		private final int[] _paperDollItemDisplayIds;
+		private final int[] _paperDollAugmentationIds;
+		
+		PaperDoll(L2Player p)
+		{
+			final IPlayerInventory inv = p.getInventory();
+			
+			_paperDollObjectIds = new ObjectId[PaperDollSlot.TOTAL_SLOTS];
+			_paperDollItemDisplayIds = new int[PaperDollSlot.TOTAL_SLOTS];
+			_paperDollAugmentationIds = new int[PaperDollSlot.TOTAL_SLOTS];
+			
+			for (int i = 0; i < PaperDollSlot.TOTAL_SLOTS; i++)
+			{
+				final L2EquipableItem equipableItem = inv.getPaperDollItem(i);
+				
+				if (equipableItem != null)
+				{
+					_paperDollObjectIds[i] = equipableItem.getObjectId();
+					_paperDollItemDisplayIds[i] = equipableItem.getTemplate().getId(); // TODO
+					_paperDollAugmentationIds[i] = 0; // TODO
+				}
+			}
+		}
+	}
+	
+	private final ObjectId _objectId;
+	private final PersistentId _persistentId;
+	
+	private final int _x;
+	private final int _y;
+	private final int _z;
+	private final int _heading;
+	
+	private final Identity _identity;
+	private final Appearance _appearance;
+	private final Stats _stats;
+	private final Status _status;
+	private final PaperDoll _paperDoll;
+	
+	PlayerViewSnapshot(PlayerView view, Identity identity, Appearance appearance, Stats stats, Status status,
+			PaperDoll paperDoll)
+	{
+		_objectId = view.getObjectId();
+		_persistentId = view.getActiveChar().getPersistentId();
+		
+		_x = view.getX();
+		_y = view.getY();
+		_z = view.getZ();
+		_heading = view.getHeading();
+		
+		_identity = identity;
+		_appearance = appearance;
+		_stats = stats;
+		_status = status;
+		_paperDoll = paperDoll;
+	}
+	
+	Identity getIdentity()
+	{
+		return _identity;
+	}
+	
+	Appearance getAppearance()
+	{
+		return _appearance;
+	}
+	
+	Stats getStats()
+	{
+		return _stats;
+	}
+	
+	Status getStatus()
+	{
+		return _status;
+	}
+	
+	PaperDoll getPaperDoll()
+	{
+		return _paperDoll;
+	}
+	
+	public ObjectId getObjectId()
+	{
+		return _objectId;
+	}
+	
+	/**
+	 * @return persistent ID
+	 * @see L2Player#getPersistentId()
+	 */
+	public PersistentId getPersistentId()
+	{
+		return _persistentId;
+	}
+	
+	/**
+	 * Alternative way to access {@link #getPersistentId()}.
+	 * 
+	 * @return character's ID
+	 * @see L2Player#getCharacterId()
+	 * @see L2Player#getPersistentId()
+	 */
+	public int getCharacterId()
+	{
+		return getPersistentId().intValue();
+	}
+	
+	public int getX()
+	{
+		return _x;
+	}
+	
+	public int getY()
+	{
+		return _y;
+	}
+	
+	public int getZ()
+	{
+		return _z;
+	}
+	
+	public int getHeading()
+	{
+		return _heading;
+	}
+	
+	public int canEquipCloak()
+	{
+		return _status._equipCloak;
+	}
+	
+	public boolean canUseDwarvenRecipes()
+	{
+		return _status._useDwarvenRecipes;
+	}
+	
+	public int canUseMinimap()
+	{
+		return _status._useMinimap;
+	}
+	
+	public int getAbnormalEffect()
+	{
+		return _status._abnormalEffect;
+	}
+	
+	public int getActiveClassId()
+	{
+		return _identity._activeClassId;
+	}
+	
+	public int getAgathionId()
+	{
+		return _status._agathionId;
+	}
+	
+	public int getAllianceCrestId()
+	{
+		return _identity._allianceCrestId;
+	}
+	
+	public int getAllianceId()
+	{
+		return _identity._allianceId;
+	}
+	
+	@Override
+	public int getAttackElementPower()
+	{
+		return _stats._attackElementPower;
+	}
+	
+	@Override
+	public Element getAttackElementType()
+	{
+		return _stats._attackElementType;
+	}
+	
+	public double getAttackSpeedMultiplier()
+	{
+		return _stats._attackSpeedMultiplier;
+	}
+	
+	public int getCarriedWeight()
+	{
+		return _stats._carriedWeight;
+	}
+	
+	public double getCollisionHeight()
+	{
+		return _appearance._collisionHeight;
+	}
+	
+	public double getCollisionRadius()
+	{
+		return _appearance._collisionRadius;
+	}
+	
+	public int getCON()
+	{
+		return _stats._con;
+	}
+	
+	public int[] getCubicData()
+	{
+		return _status._cubics;
+	}
+	
+	public int getCurrentCP()
+	{
+		return _stats._currentCp;
+	}
+	
+	public int getCurrentHP()
+	{
+		return _stats._currentHp;
+	}
+	
+	public int getCurrentMP()
+	{
+		return _stats._currentMp;
+	}
+	
+	public int getCursedWeaponLevel()
+	{
+		return _status._cursedWeaponLevel;
+	}
+	
+	@Override
+	public int getDefenseElementPower(Element element)
+	{
+		return _stats._defenceElementPower[element.ordinal()];
+	}
+	
+	public int getDEX()
+	{
+		return _stats._dex;
+	}
+	
+	public int getDuelTeam()
+	{
+		return _status._duelTeam;
+	}
+	
+	public long getExp()
+	{
+		return _stats._exp;
+	}
+	
+	public double getExpPercent()
+	{
+		return _stats._expPercent;
+	}
+	
+	public int getSP()
+	{
+		return _stats._sp;
+	}
+	
+	public int getFace()
+	{
+		return _appearance._face;
+	}
+	
+	public int getFamePoints()
+	{
+		return _stats._famePoints;
+	}
+	
+	public int getFishLureX()
+	{
+		return _status._fishLureX;
+	}
+	
+	public int getFishLureY()
+	{
+		return _status._fishLureY;
+	}
+	
+	public int getFishLureZ()
+	{
+		return _status._fishLureZ;
+	}
+	
+	public int getFlyRunSpeed()
+	{
+		return _stats._flyRunSpeed;
+	}
+	
+	public int getFlyWalkSpeed()
+	{
+		return _stats._flyWalkSpeed;
+	}
+	
+	public Gender getGender()
+	{
+		return _appearance._gender;
+	}
+	
+	public int getHairColor()
+	{
+		return _appearance._hairColor;
+	}
+	
+	public int getHairStyle()
+	{
+		return _appearance._hairStyle;
+	}
+	
+	public int getINT()
+	{
+		return _stats._int;
+	}
+	
+	public int getKarma()
+	{
+		return _stats._karmaPoints;
+	}
+	
+	public int getLevel()
+	{
+		return _stats._level;
+	}
+	
+	public int getMainClassId()
+	{
+		return _identity._mainClassId;
+	}
+	
+	public int getMAccuracy()
+	{
+		return _stats._mAccuracy;
+	}
+	
+	public int getMAtk()
+	{
+		return _stats._mAtk;
+	}
+	
+	public int getMAtkSpd()
+	{
+		return _stats._mAtkSpd;
+	}
+	
+	public int getMaxCarriedWeight()
+	{
+		return _stats._maxCarriedWeight;
+	}
+	
+	public int getMaxCP()
+	{
+		return _stats._maxCp;
+	}
+	
+	public int getMaxHP()
+	{
+		return _stats._maxHp;
+	}
+	
+	public int getMaxInventorySlots()
+	{
+		return _status._maxInventorySlots;
+	}
+	
+	public int getMaxMP()
+	{
+		return _stats._maxMp;
+	}
+	
+	public int getMaxSP()
+	{
+		return _stats._maxSp;
+	}
+	
+	public int getMaxTalismanSlots()
+	{
+		return _status._maxTalismanSlots;
+	}
+	
+	public int getMCriticalHit()
+	{
+		return _stats._mCriticalHit;
+	}
+	
+	public int getMDef()
+	{
+		return _stats._mDef;
+	}
+	
+	public int getMEN()
+	{
+		return _stats._men;
+	}
+	
+	public int getMEvasionRate()
+	{
+		return _stats._mEvasionRate;
+	}
+	
+	public int getMountNpcId()
+	{
+		return _status._mountNpcId;
+	}
+	
+	public int getMountType()
+	{
+		return _status._mountType;
+	}
+	
+	public double getMovementSpeedMultiplier()
+	{
+		return _stats._movementSpeedMultiplier;
+	}
+	
+	public String getName()
+	{
+		return _identity._name;
+	}
+	
+	public int getNameColor()
+	{
+		return _appearance._nameColor;
+	}
+	
+	public int getPAccuracy()
+	{
+		return _stats._pAccuracy;
+	}
+	
+	public int getPAtk()
+	{
+		return _stats._pAtk;
+	}
+	
+	public int getPAtkSpd()
+	{
+		return _stats._pAtkSpd;
+	}
+	
+	public int getPCriticalHit()
+	{
+		return _stats._pCriticalHit;
+	}
+	
+	public int getPDef()
+	{
+		return _stats._pDef;
+	}
+	
+	public int getPEvasionRate()
+	{
+		return _stats._pEvasionRate;
+	}
+	
+	public int getPkCount()
+	{
+		return _stats._pkCount;
+	}
+	
+	public int getPledgeCrestId()
+	{
+		return _identity._pledgeCrestId;
+	}
+	
+	public int getPledgeId()
+	{
+		return _identity._pledgeId;
+	}
+	
+	public int getPledgeInsigniaId()
+	{
+		return _identity._pledgeInsigniaId;
+	}
+	
+	public int getPledgePrivileges()
+	{
+		return _identity._pledgePrivileges;
+	}
+	
+	public int getPledgeRank()
+	{
+		return _identity._pledgeRank;
+	}
+	
+	public int getPledgeReputation()
+	{
+		return _identity._pledgeReputation;
+	}
+	
+	public int getPledgeUnit()
+	{
+		return _identity._pledgeUnit;
+	}
+	
+	public int getPrivateStoreType()
+	{
+		return _status._privateStoreType;
+	}
+	
+	public int getPvPCount()
+	{
+		return _stats._pvpCount;
+	}
+	
+	public Race getRace()
+	{
+		return _identity._race;
+	}
+	
+	public int getReceivedRecommendations()
+	{
+		return _status._receivedRecommendations;
+	}
+	
+	public int getRemainingRecommendations()
+	{
+		return _status._remainingRecommendaions;
+	}
+	
+	public int getRunSpeed()
+	{
+		return _stats._runSpeed;
+	}
+	
+	public int getSiegeRelation()
+	{
+		return _identity._siegeRelation;
+	}
+	
+	public int getSpecialEffect()
+	{
+		return _status._specialEffect;
+	}
+	
+	public int getSTR()
+	{
+		return _stats._str;
+	}
+	
+	public int getSwimRunSpeed()
+	{
+		return getRunSpeed();
+	}
+	
+	public int getSwimWalkSpeed()
+	{
+		return getWalkSpeed();
+	}
+	
+	public String getTitle()
+	{
+		return _identity._title;
+	}
+	
+	public int getTitleColor()
+	{
+		return _appearance._titleColor;
+	}
+	
+	public int getTransformationGraphicalId()
+	{
+		return _status._transformationGraphicalId;
+	}
+	
+	public ObjectId getVehicleObjectId()
+	{
+		return _identity._vehicleObjectId;
+	}
+	
+	public int getVitalityPoints()
+	{
+		return _stats._vitalityPoints;
+	}
+	
+	public int getWalkSpeed()
+	{
+		return _stats._walkSpeed;
+	}
+	
+	public int getWeaponEnchantGlow()
+	{
+		return _status._weaponEnchantGlow;
+	}
+	
+	public int getWeaponStatus()
+	{
+		return _status._weaponStatus;
+	}
+	
+	public int getWIT()
+	{
+		return _stats._wit;
+	}
+	
+	public boolean isFishing()
+	{
+		return _status._fishing;
+	}
+	
+	public boolean isFlyingMounted()
+	{
+		return _status._flyingMounted;
+	}
+	
+	public boolean isGM()
+	{
+		return _identity._gm;
+	}
+	
+	public boolean isHero()
+	{
+		return _identity._hero;
+	}
+	
+	public boolean isInCombatAction()
+	{
+		return _status._combatAction;
+	}
+	
+	public int isInPvPAction()
+	{
+		return _status._inPvPAction;
+	}
+	
+	public boolean isInvisible()
+	{
+		return _status._invisible;
+	}
+	
+	public boolean isLookingForParty()
+	{
+		return _status._lookingForParty;
+	}
+	
+	public boolean isLyingDead()
+	{
+		return _status._lyingDead;
+	}
+	
+	public boolean isMoving()
+	{
+		return _status._moving;
+	}
+	
+	public boolean isNoble()
+	{
+		return _identity._noble;
+	}
+	
+	// -- methods for convenience
+	public void writePaperDollObjectIds(MMOBuffer buf, boolean withAccessory)
+	{
+		for (int slot : getSlots(withAccessory))
+			buf.writeD(_paperDoll._paperDollObjectIds[slot]);
+	}
+	
+	public void writePaperDollItemDisplayIds(MMOBuffer buf, boolean withAccessory)
+	{
+		for (int slot : getSlots(withAccessory))
+			buf.writeD(_paperDoll._paperDollItemDisplayIds[slot]);
+	}
+	
+	public void writePaperDollAugmentationIds(MMOBuffer buf, boolean withAccessory)
+	{
+		for (int slot : getSlots(withAccessory))
+			buf.writeD(_paperDoll._paperDollAugmentationIds[slot]);
+	}
+	
+	// ============================================================
+	public void writeCubics(MMOBuffer buf)
+	{
+		buf.writeH(getCubicData().length); // Cubic count
+		for (int cubic : getCubicData())
+			buf.writeH(cubic); // Cubic
+	}
+	
+	private static final int[] SLOTS_WITH_ACCESSORY = initSlots(true);
+	private static final int[] SLOTS_WITHOUT_ACCESSORY = initSlots(false);
+	
+	private static int[] getSlots(boolean withAccessory)
+	{
+		return withAccessory ? SLOTS_WITH_ACCESSORY : SLOTS_WITHOUT_ACCESSORY;
+	}
+	
+	private static int[] initSlots(boolean withAccessory)
+	{
+		final List<PaperDollSlot> slots = new ArrayList<PaperDollSlot>(withAccessory ? 26 : 21);
+		
+		slots.add(PaperDollSlot.UNDER);
+		
+		if (withAccessory)
+		{
+			slots.add(PaperDollSlot.R_EAR);
+			slots.add(PaperDollSlot.L_EAR);
+			slots.add(PaperDollSlot.NECK);
+			slots.add(PaperDollSlot.R_FINGER);
+			slots.add(PaperDollSlot.L_FINGER);
+		}
+		
+		slots.add(PaperDollSlot.HEAD);
+		slots.add(PaperDollSlot.R_HAND);
+		slots.add(PaperDollSlot.L_HAND);
+		slots.add(PaperDollSlot.GLOVES);
+		slots.add(PaperDollSlot.CHEST);
+		slots.add(PaperDollSlot.LEGS);
+		slots.add(PaperDollSlot.FEET);
+		slots.add(PaperDollSlot.CLOAK);
+		slots.add(PaperDollSlot.L_R_HAND);
+		slots.add(PaperDollSlot.HAIR_1);
+		slots.add(PaperDollSlot.HAIR_2);
+		slots.add(PaperDollSlot.R_BRACELET);
+		slots.add(PaperDollSlot.L_BRACELET);
+		slots.add(PaperDollSlot.TALISMAN_1);
+		slots.add(PaperDollSlot.TALISMAN_2);
+		slots.add(PaperDollSlot.TALISMAN_3);
+		slots.add(PaperDollSlot.TALISMAN_4);
+		slots.add(PaperDollSlot.TALISMAN_5);
+		slots.add(PaperDollSlot.TALISMAN_6);
+		slots.add(PaperDollSlot.BELT);
+		
+		final int[] indexes = new int[slots.size()];
+		
+		int i = 0;
+		for (PaperDollSlot slot : slots)
+			indexes[i++] = slot.ordinal();
+		
+		return indexes;
+	}
+}
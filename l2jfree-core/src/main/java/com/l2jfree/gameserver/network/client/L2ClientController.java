@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.l2jfree.gameserver.CoreInfo;
+import com.l2jfree.gameserver.config.NetworkConfig;
 import com.l2jfree.gameserver.network.client.packets.L2ClientPacket;
 import com.l2jfree.gameserver.network.client.packets.L2ServerPacket;
 import com.l2jfree.network.ClientProtocolVersion;
@@ -29,6 +30,7 @@ import com.l2jfree.network.ProtocolVersionFactory;
 import com.l2jfree.network.ProtocolVersionManager;
 import com.l2jfree.network.mmocore.MMOConfig;
 import com.l2jfree.network.mmocore.MMOController;
+import com.l2jfree.security.WideCoreCipher;
 
 /**
  * Manages incoming L2 client connections.
@@ -44,6 +46,13 @@ public final class L2ClientController extends MMOController<L2Client, L2ClientPa
 		{
 			final MMOConfig cfg = new MMOConfig(L2ClientController.class.getSimpleName());
 			cfg.setSelectorSleepTime(7);
+			cfg.setBlockingSelection(NetworkConfig.BLOCKING_SELECTION);
+			cfg.setPipelinedReading(NetworkConfig.PIPELINED_READING);
+			cfg.setGatheringWrites(NetworkConfig.GATHERING_WRITES);
+			cfg.setIdleTimeout(NetworkConfig.IDLE_TIMEOUT);
+			
+			if (NetworkConfig.WIDE_CIPHER)
+				WideCoreCipher.test();
 			
 			try
 			{
@@ -72,8 +81,7 @@ public final class L2ClientController extends MMOController<L2Client, L2ClientPa
 	
 	private L2ClientController(MMOConfig config) throws IOException
 	{
-		//super(config, L2ClientPacketHandler.getInstance());
-		super(config, L2ExperimentalPacketHandler.getInstance());
+		super(config, L2ClientPacketHandler.getInstance());
 		
 		L2ClientSecurity.getInstance();
 		
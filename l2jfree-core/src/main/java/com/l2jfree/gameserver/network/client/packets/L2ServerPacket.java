@@ -62,6 +62,27 @@ public abstract class L2ServerPacket extends DefaultSendablePacket<L2Client, L2C
 		// do nothing at default
 	}
 	
+	/**
+	 * Specifies whether the body of this packet depends on nothing else, but the receiver's protocol
+	 * version. If so, the body is written only once per protocol version, and shared among all
+	 * receivers.<BR>
+	 * <BR>
+	 * NOTE: Broadcastable packets must not write anything specific to the receiving client or player!
+	 * 
+	 * @return whether the body can be shared among all receivers with the same protocol version
+	 */
+	@SuppressWarnings("static-method")
+	protected boolean isBroadcastable()
+	{
+		return false;
+	}
+	
+	@Override
+	protected final Object getBroadcastKey(L2Client client)
+	{
+		return isBroadcastable() ? client.getVersion() : null;
+	}
+	
 	@Override
 	protected void writeImpl(L2Client client, MMOBuffer buf) throws RuntimeException
 	{
@@ -16,6 +16,9 @@ package com.l2jfree.gameserver.network.client.packets.receivable;
 
 import java.nio.BufferUnderflowException;
 
+import com.l2jfree.gameserver.gameobjects.L2Item;
+import com.l2jfree.gameserver.gameobjects.L2Player;
+import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerInventory;
 import com.l2jfree.gameserver.network.client.packets.L2ClientPacket;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
@@ -35,18 +38,35 @@ public class RequestDestroyItem extends L2ClientPacket
 	}
 	
 	/* Fields for storing read data */
+	private int _objectId;
+	private long _count;
 	
 	@Override
 	protected void read(MMOBuffer buf) throws BufferUnderflowException, RuntimeException
 	{
 		// TODO: when implementing, consult an up-to-date packets_game_server.xml and/or savormix
-		buf.readD(); // Item OID
-		buf.readQ(); // Quantity
+		_objectId = buf.readD(); // Item OID
+		_count = buf.readQ(); // Quantity
 	}
 	
 	@Override
 	protected void runImpl() throws InvalidPacketException, RuntimeException
 	{
 		// TODO: implement
+		final L2Player activeChar = getClient().getActiveChar();
+		if (activeChar == null)
+			return;
+		
+		final IPlayerInventory inventory = activeChar.getInventory();
+		
+		final L2Item item = inventory.getItemByObjectId(_objectId);
+		if (item == null || _count < 1)
+			return;
+		
+		// TODO: partial destruction, once the count of stackable items can be changed
+		if (_count < item.getCount())
+			return;
+		
+		inventory.destroyItem(item);
 	}
 }
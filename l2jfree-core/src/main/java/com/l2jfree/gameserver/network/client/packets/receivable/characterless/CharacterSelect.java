@@ -87,6 +87,7 @@ public abstract class CharacterSelect extends L2ClientPacket
 		
 		if (player.getAccessLevel() < 0 || SERVER_GMONLY && !player.isGM())
 		{
+			player.discard();
 			getClient().closeNow();
 			return;
 		}
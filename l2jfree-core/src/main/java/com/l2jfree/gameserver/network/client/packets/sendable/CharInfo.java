@@ -16,6 +16,7 @@ package com.l2jfree.gameserver.network.client.packets.sendable;
 
 import com.l2jfree.gameserver.gameobjects.L2Player;
 import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerView;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot;
 import com.l2jfree.gameserver.network.client.L2Client;
 import com.l2jfree.network.ClientProtocolVersion;
 import com.l2jfree.network.mmocore.MMOBuffer;
@@ -45,7 +46,7 @@ public abstract class CharInfo extends StaticPacket
 		}
 	}
 	
-	private final L2Player _player;
+	private final PlayerViewSnapshot _view;
 	
 	/**
 	 * Constructs this packet.
@@ -54,8 +55,12 @@ public abstract class CharInfo extends StaticPacket
 	 */
 	public CharInfo(L2Player player)
 	{
-		_player = player;
-		_player.getView().refresh();
+		final IPlayerView view = player.getView();
+		
+		view.refresh();
+		
+		// shared by every packet created until the player changes
+		_view = view.getSnapshot();
 	}
 	
 	@Override
@@ -64,12 +69,18 @@ public abstract class CharInfo extends StaticPacket
 		return 0x31;
 	}
 	
+	@Override
+	protected boolean isBroadcastable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void writeImpl(L2Client client, L2Player activeChar, MMOBuffer buf) throws RuntimeException
 	{
 		// TODO: when implementing, consult an up-to-date packets_game_server.xml and/or savormix
 		final ClientProtocolVersion cpv = client.getVersion();
-		final IPlayerView view = _player.getView();
+		final PlayerViewSnapshot view = _view;
 		
 		buf.writeD(view.getX()); // Location X
 		buf.writeD(view.getY()); // Location Y
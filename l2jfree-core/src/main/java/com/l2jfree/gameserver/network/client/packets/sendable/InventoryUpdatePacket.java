@@ -14,9 +14,15 @@
  */
 package com.l2jfree.gameserver.network.client.packets.sendable;
 
+import java.util.List;
+
+import com.l2jfree.gameserver.gameobjects.CharacterStat.Element;
+import com.l2jfree.gameserver.gameobjects.ItemContainer.ItemChange;
+import com.l2jfree.gameserver.gameobjects.L2Item;
 import com.l2jfree.gameserver.gameobjects.L2Player;
 import com.l2jfree.gameserver.network.client.L2Client;
 import com.l2jfree.gameserver.network.client.packets.L2ServerPacket;
+import com.l2jfree.gameserver.templates.L2ItemTemplate;
 import com.l2jfree.network.ClientProtocolVersion;
 import com.l2jfree.network.mmocore.MMOBuffer;
 
@@ -36,16 +42,25 @@ public abstract class InventoryUpdatePacket extends L2ServerPacket
 		/**
 		 * Constructs this packet.
 		 * 
-		 * @see InventoryUpdatePacket#InventoryUpdatePacket()
+		 * @param changes changed items
+		 * @see InventoryUpdatePacket#InventoryUpdatePacket(List)
 		 */
-		public MyInventoryUpdate()
+		public MyInventoryUpdate(List<ItemChange> changes)
 		{
+			super(changes);
 		}
 	}
 	
-	/** Constructs this packet. */
-	public InventoryUpdatePacket()
+	private final List<ItemChange> _changes;
+	
+	/**
+	 * Constructs this packet.
+	 * 
+	 * @param changes changed items
+	 */
+	public InventoryUpdatePacket(List<ItemChange> changes)
 	{
+		_changes = changes;
 	}
 	
 	@Override
@@ -59,34 +74,29 @@ public abstract class InventoryUpdatePacket extends L2ServerPacket
 	{
 		// TODO: when implementing, consult an up-to-date packets_game_server.xml and/or savormix
 		final boolean god = client.getVersion().isNewerThanOrEqualTo(ClientProtocolVersion.GODDESS_OF_DESTRUCTION);
-		final int sizeA = 0; // Updated item count
-		buf.writeH(sizeA);
-		for (int i = 0; i < sizeA; i++)
+		buf.writeH(_changes.size()); // Updated item count
+		for (ItemChange change : _changes)
 		{
-			buf.writeH(0); // Action
-			buf.writeD(0); // Item OID
-			buf.writeD(0); // Item
-			buf.writeD(0); // Slot number
-			buf.writeQ(0L); // Quantity
-			buf.writeH(0); // Main item type
+			final L2Item item = change.getItem();
+			final L2ItemTemplate template = item.getTemplate();
+			buf.writeH(change.getType().getAction()); // Action
+			buf.writeD(item.getObjectId()); // Item OID
+			buf.writeD(template.getId()); // Item
+			buf.writeD(0); // TODO: Slot number
+			buf.writeQ(item.getCount()); // Quantity
+			buf.writeH(template.getType()); // Main item type
 			buf.writeH(0); // Special item type
-			buf.writeH(0); // Equipped
-			buf.writeD(0); // Used paperdoll slot(s)
-			buf.writeH(0); // Enchant level
-			buf.writeH(0); // Name exists
+			buf.writeH(item.isEquipped()); // Equipped
+			buf.writeD(template.getEquipSlot().getMask()); // Used paperdoll slot(s)
+			buf.writeH(item.getEnchantLevel()); // Enchant level
+			buf.writeH(item.isNamed()); // Name exists
 			buf.writeD(0); // Augmentation
-			buf.writeD(0); // Mana left
-			buf.writeD(0); // Time remaining
+			buf.writeD(item.getRemainingMana()); // Mana left
+			buf.writeD(item.getRemainingTime()); // Time remaining
 			if (god)
-				buf.writeH(0); // ??? 1
-			buf.writeH(0); // Attack element
-			buf.writeH(0); // Attack element power
-			buf.writeH(0); // Fire defense
-			buf.writeH(0); // Water defense
-			buf.writeH(0); // Wind defense
-			buf.writeH(0); // Earth defense
-			buf.writeH(0); // Holy defense
-			buf.writeH(0); // Dark defense
+				buf.writeH(1); // ??? 1
+			Element.writeElements(item, buf); // Attack and defense element info
+			// 'enchant effects'
 			buf.writeH(0); // 0
 			buf.writeH(0); // 0
 			buf.writeH(0); // 0
@@ -66,6 +66,12 @@ public abstract class MoveToLocation extends L2ServerPacket
 		return 0x2f;
 	}
 	
+	@Override
+	protected boolean isBroadcastable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void writeImpl(L2Client client, L2Player activeChar, MMOBuffer buf) throws RuntimeException
 	{
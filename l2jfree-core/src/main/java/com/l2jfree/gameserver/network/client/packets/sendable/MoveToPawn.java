@@ -73,6 +73,12 @@ public abstract class MoveToPawn extends L2ServerPacket
 		return 0x72;
 	}
 	
+	@Override
+	protected boolean isBroadcastable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void writeImpl(L2Client client, L2Player activeChar, MMOBuffer buf) throws RuntimeException
 	{
@@ -65,6 +65,12 @@ public abstract class StopMove extends L2ServerPacket
 		return 0x47;
 	}
 	
+	@Override
+	protected boolean isBroadcastable()
+	{
+		return true;
+	}
+	
 	@Override
 	protected void writeImpl(L2Client client, L2Player activeChar, MMOBuffer buf) throws RuntimeException
 	{
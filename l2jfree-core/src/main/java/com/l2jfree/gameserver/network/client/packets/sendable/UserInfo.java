@@ -16,7 +16,7 @@ package com.l2jfree.gameserver.network.client.packets.sendable;
 
 import com.l2jfree.gameserver.gameobjects.CharacterStat.Element;
 import com.l2jfree.gameserver.gameobjects.L2Player;
-import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerView;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot;
 import com.l2jfree.gameserver.network.client.L2Client;
 import com.l2jfree.network.ClientProtocolVersion;
 import com.l2jfree.network.mmocore.MMOBuffer;
@@ -70,7 +70,7 @@ public abstract class UserInfo extends StaticPacket
 	{
 		// TODO: when implementing, consult an up-to-date packets_game_server.xml and/or savormix
 		final ClientProtocolVersion cpv = client.getVersion();
-		final IPlayerView view = activeChar.getView();
+		final PlayerViewSnapshot view = activeChar.getView().getSnapshot();
 		
 		buf.writeD(view.getX()); // Location X
 		buf.writeD(view.getY()); // Location Y
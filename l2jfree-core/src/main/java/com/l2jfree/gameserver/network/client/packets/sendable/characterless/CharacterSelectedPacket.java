@@ -15,7 +15,7 @@
 package com.l2jfree.gameserver.network.client.packets.sendable.characterless;
 
 import com.l2jfree.gameserver.gameobjects.L2Player;
-import com.l2jfree.gameserver.gameobjects.components.interfaces.IPlayerView;
+import com.l2jfree.gameserver.gameobjects.player.PlayerViewSnapshot;
 import com.l2jfree.gameserver.network.client.L2Client;
 import com.l2jfree.gameserver.network.client.packets.L2ServerPacket;
 import com.l2jfree.network.mmocore.MMOBuffer;
@@ -87,7 +87,7 @@ public abstract class CharacterSelectedPacket extends L2ServerPacket
 			return;
 		}
 		
-		final IPlayerView view = activeChar.getView();
+		final PlayerViewSnapshot view = activeChar.getView().getSnapshot();
 		
 		buf.writeS(view.getName()); // Name
 		buf.writeD(view.getCharacterId()); // Character ID
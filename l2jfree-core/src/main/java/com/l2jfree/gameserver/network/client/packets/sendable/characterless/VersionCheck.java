@@ -14,12 +14,15 @@
  */
 package com.l2jfree.gameserver.network.client.packets.sendable.characterless;
 
+import com.l2jfree.gameserver.config.NetworkConfig;
 import com.l2jfree.gameserver.config.ReportedConfig;
 import com.l2jfree.gameserver.network.client.L2Client;
 import com.l2jfree.gameserver.network.client.L2ClientSecurity;
 import com.l2jfree.gameserver.network.client.packets.L2ServerPacket;
 import com.l2jfree.network.mmocore.MMOBuffer;
 import com.l2jfree.security.CoreCipher;
+import com.l2jfree.security.ICipher;
+import com.l2jfree.security.WideCoreCipher;
 import com.l2jfree.util.Rnd;
 
 /**
@@ -54,7 +57,7 @@ public abstract class VersionCheck extends L2ServerPacket
 	
 	private final boolean _compatible;
 	private final byte[] _key;
-	private final CoreCipher _cipher;
+	private final ICipher _cipher;
 	private final int _obfusKey;
 	
 	/**
@@ -70,8 +73,18 @@ public abstract class VersionCheck extends L2ServerPacket
 		
 		if (_compatible)
 		{
-			_cipher = new CoreCipher(L2ClientSecurity.getInstance().getKey());
-			_cipher.getKey().get(_key);
+			if (NetworkConfig.WIDE_CIPHER)
+			{
+				final WideCoreCipher cipher = new WideCoreCipher(L2ClientSecurity.getInstance().getKey());
+				cipher.getKey().get(_key);
+				_cipher = cipher;
+			}
+			else
+			{
+				final CoreCipher cipher = new CoreCipher(L2ClientSecurity.getInstance().getKey());
+				cipher.getKey().get(_key);
+				_cipher = cipher;
+			}
 			_obfusKey = Rnd.nextInt();
 		}
 		else
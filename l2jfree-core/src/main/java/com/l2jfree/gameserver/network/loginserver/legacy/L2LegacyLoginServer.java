@@ -68,9 +68,7 @@ public final class L2LegacyLoginServer extends
 		size.decreaseSize(4); // checksum
 		size.setPadding(1, 8);
 		
-		getCipher().decipher(buf, dataSize);
-		
-		if (!NewCipher.verifyChecksum(buf, dataSize))
+		if (!getCipher().decipherAndVerifyChecksum(buf, dataSize))
 		{
 			_log.warn("Could not decipher received data: checksum mismatch. " + this);
 			closeNow();
@@ -102,9 +100,7 @@ public final class L2LegacyLoginServer extends
 		size += 4; // checksum
 		size += 8 - (size & 7); // padding
 		
-		NewCipher.appendChecksum(buf, size);
-		
-		getCipher().encipher(buf, size);
+		getCipher().encipherWithChecksum(buf, size);
 		
 		buf.position(offset + size);
 		
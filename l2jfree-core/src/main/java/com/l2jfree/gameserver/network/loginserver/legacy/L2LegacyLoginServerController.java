@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
 
+import com.l2jfree.gameserver.config.NetworkConfig;
 import com.l2jfree.gameserver.network.loginserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.gameserver.network.loginserver.legacy.packets.L2LegacyLoginServerPacket;
 import com.l2jfree.network.mmocore.MMOConfig;
@@ -36,6 +37,7 @@ public class L2LegacyLoginServerController extends
 		{
 			final MMOConfig cfg = new MMOConfig(L2LegacyLoginServerController.class.getSimpleName());
 			cfg.setSelectorSleepTime(5);
+			cfg.setBlockingSelection(NetworkConfig.BLOCKING_SELECTION);
 			cfg.setThreadCount(1);
 			
 			try
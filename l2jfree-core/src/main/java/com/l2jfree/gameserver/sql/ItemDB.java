@@ -14,11 +14,19 @@
  */
 package com.l2jfree.gameserver.sql;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import com.l2jfree.gameserver.gameobjects.ItemContainer;
 import com.l2jfree.gameserver.gameobjects.L2Item;
 import com.l2jfree.gameserver.gameobjects.item.ItemFactory;
 import com.l2jfree.gameserver.util.PersistentId;
@@ -96,15 +104,63 @@ public class ItemDB extends L2DBEntity
 	}
 	
 	public static void store(L2Item item)
+	{
+		storeAll(Collections.singletonList(item));
+	}
+	
+	/**
+	 * Stores the given items with their current owner, and removes the ones taken out of their last
+	 * container, in a single write-behind batch. Items never put into any container are stored with the
+	 * owner they were loaded with, or skipped if they have none.
+	 * 
+	 * @param items the changed items
+	 */
+	public static void storeAll(Collection<? extends L2Item> items)
 	{
 		try
 		{
-			final ItemDB itemDB = new ItemDB();
-			itemDB.setPersistentId(item.getPersistentId());
-			itemDB.creationTime = item.getCreationTime();
-			itemDB.count = item.getCount();
-			
-			L2Database.merge(itemDB);
+			for (Collection<? extends L2Item> remaining = items; !remaining.isEmpty();)
+			{
+				final List<ItemDB> stored = new ArrayList<ItemDB>(remaining.size());
+				final List<ItemDB> removed = new ArrayList<ItemDB>();
+				final Map<L2Item, ItemContainer> containers = new HashMap<L2Item, ItemContainer>();
+				
+				for (L2Item item : remaining)
+				{
+					final ItemContainer container = item.getContainer();
+					final PersistentId ownerId = item.getOwnerId();
+					
+					containers.put(item, container);
+					
+					if (ownerId == null && !item.hasBeenContained())
+						continue;
+					
+					final ItemDB itemDB = new ItemDB();
+					itemDB.setPersistentId(item.getPersistentId());
+					itemDB.creationTime = item.getCreationTime();
+					itemDB.count = item.getCount();
+					
+					if (ownerId != null)
+					{
+						itemDB.setOwnerId(ownerId);
+						stored.add(itemDB);
+					}
+					else
+						removed.add(itemDB);
+				}
+				
+				WriteBehindQueue.getInstance().storeAll(stored, removed);
+				
+				// an item moved meanwhile might have been queued by its new container already, so the
+				// snapshot queued above could override it - queue the current state again, to be the last one
+				final List<L2Item> moved = new ArrayList<L2Item>();
+				
+				for (Map.Entry<L2Item, ItemContainer> entry : containers.entrySet())
+					if (entry.getKey().getContainer() != entry.getValue())
+						moved.add(entry.getKey());
+				
+				remaining = moved;
+			}
 		}
 		catch (RuntimeException e)
 		{
@@ -114,6 +170,8 @@ public class ItemDB extends L2DBEntity
 	
 	public static ItemDB find(PersistentId persistentId)
 	{
+		WriteBehindQueue.getInstance().flush(ItemDB.class, persistentId.intValue());
+		
 		return L2Database.find(ItemDB.class, persistentId.intValue());
 	}
 }
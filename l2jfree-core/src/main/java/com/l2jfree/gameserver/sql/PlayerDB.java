@@ -38,6 +38,7 @@ import com.l2jfree.gameserver.util.PersistentId;
 import com.l2jfree.sql.L2DBEntity;
 import com.l2jfree.sql.L2Database;
 import com.l2jfree.sql.L2Database.QueryConfigurator;
+import com.l2jfree.util.L2Collections.Filter;
 import com.l2jfree.util.Rnd;
 
 /**
@@ -223,7 +224,7 @@ public class PlayerDB extends L2DBEntity
 			// Position
 			player.getPosition().store(playerDB);
 			
-			L2Database.merge(playerDB);
+			WriteBehindQueue.getInstance().store(playerDB);
 		}
 		catch (RuntimeException e)
 		{
@@ -233,11 +234,21 @@ public class PlayerDB extends L2DBEntity
 	
 	public static PlayerDB find(PersistentId persistentId)
 	{
+		WriteBehindQueue.getInstance().flush(PlayerDB.class, persistentId.intValue());
+		
 		return L2Database.find(PlayerDB.class, persistentId.intValue());
 	}
 	
 	public static List<PlayerDB> findByAccount(final String accountName)
 	{
+		WriteBehindQueue.getInstance().flush(PlayerDB.class, new Filter<PlayerDB>() {
+			@Override
+			public boolean accept(PlayerDB playerDB)
+			{
+				return accountName.equals(playerDB.accountName);
+			}
+		});
+		
 		return L2Database.getResultListByNamedQuery("PlayerDB.findByAccount", new QueryConfigurator() {
 			@Override
 			public void configure(Query q)
@@ -0,0 +1,585 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.gameserver.sql;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.l2jfree.gameserver.config.DatabaseConfig;
+import com.l2jfree.sql.L2DBEntity;
+import com.l2jfree.sql.L2Database;
+import com.l2jfree.util.L2Collections.Filter;
+import com.l2jfree.util.concurrent.L2ThreadPool;
+import com.l2jfree.util.concurrent.RunnableStatsManager;
+import com.l2jfree.util.logging.L2Logger;
+
+/**
+ * Stores the snapshots of entities asynchronously, in batches.<br>
+ * <br>
+ * Only the last snapshot is kept for each primary key, so an entity stored several times between
+ * two flushes is written only once. Every batch is merged in a single transaction, which lets the
+ * persistence provider send the statements in JDBC batches over one connection.<br>
+ * If too many snapshots are waiting, the storing thread flushes them itself, which slows the
+ * producers down instead of letting the queue grow without limits.<br>
+ * <br>
+ * At most one snapshot of an entity is written at once, so the snapshots of the same entity are
+ * always written in order, even if several threads flush. Snapshots, which couldn't be stored even
+ * one by one, are kept as dead letters, until a newer snapshot replaces them, or they are retried.
+ * 
+ * @author agent
+ */
+public final class WriteBehindQueue
+{
+	private static final L2Logger _log = L2Logger.getLogger(WriteBehindQueue.class);
+	
+	private static final class SingletonHolder
+	{
+		public static final WriteBehindQueue INSTANCE = new WriteBehindQueue();
+	}
+	
+	public static WriteBehindQueue getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private static final class EntityKey
+	{
+		private final Class<?> _clazz;
+		private final Object _primaryKey;
+		
+		private EntityKey(Class<?> clazz, Object primaryKey)
+		{
+			_clazz = clazz;
+			_primaryKey = primaryKey;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return _clazz.hashCode() * 31 + _primaryKey.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof EntityKey))
+				return false;
+			
+			final EntityKey other = (EntityKey)obj;
+			
+			return _clazz == other._clazz && _primaryKey.equals(other._primaryKey);
+		}
+	}
+	
+	private static final class Snapshot
+	{
+		private final L2DBEntity _entity;
+		private final boolean _removal;
+		
+		private Snapshot(L2DBEntity entity, boolean removal)
+		{
+			_entity = entity;
+			_removal = removal;
+		}
+	}
+	
+	// all guarded by _pending
+	private final Map<EntityKey, Snapshot> _pending = new LinkedHashMap<EntityKey, Snapshot>();
+	private final Map<EntityKey, Snapshot> _inFlight = new HashMap<EntityKey, Snapshot>();
+	private final Map<EntityKey, Snapshot> _deadLetters = new LinkedHashMap<EntityKey, Snapshot>();
+	
+	private final ReentrantLock _flushLock = new ReentrantLock();
+	private final AtomicBoolean _flushScheduled = new AtomicBoolean();
+	
+	private final AtomicLong _enqueued = new AtomicLong();
+	private final AtomicLong _coalesced = new AtomicLong();
+	private final AtomicLong _stored = new AtomicLong();
+	private final AtomicLong _failed = new AtomicLong();
+	private final AtomicLong _batches = new AtomicLong();
+	private final AtomicLong _throttled = new AtomicLong();
+	private final AtomicInteger _peakPending = new AtomicInteger();
+	private volatile long _lastFlushDuration;
+	
+	private final Runnable _flushTask = new Runnable() {
+		@Override
+		public void run()
+		{
+			_flushScheduled.set(false);
+			
+			flush();
+		}
+	};
+	
+	private WriteBehindQueue()
+	{
+		L2ThreadPool.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run()
+			{
+				scheduleFlush();
+			}
+		}, DatabaseConfig.WRITE_BEHIND_INTERVAL, DatabaseConfig.WRITE_BEHIND_INTERVAL);
+	}
+	
+	/**
+	 * Queues the given snapshot to be stored, replacing the previous snapshot with the same
+	 * primary key.<br>
+	 * The snapshot must not be modified after queueing it.
+	 * 
+	 * @param entity a detached entity
+	 */
+	public void store(L2DBEntity entity)
+	{
+		if (!DatabaseConfig.WRITE_BEHIND)
+		{
+			L2Database.merge(entity);
+			return;
+		}
+		
+		final int pending;
+		
+		synchronized (_pending)
+		{
+			enqueue(entity, false);
+			
+			pending = _pending.size();
+		}
+		
+		_enqueued.incrementAndGet();
+		
+		afterStore(pending);
+	}
+	
+	/**
+	 * Queues the removal of the entity with the same primary key as the given snapshot, replacing
+	 * the previous snapshot with the same primary key.
+	 * 
+	 * @param entity a detached entity
+	 */
+	public void remove(L2DBEntity entity)
+	{
+		storeAll(Collections.<L2DBEntity> emptyList(), Collections.singletonList(entity));
+	}
+	
+	/**
+	 * Queues all the given snapshots at once, as if {@link #store(L2DBEntity)} was called for each
+	 * of them, but taking the lock and checking the limits only once.
+	 * 
+	 * @param entities detached entities
+	 */
+	public void storeAll(Collection<? extends L2DBEntity> entities)
+	{
+		storeAll(entities, Collections.<L2DBEntity> emptyList());
+	}
+	
+	/**
+	 * Queues all the given snapshots and removals at once, as if {@link #store(L2DBEntity)} and
+	 * {@link #remove(L2DBEntity)} was called for each of them, but taking the lock and checking the
+	 * limits only once.
+	 * 
+	 * @param stored detached entities to store
+	 * @param removed detached entities to remove
+	 */
+	public void storeAll(Collection<? extends L2DBEntity> stored, Collection<? extends L2DBEntity> removed)
+	{
+		if (stored.isEmpty() && removed.isEmpty())
+			return;
+		
+		if (!DatabaseConfig.WRITE_BEHIND)
+		{
+			L2Database.mergeAndRemoveAll(stored, removed);
+			return;
+		}
+		
+		final int pending;
+		
+		synchronized (_pending)
+		{
+			for (L2DBEntity entity : stored)
+				enqueue(entity, false);
+			
+			for (L2DBEntity entity : removed)
+				enqueue(entity, true);
+			
+			pending = _pending.size();
+		}
+		
+		_enqueued.addAndGet(stored.size() + removed.size());
+		
+		afterStore(pending);
+	}
+	
+	// must be called while holding _pending
+	private void enqueue(L2DBEntity entity, boolean removal)
+	{
+		final EntityKey key = keyOf(entity);
+		
+		if (_pending.put(key, new Snapshot(entity, removal)) != null)
+			_coalesced.incrementAndGet();
+		
+		// the failed snapshot became outdated
+		_deadLetters.remove(key);
+	}
+	
+	private void afterStore(int pending)
+	{
+		for (int peak; pending > (peak = _peakPending.get());)
+			if (_peakPending.compareAndSet(peak, pending))
+				break;
+		
+		if (pending >= DatabaseConfig.WRITE_BEHIND_MAX_PENDING)
+		{
+			_throttled.incrementAndGet();
+			
+			flush();
+		}
+		else if (pending >= DatabaseConfig.WRITE_BEHIND_BATCH_SIZE)
+		{
+			scheduleFlush();
+		}
+	}
+	
+	private static EntityKey keyOf(L2DBEntity entity)
+	{
+		return new EntityKey(entity.getClass(), entity.getPrimaryKey());
+	}
+	
+	private void scheduleFlush()
+	{
+		if (getPendingCount() == 0)
+			return;
+		
+		if (_flushScheduled.compareAndSet(false, true))
+			L2ThreadPool.executeLongRunning(_flushTask);
+	}
+	
+	/**
+	 * Synchronously stores every queued snapshot, and retries the dead letters once more.
+	 */
+	public void flushAll()
+	{
+		synchronized (_pending)
+		{
+			for (Map.Entry<EntityKey, Snapshot> entry : _deadLetters.entrySet())
+				if (!_pending.containsKey(entry.getKey()))
+					_pending.put(entry.getKey(), entry.getValue());
+			
+			_deadLetters.clear();
+		}
+		
+		for (;;)
+		{
+			flush();
+			
+			synchronized (_pending)
+			{
+				boolean interrupted = false;
+				
+				while (!_inFlight.isEmpty())
+					interrupted |= waitForInFlight();
+				
+				if (interrupted)
+					Thread.currentThread().interrupt();
+				
+				if (_pending.isEmpty())
+					break;
+			}
+		}
+		
+		final int deadLetters = getDeadLetterCount();
+		
+		if (deadLetters > 0)
+			_log.warn("WriteBehindQueue: " + deadLetters + " entities couldn't be stored at all!");
+	}
+	
+	/**
+	 * Synchronously stores the queued snapshot with the given primary key, if there is any, so it
+	 * can be loaded from the database afterwards.<br>
+	 * Only waits for the previous snapshot of the same entity, if it's being written right now.
+	 * 
+	 * @param clazz class of the entity
+	 * @param primaryKey primary key of the entity
+	 */
+	public void flush(Class<? extends L2DBEntity> clazz, Object primaryKey)
+	{
+		final EntityKey key = new EntityKey(clazz, primaryKey);
+		final Snapshot snapshot;
+		
+		synchronized (_pending)
+		{
+			boolean interrupted = false;
+			
+			while (_inFlight.containsKey(key))
+				interrupted |= waitForInFlight();
+			
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			
+			final Snapshot pending = _pending.remove(key);
+			
+			// gives a failed snapshot one more chance, as it's about to be loaded
+			snapshot = pending != null ? pending : _deadLetters.remove(key);
+			
+			if (snapshot == null)
+				return;
+			
+			_inFlight.put(key, snapshot);
+		}
+		
+		final List<Snapshot> batch = new ArrayList<Snapshot>(1);
+		batch.add(snapshot);
+		
+		storeAndRelease(batch);
+	}
+	
+	/**
+	 * Synchronously stores the queued snapshots of the given class, which are accepted by the filter.
+	 * 
+	 * @param clazz class of the entities
+	 * @param filter selects the entities to be stored
+	 */
+	public <T extends L2DBEntity> void flush(Class<T> clazz, Filter<T> filter)
+	{
+		final List<Snapshot> batch = new ArrayList<Snapshot>();
+		
+		synchronized (_pending)
+		{
+			boolean interrupted = false;
+			
+			while (containsAccepted(_inFlight.values(), clazz, filter))
+				interrupted |= waitForInFlight();
+			
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			
+			for (Iterator<Map.Entry<EntityKey, Snapshot>> it = _pending.entrySet().iterator(); it.hasNext();)
+			{
+				final Map.Entry<EntityKey, Snapshot> entry = it.next();
+				final L2DBEntity entity = entry.getValue()._entity;
+				
+				if (clazz.isInstance(entity) && filter.accept(clazz.cast(entity)))
+				{
+					batch.add(entry.getValue());
+					it.remove();
+					
+					_inFlight.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		
+		if (!batch.isEmpty())
+			storeAndRelease(batch);
+	}
+	
+	private static <T extends L2DBEntity> boolean containsAccepted(Collection<Snapshot> snapshots, Class<T> clazz,
+			Filter<T> filter)
+	{
+		for (Snapshot snapshot : snapshots)
+			if (clazz.isInstance(snapshot._entity) && filter.accept(clazz.cast(snapshot._entity)))
+				return true;
+		
+		return false;
+	}
+	
+	// must be called while holding _pending
+	private boolean waitForInFlight()
+	{
+		try
+		{
+			_pending.wait();
+			
+			return false;
+		}
+		catch (InterruptedException e)
+		{
+			return true;
+		}
+	}
+	
+	private void flush()
+	{
+		// only a single thread flushes the whole queue at once, the rest of them would just wait anyway
+		_flushLock.lock();
+		try
+		{
+			final long begin = System.currentTimeMillis();
+			
+			for (List<Snapshot> batch; !(batch = removeBatch()).isEmpty();)
+				storeAndRelease(batch);
+			
+			_lastFlushDuration = System.currentTimeMillis() - begin;
+		}
+		finally
+		{
+			_flushLock.unlock();
+		}
+	}
+	
+	private List<Snapshot> removeBatch()
+	{
+		final List<Snapshot> batch = new ArrayList<Snapshot>();
+		
+		synchronized (_pending)
+		{
+			for (Iterator<Map.Entry<EntityKey, Snapshot>> it = _pending.entrySet().iterator(); it.hasNext()
+					&& batch.size() < DatabaseConfig.WRITE_BEHIND_BATCH_SIZE;)
+			{
+				final Map.Entry<EntityKey, Snapshot> entry = it.next();
+				
+				// the previous snapshot is still being written, this one will be stored by the next flush
+				if (_inFlight.containsKey(entry.getKey()))
+					continue;
+				
+				batch.add(entry.getValue());
+				it.remove();
+				
+				_inFlight.put(entry.getKey(), entry.getValue());
+			}
+		}
+		
+		return batch;
+	}
+	
+	private void storeAndRelease(List<Snapshot> batch)
+	{
+		try
+		{
+			storeBatch(batch);
+		}
+		finally
+		{
+			synchronized (_pending)
+			{
+				for (Snapshot snapshot : batch)
+					_inFlight.remove(keyOf(snapshot._entity));
+				
+				_pending.notifyAll();
+			}
+		}
+	}
+	
+	private void storeBatch(List<Snapshot> batch)
+	{
+		final long begin = System.nanoTime();
+		
+		try
+		{
+			final List<L2DBEntity> merged = new ArrayList<L2DBEntity>(batch.size());
+			final List<L2DBEntity> removed = new ArrayList<L2DBEntity>();
+			
+			for (Snapshot snapshot : batch)
+				(snapshot._removal ? removed : merged).add(snapshot._entity);
+			
+			L2Database.mergeAndRemoveAll(merged, removed);
+			
+			_stored.addAndGet(batch.size());
+		}
+		catch (RuntimeException e)
+		{
+			_log.warn("WriteBehindQueue: Storing a batch of " + batch.size()
+					+ " entities failed, retrying them one by one.", e);
+			
+			// a single broken entity shouldn't prevent storing the rest
+			for (Snapshot snapshot : batch)
+			{
+				try
+				{
+					final List<L2DBEntity> single = Collections.singletonList(snapshot._entity);
+					final List<L2DBEntity> none = Collections.emptyList();
+					
+					L2Database.mergeAndRemoveAll(snapshot._removal ? none : single, snapshot._removal ? single : none);
+					
+					_stored.incrementAndGet();
+				}
+				catch (RuntimeException e2)
+				{
+					_log.warn("WriteBehindQueue: Storing " + snapshot._entity.toString(80)
+							+ " failed, kept as dead letter.", e2);
+					
+					_failed.incrementAndGet();
+					
+					deadLetter(snapshot);
+				}
+			}
+		}
+		finally
+		{
+			_batches.incrementAndGet();
+			
+			RunnableStatsManager.handleStats(WriteBehindQueue.class, "storeBatch(List)", System.nanoTime() - begin);
+		}
+	}
+	
+	private void deadLetter(Snapshot snapshot)
+	{
+		final EntityKey key = keyOf(snapshot._entity);
+		
+		synchronized (_pending)
+		{
+			// a newer snapshot is already queued, which will be stored instead
+			if (!_pending.containsKey(key))
+				_deadLetters.put(key, snapshot);
+		}
+	}
+	
+	public int getPendingCount()
+	{
+		synchronized (_pending)
+		{
+			return _pending.size();
+		}
+	}
+	
+	/**
+	 * @return the number of snapshots, which couldn't be stored, and weren't replaced since
+	 */
+	public int getDeadLetterCount()
+	{
+		synchronized (_pending)
+		{
+			return _deadLetters.size();
+		}
+	}
+	
+	public List<String> getStats()
+	{
+		final List<String> list = new ArrayList<String>();
+		
+		list.add("WriteBehindQueue:");
+		list.add("=================================================");
+		list.add("\tPending: ............ " + getPendingCount());
+		list.add("\tPeak pending: ....... " + _peakPending.get());
+		list.add("\tQueued: ............. " + _enqueued.get());
+		list.add("\tCoalesced: .......... " + _coalesced.get());
+		list.add("\tStored: ............. " + _stored.get());
+		list.add("\tFailed: ............. " + _failed.get());
+		list.add("\tDead letters: ....... " + getDeadLetterCount());
+		list.add("\tBatches: ............ " + _batches.get());
+		list.add("\tThrottled stores: ... " + _throttled.get());
+		list.add("\tLast flush: ......... " + _lastFlushDuration + " msec");
+		
+		return list;
+	}
+}
@@ -19,12 +19,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.l2jfree.gameserver.config.SystemConfig;
 import com.l2jfree.gameserver.sql.PlayerDB;
 import com.l2jfree.sql.L2Database;
+import com.l2jfree.util.concurrent.L2ThreadPool;
 import com.l2jfree.util.logging.L2Logger;
 
 /**
@@ -56,6 +64,8 @@ public final class IdFactory
 		return SingletonHolder.INSTANCE;
 	}
 	
+	private static final long COMPACTION_PERIOD = 5 * 60 * 1000;
+	
 	private static final String[] REMOVE_LEFTOVER_QUERIES = { };
 	private static final String[] REMOVE_EXPIRED_QUERIES = { };
 	
@@ -123,6 +133,18 @@ public final class IdFactory
 		for (IdRange idRange : IdRange.values())
 			_rangedObjectIdFactories[idRange.ordinal()] = new RangedObjectIdFactory(idRange);
 		
+		L2ThreadPool.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run()
+			{
+				for (RangedPersistentIdFactory factory : _rangedPersistentIdFactories)
+					factory.releaseAbandonedChunks();
+				
+				for (RangedObjectIdFactory factory : _rangedObjectIdFactories)
+					factory.compactAndRelease();
+			}
+		}, COMPACTION_PERIOD, COMPACTION_PERIOD);
+		
 		_log.info("IdFactory: Initialized.");
 	}
 	
@@ -187,124 +209,426 @@ public final class IdFactory
 		_log.info("IdFactory: Removed " + removed + " expired entries from database.");
 	}
 	
+	/**
+	 * Keeps track of the occupied IDs of an {@link IdRange} in a paged bitmap, that is modified
+	 * only via CAS operations.<br>
+	 * <br>
+	 * Every thread reserves a whole word (64 IDs) at once, and hands out the IDs from it without any
+	 * further synchronization. The reserved words are found by a rolling cursor, so released IDs are
+	 * reused only after the cursor wraps around, or after a compaction resets it. The unused IDs of the
+	 * threads already terminated are given back periodically.
+	 */
 	private static abstract class RangedIdFactory
 	{
+		private static final int WORDS_PER_PAGE_SHIFT = 10;
+		private static final int WORDS_PER_PAGE = 1 << WORDS_PER_PAGE_SHIFT;
+		
 		protected final IdRange _idRange;
 		
-		protected final BitSet _occupiedBits = new BitSet();
-		protected volatile int _lastReturnedBitIndex = 0;
+		private final int _bitCount;
+		private final int _wordCount;
+		
+		/** Pages are created on demand, as most of the ranges are never used */
+		private final AtomicReferenceArray<AtomicLongArray> _pages;
+		private final AtomicInteger _cursor = new AtomicInteger();
+		
+		private final ConcurrentLinkedQueue<Chunk> _allChunks = new ConcurrentLinkedQueue<Chunk>();
+		
+		private final ThreadLocal<Chunk> _chunks = new ThreadLocal<Chunk>() {
+			@Override
+			protected Chunk initialValue()
+			{
+				final Chunk chunk = new Chunk();
+				
+				_allChunks.add(chunk);
+				
+				return chunk;
+			}
+		};
+		
+		private static final class Chunk
+		{
+			/** Only the owner accesses the other fields, while it's alive */
+			private final Thread _owner = Thread.currentThread();
+			private int _wordIndex;
+			private long _freeBits;
+		}
 		
 		private RangedIdFactory(IdRange idRange)
 		{
 			_idRange = idRange;
+			
+			_bitCount = idRange.toBitIndex(idRange._maximumAllowedId) + 1;
+			_wordCount = (_bitCount + 63) >>> 6;
+			
+			_pages = new AtomicReferenceArray<AtomicLongArray>((_wordCount + WORDS_PER_PAGE - 1) >>> WORDS_PER_PAGE_SHIFT);
+			
+			// the bits after the end of the range are never available
+			for (int bitIndex = _bitCount; bitIndex < _wordCount << 6; bitIndex++)
+				setBit(bitIndex);
+		}
+		
+		private AtomicLongArray getPage(int wordIndex)
+		{
+			final int pageIndex = wordIndex >>> WORDS_PER_PAGE_SHIFT;
+			
+			final AtomicLongArray page = _pages.get(pageIndex);
+			
+			if (page != null)
+				return page;
+			
+			_pages.compareAndSet(pageIndex, null, new AtomicLongArray(WORDS_PER_PAGE));
+			
+			return _pages.get(pageIndex);
+		}
+		
+		/**
+		 * @return true if the bit was set by this call, false if it was already set
+		 */
+		protected final boolean setBit(int bitIndex)
+		{
+			final AtomicLongArray page = getPage(bitIndex >>> 6);
+			final int index = (bitIndex >>> 6) & (WORDS_PER_PAGE - 1);
+			final long mask = 1L << bitIndex;
+			
+			for (;;)
+			{
+				final long word = page.get(index);
+				
+				if ((word & mask) != 0)
+					return false;
+				
+				if (page.compareAndSet(index, word, word | mask))
+					return true;
+			}
+		}
+		
+		/**
+		 * @return true if the bit was cleared by this call, false if it was already clear
+		 */
+		protected final boolean clearBit(int bitIndex)
+		{
+			final AtomicLongArray page = getPage(bitIndex >>> 6);
+			final int index = (bitIndex >>> 6) & (WORDS_PER_PAGE - 1);
+			final long mask = 1L << bitIndex;
+			
+			for (;;)
+			{
+				final long word = page.get(index);
+				
+				if ((word & mask) == 0)
+					return false;
+				
+				if (page.compareAndSet(index, word, word & ~mask))
+					return true;
+			}
 		}
 		
-		public synchronized final int getNextId()
+		/**
+		 * @return true if any of the given bits was cleared by this call
+		 */
+		private boolean clearBits(int wordIndex, long mask)
 		{
-			final int bitIndex = _occupiedBits.nextClearBit(_lastReturnedBitIndex);
-			final int id = _idRange.toId(bitIndex);
+			final AtomicLongArray page = getPage(wordIndex);
+			final int index = wordIndex & (WORDS_PER_PAGE - 1);
 			
-			if (!_idRange.isInRange(id, "requesting"))
+			for (;;)
 			{
-				// FIXME there are no more free ids
+				final long word = page.get(index);
+				
+				if ((word & mask) == 0)
+					return false;
+				
+				if (page.compareAndSet(index, word, word & ~mask))
+					return true;
 			}
+		}
+		
+		public final int getNextId()
+		{
+			final Chunk chunk = _chunks.get();
+			
+			if (chunk._freeBits == 0)
+				reserveChunk(chunk);
+			
+			final long lowestBit = Long.lowestOneBit(chunk._freeBits);
+			chunk._freeBits &= ~lowestBit;
 			
-			_occupiedBits.set(bitIndex);
-			_lastReturnedBitIndex = Math.max(bitIndex, _occupiedBits.length() - 1);
-			return id;
+			return _idRange.toId((chunk._wordIndex << 6) + Long.numberOfTrailingZeros(lowestBit));
+		}
+		
+		/**
+		 * Marks every free bit of the next non-full word as occupied, and passes them to the chunk.
+		 */
+		private void reserveChunk(Chunk chunk)
+		{
+			for (int i = 0; i < _wordCount; i++)
+			{
+				final int wordIndex = (_cursor.getAndIncrement() & Integer.MAX_VALUE) % _wordCount;
+				
+				final AtomicLongArray page = getPage(wordIndex);
+				final int index = wordIndex & (WORDS_PER_PAGE - 1);
+				
+				for (long word; (word = page.get(index)) != -1L;)
+				{
+					if (page.compareAndSet(index, word, -1L))
+					{
+						chunk._wordIndex = wordIndex;
+						chunk._freeBits = ~word;
+						return;
+					}
+				}
+			}
+			
+			_log.warn("IdFactory: there are no more free " + _idRange + " IDs!");
+			throw new IllegalStateException("IdFactory: there are no more free " + _idRange + " IDs!");
+		}
+		
+		/**
+		 * Gives back the reserved, but never used IDs of the terminated threads. A terminated thread
+		 * can't touch its chunk anymore, and its termination makes its last writes visible.
+		 */
+		public final void releaseAbandonedChunks()
+		{
+			for (Iterator<Chunk> it = _allChunks.iterator(); it.hasNext();)
+			{
+				final Chunk chunk = it.next();
+				
+				if (chunk._owner.isAlive())
+					continue;
+				
+				it.remove();
+				
+				if (chunk._freeBits != 0)
+					clearBits(chunk._wordIndex, chunk._freeBits);
+			}
+		}
+		
+		/**
+		 * Moves the cursor back to the lowest non-full word, so the freed IDs are reused before the
+		 * ones never used, and the occupied part of the range stays compact.
+		 */
+		protected final void compact()
+		{
+			for (int wordIndex = 0; wordIndex < _wordCount; wordIndex++)
+			{
+				final AtomicLongArray page = _pages.get(wordIndex >>> WORDS_PER_PAGE_SHIFT);
+				
+				if (page == null || page.get(wordIndex & (WORDS_PER_PAGE - 1)) != -1L)
+				{
+					_cursor.set(wordIndex);
+					return;
+				}
+			}
 		}
 	}
 	
-	// LOW compaction capability
 	private static final class RangedPersistentIdFactory extends RangedIdFactory
 	{
+		/** Amount of concurrently loaded slices per column */
+		private static final int LOAD_SLICES = 4;
+		
 		private RangedPersistentIdFactory(IdRange idRange) throws SQLException
 		{
 			super(idRange);
 			
-			int loaded = 0;
+			final AtomicInteger loaded = new AtomicInteger();
+			final AtomicReference<SQLException> failure = new AtomicReference<SQLException>();
+			
+			final ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+			
+			for (String tablesAndColumns : _idRange.getTablesAndColumns())
+			{
+				final String[] split = StringUtils.split(tablesAndColumns, ".", 2);
+				
+				final String table = split[0];
+				final String column = split[1];
+				
+				final long[] bounds = getBounds(table, column);
+				
+				if (bounds == null)
+					continue;
+				
+				final long sliceSize = (bounds[1] - bounds[0]) / LOAD_SLICES + 1;
+				
+				for (long sliceStart = bounds[0]; sliceStart <= bounds[1]; sliceStart += sliceSize)
+				{
+					final long from = sliceStart;
+					final long to = Math.min(sliceStart + sliceSize - 1, bounds[1]);
+					
+					tasks.add(new Runnable() {
+						@Override
+						public void run()
+						{
+							try
+							{
+								loaded.addAndGet(loadIds(table, column, from, to));
+							}
+							catch (SQLException e)
+							{
+								failure.compareAndSet(null, e);
+							}
+						}
+					});
+				}
+			}
+			
+			L2ThreadPool.invokeAllLongRunning(tasks);
+			
+			if (failure.get() != null)
+				throw failure.get();
 			
+			_log.info("IdFactory: Loaded " + loaded + " " + _idRange.name().replaceFirst("S$", "")
+					+ " IDs from database.");
+		}
+		
+		/**
+		 * @return the lowest and the highest ID in the given column, or null if the table is empty
+		 */
+		private static long[] getBounds(String table, String column) throws SQLException
+		{
 			Connection con = null;
 			try
 			{
 				con = L2Database.getConnection();
 				
 				final Statement st = con.createStatement();
+				final ResultSet rs = st.executeQuery("SELECT MIN(" + column + "), MAX(" + column + ") FROM " + table);
 				
-				for (String tablesAndColumns : _idRange.getTablesAndColumns())
+				long[] bounds = null;
+				if (rs.next())
 				{
-					final String[] split = StringUtils.split(tablesAndColumns, ".", 2);
+					final long min = rs.getLong(1);
 					
-					final String table = split[0];
-					final String column = split[1];
-					
-					final ResultSet rs = st.executeQuery("SELECT " + column + " FROM " + table);
+					if (!rs.wasNull())
+						bounds = new long[] { min, rs.getLong(2) };
+				}
+				
+				rs.close();
+				st.close();
+				
+				return bounds;
+			}
+			finally
+			{
+				L2Database.close(con);
+			}
+		}
+		
+		private int loadIds(String table, String column, long from, long to) throws SQLException
+		{
+			int loaded = 0;
+			
+			Connection con = null;
+			try
+			{
+				con = L2Database.getConnection();
+				
+				final PreparedStatement ps =
+						con.prepareStatement("SELECT " + column + " FROM " + table + " WHERE " + column
+								+ " BETWEEN ? AND ?");
+				ps.setLong(1, from);
+				ps.setLong(2, to);
+				
+				final ResultSet rs = ps.executeQuery();
+				
+				while (rs.next())
+				{
+					final int id = rs.getInt(1);
 					
-					while (rs.next())
-					{
-						final int id = rs.getInt(1);
-						
-						loadId(id);
-						
-						loaded++;
-					}
+					loadId(id);
 					
-					rs.close();
+					loaded++;
 				}
 				
-				st.close();
+				rs.close();
+				ps.close();
 			}
 			finally
 			{
 				L2Database.close(con);
 			}
 			
-			_log.info("IdFactory: Loaded " + loaded + " " + _idRange.name().replaceFirst("S$", "")
-					+ " IDs from database.");
+			return loaded;
 		}
 		
-		private synchronized void loadId(final int id)
+		private void loadId(final int id)
 		{
 			if (!_idRange.isInRange(id, "loading"))
 				return;
 			
-			final int bitIndex = _idRange.toBitIndex(id);
-			
-			if (_occupiedBits.get(bitIndex))
-			{
+			if (!setBit(_idRange.toBitIndex(id)))
 				_log.warn("IdFactory: loading of ID: " + id + " failed, because it's already loaded");
-				return;
-			}
-			
-			_occupiedBits.set(bitIndex);
-			_lastReturnedBitIndex = Math.max(bitIndex, _occupiedBits.length() - 1);
 		}
 	}
 	
 	private static final class RangedObjectIdFactory extends RangedIdFactory
 	{
+		private static final class QuarantinedId
+		{
+			private final int _bitIndex;
+			private final long _releaseTime;
+			
+			private QuarantinedId(int bitIndex, long releaseTime)
+			{
+				_bitIndex = bitIndex;
+				_releaseTime = releaseTime;
+			}
+		}
+		
+		private final ConcurrentLinkedQueue<QuarantinedId> _quarantine = new ConcurrentLinkedQueue<QuarantinedId>();
+		
 		private RangedObjectIdFactory(IdRange idRange)
 		{
 			super(idRange);
 		}
 		
-		public synchronized void releaseId(final int id)
+		public void releaseId(final int id)
 		{
 			if (!_idRange.isInRange(id, "releasing"))
 				return;
 			
 			final int bitIndex = _idRange.toBitIndex(id);
 			
-			if (!_occupiedBits.get(bitIndex))
+			if (SystemConfig.OBJECT_ID_QUARANTINE > 0)
 			{
-				_log.warn("IdFactory: releasing of ID: " + id + " failed, because it's already free");
-				return;
+				// the ID might still be known by the clients, so it's not reused immediately
+				_quarantine.add(new QuarantinedId(bitIndex, System.currentTimeMillis()));
+				
+				releaseQuarantined();
 			}
+			else
+				free(bitIndex);
+		}
+		
+		public void releaseQuarantined()
+		{
+			final long expiry = System.currentTimeMillis() - SystemConfig.OBJECT_ID_QUARANTINE;
+			
+			for (QuarantinedId quarantined; (quarantined = _quarantine.peek()) != null;)
+			{
+				if (quarantined._releaseTime > expiry)
+					break;
+				
+				if (_quarantine.remove(quarantined))
+					free(quarantined._bitIndex);
+			}
+		}
+		
+		private void free(int bitIndex)
+		{
+			if (!clearBit(bitIndex))
+				_log.warn("IdFactory: releasing of ID: " + _idRange.toId(bitIndex)
+						+ " failed, because it's already free");
+		}
+		
+		public void compactAndRelease()
+		{
+			releaseQuarantined();
+			
+			releaseAbandonedChunks();
 			
-			_occupiedBits.clear(bitIndex);
-			// _lastReturnedBitIndex is unmodified for a purpose -> we don't want to reuse this id yet
-			// this is done only for the - almost impossible occasion - that we run out if IDs
-			// so we have to restart from beginning :)
+			compact();
 		}
 	}
 	
@@ -15,12 +15,16 @@
 package com.l2jfree.gameserver.util;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.l2jfree.gameserver.gameobjects.L2Object;
+import com.l2jfree.gameserver.gameobjects.ObjectPosition;
+import com.l2jfree.gameserver.world.L2World;
 import com.l2jfree.util.L2Collections;
 import com.l2jfree.util.L2FastSet;
 import com.l2jfree.util.concurrent.AbstractPeriodicTaskManager;
 import com.l2jfree.util.concurrent.FIFOSimpleExecutableQueue;
+import com.l2jfree.util.concurrent.L2ThreadPool;
 import com.l2jfree.util.concurrent.RunnableStatsManager;
 import com.l2jfree.util.logging.L2Logger;
 
@@ -41,14 +45,32 @@ public final class MovementController extends AbstractPeriodicTaskManager
 		return SingletonHolder.INSTANCE;
 	}
 	
+	/** Below this amount of moving objects, the tick isn't worth splitting up */
+	private static final int PARALLEL_THRESHOLD = 256;
+	
 	private final L2FastSet<L2Object> _movingObjects = new L2FastSet<L2Object>().setShared(true);
 	
 	private final MovementRevalidator _movementRevalidator = new MovementRevalidator();
 	private final MovementFinisher _movementFinisher = new MovementFinisher();
 	
+	private final Shard[] _shards;
+	
+	private volatile int _lastMoverCount;
+	private volatile int _peakMoverCount;
+	private volatile long _ticks;
+	private volatile long _parallelTicks;
+	private volatile long _lastTickDuration;
+	private volatile long _peakTickDuration;
+	private volatile long _totalTickDuration;
+	
 	private MovementController()
 	{
 		super(100);
+		
+		_shards = new Shard[Math.max(1, Runtime.getRuntime().availableProcessors())];
+		
+		for (int i = 0; i < _shards.length; i++)
+			_shards[i] = new Shard();
 	}
 	
 	public void startMovement(L2Object obj)
@@ -63,17 +85,57 @@ public final class MovementController extends AbstractPeriodicTaskManager
 		_movementFinisher.remove(obj);
 	}
 	
+	/**
+	 * Objects of the same world region always end up in the same shard, so the shards touch mostly
+	 * disjoint parts of the world.
+	 */
+	private Shard getShard(L2Object obj)
+	{
+		final ObjectPosition pos = obj.getPosition();
+		
+		final int tileX = (pos.getX() >> L2World.SHIFT_BY) + L2World.OFFSET_X;
+		final int tileY = (pos.getY() >> L2World.SHIFT_BY) + L2World.OFFSET_Y;
+		
+		return _shards[(tileX * 31 + tileY) % _shards.length];
+	}
+	
 	@Override
 	public void run()
 	{
-		final ArrayList<L2Object> arrivedObjects = L2Collections.newArrayList();
+		final long begin = System.nanoTime();
 		
+		int moverCount = 0;
 		for (L2Object obj : _movingObjects)
-			obj.getMovement().updatePosition();
+		{
+			getShard(obj).add(obj);
+			moverCount++;
+		}
 		
-		for (L2Object obj : _movingObjects)
-			if (obj.getMovement().isArrived())
-				arrivedObjects.add(obj);
+		// update the positions - in parallel, if there are enough moving objects
+		final boolean parallel = moverCount >= PARALLEL_THRESHOLD && _shards.length > 1;
+		if (parallel)
+		{
+			final ArrayList<Runnable> tasks = L2Collections.newArrayList();
+			
+			for (Shard shard : _shards)
+				if (!shard.isEmpty())
+					tasks.add(shard);
+			
+			L2ThreadPool.invokeAll(tasks);
+			
+			L2Collections.recycle(tasks);
+		}
+		else
+		{
+			for (Shard shard : _shards)
+				shard.run();
+		}
+		
+		final ArrayList<L2Object> arrivedObjects = L2Collections.newArrayList();
+		
+		// apply the cell and region changes - sequentially, as they modify the world
+		for (Shard shard : _shards)
+			shard.finish(arrivedObjects);
 		
 		// remove all arrived objects from moving
 		_movingObjects.removeAll(arrivedObjects);
@@ -85,6 +147,106 @@ public final class MovementController extends AbstractPeriodicTaskManager
 		_movementRevalidator.executeAll(_movingObjects);
 		
 		L2Collections.recycle(arrivedObjects);
+		
+		final long duration = System.nanoTime() - begin;
+		
+		_lastMoverCount = moverCount;
+		_peakMoverCount = Math.max(_peakMoverCount, moverCount);
+		_ticks++;
+		if (parallel)
+			_parallelTicks++;
+		_lastTickDuration = duration;
+		_peakTickDuration = Math.max(_peakTickDuration, duration);
+		_totalTickDuration += duration;
+	}
+	
+	/**
+	 * The moving objects of some world regions, updated by a single thread during a tick.
+	 */
+	private static final class Shard implements Runnable
+	{
+		private final ArrayList<L2Object> _movers = new ArrayList<L2Object>();
+		private final ArrayList<L2Object> _arrived = new ArrayList<L2Object>();
+		private final ArrayList<L2Object> _handedOff = new ArrayList<L2Object>();
+		
+		public void add(L2Object obj)
+		{
+			_movers.add(obj);
+		}
+		
+		public boolean isEmpty()
+		{
+			return _movers.isEmpty();
+		}
+		
+		@Override
+		public void run()
+		{
+			for (int i = 0; i < _movers.size(); i++)
+			{
+				final L2Object obj = _movers.get(i);
+				final ObjectPosition pos = obj.getPosition();
+				
+				try
+				{
+					final int oldCellX = L2World.getCellX(pos.getX());
+					final int oldCellY = L2World.getCellY(pos.getY());
+					
+					obj.getMovement().updatePosition();
+					
+					if (oldCellX != L2World.getCellX(pos.getX()) || oldCellY != L2World.getCellY(pos.getY()))
+						_handedOff.add(obj);
+					
+					if (obj.getMovement().isArrived())
+						_arrived.add(obj);
+				}
+				catch (RuntimeException e)
+				{
+					_log.warn("Exception in updating position:", e);
+				}
+			}
+		}
+		
+		public void finish(ArrayList<L2Object> arrivedObjects)
+		{
+			for (int i = 0; i < _handedOff.size(); i++)
+			{
+				try
+				{
+					_handedOff.get(i).getPosition().updateWorldPosition();
+				}
+				catch (RuntimeException e)
+				{
+					_log.warn("Exception in updating world position:", e);
+				}
+			}
+			
+			arrivedObjects.addAll(_arrived);
+			
+			_movers.clear();
+			_arrived.clear();
+			_handedOff.clear();
+		}
+	}
+	
+	public List<String> getStats()
+	{
+		final long ticks = _ticks;
+		
+		final List<String> list = new ArrayList<String>();
+		
+		list.add("MovementController:");
+		list.add("=================================================");
+		list.add("\tShards: ............. " + _shards.length);
+		list.add("\tMovers: ............. " + _lastMoverCount);
+		list.add("\tPeak movers: ........ " + _peakMoverCount);
+		list.add("\tTicks: .............. " + ticks);
+		list.add("\tParallel ticks: ..... " + _parallelTicks);
+		list.add("\tLast tick: .......... " + _lastTickDuration / 1000 + " usec");
+		list.add("\tPeak tick: .......... " + _peakTickDuration / 1000 + " usec");
+		list.add("\tAverage tick: ....... " + (ticks == 0 ? 0 : _totalTickDuration / ticks / 1000) + " usec");
+		
+		return list;
 	}
 	
 	private final class MovementRevalidator extends FIFOSimpleExecutableQueue<L2Object>
@@ -23,8 +23,7 @@ import com.l2jfree.gameserver.gameobjects.L2Object;
 import com.l2jfree.gameserver.gameobjects.L2Player;
 import com.l2jfree.gameserver.util.ObjectId;
 import com.l2jfree.gameserver.util.PersistentId;
-import com.l2jfree.util.concurrent.L2EntityMap;
-import com.l2jfree.util.concurrent.L2ReadWriteEntityMap;
+import com.l2jfree.util.concurrent.ConcurrentLookupTable;
 import com.l2jfree.util.logging.L2Logger;
 
 public final class L2World
@@ -49,6 +48,13 @@ public final class L2World
 	public static final int REGIONS_Y = (MAP_MAX_Y >> SHIFT_BY) + OFFSET_Y;
 	//public static final int REGIONS_Z = (MAP_MAX_Z >> SHIFT_BY_FOR_Z) + OFFSET_Z;
 	
+	public static final int CELL_SHIFT_BY = 9;
+	public static final int CELLS_PER_REGION_SHIFT_BY = SHIFT_BY - CELL_SHIFT_BY;
+	public static final int CELLS_PER_REGION = 1 << CELLS_PER_REGION_SHIFT_BY;
+	
+	public static final int CELL_OFFSET_X = OFFSET_X << CELLS_PER_REGION_SHIFT_BY;
+	public static final int CELL_OFFSET_Y = OFFSET_Y << CELLS_PER_REGION_SHIFT_BY;
+	
 	private static final L2WorldRegion[][] _worldRegions;
 	
 	/**
@@ -98,9 +104,59 @@ public final class L2World
 	}
 	
 	/**
-	 * Contains all the objects in the world.
+	 * @param x coordinate
+	 * @return the horizontal index of the cell at the given coordinate
+	 */
+	public static int getCellX(int x)
+	{
+		return (x >> CELL_SHIFT_BY) + CELL_OFFSET_X;
+	}
+	
+	/**
+	 * @param y coordinate
+	 * @return the vertical index of the cell at the given coordinate
+	 */
+	public static int getCellY(int y)
+	{
+		return (y >> CELL_SHIFT_BY) + CELL_OFFSET_Y;
+	}
+	
+	/**
+	 * @param x coordinate
+	 * @param y coordinate
+	 * @return a cell at the given coordinates, created if necessary
+	 * @throws ArrayIndexOutOfBoundsException if there is no valid region at the given coordinates
+	 */
+	public static L2WorldCell getCell(int x, int y)
+	{
+		final int cellX = getCellX(x);
+		final int cellY = getCellY(y);
+		
+		return getRegion(x, y).getCell(cellX & (CELLS_PER_REGION - 1), cellY & (CELLS_PER_REGION - 1));
+	}
+	
+	/**
+	 * @param cellX
+	 * @param cellY
+	 * @return a cell if the parameters define a valid cell, that has ever been occupied, null
+	 *         otherwise
+	 */
+	public static L2WorldCell getExistingCell(int cellX, int cellY)
+	{
+		final L2WorldRegion region = getValidRegion(cellX >> CELLS_PER_REGION_SHIFT_BY,
+				cellY >> CELLS_PER_REGION_SHIFT_BY);
+		
+		if (region == null)
+			return null;
+		
+		return region.getExistingCell(cellX & (CELLS_PER_REGION - 1), cellY & (CELLS_PER_REGION - 1));
+	}
+	
+	/**
+	 * Contains all the objects in the world, keyed by the raw value of their object id, so lookups
+	 * neither box the key nor take a lock.
 	 */
-	private static final L2EntityMap<ObjectId, L2Object> _objects = new L2ReadWriteEntityMap<ObjectId, L2Object>(50000);
+	private static final ConcurrentLookupTable<L2Object> _objects = new ConcurrentLookupTable<L2Object>(50000);
 	private static final FastMap<String, L2Player> _players = new FastMap<String, L2Player>(1000).setShared(true);
 	private static final Collection<L2Player> _unmodifiablePlayers = _players.unmodifiable().values();
 	private static final FastMap<PersistentId, L2Player> _playersByPersistentId = new FastMap<PersistentId, L2Player>(
@@ -109,7 +165,11 @@ public final class L2World
 	// TODO check replace
 	public static void addObject(L2Object obj)
 	{
-		_objects.add(obj);
+		final L2Object oldObj = _objects.putIfAbsent(obj.getObjectId().intValue(), obj);
+		
+		if (oldObj != null && oldObj != obj)
+			throw new IllegalStateException("[" + oldObj + "] replaced with [" + obj + "] - objectId: "
+					+ obj.getObjectId() + "!");
 		
 		if (obj instanceof L2Player)
 		{
@@ -122,7 +182,7 @@ public final class L2World
 	
 	public static void removeObject(L2Object obj)
 	{
-		_objects.remove(obj);
+		_objects.remove(obj.getObjectId().intValue(), obj);
 		
 		if (obj instanceof L2Player)
 		{
@@ -143,6 +203,15 @@ public final class L2World
 	}
 	
 	public static L2Object findObject(ObjectId objectId)
+	{
+		return findObject(objectId.intValue());
+	}
+	
+	/**
+	 * @param objectId the raw value of an object id, as it's received from the clients
+	 * @return the object with the given object id, or null if there is none
+	 */
+	public static L2Object findObject(int objectId)
 	{
 		return _objects.get(objectId);
 	}
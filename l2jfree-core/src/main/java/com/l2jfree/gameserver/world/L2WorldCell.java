@@ -0,0 +1,99 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.gameserver.world;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.l2jfree.gameserver.gameobjects.L2Object;
+import com.l2jfree.gameserver.util.ObjectId;
+import com.l2jfree.util.concurrent.ForEachExecutable;
+import com.l2jfree.util.concurrent.ForEachExecutor;
+import com.l2jfree.util.concurrent.L2ReadWriteEntityMap;
+
+/**
+ * A fine grained part of a {@link L2WorldRegion}, used to find the objects nearby without looking
+ * through whole regions.<br>
+ * Every change of the occupancy, and every move inside the cell increases the version of the cell,
+ * so an observer can tell which cells have to be looked at again.
+ * 
+ * @author agent
+ * @see L2WorldCellView
+ */
+public final class L2WorldCell implements ForEachExecutor<L2Object>
+{
+	private final L2ReadWriteEntityMap<ObjectId, L2Object> _objects = new L2ReadWriteEntityMap<ObjectId, L2Object>();
+	private final AtomicInteger _version = new AtomicInteger();
+	
+	protected L2WorldCell()
+	{
+	}
+	
+	public void addObject(L2Object object)
+	{
+		_objects.add(object);
+		_version.incrementAndGet();
+	}
+	
+	public void removeObject(L2Object object)
+	{
+		_objects.remove(object);
+		_version.incrementAndGet();
+	}
+	
+	/**
+	 * Called after an object of this cell changed its coordinates, even if it's about to leave the
+	 * cell.
+	 * 
+	 * @param object the moved object
+	 */
+	public void moveObject(@SuppressWarnings("unused") L2Object object)
+	{
+		_version.incrementAndGet();
+	}
+	
+	/**
+	 * @return the amount of changes of this cell
+	 */
+	public int getVersion()
+	{
+		return _version.get();
+	}
+	
+	public boolean isEmpty()
+	{
+		return _objects.isEmpty();
+	}
+	
+	/**
+	 * @return a thread-safe copy of the objects in this cell
+	 */
+	public L2Object[] getObjects()
+	{
+		return _objects.toArray(L2Object.class);
+	}
+	
+	/**
+	 * Executes the given task for each object in this cell, without copying them.<br>
+	 * <br>
+	 * NOTE: The task must not move, spawn or decay objects, as the cell is read locked meanwhile.
+	 * 
+	 * @param executable the task to be executed for each object
+	 */
+	@Override
+	public void executeForEach(ForEachExecutable<L2Object> executable)
+	{
+		_objects.executeForEach(executable);
+	}
+}
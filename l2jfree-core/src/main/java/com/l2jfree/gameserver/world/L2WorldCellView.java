@@ -0,0 +1,122 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.gameserver.world;
+
+import com.l2jfree.gameserver.gameobjects.L2Object;
+import com.l2jfree.util.ArrayBunch;
+
+/**
+ * Remembers the versions of the cells around an observer, as they were seen during its last known
+ * list update.<br>
+ * While the observer stays in place, only the cells whose objects were added, removed or moved have
+ * to be looked through again. Once the observer moves, its distance to every object changes, so
+ * then every cell is looked through.
+ * 
+ * @author agent
+ */
+public final class L2WorldCellView
+{
+	/**
+	 * The amount of cells observed in every direction - it covers the same distance as the
+	 * surrounding regions do at least.
+	 */
+	public static final int CELL_RANGE = 1 << (L2World.SHIFT_BY - L2World.CELL_SHIFT_BY);
+	
+	private static final int SIZE = 2 * CELL_RANGE + 1;
+	
+	private static final L2Object[][] EMPTY_ARRAY = new L2Object[0][];
+	
+	private int[] _versions = new int[SIZE * SIZE];
+	private int[] _newVersions = new int[SIZE * SIZE];
+	
+	private boolean _initialized = false;
+	private int _x;
+	private int _y;
+	private int _cellX;
+	private int _cellY;
+	
+	/**
+	 * Returns the objects of the cells, that has to be looked through from the given location, and
+	 * marks them as seen.
+	 * 
+	 * @param x coordinate
+	 * @param y coordinate
+	 * @param force whether every cell should be looked through
+	 * @return the objects of the new or changed cells
+	 */
+	public synchronized L2Object[][] update(int x, int y, boolean force)
+	{
+		final int cellX = L2World.getCellX(x);
+		final int cellY = L2World.getCellY(y);
+		
+		// the objects of unchanged cells are only in the same range, if the observer didn't move either
+		final boolean unchanged = _initialized && !force && x == _x && y == _y;
+		
+		final ArrayBunch<L2Object[]> result = new ArrayBunch<L2Object[]>();
+		
+		for (int dy = -CELL_RANGE; dy <= CELL_RANGE; dy++)
+		{
+			for (int dx = -CELL_RANGE; dx <= CELL_RANGE; dx++)
+			{
+				final L2WorldCell cell = L2World.getExistingCell(cellX + dx, cellY + dy);
+				final int version = cell == null ? 0 : cell.getVersion();
+				
+				_newVersions[indexOf(dx, dy)] = version;
+				
+				if (cell == null || cell.isEmpty())
+					continue;
+				
+				if (unchanged && version == getSeenVersion(cellX + dx, cellY + dy))
+					continue;
+				
+				result.add(cell.getObjects());
+			}
+		}
+		
+		final int[] tmp = _versions;
+		_versions = _newVersions;
+		_newVersions = tmp;
+		
+		_initialized = true;
+		_x = x;
+		_y = y;
+		_cellX = cellX;
+		_cellY = cellY;
+		
+		if (result.isEmpty())
+			return EMPTY_ARRAY;
+		
+		return result.moveToArray(new L2Object[result.size()][]);
+	}
+	
+	/**
+	 * @return the version of the given cell seen during the last update, or -1 if it was not observed
+	 */
+	private int getSeenVersion(int cellX, int cellY)
+	{
+		final int dx = cellX - _cellX;
+		final int dy = cellY - _cellY;
+		
+		if (Math.abs(dx) > CELL_RANGE || Math.abs(dy) > CELL_RANGE)
+			return -1;
+		
+		return _versions[indexOf(dx, dy)];
+	}
+	
+	private static int indexOf(int dx, int dy)
+	{
+		return (dy + CELL_RANGE) * SIZE + dx + CELL_RANGE;
+	}
+}
@@ -15,15 +15,19 @@
 package com.l2jfree.gameserver.world;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.l2jfree.gameserver.gameobjects.L2Object;
 import com.l2jfree.gameserver.gameobjects.ObjectPosition;
 import com.l2jfree.gameserver.gameobjects.interfaces.IL2Playable;
 import com.l2jfree.gameserver.util.ObjectId;
 import com.l2jfree.util.ArrayBunch;
+import com.l2jfree.util.Bunch;
 import com.l2jfree.util.L2Arrays;
+import com.l2jfree.util.ThreadLocalObjectPool;
 import com.l2jfree.util.concurrent.ExclusiveTask;
 import com.l2jfree.util.concurrent.FIFOSimpleExecutableQueue;
+import com.l2jfree.util.concurrent.ForEachExecutable;
 import com.l2jfree.util.concurrent.L2EntityMap;
 import com.l2jfree.util.concurrent.L2ReadWriteEntityMap;
 import com.l2jfree.util.concurrent.RunnableStatsManager;
@@ -84,7 +88,7 @@ public final class L2WorldRegion
 	 * It also means objects are removed during teleport.
 	 */
 	private final L2EntityMap<ObjectId, L2Object> _objects = new L2ReadWriteEntityMap<ObjectId, L2Object>();
-	private final L2EntityMap<ObjectId, IL2Playable> _playables = new L2ReadWriteEntityMap<ObjectId, IL2Playable>();
+	private final L2ReadWriteEntityMap<ObjectId, IL2Playable> _playables = new L2ReadWriteEntityMap<ObjectId, IL2Playable>();
 	
 	/**
 	 * @return a thread-safe copy of the objects in this region
@@ -99,6 +103,42 @@ public final class L2WorldRegion
 		return _playables.toArray(IL2Playable.class);
 	}
 	
+	/**
+	 * Contains the cells of this region, created on demand, as most of the world is never visited.
+	 */
+	private volatile AtomicReferenceArray<L2WorldCell> _cells;
+	
+	protected L2WorldCell getCell(int localX, int localY)
+	{
+		final L2WorldCell cell = getExistingCell(localX, localY);
+		
+		if (cell != null)
+			return cell;
+		
+		synchronized (this)
+		{
+			if (_cells == null)
+				_cells = new AtomicReferenceArray<L2WorldCell>(L2World.CELLS_PER_REGION * L2World.CELLS_PER_REGION);
+			
+			final int index = localY * L2World.CELLS_PER_REGION + localX;
+			
+			if (_cells.get(index) == null)
+				_cells.set(index, new L2WorldCell());
+			
+			return _cells.get(index);
+		}
+	}
+	
+	protected L2WorldCell getExistingCell(int localX, int localY)
+	{
+		final AtomicReferenceArray<L2WorldCell> cells = _cells;
+		
+		if (cells == null)
+			return null;
+		
+		return cells.get(localY * L2World.CELLS_PER_REGION + localX);
+	}
+	
 	public synchronized void addVisibleObject(L2Object object)
 	{
 		if (object instanceof IL2Playable)
@@ -180,11 +220,9 @@ public final class L2WorldRegion
 		if (active)
 		{
 			// fill up knownlists first
-			final L2Object[][] surroundingObjects = getAllSurroundingVisibleObjects2DArray();
-			
 			for (L2Object obj : visibleObject)
 				if (obj != null)
-					obj.getKnownList().updateSurroundingObjects(surroundingObjects);
+					obj.getKnownList().updateSurroundingObjects(getChangedSurroundingObjects(obj, true));
 			
 			// call object specific activation method
 			for (L2Object obj : visibleObject)
@@ -205,29 +243,30 @@ public final class L2WorldRegion
 		}
 	}
 	
-	private L2Object[][] getAllSurroundingVisibleObjects2DArray()
+	/**
+	 * @param obj the observer
+	 * @param force whether every surrounding cell should be looked through
+	 * @return the objects of the surrounding cells, that changed since the last known list update
+	 * @see L2WorldCellView
+	 */
+	private static L2Object[][] getChangedSurroundingObjects(L2Object obj, boolean force)
 	{
-		final L2Object[][] result = new L2Object[_surroundingRegions.length][];
-		
-		for (int i = 0; i < _surroundingRegions.length; i++)
-			result[i] = _surroundingRegions[i].getVisibleObjects();
+		final ObjectPosition position = obj.getPosition();
 		
-		return result;
+		return position.getCellView().update(position.getX(), position.getY(), force);
 	}
 	
 	private final FIFOSimpleExecutableQueue<L2Object> _knownListUpdater = new FIFOSimpleExecutableQueue<L2Object>() {
 		@Override
 		protected void removeAndExecuteAll()
 		{
-			final L2Object[][] surroundingObjects = getAllSurroundingVisibleObjects2DArray();
-			
 			for (L2Object obj; (obj = removeFirst()) != null;)
 			{
 				final long begin = System.nanoTime();
 				
 				try
 				{
-					obj.getKnownList().updateSurroundingObjects(surroundingObjects);
+					obj.getKnownList().updateSurroundingObjects(getChangedSurroundingObjects(obj, false));
 				}
 				catch (RuntimeException e)
 				{
@@ -244,119 +283,306 @@ public final class L2WorldRegion
 	public void updateKnownList(L2Object obj, boolean force)
 	{
 		if (force)
-			obj.getKnownList().updateSurroundingObjects(getAllSurroundingVisibleObjects2DArray());
+			obj.getKnownList().updateSurroundingObjects(getChangedSurroundingObjects(obj, true));
 		else
 			_knownListUpdater.execute(obj);
 	}
 	
-	public static L2Object[] getVisibleObjectsAround2D(L2Object object, long radius)
+	/**
+	 * Filters the objects of the visited cells and passes the ones in range to the actual receiver.
+	 * Pooled per thread, so range queries do not create garbage.
+	 */
+	private static final class RangeFilter implements ForEachExecutable<L2Object>
+	{
+		private L2Object _object;
+		private long _x;
+		private long _y;
+		private long _z;
+		private long _sqRadius;
+		private boolean _checkZ;
+		private ForEachExecutable<? super L2Object> _executable;
+		private Bunch<? super L2Object> _result;
+		
+		@Override
+		public void execute(L2Object obj)
+		{
+			if (obj == null)
+				return;
+			
+			final ObjectPosition objPosition = obj.getPosition();
+			
+			if (obj == _object || !objPosition.isVisible())
+				return;
+			
+			final long dx = objPosition.getX() - _x;
+			final long dy = objPosition.getY() - _y;
+			final long dz = _checkZ ? objPosition.getZ() - _z : 0;
+			
+			if (dx * dx + dy * dy + dz * dz > _sqRadius)
+				return;
+			
+			if (_executable != null)
+				_executable.execute(obj);
+			else
+				_result.add(obj);
+		}
+		
+		private void clear()
+		{
+			_object = null;
+			_executable = null;
+			_result = null;
+		}
+	}
+	
+	private static final ThreadLocalObjectPool<RangeFilter> RANGE_FILTERS = new ThreadLocalObjectPool<RangeFilter>() {
+		@Override
+		protected void reset(RangeFilter filter)
+		{
+			filter.clear();
+		}
+		
+		@Override
+		protected RangeFilter create()
+		{
+			return new RangeFilter();
+		}
+	};
+	
+	private static void forEachVisibleObjectAround(L2Object object, long radius, boolean checkZ,
+			ForEachExecutable<? super L2Object> executable, Bunch<? super L2Object> result)
 	{
 		if (object == null)
-			return L2Object.EMPTY_ARRAY;
+			return;
 		
 		final ObjectPosition objectPosition = object.getPosition();
 		final L2WorldRegion selfRegion = objectPosition.getWorldRegion();
 		
 		if (selfRegion == null)
-			return L2Object.EMPTY_ARRAY;
+			return;
 		
-		final long x = objectPosition.getX();
-		final long y = objectPosition.getY();
-		final long sqRadius = radius * radius;
+		final RangeFilter filter = RANGE_FILTERS.get();
+		try
+		{
+			filter._object = object;
+			filter._x = objectPosition.getX();
+			filter._y = objectPosition.getY();
+			filter._z = objectPosition.getZ();
+			filter._sqRadius = radius * radius;
+			filter._checkZ = checkZ;
+			filter._executable = executable;
+			filter._result = result;
+			
+			selfRegion.forEachSurroundingCell(filter._x, filter._y, radius, filter);
+		}
+		finally
+		{
+			RANGE_FILTERS.store(filter);
+		}
+	}
+	
+	/**
+	 * Visits the cells overlapping the given square, as long as they belong to the surrounding
+	 * regions.
+	 */
+	private void forEachSurroundingCell(long x, long y, long radius, ForEachExecutable<L2Object> executable)
+	{
+		final int shift = L2World.CELLS_PER_REGION_SHIFT_BY;
 		
-		final ArrayBunch<L2Object> result = new ArrayBunch<L2Object>();
+		int minCellX = L2World.getCellX((int)Math.max(x - radius, L2World.MAP_MIN_X));
+		int maxCellX = L2World.getCellX((int)Math.min(x + radius, L2World.MAP_MAX_X));
+		int minCellY = L2World.getCellY((int)Math.max(y - radius, L2World.MAP_MIN_Y));
+		int maxCellY = L2World.getCellY((int)Math.min(y + radius, L2World.MAP_MAX_Y));
+		
+		// same limits as the surrounding regions
+		minCellX = Math.max(minCellX, (_tileX - 1) << shift);
+		maxCellX = Math.min(maxCellX, ((_tileX + 2) << shift) - 1);
+		minCellY = Math.max(minCellY, (_tileY - 1) << shift);
+		maxCellY = Math.min(maxCellY, ((_tileY + 2) << shift) - 1);
 		
-		for (L2WorldRegion region : selfRegion.getSurroundingRegions())
+		for (int cellX = minCellX; cellX <= maxCellX; cellX++)
 		{
-			for (L2Object obj : region.getVisibleObjects())
+			for (int cellY = minCellY; cellY <= maxCellY; cellY++)
 			{
-				if (obj == null)
-					continue;
+				final L2WorldCell cell = L2World.getExistingCell(cellX, cellY);
 				
-				final ObjectPosition objPosition = obj.getPosition();
-				
-				if (obj == object || !objPosition.isVisible())
-					continue;
-				
-				final long dx = objPosition.getX() - x;
-				final long dy = objPosition.getY() - y;
-				
-				if (dx * dx + dy * dy > sqRadius)
-					continue;
-				
-				result.add(obj);
+				if (cell != null)
+					cell.executeForEach(executable);
 			}
 		}
+	}
+	
+	/**
+	 * Executes the given task for each visible object in range, ignoring the Z axis.<br>
+	 * <br>
+	 * NOTE: The task must not move, spawn or decay objects, as the visited cells are read locked.
+	 * 
+	 * @param object the center of the query
+	 * @param radius range
+	 * @param executable the task to be executed for each object in range
+	 */
+	public static void forEachVisibleObjectAround2D(L2Object object, long radius,
+			ForEachExecutable<? super L2Object> executable)
+	{
+		forEachVisibleObjectAround(object, radius, false, executable, null);
+	}
+	
+	/**
+	 * Executes the given task for each visible object in range.<br>
+	 * <br>
+	 * NOTE: The task must not move, spawn or decay objects, as the visited cells are read locked.
+	 * 
+	 * @param object the center of the query
+	 * @param radius range
+	 * @param executable the task to be executed for each object in range
+	 */
+	public static void forEachVisibleObjectAround(L2Object object, long radius,
+			ForEachExecutable<? super L2Object> executable)
+	{
+		forEachVisibleObjectAround(object, radius, true, executable, null);
+	}
+	
+	/**
+	 * Adds each visible object in range to the given - possibly reused - result, ignoring the Z axis.
+	 * 
+	 * @param object the center of the query
+	 * @param radius range
+	 * @param result the objects in range will be added to
+	 */
+	public static void getVisibleObjectsAround2D(L2Object object, long radius, Bunch<? super L2Object> result)
+	{
+		forEachVisibleObjectAround(object, radius, false, null, result);
+	}
+	
+	/**
+	 * Adds each visible object in range to the given - possibly reused - result.
+	 * 
+	 * @param object the center of the query
+	 * @param radius range
+	 * @param result the objects in range will be added to
+	 */
+	public static void getVisibleObjectsAround(L2Object object, long radius, Bunch<? super L2Object> result)
+	{
+		forEachVisibleObjectAround(object, radius, true, null, result);
+	}
+	
+	public static L2Object[] getVisibleObjectsAround2D(L2Object object, long radius)
+	{
+		final ArrayBunch<L2Object> result = new ArrayBunch<L2Object>();
+		
+		getVisibleObjectsAround2D(object, radius, result);
 		
 		return result.moveToArray(new L2Object[result.size()]);
 	}
 	
 	public static L2Object[] getVisibleObjectsAround(L2Object object, long radius)
 	{
-		if (object == null)
-			return L2Object.EMPTY_ARRAY;
-		
-		final ObjectPosition objectPosition = object.getPosition();
-		final L2WorldRegion selfRegion = objectPosition.getWorldRegion();
-		
-		if (selfRegion == null)
-			return L2Object.EMPTY_ARRAY;
+		final ArrayBunch<L2Object> result = new ArrayBunch<L2Object>();
 		
-		final long x = objectPosition.getX();
-		final long y = objectPosition.getY();
-		final long z = objectPosition.getZ();
-		final long sqRadius = radius * radius;
+		getVisibleObjectsAround(object, radius, result);
 		
-		final ArrayBunch<L2Object> result = new ArrayBunch<L2Object>();
+		return result.moveToArray(new L2Object[result.size()]);
+	}
+	
+	/**
+	 * Filters the playables of the visited regions, and passes them to the actual receiver.
+	 */
+	private static final class PlayableFilter implements ForEachExecutable<IL2Playable>
+	{
+		private L2Object _object;
+		private ForEachExecutable<? super IL2Playable> _executable;
+		private Bunch<? super IL2Playable> _result;
 		
-		for (L2WorldRegion region : selfRegion.getSurroundingRegions())
+		@Override
+		public void execute(IL2Playable obj)
 		{
-			for (L2Object obj : region.getVisibleObjects())
-			{
-				if (obj == null)
-					continue;
-				
-				final ObjectPosition objPosition = obj.getPosition();
-				
-				if (obj == object || !objPosition.isVisible())
-					continue;
-				
-				final long dx = objPosition.getX() - x;
-				final long dy = objPosition.getY() - y;
-				final long dz = objPosition.getZ() - z;
-				
-				if (dx * dx + dy * dy + dz * dz > sqRadius)
-					continue;
-				
-				result.add(obj);
-			}
+			if (obj == null || obj == _object || !obj.getPosition().isVisible())
+				return;
+			
+			if (_executable != null)
+				_executable.execute(obj);
+			else
+				_result.add(obj);
 		}
 		
-		return result.moveToArray(new L2Object[result.size()]);
+		private void clear()
+		{
+			_object = null;
+			_executable = null;
+			_result = null;
+		}
 	}
 	
-	public static IL2Playable[] getVisiblePlayablesAround(L2Object object)
+	private static final ThreadLocalObjectPool<PlayableFilter> PLAYABLE_FILTERS = new ThreadLocalObjectPool<PlayableFilter>() {
+		@Override
+		protected void reset(PlayableFilter filter)
+		{
+			filter.clear();
+		}
+		
+		@Override
+		protected PlayableFilter create()
+		{
+			return new PlayableFilter();
+		}
+	};
+	
+	private static void forEachVisiblePlayableAround(L2Object object,
+			ForEachExecutable<? super IL2Playable> executable, Bunch<? super IL2Playable> result)
 	{
 		if (object == null)
-			return IL2Playable.EMPTY_ARRAY;
+			return;
 		
 		final L2WorldRegion selfRegion = object.getPosition().getWorldRegion();
 		
 		if (selfRegion == null)
-			return IL2Playable.EMPTY_ARRAY;
-		
-		final ArrayBunch<IL2Playable> result = new ArrayBunch<IL2Playable>();
+			return;
 		
-		for (L2WorldRegion region : selfRegion.getSurroundingRegions())
+		final PlayableFilter filter = PLAYABLE_FILTERS.get();
+		try
 		{
-			for (IL2Playable obj : region.getVisiblePlayables())
-			{
-				if (obj == null || obj == object || !obj.getPosition().isVisible())
-					continue;
-				
-				result.add(obj);
-			}
+			filter._object = object;
+			filter._executable = executable;
+			filter._result = result;
+			
+			for (L2WorldRegion region : selfRegion.getSurroundingRegions())
+				region._playables.executeForEach(filter);
+		}
+		finally
+		{
+			PLAYABLE_FILTERS.store(filter);
 		}
+	}
+	
+	/**
+	 * Executes the given task for each visible playable in the surrounding regions.<br>
+	 * <br>
+	 * NOTE: The task must not move, spawn or decay objects, as the visited regions are read locked.
+	 * 
+	 * @param object the center of the query
+	 * @param executable the task to be executed for each playable
+	 */
+	public static void forEachVisiblePlayableAround(L2Object object, ForEachExecutable<? super IL2Playable> executable)
+	{
+		forEachVisiblePlayableAround(object, executable, null);
+	}
+	
+	/**
+	 * Adds each visible playable in the surrounding regions to the given - possibly reused - result.
+	 * 
+	 * @param object the center of the query
+	 * @param result the playables will be added to
+	 */
+	public static void getVisiblePlayablesAround(L2Object object, Bunch<? super IL2Playable> result)
+	{
+		forEachVisiblePlayableAround(object, null, result);
+	}
+	
+	public static IL2Playable[] getVisiblePlayablesAround(L2Object object)
+	{
+		final ArrayBunch<IL2Playable> result = new ArrayBunch<IL2Playable>();
+		
+		getVisiblePlayablesAround(object, result);
 		
 		return result.moveToArray(new IL2Playable[result.size()]);
 	}
@@ -0,0 +1,415 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.loginserver.account;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.l2jfree.loginserver.config.DatabaseConfig;
+import com.l2jfree.sql.L2Database;
+
+/**
+ * Keeps the recently used rows of the <TT>account</TT> table in memory, so a repeated login doesn't
+ * need any database access.<br>
+ * <br>
+ * Every modification made by the login server goes through this cache: it's written to the
+ * database first, and then to the cached row. As the accounts can also be modified by external
+ * tools (like {@link com.l2jfree.loginserver.tools.L2AccountManager}), a cached row is reloaded
+ * after {@link DatabaseConfig#ACCOUNT_CACHE_TTL}.
+ * 
+ * @author agent
+ */
+public final class AccountCache
+{
+	private static final class SingletonHolder
+	{
+		public static final AccountCache INSTANCE = new AccountCache();
+	}
+	
+	public static AccountCache getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	/**
+	 * An immutable snapshot of an account row.
+	 */
+	public static final class AccountRow
+	{
+		private final String _username;
+		private final String _password;
+		private final boolean _superUser;
+		private final Date _birthDate;
+		private final int _banReason;
+		private final long _banExpiry;
+		private final int _lastServerId;
+		private final long _loadTime;
+		
+		private AccountRow(String username, String password, boolean superUser, Date birthDate, int banReason,
+				long banExpiry, int lastServerId, long loadTime)
+		{
+			_username = username;
+			_password = password;
+			_superUser = superUser;
+			_birthDate = birthDate;
+			_banReason = banReason;
+			_banExpiry = banExpiry;
+			_lastServerId = lastServerId;
+			_loadTime = loadTime;
+		}
+		
+		public String getUsername()
+		{
+			return _username;
+		}
+		
+		/**
+		 * @return the hash of the password
+		 */
+		public String getPassword()
+		{
+			return _password;
+		}
+		
+		public boolean isSuperUser()
+		{
+			return _superUser;
+		}
+		
+		public Date getBirthDate()
+		{
+			return _birthDate;
+		}
+		
+		/**
+		 * @return the reason of the ban, or 0 if the account isn't banned
+		 */
+		public int getBanReason()
+		{
+			return _banReason;
+		}
+		
+		/**
+		 * @return the end of a temporary ban, or 0
+		 */
+		public long getBanExpiry()
+		{
+			return _banExpiry;
+		}
+		
+		public int getLastServerId()
+		{
+			return _lastServerId;
+		}
+		
+		private AccountRow withBan(int banReason, long banExpiry)
+		{
+			return new AccountRow(_username, _password, _superUser, _birthDate, banReason, banExpiry, _lastServerId,
+					_loadTime);
+		}
+		
+		private AccountRow withAccessLevel(int banReason, boolean superUser)
+		{
+			return new AccountRow(_username, _password, superUser, _birthDate, banReason, _banExpiry, _lastServerId,
+					_loadTime);
+		}
+		
+		private AccountRow withLastServerId(int lastServerId)
+		{
+			return new AccountRow(_username, _password, _superUser, _birthDate, _banReason, _banExpiry, lastServerId,
+					_loadTime);
+		}
+	}
+	
+	private final Map<String, AccountRow> _rows = new LinkedHashMap<String, AccountRow>(16, 0.75f, true) {
+		private static final long serialVersionUID = -4016215880312093458L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, AccountRow> eldest)
+		{
+			return size() > DatabaseConfig.ACCOUNT_CACHE_SIZE;
+		}
+	};
+	
+	/** The pending loads, by account name - dropped by every modification, so stale rows aren't cached. */
+	private final Map<String, Object> _loads = new HashMap<String, Object>();
+	
+	private AccountCache()
+	{
+	}
+	
+	/**
+	 * Returns the account with the given name, loading it from the database, if it isn't cached, or
+	 * the cached row is too old.
+	 * 
+	 * @param username account name
+	 * @return the account, or null if it doesn't exist
+	 * @throws SQLException if the account couldn't be loaded
+	 */
+	public AccountRow getAccount(String username) throws SQLException
+	{
+		final Object load = new Object();
+		
+		synchronized (_rows)
+		{
+			final AccountRow row = _rows.get(username);
+			
+			if (row != null && System.currentTimeMillis() - row._loadTime < DatabaseConfig.ACCOUNT_CACHE_TTL)
+				return row;
+			
+			_loads.put(username, load);
+		}
+		
+		AccountRow row = null;
+		try
+		{
+			row = loadAccount(username);
+			
+			return row;
+		}
+		finally
+		{
+			synchronized (_rows)
+			{
+				// a modification (or a newer load) since the miss might have been overwritten by this row
+				if (_loads.get(username) == load)
+				{
+					_loads.remove(username);
+					
+					if (row != null)
+						_rows.put(username, row);
+					else
+						_rows.remove(username);
+				}
+			}
+		}
+	}
+	
+	private static AccountRow loadAccount(String username) throws SQLException
+	{
+		Connection con = null;
+		try
+		{
+			con = L2Database.getConnection();
+			
+			final PreparedStatement ps =
+					con.prepareStatement("SELECT password, superUser, birthDate, banReason, banExpiry, lastServerId FROM account WHERE username = ?");
+			ps.setString(1, username);
+			
+			final ResultSet rs = ps.executeQuery();
+			
+			AccountRow row = null;
+			if (rs.next())
+				row =
+						new AccountRow(username, rs.getString("password"), rs.getBoolean("superUser"),
+								rs.getDate("birthDate"), rs.getInt("banReason"), rs.getLong("banExpiry"),
+								rs.getInt("lastServerId"), System.currentTimeMillis());
+			
+			rs.close();
+			ps.close();
+			
+			return row;
+		}
+		finally
+		{
+			L2Database.close(con);
+		}
+	}
+	
+	/**
+	 * Creates a new account.
+	 * 
+	 * @param username account name
+	 * @param password hash of the password
+	 * @param superUser account privileges
+	 * @param birthDate account holder's DoB
+	 * @return the created account, or null if it wasn't created
+	 * @throws SQLException if the account couldn't be created
+	 */
+	public AccountRow createAccount(String username, String password, boolean superUser, Date birthDate)
+			throws SQLException
+	{
+		Connection con = null;
+		try
+		{
+			con = L2Database.getConnection();
+			
+			final PreparedStatement ps =
+					con.prepareStatement("INSERT INTO account(username, password, superUser, birthDate, banReason, lastServerId) VALUES (?, ?, ?, ?, ?, ?)");
+			ps.setString(1, username);
+			ps.setString(2, password);
+			ps.setBoolean(3, superUser);
+			ps.setDate(4, birthDate);
+			ps.setInt(5, 0);
+			ps.setInt(6, 0);
+			
+			final boolean created = ps.executeUpdate() > 0;
+			
+			ps.close();
+			
+			if (!created)
+				return null;
+		}
+		finally
+		{
+			L2Database.close(con);
+		}
+		
+		final AccountRow row =
+				new AccountRow(username, password, superUser, birthDate, 0, 0, 0, System.currentTimeMillis());
+		
+		synchronized (_rows)
+		{
+			_loads.remove(username);
+			
+			_rows.put(username, row);
+		}
+		
+		return row;
+	}
+	
+	/**
+	 * Bans the given account, or lifts the ban.
+	 * 
+	 * @param username account name
+	 * @param banReason reason of the ban, or 0 to lift it
+	 * @param banExpiry end of a temporary ban, or 0
+	 * @throws SQLException if the account couldn't be modified
+	 */
+	public void setBan(String username, int banReason, long banExpiry) throws SQLException
+	{
+		Connection con = null;
+		try
+		{
+			con = L2Database.getConnection();
+			
+			final PreparedStatement ps =
+					con.prepareStatement("UPDATE account SET banReason = ?, banExpiry = ? WHERE username = ?");
+			if (banReason != 0)
+				ps.setInt(1, banReason);
+			else
+				ps.setNull(1, Types.SMALLINT);
+			if (banExpiry != 0)
+				ps.setLong(2, banExpiry);
+			else
+				ps.setNull(2, Types.BIGINT);
+			ps.setString(3, username);
+			ps.executeUpdate();
+			ps.close();
+		}
+		finally
+		{
+			L2Database.close(con);
+		}
+		
+		synchronized (_rows)
+		{
+			_loads.remove(username);
+			
+			final AccountRow row = _rows.get(username);
+			
+			if (row != null)
+				_rows.put(username, row.withBan(banReason, banExpiry));
+		}
+	}
+	
+	/**
+	 * Changes the access level of the given account: a negative level bans the account, a positive
+	 * level grants superuser privileges.
+	 * 
+	 * @param username account name
+	 * @param level access level
+	 * @throws SQLException if the account couldn't be modified
+	 */
+	public void setAccessLevel(String username, int level) throws SQLException
+	{
+		final int banReason = level < 0 ? -level : 0;
+		final boolean superUser = level > 0;
+		
+		Connection con = null;
+		try
+		{
+			con = L2Database.getConnection();
+			
+			final PreparedStatement ps =
+					con.prepareStatement("UPDATE account SET banReason = ?, superUser = ? WHERE username = ?");
+			if (banReason != 0)
+				ps.setInt(1, banReason);
+			else
+				ps.setNull(1, Types.INTEGER);
+			ps.setBoolean(2, superUser);
+			ps.setString(3, username);
+			ps.executeUpdate();
+			ps.close();
+		}
+		finally
+		{
+			L2Database.close(con);
+		}
+		
+		synchronized (_rows)
+		{
+			_loads.remove(username);
+			
+			final AccountRow row = _rows.get(username);
+			
+			if (row != null)
+				_rows.put(username, row.withAccessLevel(banReason, superUser));
+		}
+	}
+	
+	/**
+	 * Stores the game server last used by the given account.
+	 * 
+	 * @param username account name
+	 * @param lastServerId ID of the game server
+	 * @throws SQLException if the account couldn't be modified
+	 */
+	public void setLastServerId(String username, int lastServerId) throws SQLException
+	{
+		Connection con = null;
+		try
+		{
+			con = L2Database.getConnection();
+			
+			final PreparedStatement ps = con.prepareStatement("UPDATE account SET lastServerId = ? WHERE username = ?");
+			ps.setInt(1, lastServerId);
+			ps.setString(2, username);
+			ps.executeUpdate();
+			ps.close();
+		}
+		finally
+		{
+			L2Database.close(con);
+		}
+		
+		synchronized (_rows)
+		{
+			_loads.remove(username);
+			
+			final AccountRow row = _rows.get(username);
+			
+			if (row != null)
+				_rows.put(username, row.withLastServerId(lastServerId));
+		}
+	}
+}
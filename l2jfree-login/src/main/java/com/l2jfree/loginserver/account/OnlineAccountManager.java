@@ -0,0 +1,83 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.loginserver.account;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.l2jfree.loginserver.network.gameserver.legacy.L2LegacyGameServer;
+
+/**
+ * Keeps track of the game server each online account is playing on, so an account can be looked up
+ * without asking every game server.<br>
+ * <br>
+ * Maintained from the <TT>PlayersInGame</TT>, <TT>PlayerAuthRequest</TT> and <TT>PlayerLogout</TT>
+ * packets, along with the online accounts of each game server.
+ * 
+ * @author agent
+ */
+public final class OnlineAccountManager
+{
+	private static final class SingletonHolder
+	{
+		public static final OnlineAccountManager INSTANCE = new OnlineAccountManager();
+	}
+	
+	public static OnlineAccountManager getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private final ConcurrentHashMap<String, L2LegacyGameServer> _accounts =
+			new ConcurrentHashMap<String, L2LegacyGameServer>();
+	
+	private OnlineAccountManager()
+	{
+	}
+	
+	/**
+	 * @param account account name
+	 * @return the game server the account is playing on, or null if it's offline
+	 */
+	public L2LegacyGameServer getGameServer(String account)
+	{
+		return _accounts.get(account);
+	}
+	
+	public void addAccount(L2LegacyGameServer gs, String account)
+	{
+		gs.getOnlineAccounts().add(account);
+		
+		_accounts.put(account, gs);
+	}
+	
+	public void removeAccount(L2LegacyGameServer gs, String account)
+	{
+		gs.getOnlineAccounts().remove(account);
+		
+		// the account might have logged in on another server meanwhile
+		_accounts.remove(account, gs);
+	}
+	
+	/**
+	 * Removes the accounts of a disconnected game server.
+	 * 
+	 * @param gs game server
+	 */
+	public void removeGameServer(L2LegacyGameServer gs)
+	{
+		for (String account : gs.getOnlineAccounts())
+			_accounts.remove(account, gs);
+	}
+}
@@ -68,4 +68,16 @@ public final class DatabaseConfig extends ConfigPropertiesLoader
 			"Whether to backup tables during server shutdown or not.", //
 			"Currently only works with MySQL and SQLite." })
 	public static boolean BACKUP_ON_SHUTDOWN;
+	
+	/** Maximum amount of cached accounts */
+	@ConfigField(name = "AccountCacheSize", value = "10000", eternal = true, comment = {
+			"Specifies the maximum number of accounts kept in memory.", //
+			"Recently used accounts can log in without accessing the database." })
+	public static int ACCOUNT_CACHE_SIZE;
+	
+	/** Maximum age of a cached account */
+	@ConfigField(name = "AccountCacheTTL", value = "60000", eternal = true, comment = {
+			"Specifies how long (in milliseconds) a cached account can be used before reloading it.", //
+			"Changes made by the account manager become visible after this time." })
+	public static long ACCOUNT_CACHE_TTL;
 }
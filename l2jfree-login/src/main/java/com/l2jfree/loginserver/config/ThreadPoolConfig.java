@@ -31,4 +31,16 @@ public final class ThreadPoolConfig extends ConfigPropertiesLoader
 					+ "the server will decide the amount depending on the available processors", //
 			"NOTE: fixing your code is always better than increasing the pool size ;)" })
 	public static int THREADS_PER_SCHEDULED_THREAD_POOL;
+	
+	/** Number of threads verifying the account credentials */
+	@ConfigField(name = "AuthenticationThreads", value = "-1", eternal = true, comment = {
+			"Specifies how many threads will decipher and verify the account credentials of the clients", //
+			"If set to -1, the server will decide the amount depending on the available processors" })
+	public static int AUTHENTICATION_THREADS;
+	
+	/** Maximum number of pending authentications */
+	@ConfigField(name = "AuthenticationQueueSize", value = "1000", eternal = true, comment = {
+			"Specifies how many logins can wait for a free authentication thread", //
+			"Further logins will be refused with a 'too high traffic' message" })
+	public static int AUTHENTICATION_QUEUE_SIZE;
 }
@@ -17,8 +17,11 @@ package com.l2jfree.loginserver.network.client;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 
+import javax.crypto.Cipher;
+
 import com.l2jfree.loginserver.account.L2Account;
 import com.l2jfree.loginserver.network.client.L2ClientSecurity.SessionKey;
 import com.l2jfree.loginserver.network.client.packets.L2ClientPacket;
@@ -28,7 +31,6 @@ import com.l2jfree.loginserver.network.client.packets.sendable.PlayFailure;
 import com.l2jfree.network.mmocore.DataSizeHolder;
 import com.l2jfree.network.mmocore.MMOConnection;
 import com.l2jfree.security.NewCipher;
-import com.l2jfree.security.ScrambledKeyPair;
 import com.l2jfree.util.HexUtil;
 import com.l2jfree.util.Rnd;
 
@@ -47,7 +49,7 @@ public final class L2Client extends MMOConnection<L2Client, L2ClientPacket, L2Se
 	
 	private final int _sessionId;
 	private final int _protocol;
-	private final ScrambledKeyPair _keyPair;
+	private final L2ClientKeyPair _keyPair;
 	private NewCipher _cipher;
 	
 	private volatile L2ClientState _state;
@@ -99,9 +101,7 @@ public final class L2Client extends MMOConnection<L2Client, L2ClientPacket, L2Se
 		size.decreaseSize(4); // checksum
 		size.setPadding(1, 8);
 		
-		getCipher().decipher(buf, dataSize);
-		
-		if (!NewCipher.verifyChecksum(buf, dataSize))
+		if (!getCipher().decipherAndVerifyChecksum(buf, dataSize))
 		{
 			closeNow();
 			return false;
@@ -134,11 +134,11 @@ public final class L2Client extends MMOConnection<L2Client, L2ClientPacket, L2Se
 				buf.putInt(pos, i ^ key);
 			}
 			buf.putInt(pos, key);
+			
+			getCipher().encipher(buf, size);
 		}
 		else
-			NewCipher.appendChecksum(buf, size);
-		
-		getCipher().encipher(buf, size);
+			getCipher().encipherWithChecksum(buf, size);
 		
 		buf.position(offset + size);
 		return true;
@@ -166,7 +166,15 @@ public final class L2Client extends MMOConnection<L2Client, L2ClientPacket, L2Se
 	@Override
 	protected boolean isAuthed()
 	{
-		return getState() != L2ClientState.CONNECTED;
+		// clients still waiting in the authentication queue are subject to the auth timeout as well
+		switch (getState())
+		{
+			case LOGGED_IN:
+			case VIEWING_LIST:
+				return true;
+			default:
+				return false;
+		}
 	}
 	
 	/**
@@ -209,12 +217,23 @@ public final class L2Client extends MMOConnection<L2Client, L2ClientPacket, L2Se
 		return getKeyPair().getPair().getPrivate();
 	}
 	
+	/**
+	 * Returns the RSA cipher of the current thread, initialized to decrypt with the private key.
+	 * 
+	 * @return a cipher, which may only be used by the current thread
+	 * @throws GeneralSecurityException if the cipher is not available
+	 */
+	public Cipher getDecryptingCipher() throws GeneralSecurityException
+	{
+		return getKeyPair().getDecryptingCipher();
+	}
+	
 	/**
 	 * Returns the scrambled RSA key pair.
 	 * 
 	 * @return key pair
 	 */
-	private ScrambledKeyPair getKeyPair()
+	private L2ClientKeyPair getKeyPair()
 	{
 		return _keyPair;
 	}
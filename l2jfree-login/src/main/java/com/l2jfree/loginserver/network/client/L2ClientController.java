@@ -22,6 +22,7 @@ import javolution.util.FastMap;
 
 import com.l2jfree.loginserver.LoginInfo;
 import com.l2jfree.loginserver.account.L2Account;
+import com.l2jfree.loginserver.config.NetworkConfig;
 import com.l2jfree.loginserver.network.client.L2ClientSecurity.SessionKey;
 import com.l2jfree.loginserver.network.client.packets.L2ClientPacket;
 import com.l2jfree.loginserver.network.client.packets.L2ServerPacket;
@@ -42,6 +43,10 @@ public final class L2ClientController extends MMOController<L2Client, L2ClientPa
 		{
 			final MMOConfig cfg = new MMOConfig(L2ClientController.class.getSimpleName());
 			cfg.setSelectorSleepTime(40);
+			cfg.setBlockingSelection(NetworkConfig.BLOCKING_SELECTION);
+			cfg.setPipelinedReading(NetworkConfig.PIPELINED_READING);
+			cfg.setGatheringWrites(NetworkConfig.GATHERING_WRITES);
+			cfg.setIdleTimeout(NetworkConfig.IDLE_TIMEOUT);
 			cfg.setThreadCount(Math.min(2, Runtime.getRuntime().availableProcessors()));
 			
 			try
@@ -0,0 +1,59 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jfree.loginserver.network.client;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+
+import javax.crypto.Cipher;
+
+import com.l2jfree.security.ScrambledKeyPair;
+
+/**
+ * A scrambled RSA key pair, which keeps an initialized decrypting cipher for each thread using it,
+ * so the ciphers don't have to be looked up and initialized with the private key for every login.
+ * 
+ * @author agent
+ */
+public final class L2ClientKeyPair extends ScrambledKeyPair
+{
+	private final ThreadLocal<Cipher> _decryptingCiphers = new ThreadLocal<Cipher>();
+	
+	public L2ClientKeyPair(KeyPair pair)
+	{
+		super(pair);
+	}
+	
+	/**
+	 * Returns the decrypting cipher of the current thread, initialized with the private key.
+	 * 
+	 * @return a cipher, which may only be used by the current thread
+	 * @throws GeneralSecurityException if the cipher is not available
+	 */
+	public Cipher getDecryptingCipher() throws GeneralSecurityException
+	{
+		Cipher cipher = _decryptingCiphers.get();
+		
+		if (cipher == null)
+		{
+			cipher = Cipher.getInstance("RSA/ECB/nopadding");
+			cipher.init(Cipher.DECRYPT_MODE, getPair().getPrivate());
+			
+			_decryptingCiphers.set(cipher);
+		}
+		
+		return cipher;
+	}
+}
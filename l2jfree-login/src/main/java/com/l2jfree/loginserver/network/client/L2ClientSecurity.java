@@ -18,15 +18,25 @@ import java.security.GeneralSecurityException;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.spec.RSAKeyGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.Cipher;
 
+import org.apache.commons.lang3.ArrayUtils;
+
 import com.l2jfree.Shutdown;
 import com.l2jfree.TerminationStatus;
-import com.l2jfree.security.ScrambledKeyPair;
+import com.l2jfree.loginserver.config.ThreadPoolConfig;
 import com.l2jfree.util.RescheduleableTask;
 import com.l2jfree.util.Rnd;
+import com.l2jfree.util.concurrent.ExecuteWrapper;
+import com.l2jfree.util.concurrent.L2ThreadPool;
 import com.l2jfree.util.logging.L2Logger;
 
 /**
@@ -41,14 +51,32 @@ public final class L2ClientSecurity
 	private static final int BLOWFISH_KEY_COUNT = 20;
 	
 	private final AtomicInteger _sessionId;
+	private final ThreadPoolExecutor _authenticationPool;
 	
-	private ScrambledKeyPair[] _keyPairs;
-	private byte[][] _blowfishKeys;
+	private volatile L2ClientKeyPair[] _keyPairs;
+	private volatile byte[][] _blowfishKeys;
 	
 	private L2ClientSecurity()
 	{
 		_sessionId = new AtomicInteger();
 		
+		int authenticationThreads = ThreadPoolConfig.AUTHENTICATION_THREADS;
+		if (authenticationThreads == -1)
+			authenticationThreads = Runtime.getRuntime().availableProcessors();
+		
+		_authenticationPool = new ThreadPoolExecutor( //
+				// int corePoolSize
+				authenticationThreads,
+				// int maximumPoolSize
+				authenticationThreads,
+				// long keepAliveTime
+				60L,
+				// TimeUnit unit
+				TimeUnit.SECONDS,
+				// BlockingQueue<Runnable> workQueue
+				new ArrayBlockingQueue<Runnable>(ThreadPoolConfig.AUTHENTICATION_QUEUE_SIZE));
+		_authenticationPool.allowCoreThreadTimeOut(true);
+		
 		new Updater().hashCode();
 		_log.info("Generated " + getKeyPairs().length + " RSA key pairs (client).");
 		_log.info("Generated " + getBlowfishKeys().length + " Blowfish keys (client).");
@@ -71,6 +99,26 @@ public final class L2ClientSecurity
 		rsaCipher.init(Cipher.DECRYPT_MODE, key);
 	}
 	
+	/**
+	 * Executes the given authentication task in a dedicated, bounded pool, so a login storm can
+	 * neither block the network threads, nor starve the general purpose pools.
+	 * 
+	 * @param task verifies the credentials of a client
+	 * @return false, if the task was rejected, because too many authentications are pending
+	 */
+	public boolean executeAuthentication(Runnable task)
+	{
+		try
+		{
+			_authenticationPool.execute(ExecuteWrapper.wrap(task));
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			return false;
+		}
+	}
+	
 	/**
 	 * Generates a session ID.
 	 * 
@@ -104,7 +152,7 @@ public final class L2ClientSecurity
 	 * 
 	 * @return a key pair
 	 */
-	public ScrambledKeyPair getKeyPair()
+	public L2ClientKeyPair getKeyPair()
 	{
 		return Rnd.get(getKeyPairs());
 	}
@@ -124,7 +172,7 @@ public final class L2ClientSecurity
 		return _sessionId;
 	}
 	
-	private ScrambledKeyPair[] getKeyPairs()
+	private L2ClientKeyPair[] getKeyPairs()
 	{
 		return _keyPairs;
 	}
@@ -193,7 +241,9 @@ public final class L2ClientSecurity
 	}
 	
 	/**
-	 * Periodically generates new keys to replace the old ones.
+	 * Periodically generates new keys to replace the old ones.<br>
+	 * <br>
+	 * The RSA key pairs are generated in parallel, while the clients keep using the old ones.
 	 * 
 	 * @author NB4L1
 	 */
@@ -202,11 +252,28 @@ public final class L2ClientSecurity
 		@Override
 		protected void runImpl()
 		{
-			final KeyPairGenerator rsa;
+			final int count = Rnd.get(RSA_KEY_PAIR_COUNT / 2, RSA_KEY_PAIR_COUNT * 3 / 2); // so clients will never know if they have all of them or not
+			final L2ClientKeyPair[] result = new L2ClientKeyPair[count];
+			final AtomicInteger nextIndex = new AtomicInteger();
+			
+			final List<Runnable> tasks = new ArrayList<Runnable>();
 			try
 			{
-				rsa = KeyPairGenerator.getInstance("RSA");
-				rsa.initialize(new RSAKeyGenParameterSpec(1024, RSAKeyGenParameterSpec.F4));
+				for (int i = Math.min(count, Runtime.getRuntime().availableProcessors()); i > 0; i--)
+				{
+					// generators aren't thread-safe, so every task has it's own
+					final KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+					rsa.initialize(new RSAKeyGenParameterSpec(1024, RSAKeyGenParameterSpec.F4));
+					
+					tasks.add(new Runnable() {
+						@Override
+						public void run()
+						{
+							for (int index; (index = nextIndex.getAndIncrement()) < count;)
+								result[index] = new L2ClientKeyPair(rsa.generateKeyPair());
+						}
+					});
+				}
 			}
 			catch (GeneralSecurityException e)
 			{
@@ -215,13 +282,21 @@ public final class L2ClientSecurity
 				return; // never happens
 			}
 			
-			final int count = Rnd.get(RSA_KEY_PAIR_COUNT / 2, RSA_KEY_PAIR_COUNT * 3 / 2); // so clients will never know if they have all of them or not
-			final ScrambledKeyPair[] result = new ScrambledKeyPair[count];
-			
-			for (int i = 0; i < count; i++)
-				result[i] = new ScrambledKeyPair(rsa.generateKeyPair());
+			L2ThreadPool.invokeAllLongRunning(tasks);
 			
-			_keyPairs = result;
+			if (ArrayUtils.contains(result, null))
+			{
+				if (_keyPairs == null)
+				{
+					_log.fatal("Could not generate RSA key pairs!");
+					Shutdown.exit(TerminationStatus.ENVIRONMENT_MISSING_COMPONENT_OR_SERVICE);
+					return; // never happens
+				}
+				
+				_log.warn("Could not generate RSA key pairs, the old ones are kept.");
+			}
+			else
+				_keyPairs = result;
 			
 			final int count2 = Rnd.get(BLOWFISH_KEY_COUNT / 2, BLOWFISH_KEY_COUNT * 3 / 2); // so clients will never know if they have all of them or not
 			byte[][] result2 = new byte[count2][BLOWFISH_KEY_LENGTH];
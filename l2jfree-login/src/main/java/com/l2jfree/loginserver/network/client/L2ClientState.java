@@ -23,6 +23,8 @@ public enum L2ClientState
 	CONNECTED,
 	/** Client has passed a GameGuard check. */
 	GAMEGUARD_PASSED,
+	/** Client has sent the account credentials, which are being verified. */
+	AUTHENTICATING,
 	/** Client has logged in with a valid account. */
 	LOGGED_IN,
 	/** Client has received the game server list. */
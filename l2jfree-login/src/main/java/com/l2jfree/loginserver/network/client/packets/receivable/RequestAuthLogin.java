@@ -22,19 +22,21 @@ import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 
 import javax.crypto.Cipher;
 
 import com.l2jfree.Shutdown;
 import com.l2jfree.TerminationStatus;
+import com.l2jfree.loginserver.account.AccountCache;
+import com.l2jfree.loginserver.account.AccountCache.AccountRow;
 import com.l2jfree.loginserver.account.AccountCharacterManager;
 import com.l2jfree.loginserver.account.L2Account;
+import com.l2jfree.loginserver.account.OnlineAccountManager;
 import com.l2jfree.loginserver.config.ServiceConfig;
 import com.l2jfree.loginserver.network.client.L2BanReason;
 import com.l2jfree.loginserver.network.client.L2Client;
+import com.l2jfree.loginserver.network.client.L2ClientSecurity;
 import com.l2jfree.loginserver.network.client.L2ClientState;
 import com.l2jfree.loginserver.network.client.L2NoServiceReason;
 import com.l2jfree.loginserver.network.client.packets.L2ClientPacket;
@@ -42,12 +44,12 @@ import com.l2jfree.loginserver.network.client.packets.sendable.LoginFailure;
 import com.l2jfree.loginserver.network.client.packets.sendable.LoginSuccess;
 import com.l2jfree.loginserver.network.client.packets.sendable.ServerList;
 import com.l2jfree.loginserver.network.gameserver.legacy.L2LegacyGameServer;
-import com.l2jfree.loginserver.network.gameserver.legacy.L2LegacyGameServerController;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.sendable.KickPlayer;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
 import com.l2jfree.sql.L2Database;
 import com.l2jfree.util.HexUtil;
+import com.l2jfree.util.concurrent.L2ThreadPool;
 
 /**
  * @author savormix
@@ -79,12 +81,43 @@ public final class RequestAuthLogin extends L2ClientPacket
 	
 	@Override
 	protected void runImpl() throws InvalidPacketException, RuntimeException
+	{
+		final L2Client client = getClient();
+		
+		// further authentication requests are refused, until this one is processed
+		client.setState(L2ClientState.AUTHENTICATING);
+		
+		final boolean accepted = L2ClientSecurity.getInstance().executeAuthentication(new Runnable() {
+			@Override
+			public void run()
+			{
+				try
+				{
+					authenticate();
+				}
+				catch (RuntimeException e)
+				{
+					client.close(new LoginFailure(L2NoServiceReason.THERE_IS_A_SYSTEM_ERROR));
+					
+					throw e;
+				}
+			}
+		});
+		
+		if (!accepted)
+			client.close(new LoginFailure(L2NoServiceReason.TOO_HIGH_TRAFFIC));
+	}
+	
+	/**
+	 * Deciphers and verifies the credentials. Executed in the authentication pool, as both RSA and
+	 * the database are too slow to be waited for in the network threads.
+	 */
+	private void authenticate()
 	{
 		final L2Client client = getClient();
 		try
 		{
-			Cipher rsa = Cipher.getInstance("RSA/ECB/nopadding");
-			rsa.init(Cipher.DECRYPT_MODE, client.getPrivateKey());
+			final Cipher rsa = client.getDecryptingCipher();
 			_userBlock = rsa.doFinal(_userBlock, 0, BLOCK_SIZE);
 			if (_passBlock != null)
 				_passBlock = rsa.doFinal(_passBlock, 0, BLOCK_SIZE);
@@ -130,35 +163,24 @@ public final class RequestAuthLogin extends L2ClientPacket
 			return;
 		}
 		
-		Connection con = null;
 		try
 		{
-			con = L2Database.getConnection();
-			PreparedStatement ps =
-					con.prepareStatement("SELECT password, superUser, birthDate, banReason, banExpiry, lastServerId FROM account WHERE username LIKE ?");
-			ps.setString(1, user);
-			ResultSet rs = ps.executeQuery();
+			final AccountCache cache = AccountCache.getInstance();
+			
+			AccountRow row = cache.getAccount(user);
 			
-			if (!rs.next())
+			if (row == null)
 			{
 				if (ServiceConfig.AUTO_CREATE_ACCOUNTS)
 				{
 					boolean isSuperUser = true; // TODO
 					Date birthDate = null;
-					PreparedStatement ps2 =
-							con.prepareStatement("INSERT INTO account(username, password, superUser, birthDate, banReason, lastServerId) VALUES (?, ?, ?, ?, ?, ?)");
-					ps2.setString(1, user);
-					ps2.setString(2, password);
-					ps2.setBoolean(3, true);
-					ps2.setDate(4, birthDate);
-					ps2.setInt(5, 0);
-					ps2.setInt(6, 0);
-					if (ps2.executeUpdate() > 0)
+					row = cache.createAccount(user, password, isSuperUser, birthDate);
+					if (row != null)
 					{
 						_log.info("Created new account: " + user);
-						requestLogin(con, user, isSuperUser, birthDate, 0);
+						requestLogin(row);
 					}
-					ps2.close();
 				}
 				else
 					// no such user
@@ -166,43 +188,30 @@ public final class RequestAuthLogin extends L2ClientPacket
 			}
 			else
 			{
-				if (password.equals(rs.getString("password")))
+				if (password.equals(row.getPassword()))
 				{
-					int ban = rs.getInt("banReason");
+					int ban = row.getBanReason();
 					if (ban != 0)
 					{
-						long expiry = rs.getLong("banExpiry");
+						long expiry = row.getBanExpiry();
 						if (expiry > 0 && expiry < System.currentTimeMillis())
 						{
 							ban = 0;
 							
-							PreparedStatement ps2 =
-									con.prepareStatement("UPDATE account SET banReason = ?, banExpiry = ? WHERE username LIKE ?");
-							ps2.setNull(1, Types.SMALLINT);
-							ps2.setNull(2, Types.BIGINT);
-							ps2.setString(3, user);
-							ps2.executeUpdate();
-							ps2.close();
+							cache.setBan(user, 0, 0);
 						}
 					}
 					
 					if (ban == 0)
 					{
-						boolean offline = true;
-						for (L2LegacyGameServer lgs : L2LegacyGameServerController.getInstance().getAuthorized())
+						final L2LegacyGameServer lgs = OnlineAccountManager.getInstance().getGameServer(user);
+						if (lgs != null)
 						{
-							if (lgs.getOnlineAccounts().contains(user))
-							{
-								offline = false;
-								lgs.sendPacket(new KickPlayer(user));
-								client.close(new LoginFailure(L2NoServiceReason.ALREADY_IN_USE));
-								break;
-							}
+							lgs.sendPacket(new KickPlayer(user));
+							client.close(new LoginFailure(L2NoServiceReason.ALREADY_IN_USE));
 						}
-						
-						if (offline)
-							requestLogin(con, user, rs.getBoolean("superUser"), rs.getDate("birthDate"),
-									rs.getInt("lastServerId"));
+						else
+							requestLogin(row);
 					}
 					else
 						// suspended
@@ -212,24 +221,20 @@ public final class RequestAuthLogin extends L2ClientPacket
 					// wrong password
 					client.close(new LoginFailure(L2NoServiceReason.PASSWORD_INCORRECT));
 			}
-			rs.close();
-			ps.close();
 		}
 		catch (SQLException e)
 		{
 			_log.error("Could not validate login credentials!", e);
 			client.close(new LoginFailure(L2NoServiceReason.THERE_IS_A_SYSTEM_ERROR));
 		}
-		finally
-		{
-			L2Database.close(con);
-		}
 	}
 	
-	private void requestLogin(Connection con, String user, boolean isSuperUser, Date birthDate, int lastServerId)
-			throws SQLException
+	private void requestLogin(AccountRow row)
 	{
-		L2Account la = new L2Account(user, isSuperUser, birthDate, lastServerId);
+		final String user = row.getUsername();
+		final String hostAddress = getClient().getHostAddress();
+		
+		L2Account la = new L2Account(user, row.isSuperUser(), row.getBirthDate(), row.getLastServerId());
 		getClient().setAccount(la);
 		
 		AccountCharacterManager.getInstance().updateAccount(user, null);
@@ -245,23 +250,49 @@ public final class RequestAuthLogin extends L2ClientPacket
 			getClient().sendPacket(new ServerList());
 		}
 		
-		PreparedStatement ps = con.prepareStatement("UPDATE account SET lastLogin = ? WHERE username = ?");
-		ps.setLong(1, System.currentTimeMillis());
-		ps.setString(2, user);
-		ps.executeUpdate();
-		ps.close();
+		// the login history isn't needed to proceed, so it's stored in the background
+		L2ThreadPool.executeLongRunning(new Runnable() {
+			@Override
+			public void run()
+			{
+				storeLogin(user, hostAddress);
+			}
+		});
+	}
+	
+	private static void storeLogin(String user, String hostAddress)
+	{
+		Connection con = null;
 		try
 		{
-			ps = con.prepareStatement("INSERT INTO logins (username, ipv4, date_) VALUES (?, ?, ?)");
-			ps.setString(1, user);
-			ps.setString(2, getClient().getHostAddress());
-			ps.setDate(3, new Date(System.currentTimeMillis()));
+			con = L2Database.getConnection();
+			
+			PreparedStatement ps = con.prepareStatement("UPDATE account SET lastLogin = ? WHERE username = ?");
+			ps.setLong(1, System.currentTimeMillis());
+			ps.setString(2, user);
 			ps.executeUpdate();
 			ps.close();
+			try
+			{
+				ps = con.prepareStatement("INSERT INTO logins (username, ipv4, date_) VALUES (?, ?, ?)");
+				ps.setString(1, user);
+				ps.setString(2, hostAddress);
+				ps.setDate(3, new Date(System.currentTimeMillis()));
+				ps.executeUpdate();
+				ps.close();
+			}
+			catch (SQLException e)
+			{
+				// one entry per IP per day by default
+			}
 		}
 		catch (SQLException e)
 		{
-			// one entry per IP per day by default
+			_log.error("Could not store login history!", e);
+		}
+		finally
+		{
+			L2Database.close(con);
 		}
 	}
 	
@@ -15,10 +15,9 @@
 package com.l2jfree.loginserver.network.client.packets.receivable;
 
 import java.nio.BufferUnderflowException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
+import com.l2jfree.loginserver.account.AccountCache;
 import com.l2jfree.loginserver.account.L2Account;
 import com.l2jfree.loginserver.network.client.L2Client;
 import com.l2jfree.loginserver.network.client.L2ClientSecurity.SessionKey;
@@ -31,7 +30,6 @@ import com.l2jfree.loginserver.network.gameserver.legacy.L2LegacyGameServerContr
 import com.l2jfree.network.legacy.ServerStatus;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
-import com.l2jfree.sql.L2Database;
 
 /**
  * @author savormix
@@ -97,25 +95,14 @@ public final class RequestServerLogin extends L2ClientPacket
 			}
 		}
 		
-		Connection con = null;
 		try
 		{
-			con = L2Database.getConnection();
-			
-			PreparedStatement ps = con.prepareStatement("UPDATE account SET lastServerId = ? WHERE username LIKE ?");
-			ps.setInt(1, _serverId);
-			ps.setString(2, acc.getAccount());
-			ps.executeUpdate();
-			ps.close();
+			AccountCache.getInstance().setLastServerId(acc.getAccount(), _serverId);
 		}
 		catch (SQLException e)
 		{
 			_log.error("Could not modify account data!", e);
 		}
-		finally
-		{
-			L2Database.close(con);
-		}
 		
 		client.close(new PlaySuccess(client, _serverId));
 	}
@@ -117,9 +117,7 @@ public final class L2LegacyGameServer extends
 		size.decreaseSize(4); // checksum
 		size.setPadding(0, 7);
 		
-		getCipher().decipher(buf, dataSize);
-		
-		if (!NewCipher.verifyChecksum(buf, dataSize))
+		if (!getCipher().decipherAndVerifyChecksum(buf, dataSize))
 		{
 			_log.warn("Could not decipher received data: checksum mismatch. " + this);
 			closeNow();
@@ -137,9 +135,7 @@ public final class L2LegacyGameServer extends
 		size += 4; // checksum
 		size += 8 - (size & 7); // padding
 		
-		NewCipher.appendChecksum(buf, size);
-		
-		getCipher().encipher(buf, size);
+		getCipher().encipherWithChecksum(buf, size);
 		
 		buf.position(offset + size);
 		return true;
@@ -23,6 +23,8 @@ import java.util.Collection;
 import javolution.util.FastMap;
 
 import com.l2jfree.loginserver.LoginInfo;
+import com.l2jfree.loginserver.account.OnlineAccountManager;
+import com.l2jfree.loginserver.config.NetworkConfig;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyLoginServerPacket;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.sendable.InitLS;
@@ -41,6 +43,7 @@ public final class L2LegacyGameServerController extends
 		{
 			final MMOConfig cfg = new MMOConfig(L2LegacyGameServerController.class.getSimpleName());
 			cfg.setSelectorSleepTime(25);
+			cfg.setBlockingSelection(NetworkConfig.BLOCKING_SELECTION);
 			cfg.setThreadCount(1);
 			
 			try
@@ -108,6 +111,8 @@ public final class L2LegacyGameServerController extends
 		Integer id = client.getId();
 		if (id != null)
 			getGameServers().remove(id);
+		
+		OnlineAccountManager.getInstance().removeGameServer(client);
 	}
 	
 	/**
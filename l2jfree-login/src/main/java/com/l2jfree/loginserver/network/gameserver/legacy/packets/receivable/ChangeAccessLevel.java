@@ -15,15 +15,12 @@
 package com.l2jfree.loginserver.network.gameserver.legacy.packets.receivable;
 
 import java.nio.BufferUnderflowException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Types;
 
+import com.l2jfree.loginserver.account.AccountCache;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
-import com.l2jfree.sql.L2Database;
 
 /**
  * @author savormix
@@ -52,28 +49,13 @@ public final class ChangeAccessLevel extends L2LegacyGameServerPacket
 	@Override
 	protected void runImpl() throws InvalidPacketException, RuntimeException
 	{
-		Connection con = null;
 		try
 		{
-			con = L2Database.getConnection();
-			PreparedStatement ps =
-					con.prepareStatement("UPDATE account SET banReason = ?, superUser = ? WHERE username LIKE ?");
-			if (_level < 0)
-				ps.setInt(1, -_level);
-			else
-				ps.setNull(1, Types.INTEGER);
-			ps.setBoolean(2, _level > 0);
-			ps.setString(3, _account);
-			ps.executeUpdate();
-			ps.close();
+			AccountCache.getInstance().setAccessLevel(_account, _level);
 		}
 		catch (SQLException e)
 		{
 			_log.error("Could not change account access level!", e);
 		}
-		finally
-		{
-			L2Database.close(con);
-		}
 	}
 }
@@ -16,6 +16,7 @@ package com.l2jfree.loginserver.network.gameserver.legacy.packets.receivable;
 
 import java.nio.BufferUnderflowException;
 
+import com.l2jfree.loginserver.account.OnlineAccountManager;
 import com.l2jfree.loginserver.network.client.L2ClientController;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.sendable.PlayerAuthResponse;
@@ -52,6 +53,9 @@ public final class PlayerAuthRequest extends L2LegacyGameServerPacket
 	protected void runImpl() throws InvalidPacketException, RuntimeException
 	{
 		boolean valid = L2ClientController.getInstance().isAuthorized(_account, _activeSessionKey, _oldSessionKey);
+		if (valid)
+			OnlineAccountManager.getInstance().addAccount(getClient(), _account);
+		
 		sendPacket(new PlayerAuthResponse(_account, valid));
 	}
 }
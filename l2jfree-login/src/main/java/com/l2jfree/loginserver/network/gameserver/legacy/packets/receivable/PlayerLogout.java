@@ -17,6 +17,7 @@ package com.l2jfree.loginserver.network.gameserver.legacy.packets.receivable;
 import java.nio.BufferUnderflowException;
 
 import com.l2jfree.loginserver.account.AccountCharacterManager;
+import com.l2jfree.loginserver.account.OnlineAccountManager;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
@@ -46,7 +47,7 @@ public final class PlayerLogout extends L2LegacyGameServerPacket
 	@Override
 	protected void runImpl() throws InvalidPacketException, RuntimeException
 	{
-		getClient().getOnlineAccounts().remove(_account);
+		OnlineAccountManager.getInstance().removeAccount(getClient(), _account);
 		
 		AccountCharacterManager.getInstance().updateAccount(_account, getClient().getId());
 	}
@@ -18,6 +18,7 @@ import java.nio.BufferUnderflowException;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.l2jfree.loginserver.account.OnlineAccountManager;
 import com.l2jfree.loginserver.network.gameserver.legacy.L2LegacyGameServer;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.network.mmocore.InvalidPacketException;
@@ -53,6 +54,6 @@ public final class PlayersInGame extends L2LegacyGameServerPacket
 	{
 		final L2LegacyGameServer lgs = getClient();
 		for (String s : _accounts)
-			lgs.getOnlineAccounts().add(s);
+			OnlineAccountManager.getInstance().addAccount(lgs, s);
 	}
 }
@@ -15,19 +15,17 @@
 package com.l2jfree.loginserver.network.gameserver.legacy.packets.receivable;
 
 import java.nio.BufferUnderflowException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
+import com.l2jfree.loginserver.account.AccountCache;
 import com.l2jfree.loginserver.network.client.L2NoServiceReason;
 import com.l2jfree.loginserver.network.gameserver.legacy.packets.L2LegacyGameServerPacket;
 import com.l2jfree.network.mmocore.InvalidPacketException;
 import com.l2jfree.network.mmocore.MMOBuffer;
-import com.l2jfree.sql.L2Database;
 
 /**
  * @author savormix
@@ -65,17 +63,9 @@ public class RequestTempBan extends L2LegacyGameServerPacket
 	protected void runImpl() throws InvalidPacketException, RuntimeException
 	{
 		// temporary ban
-		Connection con = null;
 		try
 		{
-			con = L2Database.getConnection();
-			PreparedStatement ps =
-					con.prepareStatement("UPDATE account SET banReason = ?, banExpiry = ? WHERE username LIKE ?");
-			ps.setInt(1, -L2NoServiceReason.ACCESS_FAILED_TRY_AGAIN.getId());
-			ps.setLong(2, _expiry);
-			ps.setString(3, _account);
-			ps.executeUpdate();
-			ps.close();
+			AccountCache.getInstance().setBan(_account, -L2NoServiceReason.ACCESS_FAILED_TRY_AGAIN.getId(), _expiry);
 			
 			_log.info("Banned " + _account + " until " + EXP_FORMAT.format(new Date(_expiry)));
 		}
@@ -83,10 +73,6 @@ public class RequestTempBan extends L2LegacyGameServerPacket
 		{
 			_log.error("Could not temporarily ban account!", e);
 		}
-		finally
-		{
-			L2Database.close(con);
-		}
 		
 		// TODO: ban IP as well?
 	}